@@ -28,15 +28,13 @@ import java.util.List;
 import java.util.Map;
 
 import cn.hutool.extra.servlet.ServletUtil;
-import cn.hutool.http.useragent.Browser;
-import cn.hutool.http.useragent.OS;
 import cn.hutool.http.useragent.UserAgent;
-import cn.hutool.http.useragent.UserAgentUtil;
 import cn.hutool.json.JSONUtil;
 import cn.sliew.scaleph.common.constant.Constants;
 import cn.sliew.scaleph.common.constant.DictConstants;
 import cn.sliew.scaleph.common.enums.LoginTypeEnum;
-import cn.sliew.scaleph.log.service.LogActionService;
+import cn.sliew.scaleph.log.audit.AuditLogWriter;
+import cn.sliew.scaleph.log.audit.UserAgentCache;
 import cn.sliew.scaleph.log.service.LogLoginService;
 import cn.sliew.scaleph.log.service.dto.LogActionDTO;
 import cn.sliew.scaleph.log.service.dto.LogLoginDTO;
@@ -65,7 +63,9 @@ import org.springframework.web.multipart.MultipartFile;
 @Component
 public class LogAspect {
     @Autowired
-    private LogActionService logActionService;
+    private AuditLogWriter auditLogWriter;
+    @Autowired
+    private UserAgentCache userAgentCache;
     @Autowired
     private LogLoginService logLoginService;
 
@@ -176,7 +176,7 @@ public class LogAspect {
     }
 
     /**
-     * 插入操作日志
+     * 插入操作日志，请求线程只采集请求信息，参数序列化和入库由{@link AuditLogWriter}异步完成
      *
      * @param joinPoint joinPoint返回结果或者异常
      * @param startTime 开始时间
@@ -188,37 +188,44 @@ public class LogAspect {
             HttpServletRequest request = getRequest();
             log.setUserName(SecurityUtil.getCurrentUserName());
             log.setActionTime(new Date(startTime));
-            String agentStr = request.getHeader("User-Agent");
-            UserAgent userAgent = UserAgentUtil.parse(agentStr);
-            OS os = userAgent.getOs();
-            Browser browser = userAgent.getBrowser();
             log.setIpAddress(ServletUtil.getClientIP(request));
             log.setActionUrl(request.getRequestURL().toString());
             log.setToken(resolveToken(request));
-            log.setClientInfo(userAgent.getPlatform().getName());
-            log.setOsInfo(os.getName());
-            log.setBrowserInfo(browser.toString());
+            UserAgent userAgent = userAgentCache.parse(request.getHeader("User-Agent"));
+            if (userAgent != null) {
+                log.setClientInfo(userAgent.getPlatform().getName());
+                log.setOsInfo(userAgent.getOs().getName());
+                log.setBrowserInfo(userAgent.getBrowser().toString());
+            }
             //action info
-            Map<String, Object> actionInfo = new HashMap<>(3);
             Object[] args = joinPoint.getArgs();
-            if (args != null && args.length >= 1 && !(args[0] instanceof Throwable)) {
-                actionInfo.put("params", getParameter(joinPoint.getArgs()));
-                actionInfo.put("result", "success");
-            } else if (args != null && args.length >= 1) {
-                actionInfo.put("result", "error");
-                actionInfo.put("exception", JSONUtil.toJsonStr(((Throwable) args[0]).getMessage()));
-            } else {
-                actionInfo.put("result", "success");
-            }
-            actionInfo.put("method", request.getMethod());
-            actionInfo.put("elapsed_time", endTime - startTime);
-            log.setActionInfo(JSONUtil.toJsonStr(actionInfo));
-            this.logActionService.insert(log);
+            String method = request.getMethod();
+            auditLogWriter.submit(log, () -> getActionInfo(args, method, endTime - startTime));
         } catch (Exception e) {
             log.error("操作日志记录失败！", e);
         }
     }
 
+    private String getActionInfo(Object[] args, String method, long elapsedTime) {
+        Map<String, Object> actionInfo = new HashMap<>(4);
+        if (args != null && args.length >= 1 && !(args[0] instanceof Throwable)) {
+            try {
+                actionInfo.put("params", getParameter(args));
+            } catch (JsonProcessingException e) {
+                log.error("操作日志参数序列化失败！", e);
+            }
+            actionInfo.put("result", "success");
+        } else if (args != null && args.length >= 1) {
+            actionInfo.put("result", "error");
+            actionInfo.put("exception", JSONUtil.toJsonStr(((Throwable) args[0]).getMessage()));
+        } else {
+            actionInfo.put("result", "success");
+        }
+        actionInfo.put("method", method);
+        actionInfo.put("elapsed_time", elapsedTime);
+        return JSONUtil.toJsonStr(actionInfo);
+    }
+
     /**
      * 插入登录日志
      *
@@ -233,15 +240,14 @@ public class LogAspect {
             HttpServletRequest request = getRequest();
             log.setUserName(SecurityUtil.getCurrentUserName());
             log.setLoginTime(new Date(startTime));
-            String agentStr = request.getHeader("User-Agent");
-            UserAgent userAgent = UserAgentUtil.parse(agentStr);
-            OS os = userAgent.getOs();
-            Browser browser = userAgent.getBrowser();
             log.setIpAddress(ServletUtil.getClientIP(request));
             log.setLoginType(loginType);
-            log.setClientInfo(userAgent.getPlatform().getName());
-            log.setOsInfo(os.getName());
-            log.setBrowserInfo(browser.toString());
+            UserAgent userAgent = userAgentCache.parse(request.getHeader("User-Agent"));
+            if (userAgent != null) {
+                log.setClientInfo(userAgent.getPlatform().getName());
+                log.setOsInfo(userAgent.getOs().getName());
+                log.setBrowserInfo(userAgent.getBrowser().toString());
+            }
             //action info
             Map<String, Object> actionInfo = new HashMap<>(3);
             actionInfo.put("data", JSONUtil.toJsonStr(result));
@@ -19,12 +19,14 @@
 package cn.sliew.scaleph.api.controller.resource;
 
 import cn.sliew.scaleph.api.annotation.Logging;
+import cn.sliew.scaleph.api.util.FileDownloadUtil;
 import cn.sliew.scaleph.system.vo.ResponseVO;
 import cn.sliew.scaleph.common.exception.ScalephException;
 import cn.sliew.scaleph.resource.service.JarService;
 import cn.sliew.scaleph.resource.service.dto.JarDTO;
 import cn.sliew.scaleph.resource.service.param.JarListParam;
 import cn.sliew.scaleph.resource.service.param.JarUploadParam;
+import cn.sliew.scaleph.storage.service.FileSystemService;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -35,11 +37,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
-import java.net.URLEncoder;
 import java.util.List;
 
 @Slf4j
@@ -50,6 +51,8 @@ public class JarController {
 
     @Autowired
     private JarService jarService;
+    @Autowired
+    private FileSystemService fileSystemService;
 
     @Logging
     @GetMapping
@@ -84,13 +87,9 @@ public class JarController {
     @Logging
     @GetMapping("download/{id}")
     @ApiOperation("下载 jar")
-    public ResponseEntity<ResponseVO> download(@PathVariable("id") Long id, HttpServletResponse response) throws IOException {
-        try (ServletOutputStream outputStream = response.getOutputStream()) {
-            final String name = jarService.download(id, outputStream);
-            response.setCharacterEncoding("utf-8");// 设置字符编码
-            response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode(name, "UTF-8")); // 设置响应头
-        }
-        return new ResponseEntity<>(ResponseVO.success(), HttpStatus.OK);
+    public void download(@PathVariable("id") Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final JarDTO dto = jarService.selectOne(id);
+        FileDownloadUtil.download(fileSystemService, dto.getPath(), dto.getFileName(), request, response);
     }
 
     @Logging
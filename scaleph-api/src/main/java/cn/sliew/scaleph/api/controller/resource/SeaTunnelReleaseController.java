@@ -19,6 +19,7 @@
 package cn.sliew.scaleph.api.controller.resource;
 
 import cn.sliew.scaleph.api.annotation.Logging;
+import cn.sliew.scaleph.api.util.FileDownloadUtil;
 import cn.sliew.scaleph.common.exception.ScalephException;
 import cn.sliew.scaleph.resource.service.SeaTunnelReleaseService;
 import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseDTO;
@@ -27,6 +28,7 @@ import cn.sliew.scaleph.resource.service.param.SeaTunnelReleaseListParam;
 import cn.sliew.scaleph.resource.service.param.SeaTunnelReleaseUploadParam;
 import cn.sliew.scaleph.resource.service.vo.FileStatusVO;
 import cn.sliew.scaleph.system.vo.ResponseVO;
+import cn.sliew.scaleph.storage.service.FileSystemService;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -36,11 +38,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
-import java.net.URLEncoder;
 import java.util.List;
 
 @Api(tags = "资源管理-seatunnel-release")
@@ -50,6 +51,8 @@ public class SeaTunnelReleaseController {
 
     @Autowired
     private SeaTunnelReleaseService seaTunnelReleaseService;
+    @Autowired
+    private FileSystemService fileSystemService;
 
     @Logging
     @GetMapping
@@ -111,25 +114,17 @@ public class SeaTunnelReleaseController {
     @Logging
     @GetMapping("download/{id}")
     @ApiOperation("下载 release")
-    public ResponseEntity<ResponseVO> download(@PathVariable("id") Long id, HttpServletResponse response) throws IOException {
-        try (ServletOutputStream outputStream = response.getOutputStream()) {
-            final String name = seaTunnelReleaseService.download(id, outputStream);
-            response.setCharacterEncoding("utf-8");// 设置字符编码
-            response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode(name, "UTF-8")); // 设置响应头
-        }
-        return new ResponseEntity<>(ResponseVO.success(), HttpStatus.OK);
+    public void download(@PathVariable("id") Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final SeaTunnelReleaseDTO dto = seaTunnelReleaseService.selectOne(id);
+        FileDownloadUtil.download(fileSystemService, dto.getPath(), dto.getFileName(), request, response);
     }
 
     @Logging
     @GetMapping("download/{id}/connectors/{connector}")
     @ApiOperation("下载 release connector")
-    public ResponseEntity<ResponseVO> downloadConnector(@PathVariable("id") Long id, @PathVariable("connector") String connector, HttpServletResponse response) throws IOException {
-        try (ServletOutputStream outputStream = response.getOutputStream()) {
-            String name = seaTunnelReleaseService.downloadConnector(id, connector, outputStream);
-            response.setCharacterEncoding("utf-8");// 设置字符编码
-            response.setHeader("Content-disposition", "attachment;filename=" + URLEncoder.encode(name, "UTF-8")); // 设置响应头
-        }
-        return new ResponseEntity<>(ResponseVO.success(), HttpStatus.OK);
+    public void downloadConnector(@PathVariable("id") Long id, @PathVariable("connector") String connector, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String path = seaTunnelReleaseService.getConnectorPath(id, connector);
+        FileDownloadUtil.download(fileSystemService, path, connector, request, response);
     }
 
     @Logging
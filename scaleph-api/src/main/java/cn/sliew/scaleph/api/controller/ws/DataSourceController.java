@@ -25,6 +25,7 @@ import cn.sliew.scaleph.common.param.PropertyUtil;
 import cn.sliew.scaleph.meta.service.MetaDatasourceService;
 import cn.sliew.scaleph.meta.service.dto.MetaDatasourceDTO;
 import cn.sliew.scaleph.meta.service.param.MetaDatasourceParam;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolStats;
 import cn.sliew.scaleph.plugin.framework.property.Property;
 import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
 import cn.sliew.scaleph.system.service.vo.DictVO;
@@ -170,13 +171,22 @@ public class DataSourceController {
                 );
             }
             if (!metaDatasourceDTO.getPasswdChanged()) {
-                MetaDatasourceDTO oldDsInfo = this.metaDatasourceService.selectOne(metaDatasourceDTO.getId(), false);
-                metaDatasourceDTO = oldDsInfo;
+                // 测试已保存的数据源，复用它的连接池
+                this.metaDatasourceService.testConnection(metaDatasourceDTO.getId());
+            } else {
+                this.metaDatasourceService.testConnection(metaDatasourceDTO);
             }
-            this.metaDatasourceService.testConnection(metaDatasourceDTO);
             return new ResponseEntity<>(ResponseVO.success(), HttpStatus.OK);
         } catch (Exception e) {
             throw new ScalephException(e.getMessage(), e);
         }
     }
+
+    @Logging
+    @GetMapping(path = "/pool")
+    @ApiOperation(value = "查询数据源连接池", notes = "查询已保存数据源的连接池状态")
+    @PreAuthorize("@svs.validate(T(cn.sliew.scaleph.common.constant.PrivilegeConstants).DATADEV_DATASOURCE_SELECT)")
+    public ResponseEntity<List<JdbcPoolStats>> listPoolStats() {
+        return new ResponseEntity<>(this.metaDatasourceService.getPoolStats(), HttpStatus.OK);
+    }
 }
@@ -20,9 +20,11 @@ package cn.sliew.scaleph.api.controller.ws;
 
 import cn.sliew.scaleph.api.annotation.Logging;
 import cn.sliew.scaleph.common.exception.ScalephException;
+import cn.sliew.scaleph.engine.seatunnel.service.SeatunnelConfigService;
 import cn.sliew.scaleph.engine.seatunnel.service.SeatunnelJobService;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobService;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.DagPanelDTO;
+import cn.sliew.scaleph.engine.seatunnel.service.dto.SeatunnelConfigCacheStatsDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.param.WsDiJobGraphParam;
 import cn.sliew.scaleph.engine.seatunnel.service.param.WsDiJobParam;
@@ -54,6 +56,8 @@ public class WsDiJobController {
     private WsDiJobService wsDiJobService;
     @Autowired
     private SeatunnelJobService seatunnelJobService;
+    @Autowired
+    private SeatunnelConfigService seatunnelConfigService;
 
     @Logging
     @GetMapping
@@ -163,6 +167,15 @@ public class WsDiJobController {
         return new ResponseEntity<>(ResponseVO.success(conf), HttpStatus.OK);
     }
 
+    @Logging
+    @GetMapping(path = "/preview/cache")
+    @ApiOperation(value = "查询作业配置缓存统计", notes = "查询作业配置缓存命中、未命中次数")
+    @PreAuthorize("@svs.validate(T(cn.sliew.scaleph.common.constant.PrivilegeConstants).DATADEV_JOB_SELECT)")
+    public ResponseEntity<SeatunnelConfigCacheStatsDTO> getConfigCacheStats() {
+        SeatunnelConfigCacheStatsDTO stats = seatunnelConfigService.getCacheStats();
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
     @Logging
     @GetMapping(path = "/node/meta")
     @ApiOperation(value = "查询DAG节点元信息", notes = "后端统一返回节点信息")
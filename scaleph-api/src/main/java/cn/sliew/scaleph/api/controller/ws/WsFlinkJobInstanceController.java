@@ -23,6 +23,7 @@ import cn.sliew.scaleph.engine.flink.service.*;
 import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkCheckpointDTO;
 import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobDTO;
 import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobInstanceDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionDTO;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkCheckpointListParam;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkJobInstanceListParam;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkJobSubmitParam;
@@ -31,13 +32,19 @@ import cn.sliew.scaleph.system.vo.ResponseVO;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Api(tags = "Flink管理-任务实例管理")
 @RestController
 @RequestMapping(path = "/api/flink/job-instance")
@@ -55,6 +62,8 @@ public class WsFlinkJobInstanceController {
     private UidGenerator defaultUidGenerator;
     @Autowired
     private WsFlinkJobService wsFlinkJobService;
+    @Autowired
+    private WsFlinkJobSubmissionService wsFlinkJobSubmissionService;
 
     @Logging
     @GetMapping
@@ -82,13 +91,42 @@ public class WsFlinkJobInstanceController {
 
     @Logging
     @PutMapping("submit")
-    @ApiOperation(value = "提交任务", notes = "提交任务")
+    @ApiOperation(value = "提交任务", notes = "异步提交任务，返回提交记录，通过提交记录查询提交进度")
     public ResponseEntity<ResponseVO> submitJar(@Valid @RequestBody WsFlinkJobSubmitParam param) throws Exception {
         WsFlinkJobDTO job = wsFlinkJobService.selectOne(param.getFlinkJobId());
         wsFlinkJobInstanceService.archiveLog(job.getCode());
         job.setName(job.getName() + "_" + defaultUidGenerator.getUID());
-        wsFlinkService.submit(job);
-        return new ResponseEntity<>(ResponseVO.success(), HttpStatus.OK);
+        WsFlinkJobSubmissionDTO submission = wsFlinkJobSubmissionService.submit(job);
+        return new ResponseEntity<>(ResponseVO.success(submission), HttpStatus.OK);
+    }
+
+    @Logging
+    @GetMapping("submission/{id}")
+    @ApiOperation(value = "查询任务提交进度", notes = "查询任务提交进度")
+    public ResponseEntity<WsFlinkJobSubmissionDTO> submission(@PathVariable("id") Long id) {
+        WsFlinkJobSubmissionDTO submission = wsFlinkJobSubmissionService.selectOne(id);
+        return new ResponseEntity<>(submission, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "submission/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "订阅任务提交进度", notes = "提交进入每个阶段时推送 stage 事件，提交结束后关闭连接")
+    public SseEmitter submissionEvents(@PathVariable("id") Long id) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(30L));
+        Runnable unsubscribe = wsFlinkJobSubmissionService.subscribe(id, submission -> {
+            try {
+                emitter.send(SseEmitter.event().name("stage").data(submission, MediaType.APPLICATION_JSON));
+                if (wsFlinkJobSubmissionService.isTerminated(submission)) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                log.debug("send flink job submission {} event failed", id, e);
+                emitter.completeWithError(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
     }
 
     @Logging
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.api.util;
+
+import cn.sliew.scaleph.storage.service.FileSystemService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 文件下载，支持 Range 断点续传和 If-None-Match 条件请求。
+ * 本地文件优先使用 tomcat sendfile，其次使用 FileChannel#transferTo 传输，远程文件的本地缓存在传输期间不会被删除
+ */
+public enum FileDownloadUtil {
+    ;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public static void download(FileSystemService fileSystemService, String path, String name,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // cached copies of remote files may be evicted before tomcat sends them, only local files use sendfile
+        File localFile = fileSystemService.isDistributedFS() ? null : fileSystemService.getLocalFile(path);
+        long length = localFile != null ? localFile.length() : fileSystemService.getFileSize(path);
+        String etag = "\"" + fileSystemService.getContentHash(path) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0L;
+        long count = length;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (StringUtils.hasText(range) && (StringUtils.hasText(ifRange) == false || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // multipart/byteranges is not supported, respond with the whole file instead
+                if (ranges.size() == 1) {
+                    // getRangeStart returns the first position unchecked, a start beyond the file is not satisfiable
+                    start = ranges.get(0).getRangeStart(length);
+                    count = ranges.get(0).getRangeEnd(length) - start + 1;
+                    if (start >= length || count <= 0) {
+                        throw new IllegalArgumentException("range " + range + " not satisfiable for length " + length);
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + count - 1) + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + URLEncoder.encode(name, StandardCharsets.UTF_8.name()));
+        response.setContentLengthLong(count);
+        if (localFile != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, localFile.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        OutputStream outputStream = response.getOutputStream();
+        fileSystemService.transferTo(path, start, count, Channels.newChannel(outputStream));
+        outputStream.flush();
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (StringUtils.hasText(ifNoneMatch) == false) {
+            return false;
+        }
+        for (String candidate : StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
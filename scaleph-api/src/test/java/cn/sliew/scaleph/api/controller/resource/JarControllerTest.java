@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.api.controller.resource;
+
+import cn.sliew.scaleph.resource.service.JarService;
+import cn.sliew.scaleph.resource.service.dto.JarDTO;
+import cn.sliew.scaleph.storage.service.FileSystemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JarControllerTest {
+
+    private static final String PATH = "jar/test.jar";
+
+    @TempDir
+    Path dir;
+
+    private final byte[] content = new byte[100];
+    private FileSystemService fileSystemService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File file = Files.write(dir.resolve("test.jar"), content).toFile();
+
+        JarDTO jar = new JarDTO();
+        jar.setPath(PATH);
+        jar.setFileName("test.jar");
+        JarService jarService = Mockito.mock(JarService.class);
+        Mockito.when(jarService.selectOne(1L)).thenReturn(jar);
+
+        fileSystemService = Mockito.mock(FileSystemService.class);
+        Mockito.when(fileSystemService.isDistributedFS()).thenReturn(false);
+        Mockito.when(fileSystemService.getLocalFile(PATH)).thenReturn(file);
+        Mockito.when(fileSystemService.getContentHash(PATH)).thenReturn("hash");
+        Mockito.when(fileSystemService.transferTo(eq(PATH), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            int position = ((Long) invocation.getArgument(1)).intValue();
+            int count = ((Long) invocation.getArgument(2)).intValue();
+            WritableByteChannel target = invocation.getArgument(3);
+            return (long) target.write(ByteBuffer.wrap(content, position, count));
+        });
+
+        JarController controller = new JarController();
+        ReflectionTestUtils.setField(controller, "jarService", jarService);
+        ReflectionTestUtils.setField(controller, "fileSystemService", fileSystemService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void downloadRange() throws Exception {
+        mockMvc.perform(get("/api/resource/jar/download/1").header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10L))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 10, 20)));
+    }
+
+    @Test
+    void rangeBeyondFileIsNotSatisfiable() throws Exception {
+        for (String range : new String[]{"bytes=5000-", "bytes=100-", "bytes=100-200"}) {
+            mockMvc.perform(get("/api/resource/jar/download/1").header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+        }
+        Mockito.verify(fileSystemService, Mockito.never()).transferTo(anyString(), anyLong(), anyLong(), any());
+    }
+}
@@ -30,15 +30,24 @@ public abstract class AbstractContainer extends AbstractLifeCycle implements Con
 
     @Override
     public void execute(Runnable task, ActionListener<Void> listener) {
-        LifeCycleResult initializeResult = initialize();
-        if (initializeResult.isSuccess() == false) {
-            listener.onFailure(new Exception(initializeResult.getThrowable()));
-            return;
-        }
-        LifeCycleResult startResult = start();
-        if (startResult.isSuccess() == false) {
-            listener.onFailure(new Exception(startResult.getThrowable()));
-            return;
+        // recycled containers are already started
+        if (isStarted() == false) {
+            synchronized (this) {
+                if (getState() == null) {
+                    LifeCycleResult initializeResult = initialize();
+                    if (initializeResult.isSuccess() == false) {
+                        listener.onFailure(new Exception(initializeResult.getThrowable()));
+                        return;
+                    }
+                }
+                if (isStarted() == false) {
+                    LifeCycleResult startResult = start();
+                    if (startResult.isSuccess() == false) {
+                        listener.onFailure(new Exception(startResult.getThrowable()));
+                        return;
+                    }
+                }
+            }
         }
         doExecute(task, listener);
     }
@@ -29,7 +29,7 @@ public class ThreadContainer extends AbstractContainer {
 
     private final Executor executor;
 
-    private transient CompletableFuture<Void> future;
+    private transient volatile CompletableFuture<Void> future;
 
     public ThreadContainer(Executor executor) {
         this.executor = checkNotNull(executor);
@@ -59,8 +59,9 @@ public class ThreadContainer extends AbstractContainer {
 
     @Override
     protected void doStop() {
-        if (future.isDone() == false) {
-            future.cancel(true);
+        CompletableFuture<Void> current = future;
+        if (current != null && current.isDone() == false) {
+            current.cancel(true);
         }
     }
 }
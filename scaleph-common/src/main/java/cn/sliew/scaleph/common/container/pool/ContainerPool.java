@@ -25,4 +25,6 @@ public interface ContainerPool extends Recycler<Container> {
 
     @Override
     ContainerValue obtain();
+
+    ContainerPoolStats getStats();
 }
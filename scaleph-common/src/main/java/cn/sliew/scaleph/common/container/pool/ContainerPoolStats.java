@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.common.container.pool;
+
+import lombok.Data;
+
+@Data
+public class ContainerPoolStats {
+
+    private String name;
+
+    /**
+     * containers created by the pool
+     */
+    private long created;
+
+    /**
+     * obtains served by an idle container
+     */
+    private long reused;
+
+    /**
+     * containers obtained and not closed yet
+     */
+    private int active;
+
+    /**
+     * containers waiting to be reused
+     */
+    private int idle;
+
+    private int poolSize;
+
+    private int maxPoolSize;
+
+    private int activeThreads;
+
+    private int largestPoolSize;
+
+    private int queueDepth;
+
+    private int queueRemainingCapacity;
+
+    private long completedTasks;
+
+    private long rejectedTasks;
+
+    /**
+     * busy threads divided by max pool size
+     */
+    public double getSaturation() {
+        return maxPoolSize == 0 ? 0.0 : (double) activeThreads / maxPoolSize;
+    }
+}
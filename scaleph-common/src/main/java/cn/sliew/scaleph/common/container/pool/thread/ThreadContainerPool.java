@@ -20,17 +20,119 @@ package cn.sliew.scaleph.common.container.pool.thread;
 
 import cn.sliew.scaleph.common.container.Container;
 import cn.sliew.scaleph.common.container.pool.ContainerPool;
+import cn.sliew.scaleph.common.container.pool.ContainerPoolStats;
 import cn.sliew.scaleph.common.container.pool.ContainerValue;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static cn.sliew.milky.common.check.Ensures.checkArgument;
+
+/**
+ * Named, shared pool of {@link cn.sliew.scaleph.common.container.ThreadContainer}s.
+ * Closed containers go back to an idle stack, at most {@code maxIdle} of them, and are handed out again by
+ * {@link #obtain()}. Pools are registered by name, so every caller asking for the same name shares
+ * containers and executor threads, asking for an existing name with other settings fails.
+ */
 public class ThreadContainerPool implements ContainerPool {
 
-    private ThreadContainerSource source = new ThreadContainerSource();
+    public static final String DEFAULT_POOL = "default";
+
+    private static final ConcurrentMap<String, ThreadContainerPool> POOLS = new ConcurrentHashMap<>();
+
+    public static ThreadContainerPool getDefault() {
+        int poolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
+        return getOrCreate(DEFAULT_POOL, poolSize, 1024, Duration.ofSeconds(60L));
+    }
+
+    public static ThreadContainerPool getOrCreate(String name, int poolSize, int queueCapacity, Duration keepAlive) {
+        ThreadContainerPool pool = POOLS.computeIfAbsent(name, key -> new ThreadContainerPool(key, poolSize, queueCapacity, keepAlive));
+        checkArgument(pool.poolSize == poolSize && pool.queueCapacity == queueCapacity && pool.keepAlive.equals(keepAlive),
+                () -> String.format("container pool %s already exists with poolSize=%d, queueCapacity=%d, keepAlive=%s",
+                        name, pool.poolSize, pool.queueCapacity, pool.keepAlive));
+        return pool;
+    }
+
+    public static Collection<ThreadContainerPool> getPools() {
+        return Collections.unmodifiableCollection(POOLS.values());
+    }
+
+    private final String name;
+    private final int poolSize;
+    private final int queueCapacity;
+    private final Duration keepAlive;
+    private final ThreadContainerSource source;
+    private final int maxIdle;
+    private final ConcurrentLinkedDeque<Container> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleSize = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    private ThreadContainerPool(String name, int poolSize, int queueCapacity, Duration keepAlive) {
+        this.name = name;
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+        this.keepAlive = keepAlive;
+        this.source = new ThreadContainerSource(name, poolSize, queueCapacity, keepAlive);
+        this.maxIdle = poolSize;
+    }
+
+    public String getName() {
+        return name;
+    }
 
     @Override
     public ContainerValue obtain() {
+        active.incrementAndGet();
+        Container container = idle.pollFirst();
+        if (container != null) {
+            idleSize.decrementAndGet();
+            reused.increment();
+            return new DefaultContainerValue(container, true);
+        }
+        created.increment();
         return new DefaultContainerValue(source.newInstance(), false);
     }
 
+    private void release(Container container) {
+        active.decrementAndGet();
+        source.recycle(container);
+        if (idleSize.incrementAndGet() <= maxIdle) {
+            idle.offerFirst(container);
+        } else {
+            idleSize.decrementAndGet();
+            source.destroy(container);
+        }
+    }
+
+    @Override
+    public ContainerPoolStats getStats() {
+        ThreadPoolExecutor executor = source.getExecutor();
+        ContainerPoolStats stats = new ContainerPoolStats();
+        stats.setName(name);
+        stats.setCreated(created.sum());
+        stats.setReused(reused.sum());
+        stats.setActive(active.get());
+        stats.setIdle(idleSize.get());
+        stats.setPoolSize(executor.getPoolSize());
+        stats.setMaxPoolSize(executor.getMaximumPoolSize());
+        stats.setActiveThreads(executor.getActiveCount());
+        stats.setLargestPoolSize(executor.getLargestPoolSize());
+        stats.setQueueDepth(executor.getQueue().size());
+        stats.setQueueRemainingCapacity(executor.getQueue().remainingCapacity());
+        stats.setCompletedTasks(executor.getCompletedTaskCount());
+        stats.setRejectedTasks(source.getRejectedTasks());
+        return stats;
+    }
+
     public class DefaultContainerValue implements ContainerValue {
 
         Container value;
@@ -41,7 +143,6 @@ public class ThreadContainerPool implements ContainerPool {
             this.recycled = recycled;
         }
 
-
         @Override
         public Container value() {
             return value;
@@ -57,7 +158,7 @@ public class ThreadContainerPool implements ContainerPool {
             if (value == null) {
                 throw new IllegalStateException("recycler entry already released...");
             }
-            source.recycle(value);
+            release(value);
             value = null;
         }
     }
@@ -21,13 +21,30 @@ package cn.sliew.scaleph.common.container.pool.thread;
 import cn.sliew.scaleph.common.container.Container;
 import cn.sliew.scaleph.common.container.ThreadContainer;
 import cn.sliew.scaleph.common.container.pool.ContainerSource;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * All containers of a source share one sized executor. Threads beyond demand are
+ * reaped after {@code keepAlive}, core threads included, so an idle pool holds no threads.
+ * When both threads and queue are saturated the task runs on the caller thread.
+ */
 public class ThreadContainerSource implements ContainerSource {
 
-    private ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    public ThreadContainerSource(String name, int poolSize, int queueCapacity, Duration keepAlive) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize,
+                keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat(name + "-container-%d").setDaemon(true).build(),
+                new CountingCallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
 
     @Override
     public Container newInstance() {
@@ -36,11 +53,32 @@ public class ThreadContainerSource implements ContainerSource {
 
     @Override
     public void recycle(Container value) {
-
+        // thread containers hold no per-task state
     }
 
     @Override
     public void destroy(Container value) {
+        value.stop();
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    public long getRejectedTasks() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
         executor.shutdown();
     }
+
+    private class CountingCallerRunsPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+            rejected.increment();
+            super.rejectedExecution(r, e);
+        }
+    }
 }
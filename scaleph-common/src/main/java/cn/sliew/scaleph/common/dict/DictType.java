@@ -77,6 +77,7 @@ public enum DictType implements DictDefinition {
     FLINK_CLUSTER_STATUS("flink_cluster_status", "Flink 集群状态", FlinkClusterStatus.class),
     FLINK_JOB_STATUS("flink_job_status", "Flink 任务状态", FlinkJobState.class),
     FLINK_JOB_TYPE("flink_job_type", "Flink 任务类型", FlinkJobType.class),
+    FLINK_JOB_SUBMISSION_STAGE("flink_job_submission_stage", "Flink 任务提交阶段", FlinkJobSubmissionStage.class),
 
     FLINK_KUBERNETES_DEPLOYMENT_MODE("deployment_mode", "Deployment 模式", DeploymentMode.class),
     FLINK_KUBERNETES_DEPLOYMENT_KIND("deployment_kind", "Deployment 类型", DeploymentKind.class),
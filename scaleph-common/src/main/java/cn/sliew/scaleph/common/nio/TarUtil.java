@@ -18,18 +18,30 @@
 
 package cn.sliew.scaleph.common.nio;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.utils.IOUtils;
 import org.springframework.util.StringUtils;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 public enum TarUtil {
     ;
@@ -61,6 +73,58 @@ public enum TarUtil {
         }
     }
 
+    /**
+     * Streams the tar.gz once without extracting it, records name, size, data offset and sha256 of every file entry.
+     * Content of entries accepted by {@code retain} is handed to {@code consumer}, keep them small.
+     */
+    public static List<TarEntryIndex> index(InputStream source, Predicate<String> retain, BiConsumer<String, byte[]> consumer) throws IOException {
+        List<TarEntryIndex> entries = new ArrayList<>();
+        try (GzipCompressorInputStream gzi = new GzipCompressorInputStream(source);
+             TarArchiveInputStream ti = new TarArchiveInputStream(gzi)) {
+            ArchiveEntry entry;
+            while ((entry = ti.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                long offset = ti.getBytesRead();
+                HashingInputStream hi = new HashingInputStream(Hashing.sha256(), ti);
+                long size;
+                if (retain.test(entry.getName())) {
+                    byte[] content = ByteStreams.toByteArray(hi);
+                    size = content.length;
+                    consumer.accept(entry.getName(), content);
+                } else {
+                    size = ByteStreams.exhaust(hi);
+                }
+                entries.add(new TarEntryIndex(entry.getName(), size, offset, hi.hash().toString()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Copies the single entry out of the tar.gz by its index. Gzip is not seekable, so the stream
+     * still inflates up to the entry offset, but nothing else of the archive is written anywhere.
+     */
+    public static void readEntry(InputStream source, TarEntryIndex entry, OutputStream target) throws IOException {
+        try (GzipCompressorInputStream gzi = new GzipCompressorInputStream(source)) {
+            long skipped = IOUtils.skip(gzi, entry.getOffset());
+            if (skipped != entry.getOffset()) {
+                throw new IOException("tar file truncated before entry: " + entry.getName());
+            }
+            HashingOutputStream ho = new HashingOutputStream(Hashing.sha256(), target);
+            long copied = ByteStreams.copy(ByteStreams.limit(gzi, entry.getSize()), ho);
+            if (copied != entry.getSize()) {
+                throw new IOException("tar file truncated inside entry: " + entry.getName());
+            }
+            HashCode hash = ho.hash();
+            if (hash.toString().equals(entry.getSha256()) == false) {
+                throw new IOException("tar entry checksum mismatch: " + entry.getName()
+                        + ", expected: " + entry.getSha256() + ", actual: " + hash);
+            }
+        }
+    }
+
     private static String getTaregtDir(GzipParameters parameters, String fileName) {
         String filename = parameters.getFilename();
         if (StringUtils.hasText(filename)) {
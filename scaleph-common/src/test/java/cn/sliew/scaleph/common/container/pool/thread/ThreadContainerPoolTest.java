@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.common.container.pool.thread;
+
+import cn.sliew.milky.common.filter.ActionListener;
+import cn.sliew.scaleph.common.container.pool.ContainerPoolStats;
+import cn.sliew.scaleph.common.container.pool.ContainerValue;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadContainerPoolTest {
+
+    @Test
+    void sameNameSharesPool() {
+        ThreadContainerPool pool = ThreadContainerPool.getOrCreate("test-reuse", 2, 16, Duration.ofSeconds(60L));
+
+        assertSame(pool, ThreadContainerPool.getOrCreate("test-reuse", 2, 16, Duration.ofSeconds(60L)));
+        assertTrue(ThreadContainerPool.getPools().contains(pool));
+        assertThrows(IllegalArgumentException.class, () -> ThreadContainerPool.getOrCreate("test-reuse", 4, 16, Duration.ofSeconds(60L)));
+        assertThrows(IllegalArgumentException.class, () -> ThreadContainerPool.getOrCreate("test-reuse", 2, 32, Duration.ofSeconds(60L)));
+        assertThrows(IllegalArgumentException.class, () -> ThreadContainerPool.getOrCreate("test-reuse", 2, 16, Duration.ofSeconds(30L)));
+    }
+
+    @Test
+    void statsTrackReuse() throws Exception {
+        ThreadContainerPool pool = ThreadContainerPool.getOrCreate("test-stats", 2, 16, Duration.ofSeconds(60L));
+
+        ContainerValue first = pool.obtain();
+        assertFalse(first.isRecycled());
+        assertEquals(1, pool.getStats().getActive());
+        run(first);
+        first.close();
+        assertThrows(IllegalStateException.class, first::close);
+
+        ContainerValue second = pool.obtain();
+        assertTrue(second.isRecycled());
+        run(second);
+        second.close();
+
+        ContainerPoolStats stats = pool.getStats();
+        assertEquals("test-stats", stats.getName());
+        assertEquals(1L, stats.getCreated());
+        assertEquals(1L, stats.getReused());
+        assertEquals(0, stats.getActive());
+        assertEquals(1, stats.getIdle());
+        assertEquals(2, stats.getMaxPoolSize());
+        assertEquals(16, stats.getQueueRemainingCapacity());
+        assertEquals(0L, stats.getRejectedTasks());
+    }
+
+    private void run(ContainerValue containerValue) throws Exception {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        containerValue.value().execute(() -> {
+        }, new ActionListener<Void>() {
+            @Override
+            public void onResponse(Void unused) {
+                future.complete(unused);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.get(10L, TimeUnit.SECONDS);
+    }
+}
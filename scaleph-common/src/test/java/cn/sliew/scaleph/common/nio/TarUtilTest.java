@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.common.nio;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarUtilTest {
+
+    private static final String LONG_NAME = "seatunnel/lib/" + "a".repeat(120) + ".jar";
+
+    @Test
+    void indexAndReadEntries() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("seatunnel/connectors/plugin-mapping.properties", "seatunnel.source.Jdbc = connector-jdbc\n".getBytes(StandardCharsets.UTF_8));
+        files.put(LONG_NAME, randomBytes(70_000));
+        files.put("seatunnel/starter/seatunnel-flink-starter.jar", randomBytes(1_000));
+        files.put("seatunnel/empty.txt", new byte[0]);
+        byte[] archive = archive(files);
+
+        Map<String, byte[]> retained = new HashMap<>();
+        List<TarEntryIndex> entries = TarUtil.index(new ByteArrayInputStream(archive),
+                name -> name.endsWith("plugin-mapping.properties"), retained::put);
+
+        assertEquals(files.size(), entries.size());
+        assertEquals(1, retained.size());
+        assertArrayEquals(files.get("seatunnel/connectors/plugin-mapping.properties"),
+                retained.get("seatunnel/connectors/plugin-mapping.properties"));
+        for (TarEntryIndex entry : entries) {
+            byte[] expected = files.get(entry.getName());
+            assertEquals(expected.length, entry.getSize());
+            assertEquals(Hashing.sha256().hashBytes(expected).toString(), entry.getSha256());
+
+            ByteArrayOutputStream target = new ByteArrayOutputStream();
+            TarUtil.readEntry(new ByteArrayInputStream(archive), entry, target);
+            assertArrayEquals(expected, target.toByteArray());
+        }
+    }
+
+    @Test
+    void readEntryRejectsStaleIndex() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("seatunnel/starter/seatunnel-flink-starter.jar", randomBytes(1_000));
+        byte[] archive = archive(files);
+        TarEntryIndex entry = TarUtil.index(new ByteArrayInputStream(archive), name -> false, (name, content) -> {}).get(0);
+
+        entry.setSha256(Hashing.sha256().hashBytes(new byte[0]).toString());
+        assertThrows(IOException.class, () -> TarUtil.readEntry(new ByteArrayInputStream(archive), entry, new ByteArrayOutputStream()));
+
+        entry.setOffset(archive.length * 100L);
+        assertThrows(IOException.class, () -> TarUtil.readEntry(new ByteArrayInputStream(archive), entry, new ByteArrayOutputStream()));
+    }
+
+    private byte[] archive(Map<String, byte[]> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream to = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            to.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+            to.putArchiveEntry(new TarArchiveEntry("seatunnel/"));
+            to.closeArchiveEntry();
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().length);
+                to.putArchiveEntry(entry);
+                to.write(file.getValue());
+                to.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
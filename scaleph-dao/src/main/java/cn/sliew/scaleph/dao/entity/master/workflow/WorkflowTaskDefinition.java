@@ -58,6 +58,10 @@ public class WorkflowTaskDefinition extends BaseDO {
     @TableField("param")
     private String param;
 
+    @ApiModelProperty("upstreams")
+    @TableField("upstreams")
+    private String upstreams;
+
     @ApiModelProperty("remark")
     @TableField("remark")
     private String remark;
@@ -85,6 +85,10 @@ public class WsFlinkClusterConfig extends BaseDO {
     @TableField("config_options")
     private String configOptions;
 
+    @ApiModelProperty("预热的空闲 session 集群数量")
+    @TableField("warm_pool_size")
+    private Integer warmPoolSize;
+
     @ApiModelProperty("备注")
     @TableField("remark")
     private String remark;
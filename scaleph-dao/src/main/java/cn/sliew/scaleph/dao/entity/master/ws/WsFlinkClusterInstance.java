@@ -18,6 +18,7 @@
 
 package cn.sliew.scaleph.dao.entity.master.ws;
 
+import cn.sliew.scaleph.common.dict.common.YesOrNo;
 import cn.sliew.scaleph.common.dict.flink.FlinkClusterStatus;
 import cn.sliew.scaleph.dao.entity.BaseDO;
 import com.baomidou.mybatisplus.annotation.TableField;
@@ -27,6 +28,8 @@ import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.util.Date;
+
 /**
  * <p>
  * flink 集群实例
@@ -63,4 +66,16 @@ public class WsFlinkClusterInstance extends BaseDO {
     @TableField("`status`")
     private FlinkClusterStatus status;
 
+    @ApiModelProperty("是否由预热池创建")
+    @TableField("pooled")
+    private YesOrNo pooled;
+
+    @ApiModelProperty("预热池分配集群的时间")
+    @TableField("lease_time")
+    private Date leaseTime;
+
+    @ApiModelProperty("预热池集群开始空闲的时间")
+    @TableField("idle_time")
+    private Date idleTime;
+
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.dao.entity.master.ws;
+
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
+import cn.sliew.scaleph.dao.entity.BaseDO;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.Date;
+
+/**
+ * <p>
+ * flink job submission
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("ws_flink_job_submission")
+@ApiModel(value = "FlinkJobSubmission对象", description = "flink job submission")
+public class WsFlinkJobSubmission extends BaseDO {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty("flink job id")
+    @TableField("flink_job_id")
+    private Long flinkJobId;
+
+    @ApiModelProperty("flink job code")
+    @TableField("flink_job_code")
+    private Long flinkJobCode;
+
+    @ApiModelProperty("flink job name")
+    @TableField("job_name")
+    private String jobName;
+
+    @ApiModelProperty("submission stage")
+    @TableField("stage")
+    private FlinkJobSubmissionStage stage;
+
+    @ApiModelProperty("stage transitions")
+    @TableField("stages")
+    private String stages;
+
+    @ApiModelProperty("failure message")
+    @TableField("message")
+    private String message;
+
+    @ApiModelProperty("submission start time")
+    @TableField("start_time")
+    private Date startTime;
+
+    @ApiModelProperty("submission end time")
+    @TableField("end_time")
+    private Date endTime;
+
+    @ApiModelProperty("node executing the submission")
+    @TableField("owner")
+    private String owner;
+
+    @ApiModelProperty("last heartbeat of the executing node")
+    @TableField("heartbeat_time")
+    private Date heartbeatTime;
+
+}
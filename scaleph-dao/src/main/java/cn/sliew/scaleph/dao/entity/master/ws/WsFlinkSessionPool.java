@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.dao.entity.master.ws;
+
+import cn.sliew.scaleph.dao.entity.BaseDO;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.Date;
+
+/**
+ * <p>
+ * flink session 集群预热池
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("ws_flink_session_pool")
+@ApiModel(value = "FlinkSessionPool对象", description = "flink session 集群预热池")
+public class WsFlinkSessionPool extends BaseDO {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty("集群配置")
+    @TableField("flink_cluster_config_id")
+    private Long flinkClusterConfigId;
+
+    @ApiModelProperty("维护预热池的节点")
+    @TableField("owner")
+    private String owner;
+
+    @ApiModelProperty("节点心跳时间")
+    @TableField("heartbeat_time")
+    private Date heartbeatTime;
+
+}
@@ -20,8 +20,11 @@ package cn.sliew.scaleph.dao.mapper.log;
 
 import cn.sliew.scaleph.dao.entity.log.LogAction;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * <p>
  * 用户操作日志 Mapper 接口
@@ -33,4 +36,11 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface LogActionMapper extends BaseMapper<LogAction> {
 
+    /**
+     * 批量新增日志
+     *
+     * @param list 日志列表
+     * @return int
+     */
+    int insertBatch(@Param("list") List<LogAction> list);
 }
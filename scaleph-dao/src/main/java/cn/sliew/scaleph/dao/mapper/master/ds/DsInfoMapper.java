@@ -26,6 +26,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -42,4 +43,6 @@ public interface DsInfoMapper extends BaseMapper<DsInfo> {
 
     DsInfoVO getById(@Param("id") Long id);
 
+    List<DsInfoVO> listByIds(@Param("ids") Collection<Long> ids);
+
 }
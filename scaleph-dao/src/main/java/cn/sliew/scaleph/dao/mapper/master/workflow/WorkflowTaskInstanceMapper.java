@@ -37,4 +37,11 @@ public interface WorkflowTaskInstanceMapper extends BaseMapper<WorkflowTaskInsta
 
     WorkflowTaskInstanceVO get(@Param("id") Long id);
 
+    /**
+     * 最近 limit 次指定状态的执行平均耗时，单位秒
+     */
+    Double averageDuration(@Param("workflowTaskDefinitionId") Long workflowTaskDefinitionId,
+                           @Param("state") String state,
+                           @Param("limit") int limit);
+
 }
@@ -21,6 +21,7 @@ package cn.sliew.scaleph.dao.mapper.master.ws;
 import cn.sliew.scaleph.dao.entity.master.ws.WsDiJob;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
@@ -43,4 +44,14 @@ public interface WsDiJobMapper extends BaseMapper<WsDiJob> {
      * @return page
      */
     Page<WsDiJob> selectPage(IPage<?> page, @Param("job") WsDiJob job);
+
+    /**
+     * 以 insert ... select 复制作业为下一个版本，下一个版本已存在时不复制。
+     * 以 {@link Constants#ENTITY} 传入新版本，creator、editor 由 MetaObjectHandler 填充为当前用户
+     *
+     * @param sourceJobId source job id
+     * @param job         new job version, carries the job status and receives the generated id
+     * @return int
+     */
+    int cloneVersion(@Param("sourceJobId") Long sourceJobId, @Param(Constants.ENTITY) WsDiJob job);
 }
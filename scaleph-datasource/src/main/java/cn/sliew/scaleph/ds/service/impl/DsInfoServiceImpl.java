@@ -35,6 +35,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +65,17 @@ public class DsInfoServiceImpl implements DsInfoService {
         return selectOne(id, true);
     }
 
+    @Override
+    public Map<Long, DsInfoDTO> getRawBatch(Collection<Long> ids) {
+        List<DsInfoDTO> dsInfoDTOS = DsInfoVOConvert.INSTANCE.toDto(dsInfoMapper.listByIds(ids));
+        Map<Long, DsInfoDTO> result = new HashMap<>();
+        for (DsInfoDTO dsInfoDTO : dsInfoDTOS) {
+            decrypt(dsInfoDTO);
+            result.put(dsInfoDTO.getId(), dsInfoDTO);
+        }
+        return result;
+    }
+
     @Override
     public Page<DsInfoDTO> list(DsInfoListParam param) {
         Page<DsInfo> page = new Page<>(param.getCurrent(), param.getPageSize());
@@ -86,23 +98,27 @@ public class DsInfoServiceImpl implements DsInfoService {
         checkState(vo != null, () -> "data source info not exists for id: " + id);
         DsInfoDTO dsInfoDTO = DsInfoVOConvert.INSTANCE.toDto(vo);
         if (decrypt) {
-            Map<String, Object> props = new HashMap<>();
-            for (Map.Entry<String, Object> entry : dsInfoDTO.getProps().entrySet()) {
-                String key = entry.getKey();
-                Object value = entry.getValue();
-                if (Objects.nonNull(value)
-                        && value instanceof String
-                        && CodecUtil.isEncryptedStr((String) value)) {
-                    props.put(key, CodecUtil.decrypt((String) value));
-                } else {
-                    props.put(key, value);
-                }
-            }
-            dsInfoDTO.setProps(props);
+            decrypt(dsInfoDTO);
         }
         return dsInfoDTO;
     }
 
+    private void decrypt(DsInfoDTO dsInfoDTO) {
+        Map<String, Object> props = new HashMap<>();
+        for (Map.Entry<String, Object> entry : dsInfoDTO.getProps().entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (Objects.nonNull(value)
+                    && value instanceof String
+                    && CodecUtil.isEncryptedStr((String) value)) {
+                props.put(key, CodecUtil.decrypt((String) value));
+            } else {
+                props.put(key, value);
+            }
+        }
+        dsInfoDTO.setProps(props);
+    }
+
     @Override
     public int insert(AbstractDataSource dataSource) {
         DsInfo record = DsInfoConvert.INSTANCE.toDo(dataSource.toDsInfo());
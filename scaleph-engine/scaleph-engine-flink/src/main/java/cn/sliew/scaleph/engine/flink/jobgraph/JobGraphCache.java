@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.jobgraph;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.util.InstantiationUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serialized {@link JobGraph}s on local disk, one file per cache key.
+ * <p>
+ * Entries are written to a temp file and atomically renamed, so a reader never sees a partial
+ * graph. Every read deserializes a fresh copy, callers are free to modify what they get. Once
+ * more than {@code maxEntries} graphs are stored, the least recently used ones are removed.
+ * Entries written more than {@code maxAge} ago are discarded on read.
+ */
+@Slf4j
+public class JobGraphCache {
+
+    private static final String SUFFIX = ".jobgraph";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final int maxEntries;
+    private final Duration maxAge;
+    private final LongSupplier clock;
+
+    public JobGraphCache(Path dir, int maxEntries, Duration maxAge) {
+        this(dir, maxEntries, maxAge, System::currentTimeMillis);
+    }
+
+    JobGraphCache(Path dir, int maxEntries, Duration maxAge, LongSupplier clock) {
+        this.dir = dir;
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    public Optional<JobGraph> get(String key) {
+        final Path file = dir.resolve(key + SUFFIX);
+        if (Files.notExists(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            // last modified time tracks usage, the write time is kept in the file
+            final long writeTime = inputStream.readLong();
+            if (clock.getAsLong() - writeTime > maxAge.toMillis()) {
+                deleteQuietly(file);
+                return Optional.empty();
+            }
+            JobGraph jobGraph = InstantiationUtil.deserializeObject(inputStream, getClass().getClassLoader());
+            Files.setLastModifiedTime(file, FileTime.fromMillis(clock.getAsLong()));
+            return Optional.of(jobGraph);
+        } catch (NoSuchFileException e) {
+            // evicted by a concurrent put
+            return Optional.empty();
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("discard unreadable job graph {}", file, e);
+            deleteQuietly(file);
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, JobGraph jobGraph) throws IOException {
+        Files.createDirectories(dir);
+        final Path temp = dir.resolve(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream outputStream = new DataOutputStream(bytes)) {
+                outputStream.writeLong(clock.getAsLong());
+                InstantiationUtil.serializeObject(outputStream, jobGraph);
+            }
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, dir.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        evict();
+    }
+
+    /**
+     * Removes the entries whose key starts with {@code prefix}.
+     */
+    public void invalidate(String prefix) throws IOException {
+        if (Files.notExists(dir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(JobGraphCache::deleteQuietly);
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        if (files.size() <= maxEntries) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(JobGraphCache::lastModified));
+        for (Path file : files.subList(0, files.size() - maxEntries)) {
+            deleteQuietly(file);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("delete job graph {} failed", file, e);
+        }
+    }
+}
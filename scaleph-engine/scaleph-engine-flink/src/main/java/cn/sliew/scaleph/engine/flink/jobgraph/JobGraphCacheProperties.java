@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.jobgraph;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.engine.flink.job-graph-cache")
+public class JobGraphCacheProperties {
+
+    /**
+     * 提交到 session 集群时是否默认复用编译好的 JobGraph。任务或集群配置中的
+     * scaleph.job-graph-cache.enabled 优先
+     */
+    private boolean enabled = false;
+
+    /**
+     * 序列化 JobGraph 的本地存储目录，不能放在 app.workspace 下，workspace 在启动时会被清空
+     */
+    private String dir = "/tmp/scaleph/job-graph-cache";
+
+    /**
+     * 最多保留的 JobGraph 数量，超出后淘汰最久未使用的
+     */
+    private int maxEntries = 200;
+
+    /**
+     * JobGraph 的最长保留时间，超出后重新编译
+     */
+    private Duration maxAge = Duration.ofDays(1);
+}
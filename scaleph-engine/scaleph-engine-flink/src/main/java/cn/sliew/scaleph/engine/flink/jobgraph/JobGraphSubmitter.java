@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.jobgraph;
+
+import cn.sliew.flinkful.cli.base.submit.PackageJarJob;
+import cn.sliew.milky.common.util.JacksonUtil;
+import cn.sliew.scaleph.common.util.SeaTunnelReleaseUtil;
+import cn.sliew.scaleph.engine.seatunnel.service.constant.SeaTunnelConstant;
+import cn.sliew.scaleph.plugin.seatunnel.flink.env.JobNameProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.client.program.ClusterClient;
+import org.apache.flink.client.program.PackagedProgram;
+import org.apache.flink.client.program.PackagedProgramUtils;
+import org.apache.flink.client.program.ProgramInvocationException;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.ConfigUtils;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.CoreOptions;
+import org.apache.flink.configuration.DeploymentOptions;
+import org.apache.flink.configuration.PipelineOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.SavepointRestoreSettings;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Submits jar and SeaTunnel jobs to session clusters as {@link JobGraph}s, reusing the graph
+ * compiled by an earlier submission when nothing that affects compilation has changed.
+ * <p>
+ * Compiling a job builds a {@link PackagedProgram}, which extracts nested libraries and sets up the
+ * user classloader, and then runs the user main method to get the pipeline. The result depends only
+ * on the jar contents, entry class, program arguments, parallelism and the options read while
+ * building the pipeline, which together make up the cache key. Every submission stages its files
+ * into a new workspace, so files and user jars are keyed by content rather than path. The job id,
+ * the job name, the staged jar urls and the savepoint restore settings belong to a single
+ * submission and are reset on a cached graph, which lets a job restarted from a savepoint reuse its
+ * graph too. Submissions name the job uniquely through {@link PipelineOptions#NAME} and, for
+ * SeaTunnel jobs, the {@code env.job.name} of the config, both of which are left out of the key.
+ * <p>
+ * Reuse is opt-in through {@link #ENABLED} in the job or cluster configuration, falling back to
+ * {@link JobGraphCacheProperties#isEnabled()}. Entries are prefixed with the flink job id and
+ * dropped by {@link #invalidate(Long)} whenever the job or its SeaTunnel job graph is updated.
+ */
+@Slf4j
+@Component
+public class JobGraphSubmitter implements InitializingBean {
+
+    public static final ConfigOption<Boolean> ENABLED = ConfigOptions.key("scaleph.job-graph-cache.enabled")
+            .booleanType()
+            .noDefaultValue()
+            .withDescription("Whether to reuse the job graph compiled by an earlier submission of the job.");
+
+    /**
+     * Options read by the execution environment while building the pipeline.
+     */
+    private static final List<String> RELEVANT_PREFIXES = Arrays.asList(
+            "pipeline.", "execution.", "parallelism.", "state.", "restart-strategy", "table.", "python.");
+
+    /**
+     * Options set per submission, applied to the cached graph instead of being part of the key.
+     */
+    private static final List<String> EXCLUDED_PREFIXES = Arrays.asList(
+            PipelineOptions.NAME.key(), PipelineOptions.JARS.key(), PipelineOptions.CLASSPATHS.key(), "execution.savepoint",
+            DeploymentOptions.TARGET.key(), DeploymentOptions.ATTACHED.key(), DeploymentOptions.SHUTDOWN_IF_ATTACHED.key());
+
+    private static final String SEATUNNEL_CONFIG_ARG = "--config";
+
+    private static final Field JOB_NAME = ReflectionUtils.findField(JobGraph.class, "jobName");
+
+    static {
+        ReflectionUtils.makeAccessible(JOB_NAME);
+    }
+
+    @Autowired
+    private JobGraphCacheProperties properties;
+
+    private JobGraphCache cache;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        this.cache = new JobGraphCache(Paths.get(properties.getDir()), properties.getMaxEntries(), properties.getMaxAge());
+    }
+
+    /**
+     * @param workspace  directory the submission staged its files into, program arguments pointing
+     *                   to files in it are keyed by file content
+     * @param flinkJobId id of the submitted flink job, cached graphs are invalidated by it
+     */
+    public JobID submit(ClusterClient<?> clusterClient, PackageJarJob job, Configuration configuration, Path workspace, Long flinkJobId) throws Exception {
+        if (configuration.getOptional(ENABLED).orElse(properties.isEnabled()) == false) {
+            return compileAndSubmit(clusterClient, job, configuration, null);
+        }
+        final String key = prefix(flinkJobId) + key(job, configuration, workspace);
+        final Optional<JobGraph> cached = cache.get(key);
+        if (cached.isPresent() == false) {
+            return compileAndSubmit(clusterClient, job, configuration, key);
+        }
+
+        log.info("submit job {} with cached job graph {}", configuration.get(PipelineOptions.NAME), key);
+        final JobGraph jobGraph = cached.get();
+        final URL jarFile = new URL(job.getJarFilePath());
+        final List<File> extractedLibraries = PackagedProgram.extractContainedLibraries(jarFile);
+        try {
+            List<URL> jars = new ArrayList<>(decodeUrls(configuration, PipelineOptions.JARS));
+            jars.add(jarFile);
+            for (File library : extractedLibraries) {
+                jars.add(library.getAbsoluteFile().toURI().toURL());
+            }
+            jobGraph.setJobID(new JobID());
+            // flink 1.14 has no setter for the job name
+            configuration.getOptional(PipelineOptions.NAME).ifPresent(name -> ReflectionUtils.setField(JOB_NAME, jobGraph, name));
+            jobGraph.getUserJars().clear();
+            jobGraph.addJars(jars);
+            jobGraph.setClasspaths(decodeUrls(configuration, PipelineOptions.CLASSPATHS));
+            jobGraph.setSavepointRestoreSettings(SavepointRestoreSettings.fromConfiguration(configuration));
+            return clusterClient.submitJob(jobGraph).get();
+        } finally {
+            extractedLibraries.forEach(FileUtils::deleteQuietly);
+        }
+    }
+
+    /**
+     * Drops the graphs cached for the flink job.
+     */
+    public void invalidate(Long flinkJobId) {
+        try {
+            cache.invalidate(prefix(flinkJobId));
+        } catch (IOException e) {
+            log.warn("invalidate job graphs of flink job {} failed", flinkJobId, e);
+        }
+    }
+
+    private static String prefix(Long flinkJobId) {
+        return flinkJobId + "-";
+    }
+
+    private JobID compileAndSubmit(ClusterClient<?> clusterClient, PackageJarJob job, Configuration configuration, @Nullable String key) throws Exception {
+        // extracted libraries are deleted on close, keep the program open until the jars are uploaded
+        try (PackagedProgram program = buildProgram(job, configuration)) {
+            JobGraph jobGraph = createJobGraph(program, configuration);
+            if (key != null) {
+                try {
+                    cache.put(key, jobGraph);
+                } catch (IOException e) {
+                    log.warn("cache job graph {} failed", key, e);
+                }
+            }
+            return clusterClient.submitJob(jobGraph).get();
+        }
+    }
+
+    /**
+     * Runs the user main method to get the pipeline.
+     */
+    protected JobGraph createJobGraph(PackagedProgram program, Configuration configuration) throws ProgramInvocationException {
+        return PackagedProgramUtils.createJobGraph(program, configuration, configuration.get(CoreOptions.DEFAULT_PARALLELISM), false);
+    }
+
+    private PackagedProgram buildProgram(PackageJarJob job, Configuration configuration) throws Exception {
+        return PackagedProgram.newBuilder()
+                .setJarFile(new File(new URL(job.getJarFilePath()).toURI()))
+                .setEntryPointClassName(job.getEntryPointClass())
+                .setArguments(getProgramArgs(job))
+                .setUserClassPaths(decodeUrls(configuration, PipelineOptions.CLASSPATHS))
+                .setConfiguration(configuration)
+                .setSavepointRestoreSettings(SavepointRestoreSettings.fromConfiguration(configuration))
+                .build();
+    }
+
+    static String key(PackageJarJob job, Configuration configuration, @Nullable Path workspace) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putUrl(hasher, job.getJarFilePath());
+        putString(hasher, Objects.toString(job.getEntryPointClass(), ""));
+        String[] args = getProgramArgs(job);
+        boolean seatunnel = SeaTunnelReleaseUtil.SEATUNNEL_MAIN_CLASS.equals(job.getEntryPointClass());
+        hasher.putInt(args.length);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            Path file = toWorkspaceFile(arg, workspace);
+            if (file != null && seatunnel && i > 0 && SEATUNNEL_CONFIG_ARG.equals(args[i - 1])) {
+                putSeaTunnelConfig(hasher, file);
+            } else if (file != null) {
+                putFile(hasher, file);
+            } else {
+                putString(hasher, arg);
+            }
+        }
+        hasher.putInt(configuration.get(CoreOptions.DEFAULT_PARALLELISM));
+
+        List<String> jars = configuration.getOptional(PipelineOptions.JARS).orElse(Collections.emptyList());
+        hasher.putInt(jars.size());
+        for (String jar : jars) {
+            putUrl(hasher, jar);
+        }
+        List<String> classpaths = configuration.getOptional(PipelineOptions.CLASSPATHS).orElse(Collections.emptyList());
+        hasher.putInt(classpaths.size());
+        for (String classpath : classpaths) {
+            putString(hasher, classpath);
+        }
+        for (Map.Entry<String, String> entry : new TreeMap<>(configuration.toMap()).entrySet()) {
+            if (isRelevant(entry.getKey())) {
+                putString(hasher, entry.getKey());
+                putString(hasher, entry.getValue());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static boolean isRelevant(String key) {
+        return RELEVANT_PREFIXES.stream().anyMatch(key::startsWith)
+                && EXCLUDED_PREFIXES.stream().noneMatch(key::startsWith);
+    }
+
+    private static String[] getProgramArgs(PackageJarJob job) {
+        return job.getProgramArgs() == null ? new String[0] : job.getProgramArgs();
+    }
+
+    private static List<URL> decodeUrls(Configuration configuration, ConfigOption<List<String>> option) throws MalformedURLException {
+        return ConfigUtils.decodeListFromConfig(configuration, option, URL::new);
+    }
+
+    @Nullable
+    private static Path toWorkspaceFile(String arg, @Nullable Path workspace) {
+        if (workspace == null || arg.startsWith(workspace.toString()) == false) {
+            return null;
+        }
+        Path path = Paths.get(arg);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    private static void putUrl(Hasher hasher, String url) throws IOException {
+        try {
+            URL parsed = new URL(url);
+            if ("file".equals(parsed.getProtocol())) {
+                Path path = Paths.get(parsed.toURI());
+                if (Files.isRegularFile(path)) {
+                    putFile(hasher, path);
+                    return;
+                }
+            }
+        } catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+            // not a local file, keyed by url
+        }
+        putString(hasher, url);
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putByte((byte) 0);
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keys a SeaTunnel config without {@code env.job.name}, which only names the job graph.
+     */
+    private static void putSeaTunnelConfig(Hasher hasher, Path file) throws IOException {
+        JsonNode config = JacksonUtil.toJsonNode(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        JsonNode env = config.get(SeaTunnelConstant.ENV);
+        if (env instanceof ObjectNode) {
+            ((ObjectNode) env).remove(JobNameProperties.JOB_NAME.getName());
+        }
+        hasher.putByte((byte) 2);
+        putString(hasher, JacksonUtil.toJsonString(config));
+    }
+
+    private static void putFile(Hasher hasher, Path file) throws IOException {
+        hasher.putByte((byte) 1);
+        hasher.putLong(Files.size(file));
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                hasher.putBytes(buffer, 0, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.pool;
+
+import cn.sliew.flinkful.rest.base.RestClient;
+import cn.sliew.flinkful.rest.client.FlinkRestClient;
+import cn.sliew.scaleph.common.dict.common.YesOrNo;
+import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkSessionPool;
+import cn.sliew.scaleph.dao.mapper.master.ws.WsFlinkSessionPoolMapper;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkClusterConfigService;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkClusterInstanceService;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkService;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterConfigDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.messages.webmonitor.MultipleJobsDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class DefaultSessionClusterProvisioner implements SessionClusterProvisioner {
+
+    private static final long TIMEOUT_SECONDS = 10L;
+
+    @Autowired
+    private WsFlinkClusterConfigService wsFlinkClusterConfigService;
+    @Autowired
+    private WsFlinkClusterInstanceService wsFlinkClusterInstanceService;
+    @Autowired
+    private WsFlinkService wsFlinkService;
+    @Autowired
+    private WsFlinkSessionPoolMapper wsFlinkSessionPoolMapper;
+
+    @Override
+    public List<WsFlinkClusterConfigDTO> listPooledConfigs() {
+        return wsFlinkClusterConfigService.listWarmPooled();
+    }
+
+    @Override
+    public List<WsFlinkClusterInstanceDTO> listPooled(WsFlinkClusterConfigDTO config) {
+        return wsFlinkClusterInstanceService.listPooled(config.getId());
+    }
+
+    @Override
+    public boolean isIdle(WsFlinkClusterInstanceDTO instance) {
+        try {
+            URL url = new URL(instance.getWebInterfaceUrl());
+            RestClient restClient = new FlinkRestClient(url.getHost(), url.getPort(), new Configuration());
+            MultipleJobsDetails overview = restClient.job().jobsOverview().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return overview.getJobs().stream().allMatch(job -> job.getStatus().isGloballyTerminalState());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("check session cluster {} jobs failed", instance.getClusterId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public WsFlinkClusterInstanceDTO provision(WsFlinkClusterConfigDTO config, Date leaseTime, Date idleTime) throws Exception {
+        WsFlinkClusterInstanceDTO instance = wsFlinkService.createSessionCluster(config.getProjectId(), config.getId());
+        // 标记失败时集群按用户创建的集群处理，预热池不会关闭它
+        instance.setPooled(YesOrNo.YES);
+        instance.setLeaseTime(leaseTime);
+        instance.setIdleTime(idleTime);
+        wsFlinkClusterInstanceService.update(instance);
+        return instance;
+    }
+
+    @Override
+    public void shutdown(WsFlinkClusterInstanceDTO instance) throws Exception {
+        wsFlinkService.shutdown(instance.getId());
+    }
+
+    @Override
+    public boolean updatePoolState(WsFlinkClusterInstanceDTO expected, Date leaseTime, Date idleTime) {
+        return wsFlinkClusterInstanceService.updatePoolState(expected, leaseTime, idleTime);
+    }
+
+    @Override
+    public boolean claim(WsFlinkClusterConfigDTO config, String owner, Date now, Duration timeout) {
+        WsFlinkSessionPool pool = new WsFlinkSessionPool();
+        pool.setFlinkClusterConfigId(config.getId());
+        pool.setOwner(owner);
+        pool.setHeartbeatTime(now);
+        Date expired = new Date(now.getTime() - timeout.toMillis());
+        int updated = wsFlinkSessionPoolMapper.update(pool, Wrappers.lambdaUpdate(WsFlinkSessionPool.class)
+                .eq(WsFlinkSessionPool::getFlinkClusterConfigId, config.getId())
+                .and(wrapper -> wrapper.eq(WsFlinkSessionPool::getOwner, owner)
+                        .or().lt(WsFlinkSessionPool::getHeartbeatTime, expired)));
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            return wsFlinkSessionPoolMapper.insert(pool) == 1;
+        } catch (DuplicateKeyException e) {
+            // 其他节点正在维护预热池
+            return false;
+        }
+    }
+}
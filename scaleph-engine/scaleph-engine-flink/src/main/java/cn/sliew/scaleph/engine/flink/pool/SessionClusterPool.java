@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.pool;
+
+import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterConfigDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Warm pool of flink session clusters, keyed by cluster config.
+ * <p>
+ * Configs with a positive {@code warmPoolSize} in session mode keep that many idle clusters. Only
+ * clusters created by the pool belong to it, session clusters created by users are never handed out
+ * or shut down. Submissions are handed an idle cluster, missing clusters are provisioned in the
+ * background, and idle clusters beyond the pool size are shut down once idle for {@code idleTimeout}.
+ * A handed out cluster is not counted as idle for {@code leaseTimeout}, giving the submission time to
+ * put its job on the cluster.
+ * <p>
+ * Pool membership, leases and idle times are kept on the cluster instances in the database and
+ * changed by compare-and-set, so every node can hand out clusters. Only the node holding the pool
+ * claim provisions and shuts down clusters, the claim moves to another node once it is not renewed
+ * for three check intervals.
+ */
+@Slf4j
+@Component
+public class SessionClusterPool implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private SessionClusterProvisioner provisioner;
+    @Autowired
+    private SessionClusterPoolProperties properties;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final LongSupplier clock;
+    /**
+     * cluster config id -> clusters being provisioned by this node
+     */
+    private final Map<Long, Integer> provisioning = new HashMap<>();
+    private Executor provisionExecutor;
+    private ScheduledExecutorService reconciler;
+
+    public SessionClusterPool() {
+        this.clock = System::currentTimeMillis;
+    }
+
+    SessionClusterPool(SessionClusterProvisioner provisioner, SessionClusterPoolProperties properties,
+                       Executor provisionExecutor, LongSupplier clock) {
+        this.provisioner = provisioner;
+        this.properties = properties;
+        this.provisionExecutor = provisionExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("flink-session-pool-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        this.provisionExecutor = executor;
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("flink-session-pool-reconciler").setDaemon(true).build());
+        long period = properties.getCheckInterval().toMillis();
+        this.reconciler.scheduleWithFixedDelay(this::reconcile, 0L, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+        if (provisionExecutor instanceof ExecutorService) {
+            ((ExecutorService) provisionExecutor).shutdownNow();
+        }
+    }
+
+    public boolean isPooled(WsFlinkClusterConfigDTO config) {
+        return config.getDeployMode() == FlinkDeploymentMode.SESSION
+                && config.getWarmPoolSize() != null
+                && config.getWarmPoolSize() > 0;
+    }
+
+    /**
+     * Hands out an idle cluster, preferring {@code preferred} and then the most recently idle one
+     * so the others can time out. Provisions a cluster in place when none is idle.
+     */
+    public WsFlinkClusterInstanceDTO acquire(WsFlinkClusterConfigDTO config, WsFlinkClusterInstanceDTO preferred) throws Exception {
+        final Date now = now();
+        final List<WsFlinkClusterInstanceDTO> idle = provisioner.listPooled(config).stream()
+                .filter(instance -> instance.getIdleTime() != null && instance.getLeaseTime() == null)
+                .sorted(Comparator.comparing((WsFlinkClusterInstanceDTO instance) -> isPreferred(instance, preferred))
+                        .thenComparing(WsFlinkClusterInstanceDTO::getIdleTime)
+                        .reversed())
+                .collect(Collectors.toList());
+        WsFlinkClusterInstanceDTO acquired = null;
+        for (WsFlinkClusterInstanceDTO instance : idle) {
+            // another node may hand out the same cluster at the same time
+            if (provisioner.updatePoolState(instance, now, null)) {
+                acquired = instance;
+                break;
+            }
+        }
+        if (acquired == null) {
+            log.info("no idle session cluster for flink cluster config {}, provision one", config.getId());
+            acquired = provisioner.provision(config, now, null);
+        }
+        provisionExecutor.execute(() -> reconcileQuietly(config));
+        return acquired;
+    }
+
+    /**
+     * Checks every pooled config, shuts down surplus idle clusters and provisions missing ones.
+     */
+    public void reconcile() {
+        final List<WsFlinkClusterConfigDTO> configs;
+        try {
+            configs = provisioner.listPooledConfigs();
+        } catch (Exception e) {
+            log.error("list pooled flink cluster configs failed", e);
+            return;
+        }
+        for (WsFlinkClusterConfigDTO config : configs) {
+            reconcileQuietly(config);
+        }
+    }
+
+    private void reconcileQuietly(WsFlinkClusterConfigDTO config) {
+        try {
+            reconcile(config);
+        } catch (Exception e) {
+            log.error("reconcile session cluster pool for flink cluster config {} failed", config.getId(), e);
+        }
+    }
+
+    void reconcile(WsFlinkClusterConfigDTO config) {
+        final Date now = now();
+        final Duration claimTimeout = properties.getCheckInterval().multipliedBy(3L);
+        if (provisioner.claim(config, owner, now, claimTimeout) == false) {
+            return;
+        }
+
+        final List<WsFlinkClusterInstanceDTO> available = new ArrayList<>();
+        for (WsFlinkClusterInstanceDTO instance : provisioner.listPooled(config)) {
+            final boolean idle = provisioner.isIdle(instance);
+            Date leaseTime = instance.getLeaseTime();
+            if (leaseTime != null) {
+                if (idle && now.getTime() - leaseTime.getTime() < properties.getLeaseTimeout().toMillis()) {
+                    continue;
+                }
+                leaseTime = null;
+            }
+            final Date idleTime = idle ? Optional.ofNullable(instance.getIdleTime()).orElse(now) : null;
+            if (Objects.equals(leaseTime, instance.getLeaseTime()) == false || Objects.equals(idleTime, instance.getIdleTime()) == false) {
+                if (provisioner.updatePoolState(instance, leaseTime, idleTime) == false) {
+                    // handed out in the meantime
+                    continue;
+                }
+                instance.setLeaseTime(leaseTime);
+                instance.setIdleTime(idleTime);
+            }
+            if (idle) {
+                available.add(instance);
+            }
+        }
+
+        available.sort(Comparator.comparing(WsFlinkClusterInstanceDTO::getIdleTime));
+        final int target = config.getWarmPoolSize();
+        final List<WsFlinkClusterInstanceDTO> surplus = new ArrayList<>();
+        for (int i = 0; i < available.size() - target; i++) {
+            final WsFlinkClusterInstanceDTO instance = available.get(i);
+            if (now.getTime() - instance.getIdleTime().getTime() < properties.getIdleTimeout().toMillis()) {
+                break;
+            }
+            // taken off the idle list before shutdown, so no node hands it out
+            if (provisioner.updatePoolState(instance, null, null)) {
+                surplus.add(instance);
+            }
+        }
+        final int missing;
+        synchronized (this) {
+            missing = target - (available.size() - surplus.size()) - provisioning.getOrDefault(config.getId(), 0);
+            if (missing > 0) {
+                provisioning.merge(config.getId(), missing, Integer::sum);
+            }
+        }
+
+        for (WsFlinkClusterInstanceDTO instance : surplus) {
+            retire(config, instance);
+        }
+        for (int i = 0; i < missing; i++) {
+            provisionExecutor.execute(() -> provision(config));
+        }
+    }
+
+    private void provision(WsFlinkClusterConfigDTO config) {
+        try {
+            WsFlinkClusterInstanceDTO instance = provisioner.provision(config, null, now());
+            log.info("provisioned session cluster {} for flink cluster config {}", instance.getClusterId(), config.getId());
+        } catch (Exception e) {
+            log.error("provision session cluster for flink cluster config {} failed", config.getId(), e);
+        } finally {
+            synchronized (this) {
+                provisioning.computeIfPresent(config.getId(), (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    private void retire(WsFlinkClusterConfigDTO config, WsFlinkClusterInstanceDTO instance) {
+        try {
+            log.info("shutdown idle session cluster {} for flink cluster config {}", instance.getClusterId(), config.getId());
+            provisioner.shutdown(instance);
+        } catch (Exception e) {
+            // marked idle again by the next check, retried once idle for idleTimeout
+            log.error("shutdown session cluster {} failed", instance.getClusterId(), e);
+        }
+    }
+
+    private boolean isPreferred(WsFlinkClusterInstanceDTO instance, WsFlinkClusterInstanceDTO preferred) {
+        return preferred != null && instance.getId().equals(preferred.getId());
+    }
+
+    /**
+     * Times are stored as datetime, whole seconds keep them comparable after a round trip.
+     */
+    private Date now() {
+        return new Date(clock.getAsLong() / 1000L * 1000L);
+    }
+}
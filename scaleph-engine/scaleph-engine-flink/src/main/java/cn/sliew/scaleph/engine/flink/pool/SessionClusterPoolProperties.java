@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.pool;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.engine.flink.session-pool")
+public class SessionClusterPoolProperties {
+
+    /**
+     * 超出预热数量的空闲集群，空闲超过该时间后关闭
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10L);
+
+    /**
+     * 分配出去的集群在该时间内即使没有任务也不计入空闲，等待任务提交到集群
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(5L);
+
+    /**
+     * 检查集群状态、补充和关闭集群的间隔
+     */
+    private Duration checkInterval = Duration.ofSeconds(30L);
+
+    /**
+     * 同时创建的集群数
+     */
+    private int parallelism = 2;
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.pool;
+
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterConfigDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 预热池依赖的 session 集群操作。
+ * 预热池的成员、租约和空闲时间保存在数据库中，由所有节点共享
+ */
+public interface SessionClusterProvisioner {
+
+    /**
+     * 开启了预热的集群配置
+     */
+    List<WsFlinkClusterConfigDTO> listPooledConfigs();
+
+    /**
+     * 预热池创建的运行中的集群，不包含用户创建的集群
+     */
+    List<WsFlinkClusterInstanceDTO> listPooled(WsFlinkClusterConfigDTO config);
+
+    /**
+     * 集群上没有未结束的任务。无法确认时返回 false，避免关闭正在使用的集群
+     */
+    boolean isIdle(WsFlinkClusterInstanceDTO instance);
+
+    /**
+     * 创建集群，标记为预热池集群并记录租约和空闲时间
+     */
+    WsFlinkClusterInstanceDTO provision(WsFlinkClusterConfigDTO config, Date leaseTime, Date idleTime) throws Exception;
+
+    void shutdown(WsFlinkClusterInstanceDTO instance) throws Exception;
+
+    /**
+     * 集群的租约和空闲时间与 expected 一致时才更新，返回是否更新成功
+     */
+    boolean updatePoolState(WsFlinkClusterInstanceDTO expected, Date leaseTime, Date idleTime);
+
+    /**
+     * 获取或续约预热池的维护权，同一时间只有一个节点维护预热池。
+     * 维护节点超过 timeout 没有续约时，其他节点可以接管
+     */
+    boolean claim(WsFlinkClusterConfigDTO config, String owner, Date now, Duration timeout);
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service;
+
+import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
+import org.apache.flink.configuration.Configuration;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * per-job 和 application 模式每次提交都会上传 flink lib、plugins 和连接器。
+ * 将它们同步到 YARN 集群的文件系统，通过 yarn.provided.lib.dirs 引用，内容不变时不再上传。
+ * 同步失败时不修改配置，退回到随任务上传
+ */
+public interface FlinkYarnProvidedLibService {
+
+    /**
+     * 同步 flink release 的 lib 和 plugins 目录
+     */
+    void provideFlinkRelease(Configuration configuration, Path clusterCredentialPath, FlinkReleaseDTO flinkRelease, Path flinkHomePath);
+
+    /**
+     * 同步 jar，每个 jar 单独一个目录
+     *
+     * @return 未能同步，仍需随任务上传的 jar
+     */
+    List<URL> provideJars(Configuration configuration, Path clusterCredentialPath, String name, List<URL> jars);
+}
@@ -43,4 +43,9 @@ public interface WsFlinkClusterConfigService {
     Page<WsFlinkClusterConfigDTO> listByPage(WsFlinkClusterConfigParam param);
 
     WsFlinkClusterConfigDTO selectOne(Long id);
+
+    /**
+     * 开启了 session 集群预热的配置
+     */
+    List<WsFlinkClusterConfigDTO> listWarmPooled();
 }
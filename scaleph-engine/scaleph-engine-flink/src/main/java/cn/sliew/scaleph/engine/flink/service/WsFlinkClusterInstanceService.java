@@ -22,6 +22,9 @@ import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkClusterInstanceParam;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import java.util.Date;
+import java.util.List;
+
 public interface WsFlinkClusterInstanceService {
 
     Page<WsFlinkClusterInstanceDTO> list(WsFlinkClusterInstanceParam param);
@@ -32,5 +35,15 @@ public interface WsFlinkClusterInstanceService {
 
     WsFlinkClusterInstanceDTO selectOne(Long id);
 
+    /**
+     * 预热池创建的运行中的集群
+     */
+    List<WsFlinkClusterInstanceDTO> listPooled(Long flinkClusterConfigId);
+
+    /**
+     * 集群的租约和空闲时间与 expected 一致时才更新，多个节点同时分配集群时只有一个成功
+     */
+    boolean updatePoolState(WsFlinkClusterInstanceDTO expected, Date leaseTime, Date idleTime);
+
     Long totalCnt();
 }
@@ -41,6 +41,8 @@ public interface WsFlinkJobInstanceService {
 
     int update(WsFlinkJobInstanceDTO dto);
 
+    int updateBatch(List<WsFlinkJobInstanceDTO> dtos);
+
     WsFlinkJobInstanceDTO deleteById(Long id);
 
     int archiveLog(Long flinkJobCode);
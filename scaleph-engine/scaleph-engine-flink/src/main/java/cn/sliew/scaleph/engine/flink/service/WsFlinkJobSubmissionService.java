@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service;
+
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionDTO;
+
+import java.util.function.Consumer;
+
+/**
+ * 异步提交 flink 任务，记录提交的每个阶段
+ */
+public interface WsFlinkJobSubmissionService {
+
+    /**
+     * 提交进入队列后立即返回，提交结果通过 {@link #selectOne(Long)} 或 {@link #subscribe(Long, Consumer)} 获取
+     */
+    WsFlinkJobSubmissionDTO submit(WsFlinkJobDTO wsFlinkJobDTO);
+
+    WsFlinkJobSubmissionDTO selectOne(Long id);
+
+    /**
+     * 订阅提交的阶段变化，订阅时立即回调一次当前状态
+     *
+     * @return 取消订阅
+     */
+    Runnable subscribe(Long id, Consumer<WsFlinkJobSubmissionDTO> listener);
+
+    boolean isTerminated(WsFlinkJobSubmissionDTO submission);
+}
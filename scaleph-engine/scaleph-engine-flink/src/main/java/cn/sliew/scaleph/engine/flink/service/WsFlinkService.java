@@ -18,16 +18,24 @@
 
 package cn.sliew.scaleph.engine.flink.service;
 
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
 import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobDTO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface WsFlinkService {
 
-    void createSessionCluster(Long projectId, Long flinkClusterConfigId) throws Exception;
+    WsFlinkClusterInstanceDTO createSessionCluster(Long projectId, Long flinkClusterConfigId) throws Exception;
 
     void submit(WsFlinkJobDTO wsFlinkJobDTO) throws Exception;
 
+    /**
+     * 同步提交，进入每个提交阶段时回调 listener
+     */
+    void submit(WsFlinkJobDTO wsFlinkJobDTO, Consumer<FlinkJobSubmissionStage> listener) throws Exception;
+
     void shutdown(Long id) throws Exception;
 
     void shutdownBatch(List<Long> ids) throws Exception;
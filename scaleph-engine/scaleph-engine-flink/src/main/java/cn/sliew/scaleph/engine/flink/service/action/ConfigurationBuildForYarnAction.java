@@ -18,7 +18,10 @@
 
 package cn.sliew.scaleph.engine.flink.service.action;
 
+import cn.sliew.milky.common.constant.Attribute;
+import cn.sliew.scaleph.engine.flink.service.FlinkYarnProvidedLibService;
 import cn.sliew.scaleph.engine.flink.service.WsFlinkClusterConfigService;
+import cn.sliew.scaleph.resource.service.FlinkReleaseService;
 import cn.sliew.scaleph.workflow.engine.action.ActionContext;
 import org.apache.flink.configuration.*;
 
@@ -29,10 +32,21 @@ public class ConfigurationBuildForYarnAction extends ConfigurationBuildAction {
 
     public static final String NAME = ConfigurationBuildForYarnAction.class.getName();
 
+    private FlinkReleaseService flinkReleaseService;
+    private FlinkYarnProvidedLibService flinkYarnProvidedLibService;
+
     public ConfigurationBuildForYarnAction(WsFlinkClusterConfigService wsFlinkClusterConfigService) {
         super(NAME, wsFlinkClusterConfigService);
     }
 
+    public ConfigurationBuildForYarnAction(WsFlinkClusterConfigService wsFlinkClusterConfigService,
+                                           FlinkReleaseService flinkReleaseService,
+                                           FlinkYarnProvidedLibService flinkYarnProvidedLibService) {
+        this(wsFlinkClusterConfigService);
+        this.flinkReleaseService = flinkReleaseService;
+        this.flinkYarnProvidedLibService = flinkYarnProvidedLibService;
+    }
+
     @Override
     protected Configuration buildForResource(ActionContext context, Path clusterCredentialPath, Configuration dynamicProperties) throws IOException {
         dynamicProperties.set(CoreOptions.FLINK_HADOOP_CONF_DIR, clusterCredentialPath.toAbsolutePath().toString());
@@ -42,6 +56,23 @@ public class ConfigurationBuildForYarnAction extends ConfigurationBuildAction {
         if (dynamicProperties.contains(TaskManagerOptions.TOTAL_PROCESS_MEMORY) == false) {
             dynamicProperties.setLong(TaskManagerOptions.TOTAL_PROCESS_MEMORY.key(), MemorySize.ofMebiBytes(2048).getBytes());
         }
+        provideFlinkRelease(context, clusterCredentialPath, dynamicProperties);
         return dynamicProperties;
     }
+
+    /**
+     * 提交到已有 session 集群时 yarn.provided.lib.dirs 不生效，不需要区分部署模式
+     */
+    private void provideFlinkRelease(ActionContext context, Path clusterCredentialPath, Configuration dynamicProperties) {
+        if (flinkYarnProvidedLibService == null) {
+            return;
+        }
+        Attribute<Long> flinkReleaseId = context.attr(FlinkReleaseLoadAction.FLINK_RELEASE_ID);
+        Attribute<Path> flinkReleasePath = context.attr(FlinkReleaseLoadAction.FLINK_RELEASE_PATH);
+        if (flinkReleaseId.get() == null || flinkReleasePath.get() == null) {
+            return;
+        }
+        flinkYarnProvidedLibService.provideFlinkRelease(dynamicProperties, clusterCredentialPath,
+                flinkReleaseService.selectOne(flinkReleaseId.get()), flinkReleasePath.get());
+    }
 }
@@ -18,7 +18,6 @@
 
 package cn.sliew.scaleph.engine.flink.service.action;
 
-import cn.sliew.flinkful.rest.base.JobClient;
 import cn.sliew.flinkful.rest.base.RestClient;
 import cn.sliew.flinkful.rest.client.FlinkRestClient;
 import cn.sliew.milky.common.filter.ActionListener;
@@ -28,51 +27,164 @@ import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobInstanceDTO;
 import cn.sliew.scaleph.workflow.engine.action.ActionContext;
 import cn.sliew.scaleph.workflow.engine.action.ActionResult;
 import cn.sliew.scaleph.workflow.engine.workflow.AbstractWorkFlow;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.flink.configuration.Configuration;
-import org.apache.flink.runtime.rest.messages.job.JobDetailsInfo;
+import org.apache.flink.runtime.messages.webmonitor.JobDetails;
+import org.apache.flink.runtime.messages.webmonitor.MultipleJobsDetails;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
+/**
+ * Synchronizes flink job instance status from flink clusters.
+ * <p>
+ * Instances are grouped by cluster endpoint and every cluster is polled once through
+ * {@code /jobs/overview} on a bounded executor. A failing cluster only skips its own
+ * instances, and only instances whose status changed are written back in batches. Times are
+ * compared at the second precision of the {@code datetime} columns they are stored in.
+ * Rest clients are kept per endpoint and dropped once no job instance refers to the endpoint.
+ */
 @Slf4j
 @Component
-public class FlinkJobStatusSyncJob extends AbstractWorkFlow {
+public class FlinkJobStatusSyncJob extends AbstractWorkFlow implements DisposableBean {
+
+    private static final int PARALLELISM = 8;
+    private static final int BATCH_SIZE = 100;
+    private static final long TIMEOUT_SECONDS = 10L;
 
     @Autowired
     private WsFlinkJobInstanceService wsFlinkJobInstanceService;
 
+    private final ConcurrentMap<String, RestClient> restClients = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
     public FlinkJobStatusSyncJob() {
         super("FLINK_JOB_STATUS_SYNC_JOB");
+        this.executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("flink-job-status-sync-%d").setDaemon(true).build());
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    FlinkJobStatusSyncJob(WsFlinkJobInstanceService wsFlinkJobInstanceService) {
+        this();
+        this.wsFlinkJobInstanceService = wsFlinkJobInstanceService;
     }
 
     @Override
     protected Runnable doExecute(ActionContext context, ActionListener<ActionResult> listener) {
         return () -> {
             log.info("Flink Job Status Sync Action execute!");
-            List<WsFlinkJobInstanceDTO> jobList = wsFlinkJobInstanceService.listAll();
-            for (WsFlinkJobInstanceDTO instance : jobList) {
-                final URL url;
-                try {
-                    url = new URL(instance.getWebInterfaceUrl());
-                    final String jobId = instance.getJobId();
-                    RestClient restClient = new FlinkRestClient(url.getHost(), url.getPort(), new Configuration());
-                    final JobClient jobClient = restClient.job();
-                    JobDetailsInfo jobInfo = jobClient.jobDetail(jobId).get();
-                    instance.setJobState(FlinkJobState.of(jobInfo.getJobStatus().name()));
-                    instance.setStartTime(new Date(jobInfo.getStartTime()));
-                    instance.setEndTime(new Date(jobInfo.getEndTime()));
-                    instance.setDuration(jobInfo.getDuration());
-                    wsFlinkJobInstanceService.update(instance);
-                    log.info("Flink Job {} Status Sync Action executed!", instance.getJobId());
-                } catch (Exception e) {
-                    log.info("Flink Job Status Sync Action Error {}, job code is {} and job id is {}", e.getMessage(), instance.getFlinkJobCode(), instance.getJobId());
-                    throw new RuntimeException(e);
-                }
-            }
+            int updated = sync();
+            log.info("Flink Job Status Sync Action executed! {} job instances updated", updated);
         };
     }
+
+    int sync() {
+        Map<String, List<WsFlinkJobInstanceDTO>> clusters = groupByEndpoint(wsFlinkJobInstanceService.listAll());
+        List<CompletableFuture<List<WsFlinkJobInstanceDTO>>> futures = new ArrayList<>(clusters.size());
+        clusters.forEach((endpoint, instances) -> futures.add(
+                CompletableFuture.supplyAsync(() -> syncCluster(endpoint, instances), executor)
+                        .exceptionally(throwable -> {
+                            restClients.remove(endpoint);
+                            log.error("Flink Job Status Sync Action Error for cluster {}, {} job instances skipped",
+                                    endpoint, instances.size(), throwable);
+                            return Collections.emptyList();
+                        })));
+
+        List<WsFlinkJobInstanceDTO> changed = futures.stream()
+                .map(CompletableFuture::join)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        restClients.keySet().retainAll(clusters.keySet());
+        int updated = 0;
+        for (List<WsFlinkJobInstanceDTO> batch : Lists.partition(changed, BATCH_SIZE)) {
+            updated += wsFlinkJobInstanceService.updateBatch(batch);
+        }
+        return updated;
+    }
+
+    private Map<String, List<WsFlinkJobInstanceDTO>> groupByEndpoint(List<WsFlinkJobInstanceDTO> instances) {
+        Map<String, List<WsFlinkJobInstanceDTO>> clusters = new HashMap<>();
+        for (WsFlinkJobInstanceDTO instance : instances) {
+            try {
+                URL url = new URL(instance.getWebInterfaceUrl());
+                String endpoint = url.getHost() + ":" + url.getPort();
+                clusters.computeIfAbsent(endpoint, key -> new ArrayList<>()).add(instance);
+            } catch (MalformedURLException e) {
+                log.warn("Flink Job Status Sync Action skip job code {} and job id {}, illegal web interface url: {}",
+                        instance.getFlinkJobCode(), instance.getJobId(), instance.getWebInterfaceUrl());
+            }
+        }
+        return clusters;
+    }
+
+    private List<WsFlinkJobInstanceDTO> syncCluster(String endpoint, List<WsFlinkJobInstanceDTO> instances) {
+        RestClient restClient = restClients.computeIfAbsent(endpoint, this::newRestClient);
+        final MultipleJobsDetails overview;
+        try {
+            overview = restClient.job().jobsOverview().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new CompletionException(e);
+        }
+
+        Map<String, JobDetails> jobs = new HashMap<>();
+        for (JobDetails job : overview.getJobs()) {
+            jobs.put(job.getJobId().toString(), job);
+        }
+        List<WsFlinkJobInstanceDTO> changed = new ArrayList<>();
+        for (WsFlinkJobInstanceDTO instance : instances) {
+            JobDetails job = jobs.get(instance.getJobId());
+            if (job == null) {
+                continue;
+            }
+            FlinkJobState jobState = FlinkJobState.of(job.getStatus().name());
+            Date startTime = toDate(job.getStartTime());
+            Date endTime = toDate(job.getEndTime());
+            if (jobState == instance.getJobState()
+                    && Objects.equals(startTime, instance.getStartTime())
+                    && Objects.equals(endTime, instance.getEndTime())) {
+                continue;
+            }
+            instance.setJobState(jobState);
+            instance.setStartTime(startTime);
+            instance.setEndTime(endTime);
+            instance.setDuration(job.getDuration());
+            changed.add(instance);
+        }
+        return changed;
+    }
+
+    /**
+     * flink reports -1 for times not reached yet
+     */
+    private static Date toDate(long timestamp) {
+        if (timestamp < 0L) {
+            return null;
+        }
+        return new Date(timestamp / 1000L * 1000L);
+    }
+
+    private RestClient newRestClient(String endpoint) {
+        int index = endpoint.lastIndexOf(':');
+        return new FlinkRestClient(endpoint.substring(0, index), Integer.parseInt(endpoint.substring(index + 1)), new Configuration());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdownNow();
+        restClients.clear();
+    }
 }
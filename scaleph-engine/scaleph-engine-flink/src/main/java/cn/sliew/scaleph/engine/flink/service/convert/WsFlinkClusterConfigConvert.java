@@ -67,6 +67,7 @@ public interface WsFlinkClusterConfigConvert extends BaseConvert<WsFlinkClusterC
         if (!CollectionUtils.isEmpty(dto.getConfigOptions())) {
             entity.setConfigOptions(JacksonUtil.toJsonString(dto.getConfigOptions()));
         }
+        entity.setWarmPoolSize(dto.getWarmPoolSize());
         entity.setRemark(dto.getRemark());
         return entity;
     }
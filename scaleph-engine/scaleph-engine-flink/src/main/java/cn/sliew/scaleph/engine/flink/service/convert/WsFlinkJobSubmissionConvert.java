@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.engine.flink.service.convert;
+
+import cn.sliew.milky.common.util.JacksonUtil;
+import cn.sliew.scaleph.common.convert.BaseConvert;
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
+import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkJobSubmission;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionStageDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Mapper(uses = {}, unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface WsFlinkJobSubmissionConvert extends BaseConvert<WsFlinkJobSubmission, WsFlinkJobSubmissionDTO> {
+    WsFlinkJobSubmissionConvert INSTANCE = Mappers.getMapper(WsFlinkJobSubmissionConvert.class);
+
+    @Override
+    default WsFlinkJobSubmission toDo(WsFlinkJobSubmissionDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        WsFlinkJobSubmission entity = new WsFlinkJobSubmission();
+        BeanUtils.copyProperties(dto, entity);
+        if (!CollectionUtils.isEmpty(dto.getStages())) {
+            List<Map<String, Object>> stages = dto.getStages().stream()
+                    .map(stage -> Map.<String, Object>of("stage", stage.getStage().getValue(), "time", stage.getTime().getTime()))
+                    .collect(Collectors.toList());
+            entity.setStages(JacksonUtil.toJsonString(stages));
+        }
+        return entity;
+    }
+
+    @Override
+    default WsFlinkJobSubmissionDTO toDto(WsFlinkJobSubmission entity) {
+        if (entity == null) {
+            return null;
+        }
+        WsFlinkJobSubmissionDTO dto = new WsFlinkJobSubmissionDTO();
+        BeanUtils.copyProperties(entity, dto);
+        if (StringUtils.hasText(entity.getStages())) {
+            List<WsFlinkJobSubmissionStageDTO> stages = JacksonUtil.parseJsonArray(entity.getStages(), Map.class).stream()
+                    .map(stage -> new WsFlinkJobSubmissionStageDTO(
+                            FlinkJobSubmissionStage.of((String) stage.get("stage")),
+                            new Date(((Number) stage.get("time")).longValue())))
+                    .collect(Collectors.toList());
+            dto.setStages(stages);
+        }
+        return dto;
+    }
+}
@@ -75,6 +75,9 @@ public class WsFlinkClusterConfigDTO extends BaseDTO {
     @ApiModelProperty("flink 集群配置项")
     private Map<String, String> configOptions;
 
+    @ApiModelProperty("预热的空闲 session 集群数量，仅 session 模式有效")
+    private Integer warmPoolSize;
+
     @ApiModelProperty("备注")
     private String remark;
 }
@@ -18,6 +18,7 @@
 
 package cn.sliew.scaleph.engine.flink.service.dto;
 
+import cn.sliew.scaleph.common.dict.common.YesOrNo;
 import cn.sliew.scaleph.common.dict.flink.FlinkClusterStatus;
 import cn.sliew.scaleph.common.dto.BaseDTO;
 import io.swagger.annotations.ApiModel;
@@ -26,6 +27,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import javax.validation.constraints.NotNull;
+import java.util.Date;
 
 /**
  * <p>
@@ -57,5 +59,14 @@ public class WsFlinkClusterInstanceDTO extends BaseDTO {
     @ApiModelProperty("集群状态。0: 已创建, 1: 运行中, 2: 停止")
     private FlinkClusterStatus status;
 
+    @ApiModelProperty("是否由预热池创建")
+    private YesOrNo pooled;
+
+    @ApiModelProperty("预热池分配集群的时间")
+    private Date leaseTime;
+
+    @ApiModelProperty("预热池集群开始空闲的时间")
+    private Date idleTime;
+
 
 }
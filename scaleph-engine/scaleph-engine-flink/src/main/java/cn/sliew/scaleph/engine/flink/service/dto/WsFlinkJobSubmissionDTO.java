@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.engine.flink.service.dto;
+
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
+import cn.sliew.scaleph.common.dto.BaseDTO;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ApiModel(value = "FlinkJobSubmission对象", description = "flink job submission")
+public class WsFlinkJobSubmissionDTO extends BaseDTO {
+
+    @ApiModelProperty("flink job id")
+    private Long flinkJobId;
+
+    @ApiModelProperty("flink job code")
+    private Long flinkJobCode;
+
+    @ApiModelProperty("flink job name")
+    private String jobName;
+
+    @ApiModelProperty("current submission stage")
+    private FlinkJobSubmissionStage stage;
+
+    @ApiModelProperty("stage transitions")
+    private List<WsFlinkJobSubmissionStageDTO> stages = new ArrayList<>();
+
+    @ApiModelProperty("failure message")
+    private String message;
+
+    @ApiModelProperty("submission start time")
+    private Date startTime;
+
+    @ApiModelProperty("submission end time")
+    private Date endTime;
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service.impl;
+
+import cn.sliew.scaleph.engine.flink.service.FlinkYarnProvidedLibService;
+import cn.sliew.scaleph.engine.flink.yarn.ProvidedLibProperties;
+import cn.sliew.scaleph.engine.flink.yarn.ProvidedLibRepository;
+import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
+import cn.sliew.scaleph.storage.utils.HadoopUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.yarn.configuration.YarnConfigOptions;
+import org.apache.hadoop.fs.FileSystem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class FlinkYarnProvidedLibServiceImpl implements FlinkYarnProvidedLibService {
+
+    private static final List<String> FLINK_RELEASE_INCLUDES = Arrays.asList("lib", "plugins");
+
+    @Autowired
+    private ProvidedLibProperties properties;
+
+    /**
+     * flink release 上传后内容不会变化，缓存 digest 避免每次提交都计算
+     */
+    private final Map<Long, String> flinkReleaseDigests = new ConcurrentHashMap<>();
+
+    @Override
+    public void provideFlinkRelease(Configuration configuration, Path clusterCredentialPath, FlinkReleaseDTO flinkRelease, Path flinkHomePath) {
+        if (properties.isEnabled() == false || configuration.contains(YarnConfigOptions.PROVIDED_LIB_DIRS)) {
+            return;
+        }
+        try (FileSystem fs = newFileSystem(clusterCredentialPath)) {
+            ProvidedLibRepository repository = new ProvidedLibRepository(fs, new org.apache.hadoop.fs.Path(properties.getRoot()));
+            String digest = flinkReleaseDigests.get(flinkRelease.getId());
+            if (digest == null) {
+                digest = ProvidedLibRepository.digest(flinkHomePath, FLINK_RELEASE_INCLUDES);
+                flinkReleaseDigests.put(flinkRelease.getId(), digest);
+            }
+            org.apache.hadoop.fs.Path dir = repository.sync("flink/" + flinkRelease.getVersion().getValue(), flinkHomePath, FLINK_RELEASE_INCLUDES, digest);
+            addProvidedLibDirs(configuration, Collections.singletonList(dir.toString()));
+        } catch (IOException e) {
+            log.warn("provide flink release {} on yarn failed, fallback to ship it with the job", flinkRelease.getVersion().getValue(), e);
+        }
+    }
+
+    @Override
+    public List<URL> provideJars(Configuration configuration, Path clusterCredentialPath, String name, List<URL> jars) {
+        // 没有 provided lib 时 flink 会上传 lib 目录，只提供 jar 会导致 lib 不再上传
+        if (properties.isEnabled() == false || jars.isEmpty() || configuration.contains(YarnConfigOptions.PROVIDED_LIB_DIRS) == false) {
+            return jars;
+        }
+        try (FileSystem fs = newFileSystem(clusterCredentialPath)) {
+            ProvidedLibRepository repository = new ProvidedLibRepository(fs, new org.apache.hadoop.fs.Path(properties.getRoot()));
+            List<String> dirs = new ArrayList<>(jars.size());
+            for (URL jar : jars) {
+                Path path = Paths.get(jar.toURI());
+                dirs.add(repository.sync(name, path.getParent(), Collections.singletonList(path.getFileName().toString())).toString());
+            }
+            addProvidedLibDirs(configuration, dirs);
+            return Collections.emptyList();
+        } catch (IOException | URISyntaxException e) {
+            log.warn("provide {} on yarn failed, fallback to ship them with the job", name, e);
+            return jars;
+        }
+    }
+
+    private FileSystem newFileSystem(Path clusterCredentialPath) throws IOException {
+        return FileSystem.newInstance(HadoopUtil.getHadoopConfiguration(clusterCredentialPath.toAbsolutePath().toString()));
+    }
+
+    private void addProvidedLibDirs(Configuration configuration, List<String> dirs) {
+        List<String> providedLibDirs = new ArrayList<>(configuration.getOptional(YarnConfigOptions.PROVIDED_LIB_DIRS).orElse(Collections.emptyList()));
+        providedLibDirs.addAll(dirs);
+        configuration.set(YarnConfigOptions.PROVIDED_LIB_DIRS, providedLibDirs);
+    }
+}
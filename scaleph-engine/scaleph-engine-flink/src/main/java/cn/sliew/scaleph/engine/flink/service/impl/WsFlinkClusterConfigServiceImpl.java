@@ -19,6 +19,7 @@
 package cn.sliew.scaleph.engine.flink.service.impl;
 
 import cn.sliew.milky.common.util.JacksonUtil;
+import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
 import cn.sliew.scaleph.common.util.BeanUtil;
 import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkClusterConfig;
 import cn.sliew.scaleph.dao.mapper.master.ws.WsFlinkClusterConfigMapper;
@@ -29,6 +30,7 @@ import cn.sliew.scaleph.engine.flink.service.dto.KubernetesOptionsDTO;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkClusterConfigParam;
 import cn.sliew.scaleph.resource.service.FlinkReleaseService;
 import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -117,4 +119,13 @@ public class WsFlinkClusterConfigServiceImpl implements WsFlinkClusterConfigServ
         WsFlinkClusterConfig record = flinkClusterConfigMapper.getById(id);
         return WsFlinkClusterConfigConvert.INSTANCE.toDto(record);
     }
+
+    @Override
+    public List<WsFlinkClusterConfigDTO> listWarmPooled() {
+        List<WsFlinkClusterConfig> records = flinkClusterConfigMapper.selectList(
+                Wrappers.lambdaQuery(WsFlinkClusterConfig.class)
+                        .eq(WsFlinkClusterConfig::getDeployMode, FlinkDeploymentMode.SESSION)
+                        .gt(WsFlinkClusterConfig::getWarmPoolSize, 0));
+        return WsFlinkClusterConfigConvert.INSTANCE.toDto(records);
+    }
 }
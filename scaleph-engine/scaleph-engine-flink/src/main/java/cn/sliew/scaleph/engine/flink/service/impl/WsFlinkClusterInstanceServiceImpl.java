@@ -18,12 +18,15 @@
 
 package cn.sliew.scaleph.engine.flink.service.impl;
 
+import cn.sliew.scaleph.common.dict.common.YesOrNo;
+import cn.sliew.scaleph.common.dict.flink.FlinkClusterStatus;
 import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkClusterInstance;
 import cn.sliew.scaleph.dao.mapper.master.ws.WsFlinkClusterInstanceMapper;
 import cn.sliew.scaleph.engine.flink.service.WsFlinkClusterInstanceService;
 import cn.sliew.scaleph.engine.flink.service.convert.WsFlinkClusterInstanceConvert;
 import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkClusterInstanceParam;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +34,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.Date;
 import java.util.List;
 
 @Slf4j
@@ -60,7 +64,9 @@ public class WsFlinkClusterInstanceServiceImpl implements WsFlinkClusterInstance
     @Override
     public int insert(WsFlinkClusterInstanceDTO dto) {
         final WsFlinkClusterInstance record = WsFlinkClusterInstanceConvert.INSTANCE.toDo(dto);
-        return flinkClusterInstanceMapper.insert(record);
+        int result = flinkClusterInstanceMapper.insert(record);
+        dto.setId(record.getId());
+        return result;
     }
 
     @Override
@@ -75,6 +81,36 @@ public class WsFlinkClusterInstanceServiceImpl implements WsFlinkClusterInstance
         return WsFlinkClusterInstanceConvert.INSTANCE.toDto(record);
     }
 
+    @Override
+    public List<WsFlinkClusterInstanceDTO> listPooled(Long flinkClusterConfigId) {
+        List<WsFlinkClusterInstance> records = flinkClusterInstanceMapper.selectList(
+                Wrappers.lambdaQuery(WsFlinkClusterInstance.class)
+                        .eq(WsFlinkClusterInstance::getFlinkClusterConfigId, flinkClusterConfigId)
+                        .eq(WsFlinkClusterInstance::getStatus, FlinkClusterStatus.RUNNING)
+                        .eq(WsFlinkClusterInstance::getPooled, YesOrNo.YES));
+        return WsFlinkClusterInstanceConvert.INSTANCE.toDto(records);
+    }
+
+    @Override
+    public boolean updatePoolState(WsFlinkClusterInstanceDTO expected, Date leaseTime, Date idleTime) {
+        LambdaUpdateWrapper<WsFlinkClusterInstance> wrapper = Wrappers.lambdaUpdate(WsFlinkClusterInstance.class)
+                .set(WsFlinkClusterInstance::getLeaseTime, leaseTime)
+                .set(WsFlinkClusterInstance::getIdleTime, idleTime)
+                .eq(WsFlinkClusterInstance::getId, expected.getId())
+                .eq(WsFlinkClusterInstance::getStatus, FlinkClusterStatus.RUNNING);
+        if (expected.getLeaseTime() == null) {
+            wrapper.isNull(WsFlinkClusterInstance::getLeaseTime);
+        } else {
+            wrapper.eq(WsFlinkClusterInstance::getLeaseTime, expected.getLeaseTime());
+        }
+        if (expected.getIdleTime() == null) {
+            wrapper.isNull(WsFlinkClusterInstance::getIdleTime);
+        } else {
+            wrapper.eq(WsFlinkClusterInstance::getIdleTime, expected.getIdleTime());
+        }
+        return flinkClusterInstanceMapper.update(null, wrapper) == 1;
+    }
+
     @Override
     public Long totalCnt() {
         return flinkClusterInstanceMapper.selectCount(null);
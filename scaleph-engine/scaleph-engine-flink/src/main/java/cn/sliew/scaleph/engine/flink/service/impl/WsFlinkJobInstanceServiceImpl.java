@@ -36,6 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.Optional;
@@ -105,6 +106,17 @@ public class WsFlinkJobInstanceServiceImpl
         return flinkJobInstanceMapper.updateById(record);
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class, transactionManager = DataSourceConstants.MASTER_TRANSACTION_MANAGER_FACTORY)
+    public int updateBatch(List<WsFlinkJobInstanceDTO> dtos) {
+        if (CollectionUtils.isEmpty(dtos)) {
+            return 0;
+        }
+        List<WsFlinkJobInstance> records = WsFlinkJobInstanceConvert.INSTANCE.toDo(dtos);
+        updateBatchById(records);
+        return records.size();
+    }
+
     @Override
     public WsFlinkJobInstanceDTO deleteById(Long id) {
         final WsFlinkJobInstanceDTO dto = selectOne(id);
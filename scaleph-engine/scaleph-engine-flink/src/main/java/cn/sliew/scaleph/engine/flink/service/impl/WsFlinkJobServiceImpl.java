@@ -18,20 +18,25 @@
 
 package cn.sliew.scaleph.engine.flink.service.impl;
 
+import cn.sliew.scaleph.common.dict.flink.FlinkJobType;
 import cn.sliew.scaleph.common.exception.Rethrower;
 import cn.sliew.scaleph.common.util.BeanUtil;
 import cn.sliew.scaleph.dao.DataSourceConstants;
 import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkJob;
 import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkJobInstance;
 import cn.sliew.scaleph.dao.mapper.master.ws.WsFlinkJobMapper;
+import cn.sliew.scaleph.engine.flink.jobgraph.JobGraphSubmitter;
 import cn.sliew.scaleph.engine.flink.service.WsFlinkJobService;
 import cn.sliew.scaleph.engine.flink.service.convert.WsFlinkJobConvert;
 import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobDTO;
 import cn.sliew.scaleph.engine.flink.service.param.WsFlinkJobListParam;
+import cn.sliew.scaleph.engine.seatunnel.service.event.WsDiJobChangedEvent;
 import cn.sliew.scaleph.system.snowflake.UidGenerator;
 import cn.sliew.scaleph.system.snowflake.exception.UidGenerateException;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,6 +49,8 @@ public class WsFlinkJobServiceImpl implements WsFlinkJobService {
     private UidGenerator defaultUidGenerator;
     @Autowired
     private WsFlinkJobMapper flinkJobMapper;
+    @Autowired
+    private JobGraphSubmitter jobGraphSubmitter;
 
     @Override
     public Page<WsFlinkJobDTO> list(WsFlinkJobListParam param) {
@@ -83,11 +90,26 @@ public class WsFlinkJobServiceImpl implements WsFlinkJobService {
     @Override
     public int update(WsFlinkJobDTO dto) {
         final WsFlinkJob record = WsFlinkJobConvert.INSTANCE.toDo(dto);
+        jobGraphSubmitter.invalidate(dto.getId());
         return flinkJobMapper.updateById(record);
     }
 
     public int delete(Long id) {
+        jobGraphSubmitter.invalidate(id);
         return flinkJobMapper.deleteById(id);
     }
 
+    /**
+     * seatunnel 任务变更后丢弃引用它的 flink 任务编译好的 JobGraph
+     */
+    @EventListener
+    public void onDiJobChanged(WsDiJobChangedEvent event) {
+        LambdaQueryWrapper<WsFlinkJob> queryWrapper = new LambdaQueryWrapper<WsFlinkJob>()
+                .eq(WsFlinkJob::getType, FlinkJobType.SEATUNNEL)
+                .eq(WsFlinkJob::getFlinkArtifactId, event.getJobId());
+        for (WsFlinkJob job : flinkJobMapper.selectList(queryWrapper)) {
+            jobGraphSubmitter.invalidate(job.getId());
+        }
+    }
+
 }
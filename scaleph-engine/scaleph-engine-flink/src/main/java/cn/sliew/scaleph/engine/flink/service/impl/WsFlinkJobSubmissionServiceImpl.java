@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service.impl;
+
+import cn.sliew.scaleph.cache.util.RedisUtil;
+import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
+import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkJobSubmission;
+import cn.sliew.scaleph.dao.mapper.master.ws.WsFlinkJobSubmissionMapper;
+import cn.sliew.scaleph.engine.flink.pool.SessionClusterPool;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkClusterConfigService;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkJobSubmissionService;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkService;
+import cn.sliew.scaleph.engine.flink.service.convert.WsFlinkJobSubmissionConvert;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterConfigDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionStageDTO;
+import cn.sliew.scaleph.engine.flink.submission.FlinkSubmissionProperties;
+import cn.sliew.scaleph.engine.flink.submission.KeyedBoundedExecutor;
+import cn.sliew.scaleph.system.snowflake.utils.NetUtils;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static cn.sliew.milky.common.check.Ensures.checkState;
+
+/**
+ * 异步提交任务并记录提交进度。
+ * <p>
+ * 提交在接收请求的节点执行，订阅方可能连接在其他节点，阶段变化通过redis pub/sub通知所有节点，
+ * 有订阅方的节点重新查询提交记录后通知本节点的订阅方
+ */
+@Slf4j
+@Service
+public class WsFlinkJobSubmissionServiceImpl implements WsFlinkJobSubmissionService, InitializingBean, DisposableBean, ApplicationRunner, MessageListener {
+
+    public static final String TRANSITION_CHANNEL = "flink-job-submission_transition";
+
+    @Autowired
+    private WsFlinkJobSubmissionMapper wsFlinkJobSubmissionMapper;
+    @Autowired
+    private WsFlinkService wsFlinkService;
+    @Autowired
+    private WsFlinkClusterConfigService wsFlinkClusterConfigService;
+    @Autowired
+    private SessionClusterPool sessionClusterPool;
+    @Autowired
+    private FlinkSubmissionProperties properties;
+    @Autowired
+    private RedisUtil redisUtil;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final Map<Long, List<Consumer<WsFlinkJobSubmissionDTO>>> listeners = new ConcurrentHashMap<>();
+    /**
+     * 本节点执行中的提交，定时刷新心跳
+     */
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private String nodeId;
+    private KeyedBoundedExecutor executor;
+    private ExecutorService notifier;
+    private ScheduledExecutorService heartbeat;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        nodeId = StringUtils.hasText(properties.getNodeId()) ? properties.getNodeId() : NetUtils.getLocalAddress();
+        executor = new KeyedBoundedExecutor("flink-job-submission",
+                properties.getParallelism(), properties.getMaxConcurrencyPerCluster(), properties.getQueueCapacity());
+        // 单线程通知，保证同一提交的阶段变化按顺序送达，慢的订阅方不会阻塞提交
+        ThreadPoolExecutor notifyExecutor = new ThreadPoolExecutor(1, 1,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("flink-job-submission-notify").setDaemon(true).build());
+        notifyExecutor.allowCoreThreadTimeOut(true);
+        notifier = notifyExecutor;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("flink-job-submission-heartbeat").setDaemon(true).build());
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(TRANSITION_CHANNEL));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        redisMessageListenerContainer.removeMessageListener(this);
+        heartbeat.shutdownNow();
+        executor.shutdown();
+        notifier.shutdown();
+    }
+
+    /**
+     * 本节点重启前未完成的提交不会再继续执行。
+     * 其他节点的提交在心跳超时后才认为失败
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<WsFlinkJobSubmission> submissions = wsFlinkJobSubmissionMapper.selectList(
+                Wrappers.lambdaQuery(WsFlinkJobSubmission.class)
+                        .notIn(WsFlinkJobSubmission::getStage, FlinkJobSubmissionStage.SUCCESS, FlinkJobSubmissionStage.FAILED)
+                        .eq(WsFlinkJobSubmission::getOwner, nodeId));
+        for (WsFlinkJobSubmission submission : submissions) {
+            WsFlinkJobSubmissionDTO dto = WsFlinkJobSubmissionConvert.INSTANCE.toDto(submission);
+            dto.setMessage("scaleph restarted during submission");
+            transition(dto, FlinkJobSubmissionStage.FAILED);
+        }
+        long period = properties.getHeartbeatInterval().toMillis();
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public WsFlinkJobSubmissionDTO submit(WsFlinkJobDTO wsFlinkJobDTO) {
+        WsFlinkJobSubmissionDTO submission = new WsFlinkJobSubmissionDTO();
+        submission.setFlinkJobId(wsFlinkJobDTO.getId());
+        submission.setFlinkJobCode(wsFlinkJobDTO.getCode());
+        submission.setJobName(wsFlinkJobDTO.getName());
+        submission.setStage(FlinkJobSubmissionStage.QUEUED);
+        submission.getStages().add(new WsFlinkJobSubmissionStageDTO(FlinkJobSubmissionStage.QUEUED, new Date()));
+        submission.setStartTime(new Date());
+        WsFlinkJobSubmission record = WsFlinkJobSubmissionConvert.INSTANCE.toDo(submission);
+        record.setOwner(nodeId);
+        record.setHeartbeatTime(new Date());
+        wsFlinkJobSubmissionMapper.insert(record);
+        submission.setId(record.getId());
+        running.add(submission.getId());
+
+        try {
+            executor.execute(getClusterKey(wsFlinkJobDTO), () -> doSubmit(wsFlinkJobDTO, submission));
+        } catch (RejectedExecutionException e) {
+            submission.setMessage(e.getMessage());
+            transition(submission, FlinkJobSubmissionStage.FAILED);
+            throw e;
+        }
+        return submission;
+    }
+
+    @Override
+    public WsFlinkJobSubmissionDTO selectOne(Long id) {
+        WsFlinkJobSubmission record = wsFlinkJobSubmissionMapper.selectById(id);
+        checkState(record != null, () -> "flink job submission not exists for id: " + id);
+        return WsFlinkJobSubmissionConvert.INSTANCE.toDto(record);
+    }
+
+    @Override
+    public Runnable subscribe(Long id, Consumer<WsFlinkJobSubmissionDTO> listener) {
+        List<Consumer<WsFlinkJobSubmissionDTO>> consumers = listeners.computeIfAbsent(id, key -> new CopyOnWriteArrayList<>());
+        consumers.add(listener);
+        Runnable unsubscribe = () -> listeners.computeIfPresent(id, (key, value) -> {
+            value.remove(listener);
+            return value.isEmpty() ? null : value;
+        });
+        // 先注册再查询，避免错过注册期间发生的阶段变化
+        try {
+            listener.accept(selectOne(id));
+        } catch (RuntimeException e) {
+            unsubscribe.run();
+            throw e;
+        }
+        return unsubscribe;
+    }
+
+    @Override
+    public boolean isTerminated(WsFlinkJobSubmissionDTO submission) {
+        return submission.getStage() == FlinkJobSubmissionStage.SUCCESS
+                || submission.getStage() == FlinkJobSubmissionStage.FAILED;
+    }
+
+    private void doSubmit(WsFlinkJobDTO wsFlinkJobDTO, WsFlinkJobSubmissionDTO submission) {
+        try {
+            acquireSessionCluster(wsFlinkJobDTO);
+            wsFlinkService.submit(wsFlinkJobDTO, stage -> transition(submission, stage));
+            transition(submission, FlinkJobSubmissionStage.SUCCESS);
+        } catch (Throwable e) {
+            log.error("submit flink job {} failed", wsFlinkJobDTO.getName(), e);
+            submission.setMessage(e.getMessage());
+            transition(submission, FlinkJobSubmissionStage.FAILED);
+        }
+    }
+
+    /**
+     * 集群配置开启预热时，从预热池中分配 session 集群
+     */
+    private void acquireSessionCluster(WsFlinkJobDTO wsFlinkJobDTO) throws Exception {
+        WsFlinkClusterConfigDTO clusterConfig = wsFlinkClusterConfigService.selectOne(wsFlinkJobDTO.getWsFlinkClusterConfig().getId());
+        if (sessionClusterPool.isPooled(clusterConfig)) {
+            wsFlinkJobDTO.setWsFlinkClusterInstance(sessionClusterPool.acquire(clusterConfig, wsFlinkJobDTO.getWsFlinkClusterInstance()));
+        }
+    }
+
+    /**
+     * 刷新本节点执行中的提交的心跳，并将心跳超时的提交置为失败
+     */
+    void heartbeat() {
+        try {
+            Date now = new Date();
+            if (running.isEmpty() == false) {
+                WsFlinkJobSubmission record = new WsFlinkJobSubmission();
+                record.setHeartbeatTime(now);
+                wsFlinkJobSubmissionMapper.update(record, Wrappers.lambdaUpdate(WsFlinkJobSubmission.class)
+                        .in(WsFlinkJobSubmission::getId, running));
+            }
+            Date deadline = new Date(now.getTime() - properties.getHeartbeatTimeout().toMillis());
+            List<WsFlinkJobSubmission> submissions = wsFlinkJobSubmissionMapper.selectList(
+                    Wrappers.lambdaQuery(WsFlinkJobSubmission.class)
+                            .notIn(WsFlinkJobSubmission::getStage, FlinkJobSubmissionStage.SUCCESS, FlinkJobSubmissionStage.FAILED)
+                            .lt(WsFlinkJobSubmission::getHeartbeatTime, deadline));
+            for (WsFlinkJobSubmission submission : submissions) {
+                WsFlinkJobSubmissionDTO dto = WsFlinkJobSubmissionConvert.INSTANCE.toDto(submission);
+                dto.setMessage("scaleph node " + submission.getOwner() + " lost during submission");
+                transition(dto, FlinkJobSubmissionStage.FAILED);
+            }
+        } catch (Exception e) {
+            log.error("refresh flink job submission heartbeat failed", e);
+        }
+    }
+
+    private void transition(WsFlinkJobSubmissionDTO submission, FlinkJobSubmissionStage stage) {
+        Date now = new Date();
+        submission.setStage(stage);
+        submission.getStages().add(new WsFlinkJobSubmissionStageDTO(stage, now));
+        if (isTerminated(submission)) {
+            submission.setEndTime(now);
+            running.remove(submission.getId());
+        }
+        // 已结束的提交不再变更，心跳超时被其他节点置为失败后，本节点的后续变更被忽略
+        int updated = wsFlinkJobSubmissionMapper.update(WsFlinkJobSubmissionConvert.INSTANCE.toDo(submission),
+                Wrappers.lambdaUpdate(WsFlinkJobSubmission.class)
+                        .eq(WsFlinkJobSubmission::getId, submission.getId())
+                        .notIn(WsFlinkJobSubmission::getStage, FlinkJobSubmissionStage.SUCCESS, FlinkJobSubmissionStage.FAILED));
+        if (updated == 0) {
+            running.remove(submission.getId());
+            return;
+        }
+        WsFlinkJobSubmissionDTO snapshot = WsFlinkJobSubmissionConvert.INSTANCE.toDto(WsFlinkJobSubmissionConvert.INSTANCE.toDo(submission));
+        notify(submission.getId(), () -> snapshot);
+        redisUtil.publish(TRANSITION_CHANNEL, submission.getId() + ":" + nodeId);
+    }
+
+    /**
+     * 其他节点的阶段变化，本节点有订阅方时重新查询提交记录
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object transition = redisUtil.deserialize(message.getBody());
+        int index = transition instanceof String ? ((String) transition).indexOf(':') : -1;
+        if (index < 0) {
+            log.warn("unknown flink job submission transition message: {}", transition);
+            return;
+        }
+        Long id = Long.valueOf(((String) transition).substring(0, index));
+        // 本节点的变更已直接通知
+        if (nodeId.equals(((String) transition).substring(index + 1)) || listeners.containsKey(id) == false) {
+            return;
+        }
+        notify(id, () -> selectOne(id));
+    }
+
+    private void notify(Long id, Supplier<WsFlinkJobSubmissionDTO> submissionSupplier) {
+        try {
+            notifier.execute(() -> {
+                List<Consumer<WsFlinkJobSubmissionDTO>> consumers = listeners.get(id);
+                if (consumers == null) {
+                    return;
+                }
+                WsFlinkJobSubmissionDTO submission;
+                try {
+                    submission = submissionSupplier.get();
+                } catch (Exception e) {
+                    log.warn("query flink job submission {} failed", id, e);
+                    return;
+                }
+                for (Consumer<WsFlinkJobSubmissionDTO> consumer : consumers) {
+                    try {
+                        consumer.accept(submission);
+                    } catch (Exception e) {
+                        log.warn("notify flink job submission {} listener failed", id, e);
+                    }
+                }
+                if (isTerminated(submission)) {
+                    listeners.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("notify flink job submission {} listener rejected", id, e);
+        }
+    }
+
+    /**
+     * session 模式提交到同一个集群实例，其他模式每次提交都会新建集群，按集群配置限制
+     */
+    private String getClusterKey(WsFlinkJobDTO wsFlinkJobDTO) {
+        if (wsFlinkJobDTO.getWsFlinkClusterConfig().getDeployMode() == FlinkDeploymentMode.SESSION
+                && wsFlinkJobDTO.getWsFlinkClusterInstance() != null) {
+            return "instance-" + wsFlinkJobDTO.getWsFlinkClusterInstance().getId();
+        }
+        return "config-" + wsFlinkJobDTO.getWsFlinkClusterConfig().getId();
+    }
+}
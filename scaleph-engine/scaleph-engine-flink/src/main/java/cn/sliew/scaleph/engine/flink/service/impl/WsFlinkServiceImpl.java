@@ -30,12 +30,13 @@ import cn.sliew.flinkful.rest.client.FlinkRestClient;
 import cn.sliew.scaleph.common.dict.flink.FlinkClusterStatus;
 import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
 import cn.sliew.scaleph.common.dict.flink.FlinkJobState;
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
 import cn.sliew.scaleph.common.dict.flink.FlinkResourceProvider;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginMapping;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelVersion;
 import cn.sliew.scaleph.common.nio.FileUtil;
-import cn.sliew.scaleph.common.nio.TarUtil;
 import cn.sliew.scaleph.common.util.SeaTunnelReleaseUtil;
+import cn.sliew.scaleph.engine.flink.jobgraph.JobGraphSubmitter;
 import cn.sliew.scaleph.engine.flink.service.*;
 import cn.sliew.scaleph.engine.flink.service.dto.*;
 import cn.sliew.scaleph.engine.seatunnel.service.SeatunnelConfigService;
@@ -45,12 +46,15 @@ import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobStepDTO;
 import cn.sliew.scaleph.resource.service.ClusterCredentialService;
 import cn.sliew.scaleph.resource.service.FlinkReleaseService;
 import cn.sliew.scaleph.resource.service.JarService;
+import cn.sliew.scaleph.resource.service.ReleaseCacheService;
 import cn.sliew.scaleph.resource.service.SeaTunnelReleaseService;
 import cn.sliew.scaleph.resource.service.dto.ClusterCredentialDTO;
 import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
 import cn.sliew.scaleph.resource.service.dto.JarDTO;
 import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseDTO;
 import cn.sliew.scaleph.resource.service.vo.FileStatusVO;
+import cn.sliew.scaleph.storage.service.StagingService;
+import cn.sliew.scaleph.storage.service.staging.StagingPlan;
 import cn.sliew.scaleph.system.util.SystemUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
@@ -69,17 +73,16 @@ import org.apache.hadoop.yarn.api.records.ApplicationId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.FileCopyUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static cn.sliew.milky.common.check.Ensures.checkState;
@@ -99,6 +102,8 @@ public class WsFlinkServiceImpl implements WsFlinkService {
     @Autowired
     private SeaTunnelReleaseService seaTunnelReleaseService;
     @Autowired
+    private ReleaseCacheService releaseCacheService;
+    @Autowired
     private ClusterCredentialService clusterCredentialService;
     @Autowired
     private JarService jarService;
@@ -110,6 +115,12 @@ public class WsFlinkServiceImpl implements WsFlinkService {
     private SeatunnelConfigService seatunnelConfigService;
     @Autowired
     private WsFlinkJobLogService wsFlinkJobLogService;
+    @Autowired
+    private StagingService stagingService;
+    @Autowired
+    private FlinkYarnProvidedLibService flinkYarnProvidedLibService;
+    @Autowired
+    private JobGraphSubmitter jobGraphSubmitter;
 
     /**
      * requires:
@@ -118,7 +129,7 @@ public class WsFlinkServiceImpl implements WsFlinkService {
      * 3. flink options
      */
     @Override
-    public void createSessionCluster(Long projectId, Long flinkClusterConfigId) throws Exception {
+    public WsFlinkClusterInstanceDTO createSessionCluster(Long projectId, Long flinkClusterConfigId) throws Exception {
         final WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO = wsFlinkClusterConfigService.selectOne(flinkClusterConfigId);
         final FlinkResourceProvider resourceProvider = wsFlinkClusterConfigDTO.getResourceProvider();
         ClusterClient clusterClient;
@@ -144,10 +155,17 @@ public class WsFlinkServiceImpl implements WsFlinkService {
         dto.setWebInterfaceUrl(clusterClient.getWebInterfaceURL());
         dto.setStatus(FlinkClusterStatus.RUNNING);
         wsFlinkClusterInstanceService.insert(dto);
+        return dto;
     }
 
     @Override
     public void submit(WsFlinkJobDTO wsFlinkJobDTO) throws Exception {
+        submit(wsFlinkJobDTO, stage -> {
+        });
+    }
+
+    @Override
+    public void submit(WsFlinkJobDTO wsFlinkJobDTO, Consumer<FlinkJobSubmissionStage> listener) throws Exception {
         if (wsFlinkJobDTO != null) {
             final Path workspace = getWorkspace();
             try {
@@ -163,11 +181,13 @@ public class WsFlinkServiceImpl implements WsFlinkService {
                 ClusterClient clusterClient;
                 switch (wsFlinkJobDTO.getType()) {
                     case JAR:
-                        clusterClient = doSubmitJar(wsFlinkJobDTO, workspace);
+                        clusterClient = doSubmitJar(wsFlinkJobDTO, workspace, listener);
+                        listener.accept(FlinkJobSubmissionStage.RECORDING);
                         recordJobs(wsFlinkJobDTO, clusterClient);
                         break;
                     case SEATUNNEL:
-                        clusterClient = doSubmitSeatunnel(wsFlinkJobDTO, workspace);
+                        clusterClient = doSubmitSeatunnel(wsFlinkJobDTO, workspace, listener);
+                        listener.accept(FlinkJobSubmissionStage.RECORDING);
                         recordJobs(wsFlinkJobDTO, clusterClient);
                         break;
                     case SQL:
@@ -179,69 +199,96 @@ public class WsFlinkServiceImpl implements WsFlinkService {
         }
     }
 
-    private ClusterClient doSubmitJar(WsFlinkJobDTO wsFlinkJobDTO, Path workspace) throws Exception {
+    private ClusterClient doSubmitJar(WsFlinkJobDTO wsFlinkJobDTO, Path workspace, Consumer<FlinkJobSubmissionStage> listener) throws Exception {
 
         WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO = wsFlinkJobDTO.getWsFlinkClusterConfig();
-
-        Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease(), workspace);
-
-        List<URL> jars = loadJarResources(wsFlinkJobDTO.getJars(), workspace);
-
         WsFlinkArtifactJarDTO flinkArtifactJar = wsFlinkArtifactJarService.selectOne(wsFlinkJobDTO.getFlinkArtifactId());
-        Path flinkArtifactJarPath = loadFlinkArtifactJar(flinkArtifactJar, workspace);
+
+        listener.accept(FlinkJobSubmissionStage.STAGING);
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> flinkHomeStage = stageFlinkRelease(plan, wsFlinkClusterConfigDTO.getFlinkRelease());
+        List<StagingPlan.Stage<URL>> jarStages = stageJarResources(plan, wsFlinkJobDTO.getJars(), workspace);
+        StagingPlan.Stage<Path> flinkArtifactJarStage = stageFlinkArtifactJar(plan, flinkArtifactJar, workspace);
+        StagingPlan.Stage<Path> clusterCredentialStage = stageClusterCredential(plan, wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        stagingService.stage(plan);
+
+        Path flinkHomePath = flinkHomeStage.get();
+        List<URL> jars = getAll(jarStages);
+        Path flinkArtifactJarPath = flinkArtifactJarStage.get();
         jars.add(flinkArtifactJarPath.toFile().toURL());
         PackageJarJob packageJarJob = buildJarJob(wsFlinkJobDTO, flinkArtifactJar, flinkArtifactJarPath);
 
-        final Path clusterCredentialPath = loadClusterCredential(wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        listener.accept(FlinkJobSubmissionStage.CONFIGURING);
+        final Path clusterCredentialPath = clusterCredentialStage.get();
         final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, clusterCredentialPath);
         if (CollectionUtils.isEmpty(wsFlinkJobDTO.getFlinkConfig()) == false) {
             configuration.addAll(Configuration.fromMap(wsFlinkJobDTO.getFlinkConfig()));
         }
+        if (isNewYarnApplication(wsFlinkClusterConfigDTO)) {
+            flinkYarnProvidedLibService.provideFlinkRelease(configuration, clusterCredentialPath, wsFlinkClusterConfigDTO.getFlinkRelease(), flinkHomePath);
+        }
         configuration.setString(PipelineOptions.NAME, wsFlinkJobDTO.getName());
         ConfigUtils.encodeCollectionToConfig(configuration, PipelineOptions.JARS, jars, Object::toString);
 
+        listener.accept(FlinkJobSubmissionStage.DEPLOYING);
         switch (wsFlinkClusterConfigDTO.getResourceProvider()) {
             case YARN:
-                return doSubmitToYARN(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob);
+                return doSubmitToYARN(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob, workspace, wsFlinkJobDTO.getId());
             case NATIVE_KUBERNETES:
-                return doSubmitToKubernetes(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob);
+                return doSubmitToKubernetes(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob, workspace, wsFlinkJobDTO.getId());
             case STANDALONE:
-                return doSubmitToStandalone(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob);
+                return doSubmitToStandalone(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob, workspace, wsFlinkJobDTO.getId());
             default:
                 throw new UnsupportedOperationException(
                         String.format("scaleph not supports %s for flink jar job submission", wsFlinkClusterConfigDTO.getResourceProvider().getValue()));
         }
     }
 
-    private ClusterClient doSubmitSeatunnel(WsFlinkJobDTO wsFlinkJobDTO, Path workspace) throws Exception {
+    private ClusterClient doSubmitSeatunnel(WsFlinkJobDTO wsFlinkJobDTO, Path workspace, Consumer<FlinkJobSubmissionStage> listener) throws Exception {
         WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO = wsFlinkJobDTO.getWsFlinkClusterConfig();
         SeaTunnelReleaseDTO seaTunnelRelease = seaTunnelReleaseService.selectByVersion(SeaTunnelVersion.V_2_3_0);
-
-        Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease(), workspace);
-        Path seatunnelHomePath = loadSeaTunnelRelease(seaTunnelRelease, workspace);
-
-        List<URL> jars = loadJarResources(wsFlinkJobDTO.getJars(), workspace);
         WsDiJobDTO wsDiJobDTO = wsDiJobService.queryJobGraph(wsFlinkJobDTO.getFlinkArtifactId());
         wsDiJobDTO.setJobName(wsFlinkJobDTO.getName());
-        Path seatunnelConfPath = buildSeaTunnelConf(wsDiJobDTO, workspace);
-        PackageJarJob packageJarJob = buildSeaTunnelJob(seatunnelHomePath, seatunnelConfPath);
+
+        listener.accept(FlinkJobSubmissionStage.STAGING);
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> flinkHomeStage = stageFlinkRelease(plan, wsFlinkClusterConfigDTO.getFlinkRelease());
+        StagingPlan.Stage<Path> seatunnelHomeStage = plan.add("seatunnel-release", () -> loadSeaTunnelRelease(seaTunnelRelease));
+        List<StagingPlan.Stage<URL>> jarStages = stageJarResources(plan, wsFlinkJobDTO.getJars(), workspace);
+        StagingPlan.Stage<Path> seatunnelConfStage = plan.add("seatunnel-conf", () -> buildSeaTunnelConf(wsDiJobDTO, workspace));
+        List<StagingPlan.Stage<URL>> connectorStages = stageSeaTunnelConnectors(plan, seaTunnelRelease, wsDiJobDTO, workspace);
+        StagingPlan.Stage<Path> clusterCredentialStage = stageClusterCredential(plan, wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        stagingService.stage(plan);
+
+        Path flinkHomePath = flinkHomeStage.get();
+        Path seatunnelHomePath = seatunnelHomeStage.get();
+        List<URL> jars = getAll(jarStages);
+        PackageJarJob packageJarJob = buildSeaTunnelJob(seatunnelHomePath, seatunnelConfStage.get());
         jars.add(SeaTunnelReleaseUtil.getStarterJarPath(seatunnelHomePath).toFile().toURL());
-        jars.addAll(loadSeaTunnelConnectors(seaTunnelRelease, wsDiJobDTO, workspace));
+        List<URL> connectors = getAll(connectorStages);
 
-        final Path clusterCredentialPath = loadClusterCredential(wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        listener.accept(FlinkJobSubmissionStage.CONFIGURING);
+        final Path clusterCredentialPath = clusterCredentialStage.get();
         final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, clusterCredentialPath);
         if (CollectionUtils.isEmpty(wsFlinkJobDTO.getFlinkConfig()) == false) {
             configuration.addAll(Configuration.fromMap(wsFlinkJobDTO.getFlinkConfig()));
         }
+        if (isNewYarnApplication(wsFlinkClusterConfigDTO)) {
+            flinkYarnProvidedLibService.provideFlinkRelease(configuration, clusterCredentialPath, wsFlinkClusterConfigDTO.getFlinkRelease(), flinkHomePath);
+            connectors = flinkYarnProvidedLibService.provideJars(configuration, clusterCredentialPath,
+                    "seatunnel/" + seaTunnelRelease.getVersion().getValue() + "/connectors", connectors);
+        }
+        jars.addAll(connectors);
         ConfigUtils.encodeCollectionToConfig(configuration, PipelineOptions.JARS, jars, Object::toString);
         configuration.setString(PipelineOptions.NAME, wsFlinkJobDTO.getName());
+        listener.accept(FlinkJobSubmissionStage.DEPLOYING);
         switch (wsFlinkClusterConfigDTO.getResourceProvider()) {
             case YARN:
-                return doSubmitToYARN(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob);
+                return doSubmitToYARN(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob, workspace, wsFlinkJobDTO.getId());
             case NATIVE_KUBERNETES:
-                return doSubmitToKubernetes(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob);
+                return doSubmitToKubernetes(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob, workspace, wsFlinkJobDTO.getId());
             case STANDALONE:
-                return doSubmitToStandalone(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob);
+                return doSubmitToStandalone(wsFlinkJobDTO.getWsFlinkClusterInstance(), wsFlinkClusterConfigDTO, configuration, flinkHomePath, packageJarJob, workspace, wsFlinkJobDTO.getId());
             default:
                 throw new UnsupportedOperationException(
                         String.format("scaleph not supports %s for flink seatunnel job submission", wsFlinkClusterConfigDTO.getResourceProvider().getValue()));
@@ -249,12 +296,13 @@ public class WsFlinkServiceImpl implements WsFlinkService {
     }
 
     private ClusterClient doSubmitToKubernetes(WsFlinkClusterInstanceDTO wsFlinkClusterInstanceDTO, WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO,
-                                               Configuration configuration, Path flinkHomePath, PackageJarJob packageJarJob) throws Exception {
+                                               Configuration configuration, Path flinkHomePath, PackageJarJob packageJarJob, Path workspace,
+                                         Long flinkJobId) throws Exception {
         switch (wsFlinkClusterConfigDTO.getDeployMode()) {
             case SESSION:
-                CliClient client = new DescriptorCliClient();
                 configuration.setString(KubernetesConfigOptions.CLUSTER_ID, wsFlinkClusterInstanceDTO.getClusterId());
-                return client.submit(DeploymentTarget.NATIVE_KUBERNETES_SESSION, flinkHomePath, configuration, packageJarJob);
+                DeploymentTarget.NATIVE_KUBERNETES_SESSION.apply(configuration);
+                return submitJobGraph(retrieveSessionCluster(FlinkResourceProvider.NATIVE_KUBERNETES, configuration), configuration, packageJarJob, workspace, flinkJobId);
             case PER_JOB:
             case APPLICATION:
             default:
@@ -264,12 +312,14 @@ public class WsFlinkServiceImpl implements WsFlinkService {
     }
 
     private ClusterClient doSubmitToYARN(WsFlinkClusterInstanceDTO wsFlinkClusterInstanceDTO, WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO,
-                                         Configuration configuration, Path flinkHomePath, PackageJarJob packageJarJob) throws Exception {
+                                         Configuration configuration, Path flinkHomePath, PackageJarJob packageJarJob, Path workspace,
+                                         Long flinkJobId) throws Exception {
         CliClient client = new DescriptorCliClient();
         switch (wsFlinkClusterConfigDTO.getDeployMode()) {
             case SESSION:
                 configuration.setString(YarnConfigOptions.APPLICATION_ID, wsFlinkClusterInstanceDTO.getClusterId());
-                return client.submit(DeploymentTarget.YARN_SESSION, flinkHomePath, configuration, packageJarJob);
+                DeploymentTarget.YARN_SESSION.apply(configuration);
+                return submitJobGraph(retrieveSessionCluster(FlinkResourceProvider.YARN, configuration), configuration, packageJarJob, workspace, flinkJobId);
             case PER_JOB:
                 return client.submit(DeploymentTarget.YARN_PER_JOB, flinkHomePath, configuration, packageJarJob);
             case APPLICATION:
@@ -280,15 +330,26 @@ public class WsFlinkServiceImpl implements WsFlinkService {
         }
     }
 
+    /**
+     * per-job 和 application 模式每次提交都会新建 YARN 应用
+     */
+    private boolean isNewYarnApplication(WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO) {
+        if (wsFlinkClusterConfigDTO.getResourceProvider() != FlinkResourceProvider.YARN) {
+            return false;
+        }
+        return wsFlinkClusterConfigDTO.getDeployMode() == FlinkDeploymentMode.PER_JOB
+                || wsFlinkClusterConfigDTO.getDeployMode() == FlinkDeploymentMode.APPLICATION;
+    }
+
     private ClusterClient doSubmitToStandalone(WsFlinkClusterInstanceDTO wsFlinkClusterInstanceDTO, WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO,
-                                               Configuration configuration, Path flinkHomePath, PackageJarJob packageJarJob) throws Exception {
+                                               Configuration configuration, Path flinkHomePath, PackageJarJob packageJarJob, Path workspace,
+                                         Long flinkJobId) throws Exception {
         switch (wsFlinkClusterConfigDTO.getDeployMode()) {
             case SESSION:
                 URL url = new URL(wsFlinkClusterInstanceDTO.getWebInterfaceUrl());
                 configuration.setString(RestOptions.ADDRESS, url.getHost());
                 configuration.setInteger(RestOptions.PORT, url.getPort());
-                CliClient client = new DescriptorCliClient();
-                return client.submit(DeploymentTarget.STANDALONE_SESSION, flinkHomePath, configuration, packageJarJob);
+                return submitJobGraph(retrieveSessionCluster(FlinkResourceProvider.STANDALONE, configuration), configuration, packageJarJob, workspace, flinkJobId);
             case PER_JOB:
             case APPLICATION:
             default:
@@ -297,6 +358,26 @@ public class WsFlinkServiceImpl implements WsFlinkService {
         }
     }
 
+    /**
+     * 获取 session 集群客户端
+     */
+    ClusterClient retrieveSessionCluster(FlinkResourceProvider resourceProvider, Configuration configuration) throws Exception {
+        switch (resourceProvider) {
+            case STANDALONE:
+                return new RestClusterClient(configuration, StandaloneClusterId.getInstance());
+            default:
+                return FlinkUtil.retrieve(configuration);
+        }
+    }
+
+    /**
+     * session 集群直接提交 JobGraph，任务未变化时复用之前编译的 JobGraph，不再重复执行用户 main 方法
+     */
+    private ClusterClient submitJobGraph(ClusterClient clusterClient, Configuration configuration, PackageJarJob packageJarJob, Path workspace, Long flinkJobId) throws Exception {
+        jobGraphSubmitter.submit(clusterClient, packageJarJob, configuration, workspace, flinkJobId);
+        return clusterClient;
+    }
+
     private void recordJobs(WsFlinkJobDTO wsFlinkJobDTO, ClusterClient clusterClient) throws Exception {
         Collection<JobStatusMessage> jobs = (Collection<JobStatusMessage>) clusterClient.listJobs().get();
         for (JobStatusMessage job : jobs) {
@@ -423,9 +504,14 @@ public class WsFlinkServiceImpl implements WsFlinkService {
 
     private ClusterClient createYarnSessionCluster(WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO) throws Exception {
         final Path workspace = getWorkspace();
-        final Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease(), workspace);
-        final Path clusterCredentialPath = loadClusterCredential(wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> flinkHomeStage = stageFlinkRelease(plan, wsFlinkClusterConfigDTO.getFlinkRelease());
+        StagingPlan.Stage<Path> clusterCredentialStage = stageClusterCredential(plan, wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        stagingService.stage(plan);
+        final Path flinkHomePath = flinkHomeStage.get();
+        final Path clusterCredentialPath = clusterCredentialStage.get();
         final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, clusterCredentialPath);
+        flinkYarnProvidedLibService.provideFlinkRelease(configuration, clusterCredentialPath, wsFlinkClusterConfigDTO.getFlinkRelease(), flinkHomePath);
         ClusterClient<ApplicationId> clusterClient = SessionClient.create(DeploymentTarget.YARN_SESSION, flinkHomePath, configuration);
         FileUtils.deleteDirectory(workspace.toFile());
         return clusterClient;
@@ -433,9 +519,12 @@ public class WsFlinkServiceImpl implements WsFlinkService {
 
     private ClusterClient createKubernetesSessionCluster(WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO) throws Exception {
         final Path workspace = getWorkspace();
-        final Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease(), workspace);
-        final Path flinkDeployConfigPath = loadClusterCredential(wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
-        final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, flinkDeployConfigPath);
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> flinkHomeStage = stageFlinkRelease(plan, wsFlinkClusterConfigDTO.getFlinkRelease());
+        StagingPlan.Stage<Path> flinkDeployConfigStage = stageClusterCredential(plan, wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
+        stagingService.stage(plan);
+        final Path flinkHomePath = flinkHomeStage.get();
+        final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, flinkDeployConfigStage.get());
         ClusterClient<String> clusterClient = SessionClient.create(DeploymentTarget.NATIVE_KUBERNETES_SESSION, flinkHomePath, configuration);
         FileUtils.deleteDirectory(workspace.toFile());
         return clusterClient;
@@ -570,86 +659,103 @@ public class WsFlinkServiceImpl implements WsFlinkService {
         return SystemUtil.getRandomWorkspace();
     }
 
-    private Path loadFlinkRelease(FlinkReleaseDTO flinkRelease, Path workspace) throws IOException {
-        final Path tempFile = FileUtil.createFile(workspace, flinkRelease.getFileName());
-        try (final OutputStream outputStream = FileUtil.getOutputStream(tempFile)) {
-            flinkReleaseService.download(flinkRelease.getId(), outputStream);
-        }
-        final Path untarDir = TarUtil.untar(tempFile);
-        return FileUtil.listFiles(untarDir).get(0);
+    private Path loadFlinkRelease(FlinkReleaseDTO flinkRelease) throws IOException {
+        return releaseCacheService.loadFlinkRelease(flinkRelease.getId());
+    }
+
+    private StagingPlan.Stage<Path> stageFlinkRelease(StagingPlan plan, FlinkReleaseDTO flinkRelease) {
+        return plan.add("flink-release", () -> loadFlinkRelease(flinkRelease));
     }
 
     private Path loadClusterCredential(ClusterCredentialDTO clusterCredential, Path workspace) throws IOException {
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> stage = stageClusterCredential(plan, clusterCredential, workspace);
+        stagingService.stage(plan);
+        return stage.get();
+    }
+
+    /**
+     * 每个凭证文件单独下载，全部完成后返回凭证目录
+     */
+    private StagingPlan.Stage<Path> stageClusterCredential(StagingPlan plan, ClusterCredentialDTO clusterCredential, Path workspace) throws IOException {
         final List<FileStatusVO> fileStatusVOS = clusterCredentialService.listCredentialFile(clusterCredential.getId());
         final Path tempDir = FileUtil.createDir(workspace, clusterCredential.getName());
+        List<StagingPlan.Stage<Path>> fileStages = new ArrayList<>(fileStatusVOS.size());
         for (FileStatusVO fileStatusVO : fileStatusVOS) {
-            final Path deployConfigFile = Paths.get(tempDir.toString(), fileStatusVO.getName());
-            try (final OutputStream outputStream = FileUtil.getOutputStream(deployConfigFile)) {
-                clusterCredentialService.downloadCredentialFile(clusterCredential.getId(), fileStatusVO.getName(), outputStream);
-            }
+            fileStages.add(plan.add("cluster-credential-" + fileStatusVO.getName(), () -> {
+                final Path deployConfigFile = Paths.get(tempDir.toString(), fileStatusVO.getName());
+                try (final OutputStream outputStream = FileUtil.getOutputStream(deployConfigFile)) {
+                    clusterCredentialService.downloadCredentialFile(clusterCredential.getId(), fileStatusVO.getName(), outputStream);
+                }
+                return deployConfigFile;
+            }));
         }
-        return tempDir;
+        return plan.add("cluster-credential", () -> tempDir, fileStages);
     }
 
-    private List<URL> loadJarResources(List<Long> jarIds, Path workspace) throws IOException {
-        List<URL> result = new ArrayList<>();
+    private List<StagingPlan.Stage<URL>> stageJarResources(StagingPlan plan, List<Long> jarIds, Path workspace) {
+        List<StagingPlan.Stage<URL>> result = new ArrayList<>();
         if (CollectionUtils.isEmpty(jarIds)) {
             return result;
         }
         for (Long jarId : jarIds) {
-            JarDTO jarDTO = jarService.selectOne(jarId);
-            Path path = FileUtil.createFile(workspace, jarDTO.getFileName());
-            try (OutputStream output = FileUtil.getOutputStream(path)) {
-                jarService.download(jarId, output);
-                result.add(path.toFile().toURL());
-            }
+            result.add(plan.add("jar-" + jarId, () -> {
+                JarDTO jarDTO = jarService.selectOne(jarId);
+                Path path = FileUtil.createFile(workspace, jarDTO.getFileName());
+                try (OutputStream output = FileUtil.getOutputStream(path)) {
+                    jarService.download(jarId, output);
+                }
+                return path.toFile().toURL();
+            }));
         }
         return result;
     }
 
-    private Path loadFlinkArtifactJar(WsFlinkArtifactJarDTO wsFlinkArtifactJarDTO, Path workspace) throws IOException {
-        final Path tempDir = FileUtil.createDir(workspace, wsFlinkArtifactJarDTO.getWsFlinkArtifact().getName() + "/" + wsFlinkArtifactJarDTO.getVersion());
-        final Path jarPath = FileUtil.createFile(tempDir, wsFlinkArtifactJarDTO.getFileName());
-        try (final OutputStream outputStream = FileUtil.getOutputStream(jarPath)) {
-            wsFlinkArtifactJarService.download(wsFlinkArtifactJarDTO.getId(), outputStream);
-        }
-        return jarPath;
+    private StagingPlan.Stage<Path> stageFlinkArtifactJar(StagingPlan plan, WsFlinkArtifactJarDTO wsFlinkArtifactJarDTO, Path workspace) {
+        return plan.add("flink-artifact-jar", () -> {
+            final Path tempDir = FileUtil.createDir(workspace, wsFlinkArtifactJarDTO.getWsFlinkArtifact().getName() + "/" + wsFlinkArtifactJarDTO.getVersion());
+            final Path jarPath = FileUtil.createFile(tempDir, wsFlinkArtifactJarDTO.getFileName());
+            try (final OutputStream outputStream = FileUtil.getOutputStream(jarPath)) {
+                wsFlinkArtifactJarService.download(wsFlinkArtifactJarDTO.getId(), outputStream);
+            }
+            return jarPath;
+        });
     }
 
-    private Path loadSeaTunnelRelease(SeaTunnelReleaseDTO seaTunnelRelease, Path workspace) throws IOException {
-        final Path tempFile = FileUtil.createFile(workspace, seaTunnelRelease.getFileName());
-        try (final OutputStream outputStream = FileUtil.getOutputStream(tempFile)) {
-            seaTunnelReleaseService.download(seaTunnelRelease.getId(), outputStream);
-        }
-        final Path untarDir = TarUtil.untar(tempFile);
-        return FileUtil.listFiles(untarDir).get(0);
+    private Path loadSeaTunnelRelease(SeaTunnelReleaseDTO seaTunnelRelease) throws IOException {
+        return releaseCacheService.loadSeaTunnelRelease(seaTunnelRelease.getId());
     }
 
-    private List<URL> loadSeaTunnelConnectors(SeaTunnelReleaseDTO seaTunnelRelease, WsDiJobDTO job, Path workspace) throws IOException {
+    private List<StagingPlan.Stage<URL>> stageSeaTunnelConnectors(StagingPlan plan, SeaTunnelReleaseDTO seaTunnelRelease, WsDiJobDTO job, Path workspace) throws IOException {
         List<String> connectors = job.getJobStepList().stream()
                 .map(WsDiJobStepDTO::getStepName)
                 .map(SeaTunnelPluginMapping::of)
                 .map(SeaTunnelPluginMapping::getPluginJarPrefix)
                 .distinct()
                 .collect(Collectors.toList());
-        List<URL> result = new ArrayList<>(connectors.size());
+        List<StagingPlan.Stage<URL>> result = new ArrayList<>(connectors.size());
         Path connectorsPath = FileUtil.createDir(workspace, "connectors");
         for (String connector : connectors) {
-            String connectorFile = SeaTunnelReleaseUtil.convertToJar(seaTunnelRelease.getVersion().getValue(), connector);
-            Path connectorPath = FileUtil.createFile(connectorsPath, connector);
-            try (OutputStream outputStream = FileUtil.getOutputStream(connectorPath)) {
-                seaTunnelReleaseService.downloadConnector(seaTunnelRelease.getId(), connectorFile, outputStream);
-            }
-            result.add(connectorPath.toFile().toURL());
+            result.add(plan.add("seatunnel-connector-" + connector, () -> {
+                String connectorFile = SeaTunnelReleaseUtil.convertToJar(seaTunnelRelease.getVersion().getValue(), connector);
+                Path connectorPath = FileUtil.createFile(connectorsPath, connector);
+                try (OutputStream outputStream = FileUtil.getOutputStream(connectorPath)) {
+                    seaTunnelReleaseService.downloadConnector(seaTunnelRelease.getId(), connectorFile, outputStream);
+                }
+                return connectorPath.toFile().toURL();
+            }));
         }
         return result;
     }
 
+    private <T> List<T> getAll(List<StagingPlan.Stage<T>> stages) {
+        return stages.stream().map(StagingPlan.Stage::get).collect(Collectors.toList());
+    }
+
     private Path buildSeaTunnelConf(WsDiJobDTO job, Path workspace) throws Exception {
         Path file = FileUtil.createFile(workspace, job.getJobName() + ".json");
-        String configJson = seatunnelConfigService.buildConfig(job);
-        try (Writer writer = FileUtil.getWriter(file)) {
-            FileCopyUtils.copy(configJson, writer);
+        try (OutputStream outputStream = FileUtil.getOutputStream(file)) {
+            seatunnelConfigService.buildConfig(job, outputStream);
         }
         return file;
     }
@@ -26,11 +26,10 @@ import cn.sliew.flinkful.common.enums.DeploymentTarget;
 import cn.sliew.scaleph.common.dict.flink.FlinkClusterStatus;
 import cn.sliew.scaleph.common.dict.flink.FlinkJobState;
 import cn.sliew.scaleph.common.nio.FileUtil;
-import cn.sliew.scaleph.common.nio.TarUtil;
 import cn.sliew.scaleph.engine.flink.service.*;
 import cn.sliew.scaleph.engine.flink.service.dto.*;
 import cn.sliew.scaleph.resource.service.ClusterCredentialService;
-import cn.sliew.scaleph.resource.service.FlinkReleaseService;
+import cn.sliew.scaleph.resource.service.ReleaseCacheService;
 import cn.sliew.scaleph.resource.service.dto.ClusterCredentialDTO;
 import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
 import cn.sliew.scaleph.resource.service.vo.FileStatusVO;
@@ -66,11 +65,13 @@ public class WsFlinkYarnServiceImpl implements WsFlinkYarnService {
     @Autowired
     private WsFlinkArtifactJarService wsFlinkArtifactJarService;
     @Autowired
-    private FlinkReleaseService flinkReleaseService;
+    private ReleaseCacheService releaseCacheService;
     @Autowired
     private ClusterCredentialService clusterCredentialService;
     @Autowired
     private WsFlinkClusterInstanceService wsFlinkClusterInstanceService;
+    @Autowired
+    private FlinkYarnProvidedLibService flinkYarnProvidedLibService;
 
     @Override
     public void createSessionCluster(Long flinkClusterConfigId) throws Exception {
@@ -88,9 +89,10 @@ public class WsFlinkYarnServiceImpl implements WsFlinkYarnService {
 
     private ClusterClient createYarnSessionCluster(WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO) throws Exception {
         final Path workspace = getWorkspace();
-        final Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease(), workspace);
+        final Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease());
         final Path clusterCredentialPath = loadClusterCredential(wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
         final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, clusterCredentialPath);
+        flinkYarnProvidedLibService.provideFlinkRelease(configuration, clusterCredentialPath, wsFlinkClusterConfigDTO.getFlinkRelease(), flinkHomePath);
         ClusterClient<ApplicationId> clusterClient = SessionClient.create(DeploymentTarget.YARN_SESSION, flinkHomePath, configuration);
         FileUtils.deleteDirectory(workspace.toFile());
         return clusterClient;
@@ -100,13 +102,8 @@ public class WsFlinkYarnServiceImpl implements WsFlinkYarnService {
         return SystemUtil.getRandomWorkspace();
     }
 
-    private Path loadFlinkRelease(FlinkReleaseDTO flinkRelease, Path workspace) throws IOException {
-        final Path tempFile = FileUtil.createFile(workspace, flinkRelease.getFileName());
-        try (final OutputStream outputStream = Files.newOutputStream(tempFile, StandardOpenOption.WRITE)) {
-            flinkReleaseService.download(flinkRelease.getId(), outputStream);
-        }
-        final Path untarDir = TarUtil.untar(tempFile);
-        return FileUtil.listFiles(untarDir).get(0);
+    private Path loadFlinkRelease(FlinkReleaseDTO flinkRelease) throws IOException {
+        return releaseCacheService.loadFlinkRelease(flinkRelease.getId());
     }
 
     private Path loadClusterCredential(ClusterCredentialDTO clusterCredential, Path workspace) throws IOException {
@@ -174,7 +171,7 @@ public class WsFlinkYarnServiceImpl implements WsFlinkYarnService {
 
     public ClusterClient doSubmitJar(WsFlinkJobDTO wsFlinkJobDTO, Path workspace) throws Exception {
         WsFlinkClusterConfigDTO wsFlinkClusterConfigDTO = wsFlinkJobDTO.getWsFlinkClusterConfig();
-        Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease(), workspace);
+        Path flinkHomePath = loadFlinkRelease(wsFlinkClusterConfigDTO.getFlinkRelease());
         final Path clusterCredentialPath = loadClusterCredential(wsFlinkClusterConfigDTO.getClusterCredential(), workspace);
         final Configuration configuration = buildConfiguration(wsFlinkClusterConfigDTO, clusterCredentialPath);
         if (CollectionUtils.isEmpty(wsFlinkJobDTO.getFlinkConfig()) == false) {
@@ -189,8 +186,10 @@ public class WsFlinkYarnServiceImpl implements WsFlinkYarnService {
         CliClient client = new DescriptorCliClient();
         switch (wsFlinkClusterConfigDTO.getDeployMode()) {
             case APPLICATION:
+                flinkYarnProvidedLibService.provideFlinkRelease(configuration, clusterCredentialPath, wsFlinkClusterConfigDTO.getFlinkRelease(), flinkHomePath);
                 return client.submitApplication(DeploymentTarget.YARN_APPLICATION, flinkHomePath, configuration, packageJarJob);
             case PER_JOB:
+                flinkYarnProvidedLibService.provideFlinkRelease(configuration, clusterCredentialPath, wsFlinkClusterConfigDTO.getFlinkRelease(), flinkHomePath);
                 return client.submit(DeploymentTarget.YARN_PER_JOB, flinkHomePath, configuration, packageJarJob);
             case SESSION:
                 configuration.setString(YarnConfigOptions.APPLICATION_ID, wsFlinkJobDTO.getWsFlinkClusterInstance().getClusterId());
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.engine.flink.submission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.engine.flink.submission")
+public class FlinkSubmissionProperties {
+
+    /**
+     * 同时执行的提交数
+     */
+    private int parallelism = 8;
+
+    /**
+     * 同一集群同时执行的提交数
+     */
+    private int maxConcurrencyPerCluster = 2;
+
+    /**
+     * 排队和执行中的提交总数上限，超过后拒绝新的提交
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 节点标识，默认为本机地址。同一主机部署多个实例时需要分别配置
+     */
+    private String nodeId;
+
+    /**
+     * 执行中的提交刷新心跳的间隔
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(30L);
+
+    /**
+     * 心跳超时后，认为执行提交的节点已经下线，提交失败
+     */
+    private Duration heartbeatTimeout = Duration.ofMinutes(3L);
+}
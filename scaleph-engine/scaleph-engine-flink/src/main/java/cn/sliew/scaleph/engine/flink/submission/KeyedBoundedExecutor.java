@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.engine.flink.submission;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界执行器，同一 key 的任务并发数受限。
+ * 超出 key 并发数的任务在 key 自己的队列中等待，不占用线程，避免慢集群拖住其他集群的提交
+ */
+public class KeyedBoundedExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrencyPerKey;
+    private final int capacity;
+
+    private final Map<String, Integer> running = new HashMap<>();
+    private final Map<String, Deque<Runnable>> waiting = new HashMap<>();
+    private int pending;
+
+    public KeyedBoundedExecutor(String name, int parallelism, int maxConcurrencyPerKey, int capacity) {
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maxConcurrencyPerKey = maxConcurrencyPerKey;
+        this.capacity = capacity;
+    }
+
+    public synchronized void execute(String key, Runnable task) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("executor already shutdown");
+        }
+        if (pending >= capacity) {
+            throw new RejectedExecutionException("too many pending tasks: " + pending);
+        }
+        pending++;
+        if (running.getOrDefault(key, 0) < maxConcurrencyPerKey) {
+            dispatch(key, task);
+        } else {
+            waiting.computeIfAbsent(key, k -> new ArrayDeque<>()).add(task);
+        }
+    }
+
+    public synchronized int getPending() {
+        return pending;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void dispatch(String key, Runnable task) {
+        running.merge(key, 1, Integer::sum);
+        executor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                complete(key);
+            }
+        });
+    }
+
+    private synchronized void complete(String key) {
+        pending--;
+        Deque<Runnable> tasks = waiting.get(key);
+        if (tasks != null && tasks.isEmpty() == false) {
+            running.merge(key, -1, Integer::sum);
+            Runnable next = tasks.poll();
+            if (tasks.isEmpty()) {
+                waiting.remove(key);
+            }
+            dispatch(key, next);
+            return;
+        }
+        if (running.merge(key, -1, Integer::sum) == 0) {
+            running.remove(key);
+        }
+    }
+}
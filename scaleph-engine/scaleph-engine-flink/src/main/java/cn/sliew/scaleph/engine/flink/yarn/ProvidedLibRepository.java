@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.yarn;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 集群文件系统上按内容寻址的只读目录，作为 yarn.provided.lib.dirs 被多个任务共享。
+ * <p>
+ * 目录位于 {@code <root>/<name>/<digest>}，digest 由文件相对路径和内容计算，内容不变时不会重复上传。
+ * 先上传到临时目录再原子重命名，目录存在即表示上传完整。
+ * YARN 将 provided lib 作为 PUBLIC 资源本地化并在节点间共享，因此目录和文件需要全局可读。
+ */
+@Slf4j
+public class ProvidedLibRepository {
+
+    private static final String TEMP_DIR = ".tmp";
+    private static final FsPermission DIRECTORY_PERMISSION = new FsPermission((short) 0755);
+    private static final FsPermission FILE_PERMISSION = new FsPermission((short) 0644);
+
+    private final FileSystem fs;
+    private final Path root;
+
+    public ProvidedLibRepository(FileSystem fs, Path root) {
+        this.fs = fs;
+        this.root = fs.makeQualified(root);
+    }
+
+    /**
+     * 同步 baseDir 下的 includes，includes 可以是文件或目录
+     *
+     * @return 集群文件系统上的目录
+     */
+    public Path sync(String name, java.nio.file.Path baseDir, List<String> includes) throws IOException {
+        return sync(name, baseDir, includes, digest(baseDir, includes));
+    }
+
+    /**
+     * 使用事先计算好的 digest 同步，避免重复计算大目录的 digest
+     *
+     * @see #digest(java.nio.file.Path, List)
+     */
+    public Path sync(String name, java.nio.file.Path baseDir, List<String> includes, String digest) throws IOException {
+        final Path target = new Path(new Path(root, name), digest);
+        if (fs.exists(target)) {
+            return target;
+        }
+
+        final Path temp = new Path(new Path(root, TEMP_DIR), UUID.randomUUID().toString());
+        try {
+            mkdirs(temp);
+            for (java.nio.file.Path file : listFiles(baseDir, includes)) {
+                Path remote = new Path(temp, toRelative(baseDir, file));
+                mkdirs(remote.getParent());
+                fs.copyFromLocalFile(false, true, new Path(file.toUri()), remote);
+                fs.setPermission(remote, FILE_PERMISSION);
+            }
+            mkdirs(target.getParent());
+            FileContext.getFileContext(fs.getUri(), fs.getConf()).rename(temp, target, Options.Rename.NONE);
+            log.info("uploaded provided lib {} to {}", baseDir, target);
+        } catch (FileAlreadyExistsException e) {
+            // 其他提交已经上传了相同内容
+            log.debug("provided lib {} already uploaded", target);
+        } finally {
+            if (fs.exists(temp)) {
+                fs.delete(temp, true);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * digest 包含每个文件的相对路径和内容
+     */
+    public static String digest(java.nio.file.Path baseDir, List<String> includes) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        byte[] buffer = new byte[64 * 1024];
+        for (java.nio.file.Path file : listFiles(baseDir, includes)) {
+            hasher.putString(toRelative(baseDir, file), StandardCharsets.UTF_8);
+            hasher.putLong(Files.size(file));
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    hasher.putBytes(buffer, 0, read);
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private void mkdirs(Path dir) throws IOException {
+        List<Path> missing = new ArrayList<>();
+        for (Path path = dir; path != null && fs.exists(path) == false; path = path.getParent()) {
+            missing.add(path);
+        }
+        Collections.reverse(missing);
+        for (Path path : missing) {
+            fs.mkdirs(path, DIRECTORY_PERMISSION);
+            fs.setPermission(path, DIRECTORY_PERMISSION);
+        }
+    }
+
+    private static List<java.nio.file.Path> listFiles(java.nio.file.Path baseDir, List<String> includes) throws IOException {
+        List<java.nio.file.Path> files = new ArrayList<>();
+        for (String include : includes) {
+            java.nio.file.Path path = baseDir.resolve(include);
+            if (Files.notExists(path)) {
+                continue;
+            }
+            try (Stream<java.nio.file.Path> stream = Files.walk(path)) {
+                stream.filter(Files::isRegularFile).forEach(files::add);
+            }
+        }
+        files.sort((left, right) -> toRelative(baseDir, left).compareTo(toRelative(baseDir, right)));
+        return files;
+    }
+
+    private static String toRelative(java.nio.file.Path baseDir, java.nio.file.Path file) {
+        return baseDir.relativize(file).toString().replace(java.io.File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.jobgraph;
+
+import cn.sliew.flinkful.cli.base.submit.PackageJarJob;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.CoreOptions;
+import org.apache.flink.configuration.PipelineOptions;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.SavepointConfigOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobGraphCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void getReturnsIndependentCopies() throws Exception {
+        JobGraphCache cache = new JobGraphCache(dir.resolve("cache"), 10, Duration.ofDays(1));
+        JobGraph jobGraph = new JobGraph(new JobID(), "job");
+        cache.put("a", jobGraph);
+
+        JobGraph first = cache.get("a").get();
+        JobGraph second = cache.get("a").get();
+        assertEquals(jobGraph.getJobID(), first.getJobID());
+        assertEquals("job", first.getName());
+
+        first.setJobID(new JobID());
+        assertEquals(jobGraph.getJobID(), second.getJobID());
+        assertFalse(cache.get("b").isPresent());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        Path cacheDir = dir.resolve("cache");
+        JobGraphCache cache = new JobGraphCache(cacheDir, 2, Duration.ofDays(1));
+        cache.put("a", new JobGraph(new JobID(), "a"));
+        cache.put("b", new JobGraph(new JobID(), "b"));
+        Files.setLastModifiedTime(cacheDir.resolve("a.jobgraph"), FileTime.fromMillis(1000L));
+        Files.setLastModifiedTime(cacheDir.resolve("b.jobgraph"), FileTime.fromMillis(2000L));
+
+        assertTrue(cache.get("a").isPresent());
+        cache.put("c", new JobGraph(new JobID(), "c"));
+
+        assertTrue(cache.get("a").isPresent());
+        assertFalse(cache.get("b").isPresent());
+        assertTrue(cache.get("c").isPresent());
+    }
+
+    @Test
+    void discardsUnreadableEntry() throws Exception {
+        JobGraphCache cache = new JobGraphCache(dir, 10, Duration.ofDays(1));
+        Path file = dir.resolve("a.jobgraph");
+        Files.write(file, "broken".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(cache.get("a").isPresent());
+        assertTrue(Files.notExists(file));
+    }
+
+    @Test
+    void discardsExpiredEntry() throws Exception {
+        AtomicLong now = new AtomicLong(1000L);
+        JobGraphCache cache = new JobGraphCache(dir, 10, Duration.ofMinutes(1), now::get);
+        cache.put("a", new JobGraph(new JobID(), "a"));
+
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertTrue(cache.get("a").isPresent());
+        now.incrementAndGet();
+        assertFalse(cache.get("a").isPresent());
+        assertTrue(Files.notExists(dir.resolve("a.jobgraph")));
+    }
+
+    @Test
+    void invalidateRemovesPrefixedEntries() throws Exception {
+        JobGraphCache cache = new JobGraphCache(dir, 10, Duration.ofDays(1));
+        cache.put("1-a", new JobGraph(new JobID(), "a"));
+        cache.put("1-b", new JobGraph(new JobID(), "b"));
+        cache.put("11-a", new JobGraph(new JobID(), "a"));
+
+        cache.invalidate("1-");
+        assertFalse(cache.get("1-a").isPresent());
+        assertFalse(cache.get("1-b").isPresent());
+        assertTrue(cache.get("11-a").isPresent());
+    }
+
+    @Test
+    void keyIgnoresWorkspaceAndSavepoint() throws Exception {
+        String first = key(dir.resolve("first"), "{}", configuration -> {
+        });
+        String second = key(dir.resolve("second"), "{}", configuration -> {
+            configuration.set(SavepointConfigOptions.SAVEPOINT_PATH, "hdfs:///savepoints/savepoint-1");
+            configuration.set(RestOptions.ADDRESS, "other-host");
+        });
+        assertEquals(first, second);
+    }
+
+    @Test
+    void keyChangesWithCompilationInputs() throws Exception {
+        String base = key(dir.resolve("base"), "{}", configuration -> {
+        });
+        assertNotEquals(base, key(dir.resolve("conf"), "{\"env\": {}}", configuration -> {
+        }));
+        assertNotEquals(base, key(dir.resolve("parallelism"), "{}", configuration -> configuration.set(CoreOptions.DEFAULT_PARALLELISM, 4)));
+        assertNotEquals(base, key(dir.resolve("option"), "{}", configuration -> configuration.setString("execution.checkpointing.interval", "10s")));
+    }
+
+    private String key(Path workspace, String conf, java.util.function.Consumer<Configuration> customizer) throws Exception {
+        Files.createDirectories(workspace);
+        Path jar = Files.write(workspace.resolve("starter.jar"), "starter".getBytes(StandardCharsets.UTF_8));
+        Path connector = Files.write(workspace.resolve("connector.jar"), "connector".getBytes(StandardCharsets.UTF_8));
+        Path confFile = Files.write(workspace.resolve("job.json"), conf.getBytes(StandardCharsets.UTF_8));
+
+        PackageJarJob job = new PackageJarJob();
+        job.setJarFilePath(jar.toUri().toURL().toString());
+        job.setEntryPointClass("org.apache.seatunnel.core.starter.flink.SeatunnelFlink");
+        job.setProgramArgs(new String[]{"--config", confFile.toString()});
+
+        Configuration configuration = new Configuration();
+        configuration.set(PipelineOptions.NAME, "job");
+        configuration.set(PipelineOptions.JARS, Arrays.asList(jar.toUri().toURL().toString(), connector.toUri().toURL().toString()));
+        customizer.accept(configuration);
+        return JobGraphSubmitter.key(job, configuration, workspace);
+    }
+}
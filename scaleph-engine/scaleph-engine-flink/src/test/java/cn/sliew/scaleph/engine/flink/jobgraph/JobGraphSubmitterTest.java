@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.jobgraph;
+
+import cn.sliew.flinkful.cli.base.submit.PackageJarJob;
+import cn.sliew.scaleph.common.util.SeaTunnelReleaseUtil;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.client.program.ClusterClient;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.PipelineOptions;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.SavepointConfigOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JobGraphSubmitterTest {
+
+    private static final Long FLINK_JOB_ID = 1L;
+
+    @TempDir
+    java.nio.file.Path dir;
+
+    private JobGraphCacheProperties properties;
+    private JobGraphSubmitter submitter;
+    private ClusterClient<?> clusterClient;
+    private java.nio.file.Path workspace;
+    private PackageJarJob job;
+    private Configuration configuration;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new JobGraphCacheProperties();
+        properties.setDir(dir.resolve("cache").toString());
+        submitter = new JobGraphSubmitter();
+        ReflectionTestUtils.setField(submitter, "properties", properties);
+        submitter.afterPropertiesSet();
+
+        clusterClient = mock(ClusterClient.class);
+        when(clusterClient.submitJob(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<JobGraph>getArgument(0).getJobID()));
+
+        workspace = Files.createDirectories(dir.resolve("workspace"));
+        java.nio.file.Path jar = workspace.resolve("job.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(jar))) {
+            outputStream.putNextEntry(new JarEntry("lib/dependency.jar"));
+            outputStream.write("dependency".getBytes(StandardCharsets.UTF_8));
+            outputStream.closeEntry();
+        }
+        java.nio.file.Path connector = Files.write(workspace.resolve("connector.jar"), "connector".getBytes(StandardCharsets.UTF_8));
+
+        job = new PackageJarJob();
+        job.setJarFilePath(jar.toUri().toURL().toString());
+        job.setEntryPointClass("org.example.Job");
+        configuration = new Configuration();
+        configuration.set(PipelineOptions.NAME, "job");
+        configuration.set(PipelineOptions.JARS, Collections.singletonList(connector.toUri().toURL().toString()));
+    }
+
+    @Test
+    void submitsCachedGraphWithSubmissionSettings() throws Exception {
+        JobGraph compiled = new JobGraph(new JobID(), "job");
+        compiled.addJar(new Path("file:/previous/workspace/job.jar"));
+        cache(compiled);
+        configuration.set(JobGraphSubmitter.ENABLED, true);
+        configuration.set(SavepointConfigOptions.SAVEPOINT_PATH, "file:/savepoints/savepoint-1");
+        configuration.set(SavepointConfigOptions.SAVEPOINT_IGNORE_UNCLAIMED_STATE, true);
+        configuration.set(PipelineOptions.NAME, "job_2");
+
+        JobID jobId = submitter.submit(clusterClient, job, configuration, workspace, FLINK_JOB_ID);
+
+        ArgumentCaptor<JobGraph> captor = ArgumentCaptor.forClass(JobGraph.class);
+        verify(clusterClient).submitJob(captor.capture());
+        JobGraph submitted = captor.getValue();
+        assertEquals(jobId, submitted.getJobID());
+        assertNotEquals(compiled.getJobID(), submitted.getJobID());
+        assertEquals("job_2", submitted.getName());
+
+        List<String> userJars = submitted.getUserJars().stream().map(jar -> jar.toUri().getPath()).collect(Collectors.toList());
+        assertEquals(3, userJars.size());
+        assertEquals(Arrays.asList(workspace.resolve("connector.jar").toString(), workspace.resolve("job.jar").toString()),
+                userJars.subList(0, 2));
+        assertTrue(userJars.get(2).endsWith("dependency.jar"));
+
+        assertEquals("file:/savepoints/savepoint-1", submitted.getSavepointRestoreSettings().getRestorePath());
+        assertTrue(submitted.getSavepointRestoreSettings().allowNonRestoredState());
+    }
+
+    @Test
+    void seaTunnelConfigKeyedWithoutJobName() throws Exception {
+        java.nio.file.Path config = workspace.resolve("seatunnel.json");
+        PackageJarJob seatunnel = new PackageJarJob();
+        seatunnel.setJarFilePath(job.getJarFilePath());
+        seatunnel.setEntryPointClass(SeaTunnelReleaseUtil.SEATUNNEL_MAIN_CLASS);
+        seatunnel.setProgramArgs(new String[]{"--config", config.toString()});
+
+        writeString(config, "{\"env\":{\"job.name\":\"job_1\"},\"source\":[{\"plugin_name\":\"FakeSource\"}]}");
+        String first = JobGraphSubmitter.key(seatunnel, configuration, workspace);
+        writeString(config, "{\"env\":{\"job.name\":\"job_2\"},\"source\":[{\"plugin_name\":\"FakeSource\"}]}");
+        assertEquals(first, JobGraphSubmitter.key(seatunnel, configuration, workspace));
+        writeString(config, "{\"env\":{\"job.name\":\"job_2\"},\"source\":[{\"plugin_name\":\"Jdbc\"}]}");
+        assertNotEquals(first, JobGraphSubmitter.key(seatunnel, configuration, workspace));
+    }
+
+    @Test
+    void cacheIsOptIn() throws Exception {
+        cache(new JobGraph(new JobID(), "job"));
+
+        // falls back to compiling, which fails for the fake job jar
+        assertThrows(Exception.class, () -> submitter.submit(clusterClient, job, configuration, workspace, FLINK_JOB_ID));
+        verify(clusterClient, never()).submitJob(any());
+
+        properties.setEnabled(true);
+        configuration.set(JobGraphSubmitter.ENABLED, false);
+        assertThrows(Exception.class, () -> submitter.submit(clusterClient, job, configuration, workspace, FLINK_JOB_ID));
+        verify(clusterClient, never()).submitJob(any());
+
+        configuration.removeConfig(JobGraphSubmitter.ENABLED);
+        submitter.submit(clusterClient, job, configuration, workspace, FLINK_JOB_ID);
+        verify(clusterClient).submitJob(any());
+    }
+
+    @Test
+    void invalidateDropsCachedGraphs() throws Exception {
+        cache(new JobGraph(new JobID(), "job"));
+        configuration.set(JobGraphSubmitter.ENABLED, true);
+
+        submitter.invalidate(FLINK_JOB_ID);
+        assertThrows(Exception.class, () -> submitter.submit(clusterClient, job, configuration, workspace, FLINK_JOB_ID));
+        verify(clusterClient, never()).submitJob(any());
+    }
+
+    private void writeString(java.nio.file.Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void cache(JobGraph jobGraph) throws Exception {
+        JobGraphCache cache = new JobGraphCache(dir.resolve("cache"), 10, Duration.ofDays(1));
+        cache.put(FLINK_JOB_ID + "-" + JobGraphSubmitter.key(job, configuration, workspace), jobGraph);
+    }
+}
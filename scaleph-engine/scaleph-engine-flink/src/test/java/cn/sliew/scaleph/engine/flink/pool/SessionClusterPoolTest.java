@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.pool;
+
+import cn.sliew.scaleph.common.dict.common.YesOrNo;
+import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterConfigDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterInstanceDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionClusterPoolTest {
+
+    private final AtomicLong clock = new AtomicLong(0L);
+    private SessionClusterPoolProperties properties;
+    private FakeProvisioner provisioner;
+    private SessionClusterPool pool;
+    private WsFlinkClusterConfigDTO config;
+
+    @BeforeEach
+    void setUp() {
+        config = new WsFlinkClusterConfigDTO();
+        config.setId(1L);
+        config.setDeployMode(FlinkDeploymentMode.SESSION);
+        config.setWarmPoolSize(2);
+        provisioner = new FakeProvisioner(config);
+
+        properties = new SessionClusterPoolProperties();
+        properties.setIdleTimeout(Duration.ofMinutes(10L));
+        properties.setLeaseTimeout(Duration.ofMinutes(5L));
+        pool = newPool();
+    }
+
+    private SessionClusterPool newPool() {
+        return new SessionClusterPool(provisioner, properties, Runnable::run, clock::get);
+    }
+
+    @Test
+    void keepWarmClusters() {
+        pool.reconcile();
+        assertEquals(2, provisioner.running.size());
+
+        pool.reconcile();
+        assertEquals(2, provisioner.provisioned);
+    }
+
+    @Test
+    void acquireIdleClusterAndReplenish() throws Exception {
+        pool.reconcile();
+        Set<Long> warm = new HashSet<>(provisioner.running.keySet());
+
+        WsFlinkClusterInstanceDTO acquired = pool.acquire(config, null);
+        assertTrue(warm.contains(acquired.getId()));
+        // the handed out cluster is replaced in the background
+        assertEquals(3, provisioner.provisioned);
+
+        // the lease keeps it from being handed out again before its job shows up
+        WsFlinkClusterInstanceDTO next = pool.acquire(config, acquired);
+        assertNotEquals(acquired.getId(), next.getId());
+    }
+
+    @Test
+    void provisionInPlaceWhenNoIdleCluster() throws Exception {
+        WsFlinkClusterInstanceDTO acquired = pool.acquire(config, null);
+        assertNotNull(acquired);
+        assertTrue(provisioner.running.containsKey(acquired.getId()));
+        assertNotNull(acquired.getLeaseTime());
+        // one in place, two warm
+        assertEquals(3, provisioner.provisioned);
+    }
+
+    @Test
+    void preferRequestedCluster() throws Exception {
+        pool.reconcile();
+        WsFlinkClusterInstanceDTO preferred = provisioner.running.values().iterator().next();
+        assertEquals(preferred.getId(), pool.acquire(config, preferred).getId());
+    }
+
+    @Test
+    void shutdownSurplusAfterIdleTimeout() throws Exception {
+        pool.reconcile();
+        WsFlinkClusterInstanceDTO first = pool.acquire(config, null);
+        WsFlinkClusterInstanceDTO second = pool.acquire(config, null);
+        provisioner.busy.add(first.getId());
+        provisioner.busy.add(second.getId());
+        clock.addAndGet(Duration.ofMinutes(1L).toMillis());
+        pool.reconcile();
+        assertEquals(4, provisioner.running.size());
+
+        // jobs finished, the pool holds 4 idle clusters for 2 warm slots
+        provisioner.busy.clear();
+        clock.addAndGet(Duration.ofMinutes(1L).toMillis());
+        pool.reconcile();
+        assertEquals(4, provisioner.running.size());
+
+        clock.addAndGet(Duration.ofMinutes(10L).toMillis());
+        pool.reconcile();
+        assertEquals(2, provisioner.running.size());
+        assertEquals(2, provisioner.shutdown.size());
+    }
+
+    @Test
+    void busyClusterIsNotShutdown() {
+        pool.reconcile();
+        config.setWarmPoolSize(0);
+        provisioner.busy.addAll(provisioner.running.keySet());
+        clock.addAndGet(Duration.ofHours(1L).toMillis());
+        pool.reconcile();
+        assertEquals(2, provisioner.running.size());
+
+        provisioner.busy.clear();
+        pool.reconcile();
+        clock.addAndGet(Duration.ofHours(1L).toMillis());
+        pool.reconcile();
+        assertTrue(provisioner.running.isEmpty());
+    }
+
+    @Test
+    void userClusterIsNeitherHandedOutNorShutdown() throws Exception {
+        WsFlinkClusterInstanceDTO user = provisioner.create(config, YesOrNo.NO);
+        pool.reconcile();
+        assertNotEquals(user.getId(), pool.acquire(config, user).getId());
+
+        // the lease expires first, then the cluster times out as idle
+        config.setWarmPoolSize(0);
+        for (int i = 0; i < 2; i++) {
+            clock.addAndGet(Duration.ofHours(1L).toMillis());
+            pool.reconcile();
+        }
+        assertEquals(Collections.singleton(user.getId()), provisioner.running.keySet());
+    }
+
+    @Test
+    void leaseIsSharedBetweenNodes() throws Exception {
+        SessionClusterPool other = newPool();
+        pool.reconcile();
+        config.setWarmPoolSize(1);
+        WsFlinkClusterInstanceDTO first = pool.acquire(config, null);
+        WsFlinkClusterInstanceDTO second = other.acquire(config, first);
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    void onlyClaimingNodeReconciles() {
+        SessionClusterPool other = newPool();
+        pool.reconcile();
+        assertEquals(2, provisioner.provisioned);
+
+        provisioner.running.clear();
+        other.reconcile();
+        assertEquals(2, provisioner.provisioned);
+
+        // the claim is taken over once it is not renewed
+        clock.addAndGet(properties.getCheckInterval().multipliedBy(3L).plusSeconds(1L).toMillis());
+        other.reconcile();
+        assertEquals(4, provisioner.provisioned);
+    }
+
+    private static class FakeProvisioner implements SessionClusterProvisioner {
+
+        private final WsFlinkClusterConfigDTO config;
+        private final Map<Long, WsFlinkClusterInstanceDTO> running = new LinkedHashMap<>();
+        private final Set<Long> busy = new HashSet<>();
+        private final List<Long> shutdown = new ArrayList<>();
+        private String owner;
+        private Date heartbeatTime;
+        private long ids;
+        private int provisioned;
+
+        private FakeProvisioner(WsFlinkClusterConfigDTO config) {
+            this.config = config;
+        }
+
+        @Override
+        public List<WsFlinkClusterConfigDTO> listPooledConfigs() {
+            return Collections.singletonList(config);
+        }
+
+        @Override
+        public List<WsFlinkClusterInstanceDTO> listPooled(WsFlinkClusterConfigDTO config) {
+            // copies, like rows read from the database
+            return running.values().stream()
+                    .filter(instance -> instance.getPooled() == YesOrNo.YES)
+                    .map(this::copy)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public boolean isIdle(WsFlinkClusterInstanceDTO instance) {
+            return busy.contains(instance.getId()) == false;
+        }
+
+        @Override
+        public WsFlinkClusterInstanceDTO provision(WsFlinkClusterConfigDTO config, Date leaseTime, Date idleTime) {
+            WsFlinkClusterInstanceDTO instance = create(config, YesOrNo.YES);
+            instance.setLeaseTime(leaseTime);
+            instance.setIdleTime(idleTime);
+            provisioned++;
+            return copy(instance);
+        }
+
+        @Override
+        public void shutdown(WsFlinkClusterInstanceDTO instance) {
+            running.remove(instance.getId());
+            shutdown.add(instance.getId());
+        }
+
+        @Override
+        public boolean updatePoolState(WsFlinkClusterInstanceDTO expected, Date leaseTime, Date idleTime) {
+            WsFlinkClusterInstanceDTO instance = running.get(expected.getId());
+            if (instance == null
+                    || Objects.equals(instance.getLeaseTime(), expected.getLeaseTime()) == false
+                    || Objects.equals(instance.getIdleTime(), expected.getIdleTime()) == false) {
+                return false;
+            }
+            instance.setLeaseTime(leaseTime);
+            instance.setIdleTime(idleTime);
+            return true;
+        }
+
+        @Override
+        public boolean claim(WsFlinkClusterConfigDTO config, String owner, Date now, Duration timeout) {
+            if (this.owner == null || this.owner.equals(owner) || now.getTime() - heartbeatTime.getTime() > timeout.toMillis()) {
+                this.owner = owner;
+                this.heartbeatTime = now;
+                return true;
+            }
+            return false;
+        }
+
+        private WsFlinkClusterInstanceDTO create(WsFlinkClusterConfigDTO config, YesOrNo pooled) {
+            WsFlinkClusterInstanceDTO instance = new WsFlinkClusterInstanceDTO();
+            instance.setId(++ids);
+            instance.setFlinkClusterConfigId(config.getId());
+            instance.setClusterId("cluster-" + instance.getId());
+            instance.setPooled(pooled);
+            running.put(instance.getId(), instance);
+            return instance;
+        }
+
+        private WsFlinkClusterInstanceDTO copy(WsFlinkClusterInstanceDTO instance) {
+            WsFlinkClusterInstanceDTO copy = new WsFlinkClusterInstanceDTO();
+            copy.setId(instance.getId());
+            copy.setFlinkClusterConfigId(instance.getFlinkClusterConfigId());
+            copy.setClusterId(instance.getClusterId());
+            copy.setPooled(instance.getPooled());
+            copy.setLeaseTime(instance.getLeaseTime());
+            copy.setIdleTime(instance.getIdleTime());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service.action;
+
+import cn.sliew.flinkful.rest.base.RestClient;
+import cn.sliew.scaleph.common.dict.flink.FlinkJobState;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkJobInstanceService;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobInstanceDTO;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FlinkJobStatusSyncJobTest {
+
+    private static final String RUNNING_JOB = "0b1a2c3d4e5f60718293a4b5c6d7e8f9";
+    private static final String FINISHED_JOB = "1b1a2c3d4e5f60718293a4b5c6d7e8f9";
+
+    private HttpServer healthy;
+    private HttpServer broken;
+    private final AtomicInteger overviewRequests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        healthy = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        healthy.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/jobs/overview") == false) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            overviewRequests.incrementAndGet();
+            byte[] body = ("{\"jobs\":["
+                    + job(RUNNING_JOB, "RUNNING", 1234L, -1L, 5000L) + ","
+                    + job(FINISHED_JOB, "FINISHED", 1234L, 2567L, 1333L)
+                    + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        healthy.start();
+
+        broken = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        broken.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        broken.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        healthy.stop(0);
+        broken.stop(0);
+    }
+
+    @Test
+    void sync() throws Exception {
+        // given
+        WsFlinkJobInstanceDTO running = instance(healthy, RUNNING_JOB, FlinkJobState.CREATED, 1000L, null);
+        WsFlinkJobInstanceDTO finished = instance(healthy, FINISHED_JOB, FlinkJobState.FINISHED, 1000L, 2000L);
+        WsFlinkJobInstanceDTO unreachable = instance(broken, RUNNING_JOB, FlinkJobState.RUNNING, 1000L, null);
+        WsFlinkJobInstanceService service = Mockito.mock(WsFlinkJobInstanceService.class);
+        Mockito.when(service.listAll()).thenReturn(Arrays.asList(running, finished, unreachable));
+        Mockito.when(service.updateBatch(Mockito.anyList())).thenAnswer(invocation -> ((List) invocation.getArgument(0)).size());
+
+        FlinkJobStatusSyncJob job = new FlinkJobStatusSyncJob(service);
+        try {
+            // when
+            int updated = job.sync();
+
+            // then
+            assertEquals(1, updated);
+            assertEquals(1, overviewRequests.get());
+            ArgumentCaptor<List<WsFlinkJobInstanceDTO>> captor = ArgumentCaptor.forClass(List.class);
+            Mockito.verify(service).updateBatch(captor.capture());
+            assertEquals(1, captor.getValue().size());
+            assertEquals(RUNNING_JOB, captor.getValue().get(0).getJobId());
+            assertEquals(FlinkJobState.RUNNING, captor.getValue().get(0).getJobState());
+            assertEquals(new Date(1000L), captor.getValue().get(0).getStartTime());
+            assertNull(captor.getValue().get(0).getEndTime());
+        } finally {
+            job.destroy();
+        }
+    }
+
+    @Test
+    void pruneRestClientsOfGoneClusters() throws Exception {
+        WsFlinkJobInstanceDTO running = instance(healthy, RUNNING_JOB, FlinkJobState.RUNNING, 1000L, null);
+        WsFlinkJobInstanceService service = Mockito.mock(WsFlinkJobInstanceService.class);
+        Mockito.when(service.listAll()).thenReturn(Collections.singletonList(running));
+
+        FlinkJobStatusSyncJob job = new FlinkJobStatusSyncJob(service);
+        try {
+            // cluster shut down cleanly, no job instance refers to it anymore
+            Map<String, RestClient> restClients = (Map<String, RestClient>) ReflectionTestUtils.getField(job, "restClients");
+            restClients.put("localhost:1", Mockito.mock(RestClient.class));
+
+            job.sync();
+
+            assertFalse(restClients.containsKey("localhost:1"));
+        } finally {
+            job.destroy();
+        }
+    }
+
+    private WsFlinkJobInstanceDTO instance(HttpServer server, String jobId, FlinkJobState state, long startTime, Long endTime) {
+        WsFlinkJobInstanceDTO instance = new WsFlinkJobInstanceDTO();
+        instance.setJobId(jobId);
+        instance.setJobState(state);
+        instance.setStartTime(new Date(startTime));
+        instance.setEndTime(endTime == null ? null : new Date(endTime));
+        instance.setWebInterfaceUrl("http://localhost:" + server.getAddress().getPort());
+        return instance;
+    }
+
+    private String job(String jobId, String state, long startTime, long endTime, long duration) {
+        return "{\"jid\":\"" + jobId + "\",\"name\":\"" + jobId + "\",\"state\":\"" + state + "\""
+                + ",\"start-time\":" + startTime + ",\"end-time\":" + endTime + ",\"duration\":" + duration
+                + ",\"last-modification\":" + startTime
+                + ",\"tasks\":{\"total\":1,\"created\":0,\"scheduled\":0,\"deploying\":0,\"running\":1,\"finished\":0"
+                + ",\"canceling\":0,\"canceled\":0,\"failed\":0,\"reconciling\":0,\"initializing\":0}}";
+    }
+}
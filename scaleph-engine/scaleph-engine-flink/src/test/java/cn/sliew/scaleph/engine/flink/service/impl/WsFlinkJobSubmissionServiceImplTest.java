@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service.impl;
+
+import cn.sliew.scaleph.cache.util.RedisUtil;
+import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
+import cn.sliew.scaleph.common.dict.flink.FlinkJobSubmissionStage;
+import cn.sliew.scaleph.dao.entity.master.ws.WsFlinkJobSubmission;
+import cn.sliew.scaleph.dao.mapper.master.ws.WsFlinkJobSubmissionMapper;
+import cn.sliew.scaleph.engine.flink.pool.SessionClusterPool;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkClusterConfigService;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkService;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkClusterConfigDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobDTO;
+import cn.sliew.scaleph.engine.flink.service.dto.WsFlinkJobSubmissionDTO;
+import cn.sliew.scaleph.engine.flink.submission.FlinkSubmissionProperties;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class WsFlinkJobSubmissionServiceImplTest {
+
+    private WsFlinkJobSubmissionMapper mapper;
+    private RedisUtil redisUtil;
+    private WsFlinkClusterConfigService clusterConfigService;
+    private final List<WsFlinkJobSubmissionServiceImpl> nodes = new CopyOnWriteArrayList<>();
+    private WsFlinkJobSubmissionServiceImpl service;
+    private final BlockingQueue<FlinkJobSubmissionStage> persisted = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mapper = Mockito.mock(WsFlinkJobSubmissionMapper.class);
+        Mockito.doAnswer(invocation -> {
+            invocation.<WsFlinkJobSubmission>getArgument(0).setId(1L);
+            return 1;
+        }).when(mapper).insert(any(WsFlinkJobSubmission.class));
+        WsFlinkJobSubmission record = new WsFlinkJobSubmission();
+        record.setId(1L);
+        record.setStage(FlinkJobSubmissionStage.QUEUED);
+        Mockito.doAnswer(invocation -> {
+            FlinkJobSubmissionStage stage = invocation.<WsFlinkJobSubmission>getArgument(0).getStage();
+            record.setStage(stage);
+            persisted.add(stage);
+            return 1;
+        }).when(mapper).update(any(WsFlinkJobSubmission.class), any(Wrapper.class));
+        Mockito.when(mapper.selectById(1L)).thenReturn(record);
+
+        clusterConfigService = Mockito.mock(WsFlinkClusterConfigService.class);
+        Mockito.when(clusterConfigService.selectOne(any())).thenReturn(clusterConfig());
+
+        // every node subscribes the channel, like the redis message listener container does
+        redisUtil = Mockito.mock(RedisUtil.class);
+        Mockito.when(redisUtil.deserialize(any(byte[].class)))
+                .thenAnswer(invocation -> new String(invocation.<byte[]>getArgument(0), StandardCharsets.UTF_8));
+        Mockito.doAnswer(invocation -> {
+            Message message = Mockito.mock(Message.class);
+            Mockito.when(message.getBody()).thenReturn(invocation.<String>getArgument(1).getBytes(StandardCharsets.UTF_8));
+            for (WsFlinkJobSubmissionServiceImpl node : nodes) {
+                node.onMessage(message, null);
+            }
+            return null;
+        }).when(redisUtil).publish(Mockito.eq(WsFlinkJobSubmissionServiceImpl.TRANSITION_CHANNEL), any());
+
+        service = node("node-1");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (WsFlinkJobSubmissionServiceImpl node : nodes) {
+            node.destroy();
+        }
+    }
+
+    private WsFlinkJobSubmissionServiceImpl node(String nodeId) throws Exception {
+        FlinkSubmissionProperties properties = new FlinkSubmissionProperties();
+        properties.setNodeId(nodeId);
+        WsFlinkJobSubmissionServiceImpl node = new WsFlinkJobSubmissionServiceImpl();
+        ReflectionTestUtils.setField(node, "wsFlinkJobSubmissionMapper", mapper);
+        ReflectionTestUtils.setField(node, "wsFlinkService", Mockito.mock(WsFlinkService.class));
+        ReflectionTestUtils.setField(node, "wsFlinkClusterConfigService", clusterConfigService);
+        ReflectionTestUtils.setField(node, "sessionClusterPool", Mockito.mock(SessionClusterPool.class));
+        ReflectionTestUtils.setField(node, "properties", properties);
+        ReflectionTestUtils.setField(node, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(node, "redisMessageListenerContainer", Mockito.mock(RedisMessageListenerContainer.class));
+        node.afterPropertiesSet();
+        nodes.add(node);
+        return node;
+    }
+
+    @Test
+    void slowListenerDoesNotBlockSubmission() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<FlinkJobSubmissionStage> received = new LinkedBlockingQueue<>();
+        service.subscribe(1L, submission -> {
+            received.add(submission.getStage());
+            if (submission.getStage() == FlinkJobSubmissionStage.QUEUED) {
+                return;
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertEquals(FlinkJobSubmissionStage.QUEUED, received.take());
+
+        service.submit(job());
+        // the listener is still blocked, the submission finishes anyway
+        assertEquals(FlinkJobSubmissionStage.SUCCESS, persisted.poll(10L, TimeUnit.SECONDS));
+        assertTrue(received.isEmpty());
+
+        release.countDown();
+        assertEquals(FlinkJobSubmissionStage.SUCCESS, received.poll(10L, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && listeners().isEmpty() == false; i++) {
+            Thread.sleep(10L);
+        }
+        assertTrue(listeners().isEmpty());
+    }
+
+    @Test
+    void subscribeReleasesListenerWhenQueryFails() {
+        assertThrows(RuntimeException.class, () -> service.subscribe(2L, submission -> {
+        }));
+        assertTrue(listeners().isEmpty());
+    }
+
+    @Test
+    void finishedSubmissionIsNotChangedAgain() throws Exception {
+        // another node failed the submission after its heartbeat timed out
+        Mockito.doReturn(0).when(mapper).update(any(WsFlinkJobSubmission.class), any(Wrapper.class));
+        List<FlinkJobSubmissionStage> received = new CopyOnWriteArrayList<>();
+        service.subscribe(1L, submission -> received.add(submission.getStage()));
+
+        service.submit(job());
+        Thread.sleep(200L);
+        assertEquals(List.of(FlinkJobSubmissionStage.QUEUED), received);
+        assertTrue(((Set<?>) ReflectionTestUtils.getField(service, "running")).isEmpty());
+    }
+
+    @Test
+    void subscriberOnOtherNodeReceivesTransitions() throws Exception {
+        WsFlinkJobSubmissionServiceImpl other = node("node-2");
+        BlockingQueue<FlinkJobSubmissionStage> received = new LinkedBlockingQueue<>();
+        other.subscribe(1L, submission -> received.add(submission.getStage()));
+        assertEquals(FlinkJobSubmissionStage.QUEUED, received.take());
+
+        // submitted on node-1, read back from the row on node-2
+        service.submit(job());
+        FlinkJobSubmissionStage stage;
+        do {
+            stage = received.poll(10L, TimeUnit.SECONDS);
+            assertNotNull(stage);
+        } while (stage != FlinkJobSubmissionStage.SUCCESS);
+        for (int i = 0; i < 100 && listeners(other).isEmpty() == false; i++) {
+            Thread.sleep(10L);
+        }
+        assertTrue(listeners(other).isEmpty());
+    }
+
+    private Map<Long, ?> listeners() {
+        return listeners(service);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> listeners(WsFlinkJobSubmissionServiceImpl node) {
+        return (Map<Long, ?>) ReflectionTestUtils.getField(node, "listeners");
+    }
+
+    private WsFlinkJobDTO job() {
+        WsFlinkJobDTO job = new WsFlinkJobDTO();
+        job.setId(1L);
+        job.setCode(1L);
+        job.setName("job");
+        job.setWsFlinkClusterConfig(clusterConfig());
+        return job;
+    }
+
+    private WsFlinkClusterConfigDTO clusterConfig() {
+        WsFlinkClusterConfigDTO config = new WsFlinkClusterConfigDTO();
+        config.setId(1L);
+        config.setDeployMode(FlinkDeploymentMode.APPLICATION);
+        return config;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.service.impl;
+
+import cn.sliew.scaleph.common.dict.flink.FlinkDeploymentMode;
+import cn.sliew.scaleph.common.dict.flink.FlinkJobType;
+import cn.sliew.scaleph.common.dict.flink.FlinkResourceProvider;
+import cn.sliew.scaleph.engine.flink.jobgraph.JobGraphCacheProperties;
+import cn.sliew.scaleph.engine.flink.jobgraph.JobGraphSubmitter;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkArtifactJarService;
+import cn.sliew.scaleph.engine.flink.service.WsFlinkJobInstanceService;
+import cn.sliew.scaleph.engine.flink.service.dto.*;
+import cn.sliew.scaleph.resource.service.ClusterCredentialService;
+import cn.sliew.scaleph.resource.service.FlinkReleaseService;
+import cn.sliew.scaleph.resource.service.ReleaseCacheService;
+import cn.sliew.scaleph.resource.service.dto.ClusterCredentialDTO;
+import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
+import cn.sliew.scaleph.storage.configuration.StagingProperties;
+import cn.sliew.scaleph.storage.service.impl.StagingServiceImpl;
+import cn.sliew.scaleph.system.util.SystemUtil;
+import org.apache.flink.api.common.JobStatus;
+import org.apache.flink.client.deployment.StandaloneClusterId;
+import org.apache.flink.client.program.ClusterClient;
+import org.apache.flink.client.program.PackagedProgram;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.PipelineOptions;
+import org.apache.flink.runtime.client.JobStatusMessage;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+class WsFlinkServiceImplTest {
+
+    private static final Long FLINK_JOB_ID = 1L;
+
+    @TempDir
+    Path dir;
+
+    private StagingServiceImpl stagingService;
+    private CountingJobGraphSubmitter jobGraphSubmitter;
+    private WsFlinkJobInstanceService jobInstanceService;
+    private WsFlinkServiceImpl service;
+    private final List<JobGraph> submitted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        new SystemUtil().setWorkspace(dir.resolve("workspace").toString());
+        stagingService = new StagingServiceImpl();
+        ReflectionTestUtils.setField(stagingService, "properties", new StagingProperties());
+        stagingService.afterPropertiesSet();
+
+        JobGraphCacheProperties properties = new JobGraphCacheProperties();
+        properties.setDir(dir.resolve("job-graph-cache").toString());
+        properties.setEnabled(true);
+        jobGraphSubmitter = new CountingJobGraphSubmitter();
+        ReflectionTestUtils.setField(jobGraphSubmitter, "properties", properties);
+        jobGraphSubmitter.afterPropertiesSet();
+
+        FlinkReleaseService flinkReleaseService = Mockito.mock(FlinkReleaseService.class);
+        Mockito.when(flinkReleaseService.selectOne(anyLong())).thenReturn(flinkRelease());
+        ReleaseCacheService releaseCacheService = Mockito.mock(ReleaseCacheService.class);
+        Mockito.when(releaseCacheService.loadFlinkRelease(anyLong())).thenReturn(Files.createDirectories(dir.resolve("flink-home")));
+        ClusterCredentialService clusterCredentialService = Mockito.mock(ClusterCredentialService.class);
+        Mockito.when(clusterCredentialService.selectOne(anyLong())).thenReturn(clusterCredential());
+        Mockito.when(clusterCredentialService.listCredentialFile(anyLong())).thenReturn(Collections.emptyList());
+
+        byte[] jar = programJar();
+        WsFlinkArtifactJarService artifactJarService = Mockito.mock(WsFlinkArtifactJarService.class);
+        Mockito.when(artifactJarService.selectOne(anyLong())).thenReturn(artifactJar());
+        Mockito.when(artifactJarService.download(anyLong(), any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(jar);
+            return "job.jar";
+        });
+        jobInstanceService = Mockito.mock(WsFlinkJobInstanceService.class);
+
+        ClusterClient clusterClient = Mockito.mock(ClusterClient.class);
+        Mockito.when(clusterClient.getClusterId()).thenReturn(StandaloneClusterId.getInstance());
+        Mockito.when(clusterClient.submitJob(any())).thenAnswer(invocation -> {
+            JobGraph jobGraph = invocation.getArgument(0);
+            submitted.add(jobGraph);
+            return CompletableFuture.completedFuture(jobGraph.getJobID());
+        });
+        Mockito.when(clusterClient.listJobs()).thenAnswer(invocation -> CompletableFuture.completedFuture(submitted.stream()
+                .map(jobGraph -> new JobStatusMessage(jobGraph.getJobID(), jobGraph.getName(), JobStatus.RUNNING, 0L))
+                .collect(Collectors.toList())));
+
+        service = Mockito.spy(new WsFlinkServiceImpl());
+        ReflectionTestUtils.setField(service, "flinkReleaseService", flinkReleaseService);
+        ReflectionTestUtils.setField(service, "releaseCacheService", releaseCacheService);
+        ReflectionTestUtils.setField(service, "clusterCredentialService", clusterCredentialService);
+        ReflectionTestUtils.setField(service, "wsFlinkArtifactJarService", artifactJarService);
+        ReflectionTestUtils.setField(service, "wsFlinkJobInstanceService", jobInstanceService);
+        ReflectionTestUtils.setField(service, "stagingService", stagingService);
+        ReflectionTestUtils.setField(service, "jobGraphSubmitter", jobGraphSubmitter);
+        Mockito.doReturn(clusterClient).when(service).retrieveSessionCluster(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        stagingService.destroy();
+    }
+
+    @Test
+    void resubmitReusesCachedJobGraph() throws Exception {
+        // every submission names the job uniquely
+        service.submit(job("job_1001"));
+        service.submit(job("job_1002"));
+
+        assertEquals(1, jobGraphSubmitter.compiled.get());
+        assertEquals(2, submitted.size());
+        assertEquals("job_1002", submitted.get(1).getName());
+
+        ArgumentCaptor<WsFlinkJobInstanceDTO> captor = ArgumentCaptor.forClass(WsFlinkJobInstanceDTO.class);
+        Mockito.verify(jobInstanceService, Mockito.times(2)).insert(captor.capture());
+        assertEquals("job_1002", captor.getAllValues().get(1).getJobName());
+    }
+
+    private WsFlinkJobDTO job(String name) {
+        WsFlinkClusterConfigDTO clusterConfig = new WsFlinkClusterConfigDTO();
+        clusterConfig.setResourceProvider(FlinkResourceProvider.STANDALONE);
+        clusterConfig.setDeployMode(FlinkDeploymentMode.SESSION);
+        clusterConfig.setFlinkRelease(flinkRelease());
+        clusterConfig.setClusterCredential(clusterCredential());
+        WsFlinkClusterInstanceDTO clusterInstance = new WsFlinkClusterInstanceDTO();
+        clusterInstance.setWebInterfaceUrl("http://localhost:8081");
+
+        WsFlinkJobDTO job = new WsFlinkJobDTO();
+        job.setId(FLINK_JOB_ID);
+        job.setCode(FLINK_JOB_ID);
+        job.setName(name);
+        job.setType(FlinkJobType.JAR);
+        job.setFlinkArtifactId(1L);
+        job.setWsFlinkClusterConfig(clusterConfig);
+        job.setWsFlinkClusterInstance(clusterInstance);
+        return job;
+    }
+
+    private FlinkReleaseDTO flinkRelease() {
+        FlinkReleaseDTO flinkRelease = new FlinkReleaseDTO();
+        flinkRelease.setId(1L);
+        return flinkRelease;
+    }
+
+    private ClusterCredentialDTO clusterCredential() {
+        ClusterCredentialDTO clusterCredential = new ClusterCredentialDTO();
+        clusterCredential.setId(1L);
+        clusterCredential.setName("standalone");
+        clusterCredential.setConfigType(FlinkResourceProvider.STANDALONE);
+        return clusterCredential;
+    }
+
+    private WsFlinkArtifactJarDTO artifactJar() {
+        WsFlinkArtifactDTO artifact = new WsFlinkArtifactDTO();
+        artifact.setName("artifact");
+        WsFlinkArtifactJarDTO artifactJar = new WsFlinkArtifactJarDTO();
+        artifactJar.setId(1L);
+        artifactJar.setWsFlinkArtifact(artifact);
+        artifactJar.setVersion("1");
+        artifactJar.setFileName("job.jar");
+        artifactJar.setEntryClass(Program.class.getName());
+        return artifactJar;
+    }
+
+    private byte[] programJar() throws Exception {
+        Path jar = dir.resolve("job.jar");
+        String entry = Program.class.getName().replace('.', '/') + ".class";
+        try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(jar));
+             InputStream inputStream = Program.class.getClassLoader().getResourceAsStream(entry)) {
+            outputStream.putNextEntry(new JarEntry(entry));
+            inputStream.transferTo(outputStream);
+            outputStream.closeEntry();
+        }
+        return Files.readAllBytes(jar);
+    }
+
+    /**
+     * Running the user main method needs a flink runtime, the pipeline only takes the job name.
+     */
+    private static class CountingJobGraphSubmitter extends JobGraphSubmitter {
+
+        private final AtomicInteger compiled = new AtomicInteger();
+
+        @Override
+        protected JobGraph createJobGraph(PackagedProgram program, Configuration configuration) {
+            compiled.incrementAndGet();
+            return new JobGraph(configuration.get(PipelineOptions.NAME));
+        }
+    }
+
+    public static class Program {
+
+        public static void main(String[] args) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.submission;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedBoundedExecutorTest {
+
+    private final KeyedBoundedExecutor executor = new KeyedBoundedExecutor("test", 4, 1, 3);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void limitConcurrencyPerKey() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherKey = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Runnable blocking = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+                done.countDown();
+            }
+        };
+
+        executor.execute("a", blocking);
+        executor.execute("a", blocking);
+        // other keys are not blocked by the slow one
+        executor.execute("b", otherKey::countDown);
+        assertTrue(otherKey.await(10, TimeUnit.SECONDS));
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void rejectWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute("a", blocking);
+        executor.execute("a", blocking);
+        executor.execute("b", blocking);
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("c", blocking));
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (executor.getPending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, executor.getPending());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.flink.yarn;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * runs against the local hadoop file system, which shares the {@link FileSystem} api with hdfs
+ */
+class ProvidedLibRepositoryTest {
+
+    private static final List<String> INCLUDES = Arrays.asList("lib", "plugins");
+
+    @TempDir
+    java.nio.file.Path local;
+    @TempDir
+    java.nio.file.Path remote;
+
+    private FileSystem fs;
+    private ProvidedLibRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fs = FileSystem.getLocal(new Configuration()).getRaw();
+        repository = new ProvidedLibRepository(fs, new Path(remote.toUri()));
+        write("lib/flink-dist.jar", "dist");
+        write("plugins/metrics/metrics.jar", "metrics");
+        write("conf/flink-conf.yaml", "conf");
+    }
+
+    @Test
+    void uploadOnceForSameContent() throws Exception {
+        Path first = repository.sync("flink/1.15.3", local, INCLUDES);
+        assertTrue(fs.exists(new Path(first, "lib/flink-dist.jar")));
+        assertTrue(fs.exists(new Path(first, "plugins/metrics/metrics.jar")));
+        assertFalse(fs.exists(new Path(first, "conf")));
+        assertEquals(new FsPermission((short) 0644), fs.getFileStatus(new Path(first, "lib/flink-dist.jar")).getPermission());
+
+        long modificationTime = fs.getFileStatus(new Path(first, "lib/flink-dist.jar")).getModificationTime();
+        Path second = repository.sync("flink/1.15.3", local, INCLUDES);
+        assertEquals(first, second);
+        assertEquals(modificationTime, fs.getFileStatus(new Path(second, "lib/flink-dist.jar")).getModificationTime());
+    }
+
+    @Test
+    void newVersionForChangedContent() throws Exception {
+        Path first = repository.sync("flink/1.15.3", local, INCLUDES);
+        write("lib/connector.jar", "connector");
+        Path second = repository.sync("flink/1.15.3", local, INCLUDES);
+
+        assertNotEquals(first, second);
+        assertFalse(fs.exists(new Path(first, "lib/connector.jar")));
+        assertTrue(fs.exists(new Path(second, "lib/connector.jar")));
+    }
+
+    @Test
+    void concurrentSyncConverges() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> repository.sync("flink/1.15.3", local, INCLUDES)));
+            }
+            Set<Path> dirs = new HashSet<>();
+            for (Future<Path> future : futures) {
+                dirs.add(future.get());
+            }
+            assertEquals(1, dirs.size());
+            Path dir = dirs.iterator().next();
+            assertEquals(2, fs.listStatus(dir).length);
+            assertEquals(0, fs.listStatus(new Path(new Path(remote.toUri()), ".tmp")).length);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void write(String name, String content) throws Exception {
+        java.nio.file.Path file = local.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
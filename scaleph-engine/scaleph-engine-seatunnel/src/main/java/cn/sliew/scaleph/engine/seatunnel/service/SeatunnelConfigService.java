@@ -18,9 +18,24 @@
 
 package cn.sliew.scaleph.engine.seatunnel.service;
 
+import cn.sliew.scaleph.engine.seatunnel.service.dto.SeatunnelConfigCacheStatsDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobDTO;
 
+import java.io.OutputStream;
+
 public interface SeatunnelConfigService {
 
     String buildConfig(WsDiJobDTO wsDiJobDTO) throws Exception;
+
+    /**
+     * 构建作业配置并直接写入输出流，不生成中间字符串。输出流由调用方关闭
+     */
+    void buildConfig(WsDiJobDTO wsDiJobDTO, OutputStream outputStream) throws Exception;
+
+    /**
+     * 作业图或属性变更后清除作业的配置缓存
+     */
+    void invalidate(Long jobId);
+
+    SeatunnelConfigCacheStatsDTO getCacheStats();
 }
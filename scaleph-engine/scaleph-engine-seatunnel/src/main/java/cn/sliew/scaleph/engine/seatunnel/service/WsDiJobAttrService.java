@@ -42,5 +42,14 @@ public interface WsDiJobAttrService {
 
     int deleteByJobId(Collection<? extends Serializable> jobIds);
 
+    /**
+     * 对比已保存的作业参数，批量新增、更新、删除有变化的参数
+     *
+     * @param jobId    job id
+     * @param jobAttrs job attrs
+     * @return changed rows
+     */
+    int saveJobAttrs(Long jobId, Collection<WsDiJobAttrDTO> jobAttrs);
+
     int clone(Long sourceJobId, Long targetJobId);
 }
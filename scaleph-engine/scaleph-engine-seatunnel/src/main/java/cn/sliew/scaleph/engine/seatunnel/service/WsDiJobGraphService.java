@@ -29,7 +29,12 @@ public interface WsDiJobGraphService {
 
     void queryJobGraph(WsDiJobDTO job);
 
-    void saveJobGraph(Long jobId, JobGraphVO jobGraph);
+    /**
+     * 保存作业的步骤和连线，只写入有变化的行
+     *
+     * @return changed rows
+     */
+    int saveJobGraph(Long jobId, JobGraphVO jobGraph);
 
     void updateJobStep(WsDiJobStepParam param);
 
@@ -46,5 +46,14 @@ public interface WsDiJobLinkService {
 
     int deleteSurplusLink(Long jobId, List<String> linkCodeList);
 
+    /**
+     * 对比已保存的连线，批量新增、更新、删除有变化的连线
+     *
+     * @param jobId job id
+     * @param links job links
+     * @return changed rows
+     */
+    int saveJobLinks(Long jobId, List<WsDiJobLinkDTO> links);
+
     int clone(Long sourceJobId, Long targetJobId);
 }
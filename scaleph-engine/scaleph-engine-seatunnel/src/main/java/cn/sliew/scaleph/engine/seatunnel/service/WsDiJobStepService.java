@@ -47,6 +47,15 @@ public interface WsDiJobStepService {
 
     int deleteSurplusStep(Long jobId, List<String> stepCodeList);
 
+    /**
+     * 对比已保存的步骤，批量新增、更新、删除有变化的步骤
+     *
+     * @param jobId job id
+     * @param steps job steps
+     * @return changed rows
+     */
+    int saveJobSteps(Long jobId, List<WsDiJobStepDTO> steps);
+
     int clone(Long sourceJobId, Long targetJobId);
 
 }
@@ -22,6 +22,7 @@ import cn.sliew.milky.common.util.JacksonUtil;
 import cn.sliew.scaleph.common.dict.job.JobStepType;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginName;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginType;
+import cn.sliew.scaleph.engine.seatunnel.service.dto.SeatunnelConfigCacheStatsDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobAttrDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobLinkDTO;
@@ -35,17 +36,31 @@ import cn.sliew.scaleph.plugin.seatunnel.flink.env.JobNameProperties;
 import cn.sliew.scaleph.plugin.seatunnel.flink.resource.ResourceProperty;
 import cn.sliew.scaleph.plugin.seatunnel.flink.util.SeaTunnelPluginUtil;
 import cn.sliew.scaleph.resource.service.ResourceService;
+import cn.sliew.scaleph.resource.service.enums.ResourceType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 
 import static cn.sliew.scaleph.engine.seatunnel.service.constant.GraphConstants.*;
@@ -56,33 +71,168 @@ import static cn.sliew.scaleph.plugin.seatunnel.flink.env.CommonProperties.SOURC
 @Service
 public class SeatunnelConfigServiceImpl implements SeatunnelConfigService {
 
+    /**
+     * 与 {@link com.fasterxml.jackson.databind.JsonNode#toPrettyString()} 输出一致，不关闭调用方的输出流
+     */
+    private static final ObjectWriter PRETTY_WRITER = new ObjectMapper()
+            .writerWithDefaultPrettyPrinter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     @Autowired
     private SeatunnelConnectorService seatunnelConnectorService;
     @Autowired
     private ResourceService resourceService;
 
+    /**
+     * 已构建的作业配置，按作业id、版本号和作业图及其引用资源的摘要缓存。
+     * 作业名称每次提交都不同，不参与缓存，输出时再写入。配置只读共享，不可修改
+     */
+    private final Cache<ConfigKey, ObjectNode> configCache = Caffeine.newBuilder()
+            .maximumSize(256L)
+            .expireAfterAccess(Duration.ofHours(1L))
+            .recordStats()
+            .build();
+
     @Override
     public String buildConfig(WsDiJobDTO job) throws Exception {
+        return withJobName(getOrBuildConfig(job), job.getJobName()).toPrettyString();
+    }
+
+    @Override
+    public void buildConfig(WsDiJobDTO job, OutputStream outputStream) throws Exception {
+        PRETTY_WRITER.writeValue(outputStream, withJobName(getOrBuildConfig(job), job.getJobName()));
+    }
+
+    @Override
+    public void invalidate(Long jobId) {
+        configCache.asMap().keySet().removeIf(key -> key.jobId.equals(jobId));
+    }
+
+    @Override
+    public SeatunnelConfigCacheStatsDTO getCacheStats() {
+        CacheStats stats = configCache.stats();
+        SeatunnelConfigCacheStatsDTO dto = new SeatunnelConfigCacheStatsDTO();
+        dto.setHitCount(stats.hitCount());
+        dto.setMissCount(stats.missCount());
+        dto.setSize(configCache.estimatedSize());
+        return dto;
+    }
+
+    private ObjectNode getOrBuildConfig(WsDiJobDTO job) throws Exception {
+        // 资源内容可能在作业之外被修改，需要每次解析后参与摘要
+        Map<String, Object> resources = resolveResources(job);
+        ConfigKey key = new ConfigKey(job.getId(), job.getJobVersion(), digest(job, resources));
+        ObjectNode conf = configCache.getIfPresent(key);
+        if (conf == null) {
+            conf = doBuildConfig(job, resources);
+            configCache.put(key, conf);
+        }
+        return conf;
+    }
+
+    /**
+     * 浅拷贝缓存的配置并写入作业名称，source、transform、sink 等节点直接引用缓存的配置
+     */
+    private ObjectNode withJobName(ObjectNode conf, String jobName) {
+        ObjectNode env = JacksonUtil.createObjectNode();
+        env.put(JobNameProperties.JOB_NAME.getName(), jobName);
+        env.setAll((ObjectNode) conf.get(SeaTunnelConstant.ENV));
+        ObjectNode named = JacksonUtil.createObjectNode();
+        named.set(SeaTunnelConstant.ENV, env);
+        conf.fields().forEachRemaining(entry -> {
+            if (SeaTunnelConstant.ENV.equals(entry.getKey()) == false) {
+                named.set(entry.getKey(), entry.getValue());
+            }
+        });
+        return named;
+    }
+
+    private ObjectNode doBuildConfig(WsDiJobDTO job, Map<String, Object> resources) throws PluginException {
         ObjectNode conf = JacksonUtil.createObjectNode();
         // env
-        buildEnvs(conf, job.getJobName(), job.getJobAttrList());
+        buildEnvs(conf, job.getJobAttrList());
         // source, sink, transform
-        MutableGraph<ObjectNode> graph = buildGraph(job);
+        MutableGraph<ObjectNode> graph = buildGraph(job, resources);
         buildNodes(conf, graph.nodes());
         // append source_table_name and result_table_name
         buildEdges(graph.edges());
         // remove utilty fields
         clearUtiltyField(graph.nodes());
-        return conf.toPrettyString();
+        return conf;
+    }
+
+    /**
+     * 先收集作业中所有步骤引用的资源，再按资源类型分组批量查询，每种资源类型只查询一次
+     */
+    private Map<String, Object> resolveResources(WsDiJobDTO job) throws PluginException {
+        Map<String, Object> resources = new TreeMap<>();
+        if (CollectionUtils.isEmpty(job.getJobStepList())) {
+            return resources;
+        }
+        Map<ResourceType, Set<Long>> references = new EnumMap<>(ResourceType.class);
+        for (WsDiJobStepDTO step : job.getJobStepList()) {
+            Properties properties = convertToProperties(step.getStepAttrs());
+            SeaTunnelPluginType pluginType = SeaTunnelPluginType.of(step.getStepType().getValue());
+            SeaTunnelConnectorPlugin connector = seatunnelConnectorService.getConnector(pluginType, step.getStepName());
+            for (ResourceProperty resource : connector.getRequiredResources()) {
+                Object property = properties.get(resource.getProperty().getName());
+                if (property != null) {
+                    // fixme force conform property to resource id
+                    references.computeIfAbsent(resource.getType(), type -> new TreeSet<>())
+                            .add(Long.valueOf(property.toString()));
+                }
+            }
+        }
+        for (Map.Entry<ResourceType, Set<Long>> entry : references.entrySet()) {
+            Map<Long, Object> raws = resourceService.getRawBatch(entry.getKey(), entry.getValue());
+            raws.forEach((id, raw) -> resources.put(resourceKey(entry.getKey(), id), raw));
+        }
+        return resources;
+    }
+
+    private String resourceKey(ResourceType type, Object resourceId) {
+        return type.getCode() + ":" + resourceId;
+    }
+
+    private String digest(WsDiJobDTO job, Map<String, Object> resources) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        if (CollectionUtils.isEmpty(job.getJobAttrList()) == false) {
+            job.getJobAttrList().stream()
+                    .map(attr -> attr.getJobAttrType().getValue() + ":" + attr.getJobAttrKey() + "=" + attr.getJobAttrValue())
+                    .sorted()
+                    .forEach(attr -> hasher.putString(attr, StandardCharsets.UTF_8));
+        }
+        if (CollectionUtils.isEmpty(job.getJobStepList()) == false) {
+            job.getJobStepList().stream()
+                    .sorted(Comparator.comparing(WsDiJobStepDTO::getStepCode))
+                    .forEach(step -> {
+                        hasher.putString(step.getStepCode(), StandardCharsets.UTF_8);
+                        hasher.putString(String.valueOf(step.getId()), StandardCharsets.UTF_8);
+                        hasher.putString(step.getStepType().getValue(), StandardCharsets.UTF_8);
+                        hasher.putString(step.getStepName().getValue(), StandardCharsets.UTF_8);
+                        Map<String, Object> stepAttrs = step.getStepAttrs() == null ? Collections.emptyMap() : new TreeMap<>(step.getStepAttrs());
+                        hasher.putString(JacksonUtil.toJsonString(stepAttrs), StandardCharsets.UTF_8);
+                    });
+        }
+        if (CollectionUtils.isEmpty(job.getJobLinkList()) == false) {
+            job.getJobLinkList().stream()
+                    .map(link -> link.getFromStepCode() + "->" + link.getToStepCode())
+                    .sorted()
+                    .forEach(link -> hasher.putString(link, StandardCharsets.UTF_8));
+        }
+        resources.forEach((key, value) -> {
+            hasher.putString(key, StandardCharsets.UTF_8);
+            hasher.putString(JacksonUtil.toJsonString(value), StandardCharsets.UTF_8);
+        });
+        return hasher.hash().toString();
     }
 
-    private void buildEnvs(ObjectNode conf, String jobName, List<WsDiJobAttrDTO> jobAttrList) {
-        conf.set(SeaTunnelConstant.ENV, buildEnv(jobName, jobAttrList));
+    private void buildEnvs(ObjectNode conf, List<WsDiJobAttrDTO> jobAttrList) {
+        conf.set(SeaTunnelConstant.ENV, buildEnv(jobAttrList));
     }
 
-    private ObjectNode buildEnv(String jobName, List<WsDiJobAttrDTO> jobAttrs) {
+    private ObjectNode buildEnv(List<WsDiJobAttrDTO> jobAttrs) {
         ObjectNode env = JacksonUtil.createObjectNode();
-        env.put(JobNameProperties.JOB_NAME.getName(), jobName);
         if (CollectionUtils.isEmpty(jobAttrs)) {
             return env;
         }
@@ -101,7 +251,7 @@ public class SeatunnelConfigServiceImpl implements SeatunnelConfigService {
         return env;
     }
 
-    private MutableGraph<ObjectNode> buildGraph(WsDiJobDTO wsDiJobDTO) throws PluginException {
+    private MutableGraph<ObjectNode> buildGraph(WsDiJobDTO wsDiJobDTO, Map<String, Object> resources) throws PluginException {
         MutableGraph<ObjectNode> graph = GraphBuilder.directed().build();
         List<WsDiJobStepDTO> jobStepList = wsDiJobDTO.getJobStepList();
         List<WsDiJobLinkDTO> jobLinkList = wsDiJobDTO.getJobLinkList();
@@ -110,7 +260,7 @@ public class SeatunnelConfigServiceImpl implements SeatunnelConfigService {
         }
         Map<String, ObjectNode> stepMap = new HashMap<>();
         for (WsDiJobStepDTO step : jobStepList) {
-            Properties properties = mergeJobAttrs(step);
+            Properties properties = mergeJobAttrs(step, resources);
             SeaTunnelPluginType stepType = step.getStepType();
             SeaTunnelPluginName stepName = step.getStepName();
             SeaTunnelConnectorPlugin connector = seatunnelConnectorService.newConnector(SeaTunnelPluginUtil.getIdentity(stepType, stepName), properties);
@@ -129,7 +279,7 @@ public class SeatunnelConfigServiceImpl implements SeatunnelConfigService {
         return graph;
     }
 
-    private Properties mergeJobAttrs(WsDiJobStepDTO step) throws PluginException {
+    private Properties mergeJobAttrs(WsDiJobStepDTO step, Map<String, Object> resources) throws PluginException {
         Properties properties = convertToProperties(step.getStepAttrs());
         SeaTunnelPluginType pluginType = SeaTunnelPluginType.of(step.getStepType().getValue());
         SeaTunnelConnectorPlugin connector = seatunnelConnectorService.getConnector(pluginType, step.getStepName());
@@ -137,8 +287,7 @@ public class SeatunnelConfigServiceImpl implements SeatunnelConfigService {
             String name = resource.getProperty().getName();
             if (properties.containsKey(name)) {
                 Object property = properties.get(name);
-                // fixme force conform property to resource id
-                Object value = resourceService.getRaw(resource.getType(), Long.valueOf(property.toString()));
+                Object value = resources.get(resourceKey(resource.getType(), Long.valueOf(property.toString())));
                 properties.put(name, JacksonUtil.toJsonString(value));
             }
         }
@@ -207,4 +356,12 @@ public class SeatunnelConfigServiceImpl implements SeatunnelConfigService {
         });
     }
 
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class ConfigKey {
+
+        private final Long jobId;
+        private final Integer jobVersion;
+        private final String digest;
+    }
 }
@@ -25,18 +25,20 @@ import cn.sliew.scaleph.engine.seatunnel.service.convert.WsDiJobAttrConvert;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobAttrDTO;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author gleiyu
  */
 @Service
-public class WsDiJobAttrServiceImpl implements WsDiJobAttrService {
+public class WsDiJobAttrServiceImpl
+        extends ServiceImpl<WsDiJobAttrMapper, WsDiJobAttr>
+        implements WsDiJobAttrService {
 
     @Autowired
     private WsDiJobAttrMapper diJobAttrMapper;
@@ -80,6 +82,48 @@ public class WsDiJobAttrServiceImpl implements WsDiJobAttrService {
         return diJobAttrMapper.deleteByJobId(jobIds);
     }
 
+    @Override
+    public int saveJobAttrs(Long jobId, Collection<WsDiJobAttrDTO> jobAttrs) {
+        Map<String, WsDiJobAttr> stored = new HashMap<>();
+        List<WsDiJobAttr> storedAttrs = diJobAttrMapper.selectList(new LambdaQueryWrapper<WsDiJobAttr>()
+                .eq(WsDiJobAttr::getJobId, jobId)
+        );
+        for (WsDiJobAttr attr : storedAttrs) {
+            stored.put(attrKey(attr), attr);
+        }
+
+        List<WsDiJobAttr> inserts = new ArrayList<>();
+        List<WsDiJobAttr> updates = new ArrayList<>();
+        for (WsDiJobAttrDTO dto : jobAttrs) {
+            WsDiJobAttr attr = WsDiJobAttrConvert.INSTANCE.toDo(dto);
+            attr.setJobId(jobId);
+            WsDiJobAttr origin = stored.remove(attrKey(attr));
+            if (origin == null) {
+                inserts.add(attr);
+            } else if (Objects.equals(origin.getJobAttrValue(), attr.getJobAttrValue()) == false) {
+                attr.setId(origin.getId());
+                updates.add(attr);
+            }
+        }
+        List<Long> deletes = new ArrayList<>(stored.size());
+        stored.values().forEach(attr -> deletes.add(attr.getId()));
+
+        if (inserts.isEmpty() == false) {
+            saveBatch(inserts);
+        }
+        if (updates.isEmpty() == false) {
+            updateBatchById(updates);
+        }
+        if (deletes.isEmpty() == false) {
+            diJobAttrMapper.deleteBatchIds(deletes);
+        }
+        return inserts.size() + updates.size() + deletes.size();
+    }
+
+    private String attrKey(WsDiJobAttr attr) {
+        return attr.getJobAttrType().getValue() + ":" + attr.getJobAttrKey();
+    }
+
     @Override
     public int clone(Long sourceJobId, Long targetJobId) {
         return diJobAttrMapper.clone(sourceJobId, targetJobId);
@@ -22,6 +22,7 @@ import cn.sliew.scaleph.common.constant.Constants;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginName;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginType;
 import cn.sliew.scaleph.common.util.BeanUtil;
+import cn.sliew.scaleph.dao.DataSourceConstants;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobGraphService;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobLinkService;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobStepService;
@@ -34,10 +35,11 @@ import cn.sliew.scaleph.engine.seatunnel.service.vo.JobGraphVO;
 import cn.sliew.scaleph.engine.seatunnel.service.vo.NodeCellVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class WsDiJobGraphServiceImpl implements WsDiJobGraphService {
@@ -53,16 +55,16 @@ public class WsDiJobGraphServiceImpl implements WsDiJobGraphService {
         job.setJobLinkList(wsDiJobLinkService.listJobLink(job.getId()));
     }
 
+    @Transactional(rollbackFor = Exception.class, transactionManager = DataSourceConstants.MASTER_TRANSACTION_MANAGER_FACTORY)
     @Override
-    public void saveJobGraph(Long jobId, JobGraphVO jobGraph) {
-        saveJobSteps(jobId, jobGraph.getNodes());
-        saveJobLinks(jobId, jobGraph.getEdges());
+    public int saveJobGraph(Long jobId, JobGraphVO jobGraph) {
+        int result = saveJobSteps(jobId, jobGraph.getNodes());
+        result += saveJobLinks(jobId, jobGraph.getEdges());
+        return result;
     }
 
-    private void saveJobSteps(Long jobId, List<NodeCellVO> nodes) {
-        List<String> stopCodes = nodes.stream().map(NodeCellVO::getId)
-                .collect(Collectors.toList());
-        wsDiJobStepService.deleteSurplusStep(jobId, stopCodes);
+    private int saveJobSteps(Long jobId, List<NodeCellVO> nodes) {
+        List<WsDiJobStepDTO> jobSteps = new ArrayList<>(nodes.size());
         for (NodeCellVO node : nodes) {
             WsDiJobStepDTO jobStep = new WsDiJobStepDTO();
             jobStep.setJobId(jobId);
@@ -72,23 +74,22 @@ public class WsDiJobGraphServiceImpl implements WsDiJobGraphService {
             jobStep.setStepName(SeaTunnelPluginName.of(String.valueOf(node.getData().get("name"))));
             jobStep.setPositionX(node.getX());
             jobStep.setPositionY(node.getY());
-            wsDiJobStepService.upsert(jobStep);
+            jobSteps.add(jobStep);
         }
+        return wsDiJobStepService.saveJobSteps(jobId, jobSteps);
     }
 
-    private void saveJobLinks(Long jobId, List<EdgeCellVO> edges) {
-        List<String> linkCodes = edges.stream().map(EdgeCellVO::getId)
-                .collect(Collectors.toList());
-        wsDiJobLinkService.deleteSurplusLink(jobId, linkCodes);
-
+    private int saveJobLinks(Long jobId, List<EdgeCellVO> edges) {
+        List<WsDiJobLinkDTO> jobLinks = new ArrayList<>(edges.size());
         for (EdgeCellVO edge : edges) {
             WsDiJobLinkDTO jobLink = new WsDiJobLinkDTO();
             jobLink.setJobId(jobId);
             jobLink.setLinkCode(edge.getId());
             jobLink.setFromStepCode(edge.getSource());
             jobLink.setToStepCode(edge.getTarget());
-            wsDiJobLinkService.upsert(jobLink);
+            jobLinks.add(jobLink);
         }
+        return wsDiJobLinkService.saveJobLinks(jobId, jobLinks);
     }
 
     @Override
@@ -26,18 +26,20 @@ import cn.sliew.scaleph.engine.seatunnel.service.convert.WsDiJobLinkConvert;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobLinkDTO;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author gleiyu
  */
 @Service
-public class WsDiJobLinkServiceImpl implements WsDiJobLinkService {
+public class WsDiJobLinkServiceImpl
+        extends ServiceImpl<WsDiJobLinkMapper, WsDiJobLink>
+        implements WsDiJobLinkService {
 
     @Autowired
     private WsDiJobLinkMapper diJobLinkMapper;
@@ -96,6 +98,50 @@ public class WsDiJobLinkServiceImpl implements WsDiJobLinkService {
         );
     }
 
+    @Override
+    public int saveJobLinks(Long jobId, List<WsDiJobLinkDTO> links) {
+        // link code is not unique in table, duplicated links are deleted
+        List<Long> deletes = new ArrayList<>();
+        Map<String, WsDiJobLink> stored = new HashMap<>();
+        List<WsDiJobLink> storedLinks = diJobLinkMapper.selectList(
+                new LambdaQueryWrapper<WsDiJobLink>()
+                        .eq(WsDiJobLink::getJobId, jobId)
+        );
+        for (WsDiJobLink link : storedLinks) {
+            WsDiJobLink duplicated = stored.putIfAbsent(link.getLinkCode(), link);
+            if (duplicated != null) {
+                deletes.add(link.getId());
+            }
+        }
+
+        List<WsDiJobLink> inserts = new ArrayList<>();
+        List<WsDiJobLink> updates = new ArrayList<>();
+        for (WsDiJobLinkDTO dto : links) {
+            WsDiJobLink link = WsDiJobLinkConvert.INSTANCE.toDo(dto);
+            link.setJobId(jobId);
+            WsDiJobLink origin = stored.remove(link.getLinkCode());
+            if (origin == null) {
+                inserts.add(link);
+            } else if (Objects.equals(origin.getFromStepCode(), link.getFromStepCode()) == false
+                    || Objects.equals(origin.getToStepCode(), link.getToStepCode()) == false) {
+                link.setId(origin.getId());
+                updates.add(link);
+            }
+        }
+        stored.values().forEach(link -> deletes.add(link.getId()));
+
+        if (inserts.isEmpty() == false) {
+            saveBatch(inserts);
+        }
+        if (updates.isEmpty() == false) {
+            updateBatchById(updates);
+        }
+        if (deletes.isEmpty() == false) {
+            diJobLinkMapper.deleteBatchIds(deletes);
+        }
+        return inserts.size() + updates.size() + deletes.size();
+    }
+
     @Override
     public int clone(Long sourceJobId, Long targetJobId) {
         return diJobLinkMapper.clone(sourceJobId, targetJobId);
@@ -27,12 +27,14 @@ import cn.sliew.scaleph.common.util.BeanUtil;
 import cn.sliew.scaleph.dao.DataSourceConstants;
 import cn.sliew.scaleph.dao.entity.master.ws.WsDiJob;
 import cn.sliew.scaleph.dao.mapper.master.ws.WsDiJobMapper;
+import cn.sliew.scaleph.engine.seatunnel.service.SeatunnelConfigService;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobAttrService;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobGraphService;
 import cn.sliew.scaleph.engine.seatunnel.service.WsDiJobService;
 import cn.sliew.scaleph.engine.seatunnel.service.convert.WsDiJobConvert;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobAttrDTO;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobDTO;
+import cn.sliew.scaleph.engine.seatunnel.service.event.WsDiJobChangedEvent;
 import cn.sliew.scaleph.engine.seatunnel.service.param.WsDiJobGraphParam;
 import cn.sliew.scaleph.engine.seatunnel.service.param.WsDiJobParam;
 import cn.sliew.scaleph.engine.seatunnel.service.param.WsDiJobStepParam;
@@ -45,6 +47,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -69,6 +72,10 @@ public class WsDiJobServiceImpl implements WsDiJobService {
     private WsDiJobGraphService wsDiJobGraphService;
     @Autowired
     private WsDiJobAttrService wsDiJobAttrService;
+    @Autowired
+    private SeatunnelConfigService seatunnelConfigService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<WsDiJobDTO> listByPage(WsDiJobParam param) {
@@ -123,6 +130,7 @@ public class WsDiJobServiceImpl implements WsDiJobService {
     @Override
     public int update(WsDiJobDTO param) {
         WsDiJob record = WsDiJobConvert.INSTANCE.toDo(param);
+        invalidate(param.getId());
         return diJobMapper.updateById(record);
     }
 
@@ -131,6 +139,7 @@ public class WsDiJobServiceImpl implements WsDiJobService {
     public int delete(Long id) {
         WsDiJobDTO job = selectOne(id);
         //todo check if there is running job instance
+        invalidate(id);
         return deleteByCode(job.getProjectId(), job.getJobCode());
     }
 
@@ -188,16 +197,14 @@ public class WsDiJobServiceImpl implements WsDiJobService {
         }
     }
 
+    /**
+     * 作业及其步骤、连线、参数均以 insert ... select 复制，语句数量与作业大小无关
+     */
     private Long riseJobVersion(WsDiJobDTO job) {
-        int jobVersion = job.getJobVersion() + 1;
-        WsDiJobDTO newVersionJob = selectOne(job.getProjectId(), job.getJobCode(), jobVersion);
-        checkState(newVersionJob == null, () -> I18nUtil.get("response.error.di.job.lowVersion"));
-
-        WsDiJob record = WsDiJobConvert.INSTANCE.toDo(job);
-        record.setId(null);
-        record.setJobVersion(jobVersion);
+        WsDiJob record = new WsDiJob();
         record.setJobStatus(JobStatus.DRAFT);
-        diJobMapper.insert(record);
+        int rows = diJobMapper.cloneVersion(job.getId(), record);
+        checkState(rows == 1, () -> I18nUtil.get("response.error.di.job.lowVersion"));
         clone(job.getId(), record.getId());
         return record.getId();
     }
@@ -221,7 +228,7 @@ public class WsDiJobServiceImpl implements WsDiJobService {
         WsDiJobStepParam copiedParam = BeanUtil.copy(param, new WsDiJobStepParam());
         copiedParam.setJobId(editableJobId);
         wsDiJobGraphService.updateJobStep(copiedParam);
-
+        invalidate(editableJobId);
         return editableJobId;
     }
 
@@ -230,6 +237,7 @@ public class WsDiJobServiceImpl implements WsDiJobService {
     public Long saveJobGraph(WsDiJobGraphParam param) throws ScalephException {
         Long editableJobId = prepareJobVersion(param.getJobId());
         wsDiJobGraphService.saveJobGraph(editableJobId, param.getJobGraph());
+        invalidate(editableJobId);
         return editableJobId;
     }
 
@@ -268,13 +276,19 @@ public class WsDiJobServiceImpl implements WsDiJobService {
         parseJobAttr(map, vo.getJobAttr(), JobAttrType.VARIABLE, editableJobId);
         parseJobAttr(map, vo.getJobProp(), JobAttrType.ENV, editableJobId);
         parseJobAttr(map, vo.getEngineProp(), JobAttrType.PROPERTIES, editableJobId);
-        wsDiJobAttrService.deleteByJobId(Collections.singletonList(editableJobId));
-        for (Map.Entry<String, WsDiJobAttrDTO> entry : map.entrySet()) {
-            wsDiJobAttrService.upsert(entry.getValue());
-        }
+        wsDiJobAttrService.saveJobAttrs(editableJobId, map.values());
+        invalidate(editableJobId);
         return editableJobId;
     }
 
+    /**
+     * 清除任务的 seatunnel 配置缓存，并通知 flink 任务丢弃编译好的 JobGraph
+     */
+    private void invalidate(Long jobId) {
+        seatunnelConfigService.invalidate(jobId);
+        eventPublisher.publishEvent(new WsDiJobChangedEvent(this, jobId));
+    }
+
     private void parseJobAttr(Map<String, WsDiJobAttrDTO> map, String str, JobAttrType jobAttrType, Long jobId) {
         if (StringUtils.hasText(str)) {
             String[] lines = str.split("\n");
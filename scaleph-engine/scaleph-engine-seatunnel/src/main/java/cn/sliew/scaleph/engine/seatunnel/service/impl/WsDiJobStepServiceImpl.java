@@ -26,17 +26,19 @@ import cn.sliew.scaleph.engine.seatunnel.service.convert.WsDiJobStepConvert;
 import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobStepDTO;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author gleiyu
  */
 @Service
-public class WsDiJobStepServiceImpl implements WsDiJobStepService {
+public class WsDiJobStepServiceImpl
+        extends ServiceImpl<WsDiJobStepMapper, WsDiJobStep>
+        implements WsDiJobStepService {
 
     @Autowired
     private WsDiJobStepMapper diJobStepMapper;
@@ -103,6 +105,53 @@ public class WsDiJobStepServiceImpl implements WsDiJobStepService {
         );
     }
 
+    @Override
+    public int saveJobSteps(Long jobId, List<WsDiJobStepDTO> steps) {
+        Map<String, WsDiJobStep> stored = new HashMap<>();
+        for (WsDiJobStep step : diJobStepMapper.selectByJobId(jobId)) {
+            stored.put(step.getStepCode(), step);
+        }
+
+        List<WsDiJobStep> inserts = new ArrayList<>();
+        List<WsDiJobStep> updates = new ArrayList<>();
+        for (WsDiJobStepDTO dto : steps) {
+            WsDiJobStep step = WsDiJobStepConvert.INSTANCE.toDo(dto);
+            step.setJobId(jobId);
+            WsDiJobStep origin = stored.remove(step.getStepCode());
+            if (origin == null) {
+                inserts.add(step);
+            } else if (isChanged(origin, step)) {
+                step.setId(origin.getId());
+                updates.add(step);
+            }
+        }
+        List<Long> deletes = new ArrayList<>(stored.size());
+        stored.values().forEach(step -> deletes.add(step.getId()));
+
+        if (inserts.isEmpty() == false) {
+            saveBatch(inserts);
+        }
+        if (updates.isEmpty() == false) {
+            updateBatchById(updates);
+        }
+        if (deletes.isEmpty() == false) {
+            diJobStepMapper.deleteBatchIds(deletes);
+        }
+        return inserts.size() + updates.size() + deletes.size();
+    }
+
+    /**
+     * null field of target is not updated, skip comparing it
+     */
+    private boolean isChanged(WsDiJobStep origin, WsDiJobStep target) {
+        return Objects.equals(origin.getStepTitle(), target.getStepTitle()) == false
+                || Objects.equals(origin.getStepType(), target.getStepType()) == false
+                || Objects.equals(origin.getStepName(), target.getStepName()) == false
+                || Objects.equals(origin.getPositionX(), target.getPositionX()) == false
+                || Objects.equals(origin.getPositionY(), target.getPositionY()) == false
+                || (target.getStepAttrs() != null && target.getStepAttrs().equals(origin.getStepAttrs()) == false);
+    }
+
     @Override
     public int clone(Long sourceJobId, Long targetJobId) {
         return diJobStepMapper.clone(sourceJobId, targetJobId);
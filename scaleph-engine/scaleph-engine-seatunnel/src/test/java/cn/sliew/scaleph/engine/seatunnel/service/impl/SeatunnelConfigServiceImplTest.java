@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.engine.seatunnel.service.impl;
+
+import cn.sliew.milky.common.util.JacksonUtil;
+import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginName;
+import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginType;
+import cn.sliew.scaleph.engine.seatunnel.service.SeatunnelConnectorService;
+import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobDTO;
+import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobLinkDTO;
+import cn.sliew.scaleph.engine.seatunnel.service.dto.WsDiJobStepDTO;
+import cn.sliew.scaleph.plugin.seatunnel.flink.SeaTunnelConnectorPlugin;
+import cn.sliew.scaleph.resource.service.ResourceService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+class SeatunnelConfigServiceImplTest {
+
+    private SeatunnelConnectorService connectorService;
+    private SeatunnelConfigServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SeaTunnelConnectorPlugin connector = Mockito.mock(SeaTunnelConnectorPlugin.class);
+        Mockito.when(connector.getRequiredResources()).thenReturn(Collections.emptyList());
+        Mockito.when(connector.createConf()).thenAnswer(invocation -> JacksonUtil.createObjectNode());
+        connectorService = Mockito.mock(SeatunnelConnectorService.class);
+        Mockito.when(connectorService.getConnector(any(SeaTunnelPluginType.class), any(SeaTunnelPluginName.class))).thenReturn(connector);
+        Mockito.when(connectorService.newConnector(anyString(), any())).thenReturn(connector);
+
+        service = new SeatunnelConfigServiceImpl();
+        ReflectionTestUtils.setField(service, "seatunnelConnectorService", connectorService);
+        ReflectionTestUtils.setField(service, "resourceService", Mockito.mock(ResourceService.class));
+    }
+
+    @Test
+    void resubmitReusesConfigBuiltForEarlierSubmission() throws Exception {
+        JsonNode first = submit("job-1001");
+        JsonNode second = submit("job-1002");
+
+        Mockito.verify(connectorService, Mockito.times(2)).newConnector(anyString(), any());
+        assertEquals(1L, service.getCacheStats().getHitCount());
+        assertEquals("job-1001", first.get("env").get("job.name").asText());
+        assertEquals("job-1002", second.get("env").get("job.name").asText());
+        assertEquals(first.get("source"), second.get("source"));
+        assertEquals(first.get("sink"), second.get("sink"));
+    }
+
+    /**
+     * Submissions query the job graph again and set a unique job name.
+     */
+    private JsonNode submit(String jobName) throws Exception {
+        WsDiJobDTO job = new WsDiJobDTO();
+        job.setId(1L);
+        job.setJobVersion(1);
+        job.setJobName(jobName);
+        job.setJobStepList(Arrays.asList(
+                step(10L, "source", SeaTunnelPluginType.SOURCE, SeaTunnelPluginName.FAKESOURCE),
+                step(11L, "sink", SeaTunnelPluginType.SINK, SeaTunnelPluginName.CONSOLE)));
+        WsDiJobLinkDTO link = new WsDiJobLinkDTO();
+        link.setFromStepCode("source");
+        link.setToStepCode("sink");
+        job.setJobLinkList(Collections.singletonList(link));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        service.buildConfig(job, outputStream);
+        return JacksonUtil.toJsonNode(outputStream.toString("UTF-8"));
+    }
+
+    private WsDiJobStepDTO step(Long id, String code, SeaTunnelPluginType type, SeaTunnelPluginName name) {
+        WsDiJobStepDTO step = new WsDiJobStepDTO();
+        step.setId(id);
+        step.setStepCode(code);
+        step.setStepType(type);
+        step.setStepName(name);
+        step.setStepAttrs(Collections.singletonMap("rows", 10));
+        return step;
+    }
+}
@@ -20,6 +20,7 @@ package cn.sliew.scaleph.meta.service;
 
 import cn.sliew.scaleph.meta.service.dto.MetaDatasourceDTO;
 import cn.sliew.scaleph.meta.service.param.MetaDatasourceParam;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolStats;
 import cn.sliew.scaleph.plugin.framework.core.PluginInfo;
 import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -55,4 +56,8 @@ public interface MetaDatasourceService {
 
     boolean testConnection(MetaDatasourceDTO metaDatasourceDTO);
 
+    boolean testConnection(Long id);
+
+    List<JdbcPoolStats> getPoolStats();
+
 }
@@ -29,6 +29,7 @@ import cn.sliew.scaleph.meta.service.dto.MetaDatasourceDTO;
 import cn.sliew.scaleph.meta.service.param.MetaDatasourceParam;
 import cn.sliew.scaleph.plugin.datasource.DatasourceManager;
 import cn.sliew.scaleph.plugin.datasource.DatasourcePlugin;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolStats;
 import cn.sliew.scaleph.plugin.framework.core.PluginInfo;
 import cn.sliew.scaleph.plugin.framework.property.Property;
 import cn.sliew.scaleph.plugin.framework.property.PropertyContext;
@@ -39,6 +40,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -98,6 +100,7 @@ public class MetaDatasourceServiceImpl implements MetaDatasourceService {
      */
     @Override
     public int deleteById(Long id) {
+        datasourceManager.invalidate(id);
         return metaDatasourceMapper.deleteById(id);
     }
 
@@ -106,6 +109,7 @@ public class MetaDatasourceServiceImpl implements MetaDatasourceService {
      */
     @Override
     public int deleteBatch(List<Long> ids) {
+        ids.forEach(datasourceManager::invalidate);
         return metaDatasourceMapper.deleteBatchIds(ids);
     }
 
@@ -192,6 +196,34 @@ public class MetaDatasourceServiceImpl implements MetaDatasourceService {
         return result;
     }
 
+    /**
+     * 已保存的数据源从连接池中获取连接，重复测试复用同一个连接池
+     */
+    @Override
+    public boolean testConnection(Long id) {
+        MetaDatasourceDTO metaDatasourceDTO = selectOne(id, false);
+        String pluginName = metaDatasourceDTO.getDatasourceType().getValue();
+        for (PluginInfo pluginInfo : getAvailableDataSources()) {
+            if (pluginInfo.getName().equalsIgnoreCase(pluginName)) {
+                Map<String, Object> additionalProps = metaDatasourceDTO.getAdditionalProps() == null
+                        ? Collections.emptyMap() : metaDatasourceDTO.getAdditionalProps();
+                DatasourcePlugin<?> datasource = datasourceManager.newDatasourcePlugin(
+                        id, pluginInfo.getName(), metaDatasourceDTO.getProps(), additionalProps);
+                try {
+                    return datasource.testConnection();
+                } finally {
+                    datasource.shutdown();
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<JdbcPoolStats> getPoolStats() {
+        return datasourceManager.getPoolStats();
+    }
+
     private boolean validateProps(MetaDatasourceDTO metaDatasourceDTO) {
         String pluginName = metaDatasourceDTO.getDatasourceType().getValue();
         Set<PluginInfo> pluginInfoSet = getAvailableDataSources();
@@ -20,6 +20,8 @@ package cn.sliew.scaleph.plugin.datasource;
 
 import java.util.*;
 
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolManager;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolStats;
 import cn.sliew.scaleph.plugin.framework.core.PluginInfo;
 import cn.sliew.scaleph.plugin.framework.core.PluginSPILoader;
 import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
@@ -41,13 +43,32 @@ public class DatasourceManager {
 
     public <T> DatasourcePlugin<T> newDatasourcePlugin(String name, Map<String, Object> props,
                                                        Map<String, Object> additionalProps) {
+        return newDatasourcePlugin(null, name, props, additionalProps);
+    }
+
+    /**
+     * Saved datasources borrow connections from a shared pool keyed by {@code datasourceId}.
+     */
+    public <T> DatasourcePlugin<T> newDatasourcePlugin(Long datasourceId, String name, Map<String, Object> props,
+                                                       Map<String, Object> additionalProps) {
         Properties properties = new Properties();
         properties.putAll(props);
         final DatasourcePlugin datasourcePlugin = pluginPluginSPILoader.newInstance(name, properties);
+        if (datasourceId != null) {
+            datasourcePlugin.setDatasourceId(String.valueOf(datasourceId));
+        }
         Properties additionalProperties = new Properties();
         additionalProperties.putAll(additionalProps);
         datasourcePlugin.setAdditionalProperties(additionalProperties);
         datasourcePlugin.start();
         return datasourcePlugin;
     }
+
+    public void invalidate(Long datasourceId) {
+        JdbcPoolManager.getInstance().invalidate(String.valueOf(datasourceId));
+    }
+
+    public List<JdbcPoolStats> getPoolStats() {
+        return JdbcPoolManager.getInstance().getStats();
+    }
 }
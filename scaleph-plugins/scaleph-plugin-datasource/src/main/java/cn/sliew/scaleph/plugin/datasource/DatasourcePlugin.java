@@ -31,12 +31,18 @@ public abstract class DatasourcePlugin<T> extends AbstractPlugin {
 
     protected volatile Properties additionalProperties;
 
+    protected volatile String datasourceId;
+
     public abstract T getDatasource();
 
     public void setAdditionalProperties(Properties properties) {
         this.additionalProperties = properties;
     }
 
+    public void setDatasourceId(String datasourceId) {
+        this.datasourceId = datasourceId;
+    }
+
     public abstract boolean testConnection();
 
     public Map<String, Object> getProperties() {
@@ -18,7 +18,6 @@
 
 package cn.sliew.scaleph.plugin.datasource.clickhouse;
 
-import cn.sliew.milky.common.exception.Rethrower;
 import cn.sliew.scaleph.common.enums.DataSourceTypeEnum;
 import cn.sliew.scaleph.plugin.datasource.DatasourcePlugin;
 import cn.sliew.scaleph.plugin.datasource.jdbc.JDBCDataSourcePlugin;
@@ -27,20 +26,13 @@ import cn.sliew.scaleph.plugin.framework.property.PropertyContext;
 import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
 import com.google.auto.service.AutoService;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.Properties;
-import lombok.extern.slf4j.Slf4j;
 
 import static cn.sliew.scaleph.plugin.datasource.clickhouse.ClickhouseProperties.DATABASE;
 import static cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolProperties.*;
 
-@Slf4j
 @AutoService(DatasourcePlugin.class)
 public class ClickHouseDataSourcePlugin extends JDBCDataSourcePlugin {
 
@@ -66,47 +58,6 @@ public class ClickHouseDataSourcePlugin extends JDBCDataSourcePlugin {
         properties.set(DRIVER_CLASS_NAME_UNREQUIRED, getDriverClassName());
     }
 
-
-    @Override
-    public void start() {
-        if (!Optional.ofNullable(properties).isPresent()) {
-            throw new IllegalStateException("clickhouse datasource plugin not initialized!");
-        }
-        final Properties jdbcProperties = new Properties();
-        properties.addAllToProperties(jdbcProperties);
-        String jdbcUrl = getJdbcUrl();
-        String driver = getDriverClassName();
-        String userName = jdbcProperties.getProperty(USERNAME.getName());
-        String password = jdbcProperties.getProperty(PASSWORD.getName());
-        try {
-            Class.forName(driver);
-            this.connection = DriverManager.getConnection(jdbcUrl, userName, password);
-        } catch (ClassNotFoundException | SQLException e) {
-            Rethrower.throwAs(e);
-        }
-    }
-
-    @Override
-    public void shutdown() {
-        if (this.connection != null) {
-            try {
-                this.connection.close();
-            } catch (SQLException e) {
-                log.error(e.getMessage(), e);
-            }
-        }
-    }
-
-    @Override
-    public Connection getDatasource() {
-        return this.connection;
-    }
-
-    @Override
-    public boolean testConnection() {
-        return this.connection != null;
-    }
-
     @Override
     public String getJdbcUrl() {
         String[] hostSplit = properties.getString(HOST).split(",");
@@ -21,13 +21,14 @@ package cn.sliew.scaleph.plugin.datasource.druid;
 import cn.sliew.milky.common.exception.Rethrower;
 import cn.sliew.scaleph.common.enums.DataSourceTypeEnum;
 import cn.sliew.scaleph.plugin.datasource.DatasourcePlugin;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolConfig;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolManager;
 import cn.sliew.scaleph.plugin.framework.core.PluginInfo;
 import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
 import com.google.auto.service.AutoService;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -55,10 +56,17 @@ public class DruidJdbcDataSourcePlugin extends DatasourcePlugin<Connection> {
         String jdbcUrl = properties.getString(JDBC_URL);
         final Properties jdbcProperties = new Properties();
         properties.addAllToProperties(jdbcProperties);
+        JdbcPoolConfig config = JdbcPoolConfig.builder()
+                .jdbcUrl(jdbcUrl)
+                .driverClassName("org.apache.calcite.avatica.remote.Driver")
+                .dataSourceProperties(jdbcProperties)
+                .build();
         try {
-            Class.forName("org.apache.calcite.avatica.remote.Driver");
-            this.connection = DriverManager.getConnection(jdbcUrl, jdbcProperties);
-        } catch (ClassNotFoundException | SQLException e) {
+            final JdbcPoolManager poolManager = JdbcPoolManager.getInstance();
+            this.connection = datasourceId != null
+                    ? poolManager.getConnection(datasourceId, config)
+                    : poolManager.openConnection(config);
+        } catch (SQLException e) {
             Rethrower.throwAs(e);
         }
     }
@@ -81,6 +89,11 @@ public class DruidJdbcDataSourcePlugin extends DatasourcePlugin<Connection> {
 
     @Override
     public boolean testConnection() {
-        return connection != null;
+        try {
+            return connection != null && connection.isValid(5);
+        } catch (SQLException e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
     }
 }
@@ -26,10 +26,8 @@ import cn.sliew.scaleph.plugin.framework.core.PluginInfo;
 import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
 import com.google.auto.service.AutoService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.logging.log4j.util.PropertiesUtil;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -57,16 +55,13 @@ public class JDBCDataSourcePlugin extends DatasourcePlugin<Connection> {
         if (!Optional.ofNullable(properties).isPresent()) {
             throw new IllegalStateException("jdbc datasource plugin not initialized!");
         }
-        final Properties jdbcProperties = new Properties();
-        properties.addAllToProperties(jdbcProperties);
-        String jdbcUrl = getJdbcUrl();
-        String driver = getDriverClassName();
-        String userName = jdbcProperties.getProperty(USERNAME.getName());
-        String password = jdbcProperties.getProperty(PASSWORD.getName());
         try {
-            Class.forName(driver);
-            this.connection = DriverManager.getConnection(jdbcUrl, userName, password);
-        } catch (ClassNotFoundException | SQLException e) {
+            final JdbcPoolManager poolManager = JdbcPoolManager.getInstance();
+            // unsaved datasources get a plain connection, pools are only kept for saved ones
+            this.connection = datasourceId != null
+                    ? poolManager.getConnection(datasourceId, getPoolConfig())
+                    : poolManager.openConnection(getPoolConfig());
+        } catch (SQLException e) {
             Rethrower.throwAs(e);
         }
     }
@@ -75,6 +70,7 @@ public class JDBCDataSourcePlugin extends DatasourcePlugin<Connection> {
     public void shutdown() {
         if (this.connection != null) {
             try {
+                // return the connection to the pool
                 this.connection.close();
             } catch (SQLException e) {
                 log.error(e.getMessage(), e);
@@ -89,7 +85,21 @@ public class JDBCDataSourcePlugin extends DatasourcePlugin<Connection> {
 
     @Override
     public boolean testConnection() {
-        return this.connection != null;
+        try {
+            return this.connection != null && this.connection.isValid(5);
+        } catch (SQLException e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    protected JdbcPoolConfig getPoolConfig() {
+        return JdbcPoolConfig.builder()
+                .jdbcUrl(getJdbcUrl())
+                .driverClassName(getDriverClassName())
+                .username(getUsername())
+                .password(getPassword())
+                .build();
     }
 
     public String getJdbcUrl() {
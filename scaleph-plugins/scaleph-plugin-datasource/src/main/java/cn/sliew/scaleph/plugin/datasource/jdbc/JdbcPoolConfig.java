@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.plugin.datasource.jdbc;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Connection settings of a pooled jdbc datasource.
+ */
+@Getter
+@Builder
+public class JdbcPoolConfig {
+
+    private final String jdbcUrl;
+    private final String driverClassName;
+    private final String username;
+    private final String password;
+    private final Properties dataSourceProperties;
+
+    /**
+     * Fingerprint of the connection settings, a pool is rebuilt when it changes.
+     */
+    public String version() {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, jdbcUrl);
+        putString(hasher, driverClassName);
+        putString(hasher, username);
+        putString(hasher, password);
+        if (dataSourceProperties != null) {
+            for (String name : new TreeSet<>(dataSourceProperties.stringPropertyNames())) {
+                putString(hasher, name);
+                putString(hasher, dataSourceProperties.getProperty(name));
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private void putString(Hasher hasher, String value) {
+        hasher.putString(value != null ? value : "", StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+}
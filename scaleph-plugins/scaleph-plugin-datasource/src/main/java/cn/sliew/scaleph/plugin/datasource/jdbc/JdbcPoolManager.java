@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.plugin.datasource.jdbc;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.util.DriverDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static cn.sliew.milky.common.check.Ensures.checkArgument;
+
+/**
+ * Connection pools shared by jdbc datasource plugins, keyed by datasource id and the
+ * version of its connection settings.
+ * <p>
+ * Pools are created lazily on first borrow. When the connection settings of a datasource
+ * change, the pool of the previous settings is retired: its idle connections are closed at
+ * once, borrowed connections are closed when returned and the pool itself is closed when
+ * no connection is borrowed anymore. Pools unused for {@code poolIdleTimeout} are retired
+ * and the least recently used pool is retired once {@code maxPools} is exceeded.
+ * <p>
+ * Datasources without an id, e.g. unsaved settings under test, are not pooled and get a
+ * plain connection from {@link #openConnection(JdbcPoolConfig)}.
+ */
+@Slf4j
+public class JdbcPoolManager {
+
+    private static final int DEFAULT_MAX_POOLS = 64;
+    private static final Duration DEFAULT_POOL_IDLE_TIMEOUT = Duration.ofMinutes(30L);
+    private static final Duration VALIDATION_TIMEOUT = Duration.ofSeconds(5L);
+
+    private static final JdbcPoolManager INSTANCE = new JdbcPoolManager(DEFAULT_MAX_POOLS, DEFAULT_POOL_IDLE_TIMEOUT, true);
+
+    private final int maxPools;
+    private final Duration poolIdleTimeout;
+    private final ConcurrentMap<String, PooledDataSource> pools = new ConcurrentHashMap<>();
+    private final Queue<PooledDataSource> retired = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService evictor;
+
+    JdbcPoolManager(int maxPools, Duration poolIdleTimeout, boolean scheduleEviction) {
+        checkArgument(maxPools > 0, () -> "maxPools must be positive");
+        this.maxPools = maxPools;
+        this.poolIdleTimeout = poolIdleTimeout;
+        if (scheduleEviction) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("jdbc-pool-evictor").setDaemon(true).build());
+            long period = Math.max(1L, poolIdleTimeout.toMillis() / 2);
+            this.evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    public static JdbcPoolManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Borrows a connection from the pool of the datasource, the caller must close it.
+     */
+    public Connection getConnection(String datasourceId, JdbcPoolConfig config) throws SQLException {
+        checkArgument(datasourceId != null, () -> "datasourceId must not be null, use openConnection for unsaved datasources");
+        while (true) {
+            final PooledDataSource pool = getPool(datasourceId, config);
+            final Connection connection;
+            try {
+                connection = pool.dataSource.getConnection();
+            } catch (SQLException e) {
+                if (pool.dataSource.isClosed()) {
+                    // retired and closed between lookup and borrow
+                    continue;
+                }
+                throw e;
+            }
+            pool.borrowed.increment();
+            return connection;
+        }
+    }
+
+    /**
+     * Opens a connection which is not pooled, closing it closes the physical connection.
+     */
+    public Connection openConnection(JdbcPoolConfig config) throws SQLException {
+        final Properties properties = new Properties();
+        if (config.getDataSourceProperties() != null) {
+            properties.putAll(config.getDataSourceProperties());
+        }
+        final DriverDataSource dataSource = new DriverDataSource(config.getJdbcUrl(), config.getDriverClassName(),
+                properties, config.getUsername(), config.getPassword());
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Validates the connection settings without creating or replacing any pool.
+     */
+    public boolean testConnection(JdbcPoolConfig config) throws SQLException {
+        try (Connection connection = openConnection(config)) {
+            return connection.isValid((int) VALIDATION_TIMEOUT.getSeconds());
+        }
+    }
+
+    private PooledDataSource getPool(String datasourceId, JdbcPoolConfig config) {
+        final String version = config.version();
+        final PooledDataSource pool = pools.computeIfAbsent(key(datasourceId, version),
+                key -> new PooledDataSource(datasourceId, version, config));
+        pool.lastAccessTime = System.currentTimeMillis();
+        for (PooledDataSource other : pools.values()) {
+            if (other.datasourceId.equals(datasourceId) && other.version.equals(version) == false) {
+                log.info("retire jdbc pool for datasource {} of outdated settings", datasourceId);
+                retire(other);
+            }
+        }
+        if (pools.size() > maxPools) {
+            evictLeastRecentlyUsed(pool);
+        }
+        return pool;
+    }
+
+    private void evictLeastRecentlyUsed(PooledDataSource keep) {
+        while (pools.size() > maxPools) {
+            final Optional<PooledDataSource> eldest = pools.values().stream()
+                    .filter(pool -> pool != keep)
+                    .min(Comparator.comparingLong(pool -> pool.lastAccessTime));
+            if (eldest.isPresent() == false) {
+                return;
+            }
+            retire(eldest.get());
+        }
+    }
+
+    /**
+     * Retires pools which have not been used for {@code poolIdleTimeout} or whose
+     * connections are no longer valid, and closes retired pools without borrowed connections.
+     */
+    public void evictIdle() {
+        final long deadline = System.currentTimeMillis() - poolIdleTimeout.toMillis();
+        for (PooledDataSource pool : pools.values()) {
+            if (pool.lastAccessTime < deadline) {
+                log.info("retire idle jdbc pool for datasource {}", pool.datasourceId);
+                retire(pool);
+            } else if (isHealthy(pool) == false) {
+                log.warn("retire unhealthy jdbc pool for datasource {}", pool.datasourceId);
+                retire(pool);
+            }
+        }
+        closeRetired();
+    }
+
+    private boolean isHealthy(PooledDataSource pool) {
+        final HikariPoolMXBean mxBean = pool.getPoolMXBean();
+        if (mxBean == null || mxBean.getIdleConnections() == 0) {
+            // nothing pooled to check, connections are validated by hikari on borrow
+            return true;
+        }
+        try (Connection connection = pool.dataSource.getConnection()) {
+            return connection.isValid((int) VALIDATION_TIMEOUT.getSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retires the pools of the datasource, e.g. when it is deleted.
+     */
+    public void invalidate(String datasourceId) {
+        for (PooledDataSource pool : pools.values()) {
+            if (pool.datasourceId.equals(datasourceId)) {
+                retire(pool);
+            }
+        }
+    }
+
+    public List<JdbcPoolStats> getStats() {
+        final List<JdbcPoolStats> stats = new ArrayList<>(pools.size());
+        for (PooledDataSource pool : pools.values()) {
+            stats.add(pool.getStats());
+        }
+        return stats;
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    int retiredSize() {
+        return retired.size();
+    }
+
+    public void shutdown() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (PooledDataSource pool : pools.values()) {
+            if (pools.remove(pool.key(), pool)) {
+                close(pool);
+            }
+        }
+        PooledDataSource pool;
+        while ((pool = retired.poll()) != null) {
+            close(pool);
+        }
+    }
+
+    /**
+     * Stops handing out the pool, idle connections are closed at once and borrowed ones
+     * when they are returned. The pool is closed by {@link #closeRetired()}.
+     */
+    private void retire(PooledDataSource pool) {
+        if (pools.remove(pool.key(), pool) == false) {
+            return;
+        }
+        final HikariPoolMXBean mxBean = pool.getPoolMXBean();
+        if (mxBean != null) {
+            mxBean.softEvictConnections();
+        }
+        retired.add(pool);
+        closeRetired();
+    }
+
+    private void closeRetired() {
+        retired.removeIf(pool -> {
+            final HikariPoolMXBean mxBean = pool.getPoolMXBean();
+            if (mxBean != null && mxBean.getActiveConnections() > 0) {
+                return false;
+            }
+            close(pool);
+            return true;
+        });
+    }
+
+    private void close(PooledDataSource pool) {
+        try {
+            pool.dataSource.close();
+        } catch (Exception e) {
+            log.error("close jdbc pool for datasource {} failed", pool.datasourceId, e);
+        }
+    }
+
+    private static String key(String datasourceId, String version) {
+        return datasourceId + ":" + version;
+    }
+
+    private static class PooledDataSource {
+
+        private final String datasourceId;
+        private final String version;
+        private final HikariDataSource dataSource;
+        private final long createTime = System.currentTimeMillis();
+        private final LongAdder borrowed = new LongAdder();
+        private volatile long lastAccessTime = createTime;
+
+        private PooledDataSource(String datasourceId, String version, JdbcPoolConfig config) {
+            this.datasourceId = datasourceId;
+            this.version = version;
+            final HikariConfig hikariConfig = new HikariConfig();
+            hikariConfig.setPoolName("scaleph-datasource-" + datasourceId + "-" + version.substring(0, 8));
+            hikariConfig.setJdbcUrl(config.getJdbcUrl());
+            if (config.getDriverClassName() != null) {
+                hikariConfig.setDriverClassName(config.getDriverClassName());
+            }
+            hikariConfig.setUsername(config.getUsername());
+            hikariConfig.setPassword(config.getPassword());
+            if (config.getDataSourceProperties() != null) {
+                hikariConfig.setDataSourceProperties(config.getDataSourceProperties());
+            }
+            hikariConfig.setMinimumIdle(0);
+            hikariConfig.setMaximumPoolSize(8);
+            hikariConfig.setIdleTimeout(Duration.ofMinutes(5L).toMillis());
+            hikariConfig.setMaxLifetime(Duration.ofMinutes(30L).toMillis());
+            hikariConfig.setConnectionTimeout(Duration.ofSeconds(30L).toMillis());
+            hikariConfig.setValidationTimeout(VALIDATION_TIMEOUT.toMillis());
+            // connect on first borrow instead of failing the pool creation
+            hikariConfig.setInitializationFailTimeout(-1L);
+            this.dataSource = new HikariDataSource(hikariConfig);
+        }
+
+        private String key() {
+            return JdbcPoolManager.key(datasourceId, version);
+        }
+
+        private HikariPoolMXBean getPoolMXBean() {
+            return dataSource.isClosed() ? null : dataSource.getHikariPoolMXBean();
+        }
+
+        private JdbcPoolStats getStats() {
+            final JdbcPoolStats stats = new JdbcPoolStats();
+            stats.setDatasourceId(datasourceId);
+            stats.setVersion(version);
+            stats.setBorrowed(borrowed.sum());
+            stats.setCreateTime(new Date(createTime));
+            stats.setLastAccessTime(new Date(lastAccessTime));
+            final HikariPoolMXBean mxBean = getPoolMXBean();
+            if (mxBean != null) {
+                stats.setActiveConnections(mxBean.getActiveConnections());
+                stats.setIdleConnections(mxBean.getIdleConnections());
+                stats.setTotalConnections(mxBean.getTotalConnections());
+                stats.setThreadsAwaitingConnection(mxBean.getThreadsAwaitingConnection());
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.plugin.datasource;
+
+import cn.sliew.scaleph.common.enums.DataSourceTypeEnum;
+import cn.sliew.scaleph.plugin.datasource.jdbc.JdbcPoolStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasourceManagerTest {
+
+    private static final Long DATASOURCE_ID = 9001L;
+
+    private final DatasourceManager datasourceManager = new DatasourceManager();
+
+    @AfterEach
+    void tearDown() {
+        datasourceManager.invalidate(DATASOURCE_ID);
+    }
+
+    @Test
+    void savedDatasourceBorrowsFromItsPool() {
+        Connection first = use(DATASOURCE_ID);
+        Connection second = use(DATASOURCE_ID);
+
+        List<JdbcPoolStats> stats = poolStats();
+        assertEquals(1, stats.size());
+        assertEquals(2L, stats.get(0).getBorrowed());
+        assertEquals(1, stats.get(0).getTotalConnections());
+        assertNotNull(first);
+        assertNotNull(second);
+    }
+
+    @Test
+    void unsavedDatasourceIsNotPooled() {
+        use(null);
+
+        assertTrue(poolStats().isEmpty());
+    }
+
+    private Connection use(Long datasourceId) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("jdbcUrl", "jdbc:h2:mem:datasource-manager;DB_CLOSE_DELAY=-1");
+        props.put("driverClassName", "org.h2.Driver");
+        props.put("username", "sa");
+        props.put("password", "sa");
+        DatasourcePlugin<Connection> datasource = datasourceManager.newDatasourcePlugin(
+                datasourceId, DataSourceTypeEnum.JDBC.getValue(), props, Collections.emptyMap());
+        try {
+            assertTrue(datasource.testConnection());
+            return datasource.getDatasource();
+        } finally {
+            datasource.shutdown();
+        }
+    }
+
+    private List<JdbcPoolStats> poolStats() {
+        return datasourceManager.getPoolStats().stream()
+                .filter(stats -> String.valueOf(DATASOURCE_ID).equals(stats.getDatasourceId()))
+                .collect(Collectors.toList());
+    }
+}
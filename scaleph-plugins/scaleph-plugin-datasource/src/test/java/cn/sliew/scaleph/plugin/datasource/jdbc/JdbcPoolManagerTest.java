@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.plugin.datasource.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcPoolManagerTest {
+
+    private JdbcPoolManager poolManager;
+
+    @BeforeEach
+    void setUp() {
+        poolManager = new JdbcPoolManager(2, Duration.ofMinutes(30L), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        poolManager.shutdown();
+    }
+
+    @Test
+    void testLazyCreationAndReuse() throws Exception {
+        assertEquals(0, poolManager.size());
+        try (Connection connection = poolManager.getConnection("1", config("pool1", "sa"));
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select 1")) {
+            assertTrue(resultSet.next());
+            assertEquals(1, poolManager.getStats().get(0).getActiveConnections());
+        }
+        try (Connection connection = poolManager.getConnection("1", config("pool1", "sa"))) {
+            assertTrue(connection.isValid(1));
+        }
+
+        List<JdbcPoolStats> stats = poolManager.getStats();
+        assertEquals(1, stats.size());
+        assertEquals("1", stats.get(0).getDatasourceId());
+        assertEquals(2L, stats.get(0).getBorrowed());
+        assertEquals(0, stats.get(0).getActiveConnections());
+        assertEquals(1, stats.get(0).getTotalConnections());
+    }
+
+    @Test
+    void testConfigurationChangeRebuildsPool() throws Exception {
+        borrowAndReturn("1", config("pool2", "sa"));
+        String version = poolManager.getStats().get(0).getVersion();
+
+        borrowAndReturn("1", config("pool2", "SA"));
+        List<JdbcPoolStats> stats = poolManager.getStats();
+        assertEquals(1, stats.size());
+        assertNotEquals(version, stats.get(0).getVersion());
+        assertEquals(1L, stats.get(0).getBorrowed());
+        assertEquals(0, poolManager.retiredSize());
+    }
+
+    @Test
+    void testRetiredPoolClosedAfterBorrowedConnectionReturned() throws Exception {
+        try (Connection connection = poolManager.getConnection("1", config("pool8", "sa"))) {
+            borrowAndReturn("1", config("pool8", "SA"));
+            assertEquals(1, poolManager.size());
+            assertEquals(1, poolManager.retiredSize());
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("select 1")) {
+                assertTrue(resultSet.next());
+            }
+        }
+        poolManager.evictIdle();
+        assertEquals(0, poolManager.retiredSize());
+    }
+
+    @Test
+    void testMaxPools() throws Exception {
+        borrowAndReturn("1", config("pool3", "sa"));
+        borrowAndReturn("2", config("pool4", "sa"));
+        borrowAndReturn("3", config("pool5", "sa"));
+
+        assertEquals(2, poolManager.size());
+        assertTrue(poolManager.getStats().stream().noneMatch(stats -> stats.getDatasourceId().equals("1")));
+    }
+
+    @Test
+    void testIdleEviction() throws Exception {
+        JdbcPoolManager idlePoolManager = new JdbcPoolManager(2, Duration.ofMillis(1L), false);
+        try {
+            idlePoolManager.getConnection("1", config("pool6", "sa")).close();
+            Thread.sleep(10L);
+            idlePoolManager.evictIdle();
+            assertEquals(0, idlePoolManager.size());
+            assertEquals(0, idlePoolManager.retiredSize());
+        } finally {
+            idlePoolManager.shutdown();
+        }
+    }
+
+    @Test
+    void testInvalidate() throws Exception {
+        borrowAndReturn("1", config("pool7", "sa"));
+        poolManager.invalidate("1");
+        assertEquals(0, poolManager.size());
+        assertEquals(0, poolManager.retiredSize());
+    }
+
+    @Test
+    void testTestConnectionDoesNotRegisterPool() throws Exception {
+        assertTrue(poolManager.testConnection(config("pool9", "sa")));
+        try (Connection connection = poolManager.openConnection(config("pool9", "sa"))) {
+            assertTrue(connection.isValid(1));
+        }
+        assertEquals(0, poolManager.size());
+        assertThrows(IllegalArgumentException.class, () -> poolManager.getConnection(null, config("pool9", "sa")));
+    }
+
+    private void borrowAndReturn(String datasourceId, JdbcPoolConfig config) throws Exception {
+        try (Connection connection = poolManager.getConnection(datasourceId, config)) {
+            assertTrue(connection.isValid(1));
+        }
+    }
+
+    private JdbcPoolConfig config(String database, String username) {
+        return JdbcPoolConfig.builder()
+                .jdbcUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1")
+                .driverClassName("org.h2.Driver")
+                .username(username)
+                .password("")
+                .build();
+    }
+}
@@ -20,17 +20,23 @@ package cn.sliew.scaleph.plugin.framework.core;
 
 import cn.sliew.scaleph.plugin.framework.property.PropertyContext;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 import java.util.stream.StreamSupport;
 
+/**
+ * Loads plugins through {@link ServiceLoader} and keeps them in an immutable registry.
+ * <p>
+ * The registry indexes plugins by name and caches their constructors, it is rebuilt on
+ * {@link #load(ClassLoader)} and published through a volatile write, so reads never lock.
+ */
 public class PluginSPILoader<C extends Plugin> {
 
     private final Class<C> clazz;
     private final ClassLoader classLoader;
 
-    private volatile Map<PluginInfo, C> services = Collections.emptyMap();
-    private volatile Set<PluginInfo> pluginInfos = Collections.emptySet();
+    private volatile Registry<C> registry = new Registry<>(Collections.emptyMap());
 
     public PluginSPILoader(Class<C> clazz, ClassLoader classLoader) {
         this.clazz = clazz;
@@ -43,38 +49,18 @@ public class PluginSPILoader<C extends Plugin> {
     }
 
     public C newInstance(String name, Properties props) {
-        final Optional<PluginInfo> optional = pluginInfos.stream().filter(pluginInfo -> pluginInfo.getName().equals(name)).findFirst();
-        final PluginInfo pluginInfo = optional.orElseThrow(() -> new RuntimeException("unknown plugin for " + name));
-        try {
-            final Class<C> aClass = (Class<C>) Class.forName(pluginInfo.getClassname(), true, classLoader);
-            final C instance = aClass.getConstructor().newInstance();
-            instance.configure(PropertyContext.fromProperties(props));
-            return instance;
-        } catch (InvocationTargetException ite) {
-            final Throwable cause = ite.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
-            }
-            throw new RuntimeException(
-                "Unexpected checked exception while calling constructor of " + pluginInfo.getClassname(),
-                cause);
-        } catch (ReflectiveOperationException e) {
-            throw new UnsupportedOperationException(
-                "Plugin "
-                    + name
-                    +
-                    " cannot be instantiated. This is likely due to missing empty constructor.",
-                e);
+        final PluginFactory<C> factory = registry.factories.get(name);
+        if (factory == null) {
+            throw new RuntimeException("unknown plugin for " + name);
         }
+        final C instance = factory.newInstance();
+        instance.configure(PropertyContext.fromProperties(props));
+        return instance;
     }
 
-    public void load(ClassLoader classLoader) {
+    public synchronized void load(ClassLoader classLoader) {
         Objects.requireNonNull(classLoader, "classLoader must not be null");
-        final LinkedHashMap<PluginInfo, C> services = new LinkedHashMap<>(this.services);
-        final LinkedHashSet<PluginInfo> pluginInfos = new LinkedHashSet<>(this.pluginInfos);
+        final LinkedHashMap<PluginInfo, C> services = new LinkedHashMap<>(registry.services);
 
         final Spliterator<C> spliterator = ServiceLoader.load(clazz, classLoader).spliterator();
         StreamSupport.stream(spliterator, false)
@@ -83,24 +69,107 @@ public class PluginSPILoader<C extends Plugin> {
                     final PluginInfo pluginInfo = service.getPluginInfo();
                     if (!services.containsKey(pluginInfo)) {
                         services.put(pluginInfo, service);
-                        pluginInfos.add(pluginInfo);
                     }
                 });
-        this.services = new HashMap<>(services);
-        this.pluginInfos = new HashSet<>(pluginInfos);
+        this.registry = new Registry<>(services, classLoader, registry);
     }
 
     public Set<PluginInfo> availableServices() {
-        return pluginInfos;
+        return registry.pluginInfos;
     }
 
     public Map<PluginInfo, C> getServices() {
-        return Collections.unmodifiableMap(services);
+        return registry.services;
     }
 
     public Optional<C> getPlugin(PluginInfo pluginInfo) {
-        return Optional.ofNullable(services.get(pluginInfo));
+        return Optional.ofNullable(registry.services.get(pluginInfo));
+    }
+
+    public Optional<C> getPlugin(String name) {
+        return Optional.ofNullable(registry.byName.get(name));
     }
 
+    private static final class Registry<C extends Plugin> {
 
+        private final Map<PluginInfo, C> services;
+        private final Set<PluginInfo> pluginInfos;
+        private final Map<String, C> byName;
+        private final Map<String, PluginFactory<C>> factories;
+
+        private Registry(Map<PluginInfo, C> services) {
+            this.services = Collections.unmodifiableMap(new LinkedHashMap<>(services));
+            this.pluginInfos = Collections.unmodifiableSet(new LinkedHashSet<>(services.keySet()));
+            this.byName = Collections.emptyMap();
+            this.factories = Collections.emptyMap();
+        }
+
+        private Registry(Map<PluginInfo, C> services, ClassLoader classLoader, Registry<C> previous) {
+            this.services = Collections.unmodifiableMap(new LinkedHashMap<>(services));
+            this.pluginInfos = Collections.unmodifiableSet(new LinkedHashSet<>(services.keySet()));
+            final Map<String, C> byName = new HashMap<>();
+            final Map<String, PluginFactory<C>> factories = new HashMap<>(previous.factories);
+            services.forEach((pluginInfo, service) -> {
+                byName.putIfAbsent(pluginInfo.getName(), service);
+                if (factories.containsKey(pluginInfo.getName()) == false) {
+                    factories.put(pluginInfo.getName(), new PluginFactory<>(pluginInfo, service, classLoader));
+                }
+            });
+            this.byName = Collections.unmodifiableMap(byName);
+            this.factories = Collections.unmodifiableMap(factories);
+        }
+    }
+
+    /**
+     * Resolves the plugin constructor once, failures are kept and rethrown on instantiation.
+     */
+    private static final class PluginFactory<C extends Plugin> {
+
+        private final PluginInfo pluginInfo;
+        private final Constructor<? extends C> constructor;
+        private final ReflectiveOperationException failure;
+
+        private PluginFactory(PluginInfo pluginInfo, C service, ClassLoader classLoader) {
+            this.pluginInfo = pluginInfo;
+            Constructor<? extends C> constructor = null;
+            ReflectiveOperationException failure = null;
+            try {
+                final Class<? extends C> aClass = service.getClass().getName().equals(pluginInfo.getClassname())
+                    ? (Class<? extends C>) service.getClass()
+                    : (Class<? extends C>) Class.forName(pluginInfo.getClassname(), true, classLoader);
+                constructor = aClass.getConstructor();
+            } catch (ReflectiveOperationException e) {
+                failure = e;
+            }
+            this.constructor = constructor;
+            this.failure = failure;
+        }
+
+        private C newInstance() {
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                return constructor.newInstance();
+            } catch (InvocationTargetException ite) {
+                final Throwable cause = ite.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(
+                    "Unexpected checked exception while calling constructor of " + pluginInfo.getClassname(),
+                    cause);
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException(
+                    "Plugin "
+                        + pluginInfo.getName()
+                        +
+                        " cannot be instantiated. This is likely due to missing empty constructor.",
+                    e);
+            }
+        }
+    }
 }
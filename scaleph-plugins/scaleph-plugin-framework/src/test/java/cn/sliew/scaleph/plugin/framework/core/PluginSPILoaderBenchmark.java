@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.plugin.framework.core;
+
+import cn.sliew.scaleph.plugin.framework.property.PropertyContext;
+import com.google.auto.service.AutoService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares plugin instantiation through the indexed registry with the former
+ * linear scan over plugin infos followed by reflective class and constructor lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PluginSPILoaderBenchmark {
+
+    @Param({"benchmark-plugin-a", "benchmark-plugin-d"})
+    private String name;
+
+    private PluginSPILoader<BenchmarkPlugin> loader;
+    private Properties props;
+
+    @Setup
+    public void setup() {
+        loader = new PluginSPILoader<>(BenchmarkPlugin.class, BenchmarkPlugin.class.getClassLoader());
+        props = new Properties();
+    }
+
+    @Benchmark
+    public BenchmarkPlugin scanAndReflect() throws Exception {
+        final PluginInfo pluginInfo = loader.availableServices().stream()
+                .filter(info -> info.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("unknown plugin for " + name));
+        final Class<? extends BenchmarkPlugin> aClass = Class.forName(pluginInfo.getClassname(), true, BenchmarkPlugin.class.getClassLoader())
+                .asSubclass(BenchmarkPlugin.class);
+        final BenchmarkPlugin instance = aClass.getConstructor().newInstance();
+        instance.configure(PropertyContext.fromProperties(props));
+        return instance;
+    }
+
+    @Benchmark
+    public BenchmarkPlugin indexedRegistry() {
+        return loader.newInstance(name, props);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PluginSPILoaderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    public abstract static class BenchmarkPlugin extends AbstractPlugin {
+
+        protected BenchmarkPlugin(String name) {
+            this.pluginInfo = new PluginInfo(name, name, getClass().getName());
+            this.supportedProperties = Collections.emptyList();
+        }
+    }
+
+    @AutoService(BenchmarkPlugin.class)
+    public static class PluginA extends BenchmarkPlugin {
+        public PluginA() {
+            super("benchmark-plugin-a");
+        }
+    }
+
+    @AutoService(BenchmarkPlugin.class)
+    public static class PluginB extends BenchmarkPlugin {
+        public PluginB() {
+            super("benchmark-plugin-b");
+        }
+    }
+
+    @AutoService(BenchmarkPlugin.class)
+    public static class PluginC extends BenchmarkPlugin {
+        public PluginC() {
+            super("benchmark-plugin-c");
+        }
+    }
+
+    @AutoService(BenchmarkPlugin.class)
+    public static class PluginD extends BenchmarkPlugin {
+        public PluginD() {
+            super("benchmark-plugin-d");
+        }
+    }
+}
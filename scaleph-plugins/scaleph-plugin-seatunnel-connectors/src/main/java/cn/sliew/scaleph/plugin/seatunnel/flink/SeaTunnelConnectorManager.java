@@ -27,7 +27,6 @@ import cn.sliew.scaleph.plugin.framework.property.PropertyDescriptor;
 import cn.sliew.scaleph.plugin.seatunnel.flink.env.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class SeaTunnelConnectorManager {
 
@@ -46,21 +45,37 @@ public class SeaTunnelConnectorManager {
 
     private PluginSPILoader<SeaTunnelConnectorPlugin> pluginPluginSPILoader = new PluginSPILoader<>(SeaTunnelConnectorPlugin.class, SeaTunnelConnectorPlugin.class.getClassLoader());
 
+    private final Map<SeaTunnelPluginType, Set<SeaTunnelConnectorPlugin>> connectorsByType;
+    private final Map<SeaTunnelPluginType, Map<SeaTunnelPluginName, SeaTunnelConnectorPlugin>> connectorsByTypeAndName;
+
+    public SeaTunnelConnectorManager() {
+        Map<SeaTunnelPluginType, Set<SeaTunnelConnectorPlugin>> connectorsByType = new EnumMap<>(SeaTunnelPluginType.class);
+        Map<SeaTunnelPluginType, Map<SeaTunnelPluginName, SeaTunnelConnectorPlugin>> connectorsByTypeAndName = new EnumMap<>(SeaTunnelPluginType.class);
+        for (SeaTunnelConnectorPlugin connector : pluginPluginSPILoader.getServices().values()) {
+            connectorsByType.computeIfAbsent(connector.getPluginType(), key -> new LinkedHashSet<>()).add(connector);
+            connectorsByTypeAndName.computeIfAbsent(connector.getPluginType(), key -> new EnumMap<>(SeaTunnelPluginName.class))
+                    .putIfAbsent(connector.getPluginName(), connector);
+        }
+        connectorsByType.replaceAll((type, connectors) -> Collections.unmodifiableSet(connectors));
+        this.connectorsByType = connectorsByType;
+        this.connectorsByTypeAndName = connectorsByTypeAndName;
+    }
+
     public List<PropertyDescriptor> getSupportedEnvProperties() {
         return envProperties;
     }
 
     public Set<SeaTunnelConnectorPlugin> getAvailableConnectors(SeaTunnelPluginType pluginType) {
-        return pluginPluginSPILoader.getServices().values().stream()
-                .filter(connector -> connector.getPluginType() == pluginType)
-                .collect(Collectors.toSet());
+        return connectorsByType.getOrDefault(pluginType, Collections.emptySet());
     }
 
     public SeaTunnelConnectorPlugin getConnector(SeaTunnelPluginType pluginType, SeaTunnelPluginName pluginName) throws PluginException {
-        return pluginPluginSPILoader.getServices().values().stream()
-                .filter(connector -> connector.getPluginType() == pluginType)
-                .filter(connector -> connector.getPluginName() == pluginName)
-                .findAny().orElseThrow(() -> new PluginException("SeaTunnelConnectorPlugin"));
+        final Map<SeaTunnelPluginName, SeaTunnelConnectorPlugin> connectors = connectorsByTypeAndName.get(pluginType);
+        final SeaTunnelConnectorPlugin connector = connectors != null ? connectors.get(pluginName) : null;
+        if (connector == null) {
+            throw new PluginException("SeaTunnelConnectorPlugin");
+        }
+        return connector;
     }
 
     public SeaTunnelConnectorPlugin getConnector(PluginInfo pluginInfo) throws PluginException {
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.resource.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Node-local cache of extracted flink and seatunnel releases.
+ * Releases are downloaded and extracted once per node and shared by all submissions,
+ * so callers must treat the returned home directory as read-only and never delete it.
+ */
+public interface ReleaseCacheService {
+
+    /**
+     * @return extracted flink home directory
+     */
+    Path loadFlinkRelease(Long id) throws IOException;
+
+    /**
+     * @return extracted seatunnel home directory
+     */
+    Path loadSeaTunnelRelease(Long id) throws IOException;
+}
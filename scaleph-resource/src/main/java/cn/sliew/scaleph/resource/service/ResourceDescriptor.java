@@ -22,6 +22,10 @@ import cn.sliew.scaleph.resource.service.enums.ResourceType;
 import cn.sliew.scaleph.resource.service.param.ResourceListParam;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public interface ResourceDescriptor<T> {
 
     ResourceType getResourceType();
@@ -30,4 +34,15 @@ public interface ResourceDescriptor<T> {
 
     T getRaw(Long id);
 
+    /**
+     * batch version of {@link #getRaw(Long)}, implementations should fetch all ids in one query
+     */
+    default Map<Long, T> getRawBatch(Collection<Long> ids) {
+        Map<Long, T> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            result.put(id, getRaw(id));
+        }
+        return result;
+    }
+
 }
@@ -22,7 +22,9 @@ import cn.sliew.scaleph.resource.service.enums.ResourceType;
 import cn.sliew.scaleph.resource.service.param.ResourceListParam;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ResourceService {
 
@@ -33,4 +35,6 @@ public interface ResourceService {
     <T> Page<T> list(ResourceType type, ResourceListParam param);
 
     <T> T getRaw(ResourceType type, Long id);
+
+    <T> Map<Long, T> getRawBatch(ResourceType type, Collection<Long> ids);
 }
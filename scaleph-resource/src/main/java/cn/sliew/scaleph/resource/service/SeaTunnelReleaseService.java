@@ -20,6 +20,7 @@ package cn.sliew.scaleph.resource.service;
 
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelVersion;
 import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseDTO;
+import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseManifestDTO;
 import cn.sliew.scaleph.resource.service.param.SeaTunnelConnectorUploadParam;
 import cn.sliew.scaleph.resource.service.param.SeaTunnelReleaseListParam;
 import cn.sliew.scaleph.resource.service.param.SeaTunnelReleaseUploadParam;
@@ -51,10 +52,22 @@ public interface SeaTunnelReleaseService extends ResourceDescriptor<SeaTunnelRel
      */
     void fetchConnectors(Long id) throws IOException;
 
+    /**
+     * release 归档索引，包含文件条目和 plugin-mapping
+     */
+    SeaTunnelReleaseManifestDTO getManifest(Long id) throws IOException;
+
+    /**
+     * 读取 release 归档中的单个文件，entry 为相对 release 根目录的路径，如 starter/seatunnel-flink-starter.jar
+     */
+    void readEntry(Long id, String entry, OutputStream outputStream) throws IOException;
+
     String download(Long id, OutputStream outputStream) throws IOException;
 
     String downloadConnector(Long id, String connector, OutputStream outputStream) throws IOException;
 
+    String getConnectorPath(Long id, String connector);
+
     int deleteBatch(List<Long> ids) throws IOException;
 
     void delete(Long id) throws IOException;
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.resource.service.dto;
+
+import cn.sliew.scaleph.common.nio.TarEntryIndex;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ApiModel(value = "SeaTunnelReleaseManifest对象", description = "seatunnel release 归档索引")
+public class SeaTunnelReleaseManifestDTO {
+
+    @ApiModelProperty("release 根目录在归档中的前缀")
+    private String home;
+
+    @ApiModelProperty("归档文件条目")
+    private List<TarEntryIndex> entries;
+
+    @ApiModelProperty("plugin-mapping.properties 内容")
+    private Map<String, String> pluginMapping;
+
+}
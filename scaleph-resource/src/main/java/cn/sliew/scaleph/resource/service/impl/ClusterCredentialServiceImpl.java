@@ -44,7 +44,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static cn.sliew.milky.common.check.Ensures.checkState;
 import static cn.sliew.scaleph.common.exception.Rethrower.checkArgument;
@@ -74,6 +77,12 @@ public class ClusterCredentialServiceImpl implements ClusterCredentialService {
         return selectOne(id);
     }
 
+    @Override
+    public Map<Long, ClusterCredentialDTO> getRawBatch(Collection<Long> ids) {
+        return resourceClusterCredentialMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(ResourceClusterCredential::getId, ClusterCredentialConvert.INSTANCE::toDto));
+    }
+
     @Override
     public Page<ClusterCredentialDTO> list(ClusterCredentialListParam param) {
         final Page<ResourceClusterCredential> page = resourceClusterCredentialMapper.selectPage(
@@ -43,7 +43,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static cn.sliew.milky.common.check.Ensures.checkState;
 
@@ -77,6 +80,12 @@ public class FlinkReleaseServiceImpl implements FlinkReleaseService {
         return selectOne(id);
     }
 
+    @Override
+    public Map<Long, FlinkReleaseDTO> getRawBatch(Collection<Long> ids) {
+        return flinkReleaseMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(ResourceFlinkRelease::getId, FlinkReleaseConvert.INSTANCE::toDto));
+    }
+
     @Override
     public Page<FlinkReleaseDTO> list(FlinkReleaseListParam param) throws IOException {
         final Page<ResourceFlinkRelease> page = flinkReleaseMapper.selectPage(
@@ -48,8 +48,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 import static cn.sliew.milky.common.check.Ensures.checkState;
 
@@ -82,6 +85,12 @@ public class JarServiceImpl implements JarService {
         return selectOne(id);
     }
 
+    @Override
+    public Map<Long, JarDTO> getRawBatch(Collection<Long> ids) {
+        return jarMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(ResourceJar::getId, JarConvert.INSTANCE::toDto));
+    }
+
     @Override
     public Page<JarDTO> list(JarListParam param) throws IOException {
         final Page<ResourceJar> page = jarMapper.selectPage(
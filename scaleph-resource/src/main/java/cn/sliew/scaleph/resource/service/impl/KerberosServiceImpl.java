@@ -41,7 +41,10 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static cn.sliew.milky.common.check.Ensures.checkState;
 
@@ -74,6 +77,12 @@ public class KerberosServiceImpl implements KerberosService {
         return selectOne(id);
     }
 
+    @Override
+    public Map<Long, KerberosDTO> getRawBatch(Collection<Long> ids) {
+        return kerberosMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(ResourceKerberos::getId, KerberosConvert.INSTANCE::toDto));
+    }
+
     @Override
     public Page<KerberosDTO> list(KerberosListParam param) throws IOException {
         final Page<ResourceKerberos> page = kerberosMapper.selectPage(
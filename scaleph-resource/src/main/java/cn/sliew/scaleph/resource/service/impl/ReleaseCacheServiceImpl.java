@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.resource.service.impl;
+
+import cn.sliew.scaleph.common.nio.FileUtil;
+import cn.sliew.scaleph.common.nio.TarUtil;
+import cn.sliew.scaleph.resource.service.FlinkReleaseService;
+import cn.sliew.scaleph.resource.service.ReleaseCacheService;
+import cn.sliew.scaleph.resource.service.SeaTunnelReleaseService;
+import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
+import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseDTO;
+import cn.sliew.scaleph.storage.service.FileSystemService;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache layout under {@code app.release-cache}:
+ * <pre>
+ * content/{sha256 of archive}/{release home}   extracted release, shared by identical archives
+ * index/{fingerprint}                          sha256 of the archive stored at the fingerprinted path
+ * locks/{fingerprint}.lock                     guards extraction between processes on the same node
+ * staging/{uuid}                               download and untar scratch space
+ * </pre>
+ * The fingerprint is derived from the remote file status, so a release re-uploaded
+ * to the same path gets a new index entry while unchanged releases never hit the storage again.
+ * Extracted directories are published by atomic rename, readers never observe a partial release.
+ * <p>
+ * The fingerprint of a release path is reused for {@code app.release-cache-revalidate-interval},
+ * so loading a release within that interval does not touch the storage at all.
+ */
+@Slf4j
+@Service
+public class ReleaseCacheServiceImpl implements ReleaseCacheService, InitializingBean {
+
+    private static final String CONTENT = "content";
+    private static final String INDEX = "index";
+    private static final String LOCKS = "locks";
+    private static final String STAGING = "staging";
+
+    @Value("${app.release-cache:/tmp/scaleph/release-cache}")
+    private String cacheDir;
+    @Value("${app.release-cache-revalidate-interval:1m}")
+    private Duration revalidateInterval;
+
+    @Autowired
+    private FileSystemService fileSystemService;
+    @Autowired
+    private FlinkReleaseService flinkReleaseService;
+    @Autowired
+    private SeaTunnelReleaseService seaTunnelReleaseService;
+
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Path> resolved = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Validation> validations = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    private Path root;
+
+    public ReleaseCacheServiceImpl() {
+        this.clock = System::currentTimeMillis;
+    }
+
+    ReleaseCacheServiceImpl(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        root = FileUtil.createDir(Paths.get(cacheDir));
+        FileUtil.createDir(root.resolve(CONTENT));
+        FileUtil.createDir(root.resolve(INDEX));
+        FileUtil.createDir(root.resolve(LOCKS));
+        FileUtil.deleteDir(root.resolve(STAGING));
+        FileUtil.createDir(root.resolve(STAGING));
+    }
+
+    @Override
+    public Path loadFlinkRelease(Long id) throws IOException {
+        FlinkReleaseDTO dto = flinkReleaseService.selectOne(id);
+        return load(dto.getPath(), dto.getFileName(), outputStream -> flinkReleaseService.download(id, outputStream));
+    }
+
+    @Override
+    public Path loadSeaTunnelRelease(Long id) throws IOException {
+        SeaTunnelReleaseDTO dto = seaTunnelReleaseService.selectOne(id);
+        return load(dto.getPath(), dto.getFileName(), outputStream -> seaTunnelReleaseService.download(id, outputStream));
+    }
+
+    private Path load(String remotePath, String fileName, Downloader downloader) throws IOException {
+        String fingerprint = fingerprint(remotePath);
+        Path home = resolved.get(fingerprint);
+        if (home != null && Files.exists(home)) {
+            return home;
+        }
+        Object lock = locks.computeIfAbsent(fingerprint, key -> new Object());
+        synchronized (lock) {
+            home = lookup(fingerprint);
+            if (home == null) {
+                Path lockFile = root.resolve(LOCKS).resolve(fingerprint + ".lock");
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    home = lookup(fingerprint);
+                    if (home == null) {
+                        home = extract(fingerprint, fileName, downloader);
+                    }
+                }
+            }
+            resolved.put(fingerprint, home);
+            return home;
+        }
+    }
+
+    private Path lookup(String fingerprint) throws IOException {
+        Path index = root.resolve(INDEX).resolve(fingerprint);
+        if (Files.notExists(index)) {
+            return null;
+        }
+        String contentHash = Files.readString(index, StandardCharsets.UTF_8).trim();
+        Path content = root.resolve(CONTENT).resolve(contentHash);
+        if (Files.notExists(content)) {
+            return null;
+        }
+        List<Path> files = FileUtil.listFiles(content);
+        return files.isEmpty() ? null : files.get(0);
+    }
+
+    private Path extract(String fingerprint, String fileName, Downloader downloader) throws IOException {
+        Path staging = FileUtil.createDir(root.resolve(STAGING).resolve(UUID.randomUUID().toString()));
+        try {
+            Path archive = FileUtil.createFile(staging, fileName);
+            String contentHash;
+            try (HashingOutputStream outputStream = new HashingOutputStream(Hashing.sha256(), FileUtil.getOutputStream(archive))) {
+                downloader.download(outputStream);
+                contentHash = outputStream.hash().toString();
+            }
+
+            Path content = root.resolve(CONTENT).resolve(contentHash);
+            if (Files.notExists(content)) {
+                Path untarDir = TarUtil.untar(archive);
+                try {
+                    Files.move(untarDir, content, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                    log.info("release content {} already published by another fingerprint", contentHash);
+                }
+            }
+
+            Path index = staging.resolve(INDEX);
+            Files.writeString(index, contentHash, StandardCharsets.UTF_8);
+            Files.move(index, root.resolve(INDEX).resolve(fingerprint), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("cached release {} as {}", fileName, contentHash);
+            return lookup(fingerprint);
+        } finally {
+            FileUtil.deleteDir(staging);
+        }
+    }
+
+    private String fingerprint(String remotePath) throws IOException {
+        final long now = clock.getAsLong();
+        Validation validation = validations.get(remotePath);
+        if (validation != null && now - validation.validatedAt < revalidateInterval.toMillis()) {
+            return validation.fingerprint;
+        }
+        String fingerprint = remoteFingerprint(remotePath);
+        validations.put(remotePath, new Validation(fingerprint, now));
+        return fingerprint;
+    }
+
+    private String remoteFingerprint(String remotePath) throws IOException {
+        FileStatus fileStatus = fileSystemService.getFileStatus(remotePath);
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(fileStatus.getPath().toString(), StandardCharsets.UTF_8)
+                .putLong(fileStatus.getLen())
+                .putLong(fileStatus.getModificationTime());
+        FileChecksum checksum = fileSystemService.getFileSystem().getFileChecksum(fileStatus.getPath());
+        if (checksum != null) {
+            hasher.putBytes(checksum.getBytes());
+        }
+        return hasher.hash().toString();
+    }
+
+    private static class Validation {
+
+        private final String fingerprint;
+        private final long validatedAt;
+
+        private Validation(String fingerprint, long validatedAt) {
+            this.fingerprint = fingerprint;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Downloader {
+        void download(OutputStream outputStream) throws IOException;
+    }
+}
@@ -26,10 +26,11 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
+import static cn.sliew.milky.common.check.Ensures.checkState;
+
 @Service
 public class ResourceServiceImpl implements ResourceService {
 
@@ -62,4 +63,15 @@ public class ResourceServiceImpl implements ResourceService {
         final ResourceDescriptor resourceDescriptor = getResourceDescriptor(type);
         return (T) resourceDescriptor.getRaw(id);
     }
+
+    @Override
+    public <T> Map<Long, T> getRawBatch(ResourceType type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final ResourceDescriptor resourceDescriptor = getResourceDescriptor(type);
+        final Map<Long, T> result = resourceDescriptor.getRawBatch(ids);
+        checkState(result.keySet().containsAll(ids), () -> type.getValue() + " not exists for ids: " + ids);
+        return result;
+    }
 }
@@ -18,10 +18,11 @@
 
 package cn.sliew.scaleph.resource.service.impl;
 
+import cn.sliew.milky.common.util.JacksonUtil;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelPluginMapping;
 import cn.sliew.scaleph.common.dict.seatunnel.SeaTunnelVersion;
 import cn.sliew.scaleph.common.exception.Rethrower;
-import cn.sliew.scaleph.common.nio.FileUtil;
+import cn.sliew.scaleph.common.nio.TarEntryIndex;
 import cn.sliew.scaleph.common.nio.TarUtil;
 import cn.sliew.scaleph.common.util.SeaTunnelReleaseUtil;
 import cn.sliew.scaleph.dao.entity.master.resource.ResourceSeaTunnelRelease;
@@ -30,6 +31,7 @@ import cn.sliew.scaleph.resource.service.SeaTunnelReleaseService;
 import cn.sliew.scaleph.resource.service.convert.FileStatusVOConvert;
 import cn.sliew.scaleph.resource.service.convert.SeaTunnelReleaseConvert;
 import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseDTO;
+import cn.sliew.scaleph.resource.service.dto.SeaTunnelReleaseManifestDTO;
 import cn.sliew.scaleph.resource.service.enums.ResourceType;
 import cn.sliew.scaleph.resource.service.param.ResourceListParam;
 import cn.sliew.scaleph.resource.service.param.SeaTunnelConnectorUploadParam;
@@ -38,37 +40,53 @@ import cn.sliew.scaleph.resource.service.param.SeaTunnelReleaseUploadParam;
 import cn.sliew.scaleph.resource.service.vo.FileStatusVO;
 import cn.sliew.scaleph.storage.service.FileSystemService;
 import cn.sliew.scaleph.storage.service.RemoteService;
-import cn.sliew.scaleph.system.util.SystemUtil;
+import cn.sliew.scaleph.storage.service.dto.DownloadTaskDTO;
+import cn.sliew.scaleph.storage.service.enums.DownloadStatus;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.fs.FileStatus;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.PathResource;
-import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static cn.sliew.milky.common.check.Ensures.checkState;
 
 @Slf4j
 @Service
-public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
+public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService, DisposableBean {
+
+    /**
+     * 等待连接器下载完成会阻塞线程，不占用公共 ForkJoinPool
+     */
+    private final ExecutorService fetchExecutor = newFetchExecutor();
 
     @Autowired
     private FileSystemService fileSystemService;
@@ -98,6 +116,12 @@ public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
         return selectOne(id);
     }
 
+    @Override
+    public Map<Long, SeaTunnelReleaseDTO> getRawBatch(Collection<Long> ids) {
+        return releaseSeaTunnelMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(ResourceSeaTunnelRelease::getId, SeaTunnelReleaseConvert.INSTANCE::toDto));
+    }
+
     @Override
     public Page<SeaTunnelReleaseDTO> list(SeaTunnelReleaseListParam param) throws IOException {
         final Page<ResourceSeaTunnelRelease> page = releaseSeaTunnelMapper.selectPage(
@@ -139,9 +163,14 @@ public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
     public SeaTunnelReleaseDTO upload(SeaTunnelReleaseUploadParam param, MultipartFile file) throws IOException {
         String fileName = file.getOriginalFilename();
         String filePath = getReleasePath(param.getVersion().getValue(), fileName);
+        SeaTunnelReleaseManifestDTO manifest;
+        try (InputStream inputStream = file.getInputStream()) {
+            manifest = index(inputStream);
+        }
         try (InputStream inputStream = file.getInputStream()) {
             fileSystemService.upload(inputStream, filePath);
         }
+        storeManifest(param.getVersion().getValue(), fileName, manifest);
         ResourceSeaTunnelRelease record = new ResourceSeaTunnelRelease();
         BeanUtils.copyProperties(param, record);
         record.setFileName(fileName);
@@ -170,44 +199,136 @@ public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
                 log.error("fetch seatunnel connectors error! id: {}", id, e);
                 Rethrower.throwAs(e);
             }
-        });
+        }, fetchExecutor);
     }
 
     public void doFetchConnectors(Long id) throws IOException {
         SeaTunnelReleaseDTO dto = selectOne(id);
-        Path workspace = SystemUtil.getRandomWorkspace();
-        try {
-            Path file = FileUtil.createFile(workspace, dto.getFileName());
-            try (OutputStream outputStream = FileUtil.getOutputStream(file)) {
-                download(id, outputStream);
+        SeaTunnelReleaseManifestDTO manifest = getManifest(dto);
+        Set<String> connectors = new HashSet<>();
+        manifest.getPluginMapping().forEach((plugin, connector) -> {
+            if (SeaTunnelReleaseUtil.isV2Connectors(plugin)) {
+                connectors.add(connector);
             }
-
-            Path seatunnelPath = FileUtil.listFiles(TarUtil.untar(file)).get(0);
-            Path pluginMapping = SeaTunnelReleaseUtil.getPluginMapping(seatunnelPath);
-            Properties pluginMappingProperties = PropertiesLoaderUtils.loadProperties(new PathResource(pluginMapping));
-
-            Set<String> connectors = new HashSet<>();
-            pluginMappingProperties.forEach((plugin, connector) -> {
-                if (SeaTunnelReleaseUtil.isV2Connectors((String) plugin)) {
-                    connectors.add((String) connector);
-                }
-            });
-            doFetch(dto.getVersion().getValue(), connectors);
-        } finally {
-            FileUtil.deleteDir(workspace);
-        }
+        });
+        doFetch(dto.getVersion().getValue(), connectors);
     }
 
-    private void doFetch(String version, Set<String> connectors) {
-        connectors.forEach(connector -> {
+    private void doFetch(String version, Set<String> connectors) throws IOException {
+        Map<String, CompletableFuture<DownloadTaskDTO>> completions = new TreeMap<>();
+        for (String connector : connectors) {
             String connectorUrl = SeaTunnelReleaseUtil.seatunnelConnectorUrl(SeaTunnelReleaseUtil.STARTER_REPO_URL, version, connector);
             String connectorFile = getSeaTunnelConnectorPath(version, connector);
-            try {
-                remoteService.fetch(connectorUrl, connectorFile);
-            } catch (IOException e) {
-                Rethrower.throwAs(e);
+            DownloadTaskDTO task = remoteService.fetch(connectorUrl, connectorFile, connectorUrl + ".sha1");
+            completions.put(connector, remoteService.getCompletion(task.getId()));
+        }
+        CompletableFuture.allOf(completions.values().toArray(new CompletableFuture[0])).join();
+        List<String> failures = completions.entrySet().stream()
+                .filter(entry -> entry.getValue().join().getStatus() != DownloadStatus.SUCCESS)
+                .map(entry -> entry.getKey() + ": " + entry.getValue().join().getMessage())
+                .collect(Collectors.toList());
+        if (failures.isEmpty() == false) {
+            throw new IOException("fetch seatunnel connectors failed! " + failures);
+        }
+    }
+
+    @Override
+    public SeaTunnelReleaseManifestDTO getManifest(Long id) throws IOException {
+        return getManifest(selectOne(id));
+    }
+
+    @Override
+    public void readEntry(Long id, String entry, OutputStream outputStream) throws IOException {
+        SeaTunnelReleaseDTO dto = selectOne(id);
+        SeaTunnelReleaseManifestDTO manifest = getManifest(dto);
+        String entryName = manifest.getHome() + entry;
+        TarEntryIndex index = manifest.getEntries().stream()
+                .filter(tarEntry -> tarEntry.getName().equals(entryName))
+                .findFirst()
+                .orElse(null);
+        checkState(index != null, () -> "release seatunnel entry not exists: " + entry);
+        try (InputStream inputStream = fileSystemService.get(dto.getPath())) {
+            TarUtil.readEntry(inputStream, index, outputStream);
+        }
+    }
+
+    /**
+     * 上传时已生成索引，之前上传的 release 首次访问时补建一次
+     */
+    private SeaTunnelReleaseManifestDTO getManifest(SeaTunnelReleaseDTO dto) throws IOException {
+        String version = dto.getVersion().getValue();
+        String manifestPath = getManifestPath(version, dto.getFileName());
+        if (fileSystemService.exists(manifestPath)) {
+            try (InputStream inputStream = fileSystemService.get(manifestPath)) {
+                String json = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+                return JacksonUtil.parseJsonString(json, SeaTunnelReleaseManifestDTO.class);
             }
+        }
+        SeaTunnelReleaseManifestDTO manifest;
+        try (InputStream inputStream = fileSystemService.get(dto.getPath())) {
+            manifest = index(inputStream);
+        }
+        storeManifest(version, dto.getFileName(), manifest);
+        return manifest;
+    }
+
+    /**
+     * 单次流式读取 release 归档，记录文件条目并解析 plugin-mapping.properties，不解压到磁盘
+     */
+    private SeaTunnelReleaseManifestDTO index(InputStream inputStream) throws IOException {
+        String pluginMappingSuffix = "connectors/" + SeaTunnelReleaseUtil.SEATUNNEL_PLUGIN_MAPPING;
+        SeaTunnelReleaseManifestDTO manifest = new SeaTunnelReleaseManifestDTO();
+        manifest.setPluginMapping(new TreeMap<>());
+        List<TarEntryIndex> entries = TarUtil.index(inputStream, name -> name.endsWith(pluginMappingSuffix), (name, content) -> {
+            // connector jars may ship their own plugin-mapping, the release one is the shallowest
+            if (manifest.getHome() != null && manifest.getHome().length() <= name.length() - pluginMappingSuffix.length()) {
+                return;
+            }
+            manifest.setHome(name.substring(0, name.length() - pluginMappingSuffix.length()));
+            manifest.setPluginMapping(parsePluginMapping(content));
         });
+        manifest.setEntries(entries);
+        if (manifest.getHome() == null) {
+            manifest.setHome(getArchiveHome(entries));
+        }
+        return manifest;
+    }
+
+    private Map<String, String> parsePluginMapping(byte[] content) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            Rethrower.throwAs(e);
+        }
+        Map<String, String> pluginMapping = new TreeMap<>();
+        properties.forEach((plugin, connector) -> pluginMapping.put((String) plugin, (String) connector));
+        return pluginMapping;
+    }
+
+    private String getArchiveHome(List<TarEntryIndex> entries) {
+        if (entries.isEmpty()) {
+            return "";
+        }
+        String name = entries.get(0).getName();
+        int index = name.indexOf('/');
+        return index < 0 ? "" : name.substring(0, index + 1);
+    }
+
+    private void storeManifest(String version, String fileName, SeaTunnelReleaseManifestDTO manifest) throws IOException {
+        byte[] json = JacksonUtil.toJsonString(manifest).getBytes(StandardCharsets.UTF_8);
+        try (InputStream inputStream = new ByteArrayInputStream(json)) {
+            fileSystemService.upload(inputStream, getManifestPath(version, fileName));
+        }
+        if (manifest.getPluginMapping().isEmpty()) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.putAll(manifest.getPluginMapping());
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            properties.store(outputStream, null);
+            fileSystemService.upload(new ByteArrayInputStream(outputStream.toByteArray()), getPluginMappingPath(version));
+        }
     }
 
     @Override
@@ -221,14 +342,19 @@ public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
 
     @Override
     public String downloadConnector(Long id, String connector, OutputStream outputStream) throws IOException {
-        final SeaTunnelReleaseDTO dto = selectOne(id);
-        final String fileName = String.format("%s/%s", getConnectorsPath(dto.getVersion().getValue()), connector);
+        final String fileName = getConnectorPath(id, connector);
         try (InputStream inputStream = fileSystemService.get(fileName)) {
             FileCopyUtils.copy(inputStream, outputStream);
         }
         return connector;
     }
 
+    @Override
+    public String getConnectorPath(Long id, String connector) {
+        final SeaTunnelReleaseDTO dto = selectOne(id);
+        return String.format("%s/%s", getConnectorsPath(dto.getVersion().getValue()), connector);
+    }
+
     @Override
     public int deleteBatch(List<Long> ids) throws IOException {
         for (Serializable id : ids) {
@@ -253,6 +379,14 @@ public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
         return String.format("%s/%s", getVersionPath(version), fileName);
     }
 
+    private String getManifestPath(String version, String fileName) {
+        return String.format("%s/%s.manifest.json", getVersionPath(version), fileName);
+    }
+
+    private String getPluginMappingPath(String version) {
+        return String.format("%s/%s", getVersionPath(version), SeaTunnelReleaseUtil.SEATUNNEL_PLUGIN_MAPPING);
+    }
+
     private String getConnectorsPath(String version) {
         return String.format("%s/connectors/seatunnel", getVersionPath(version));
     }
@@ -265,4 +399,18 @@ public class SeaTunnelReleaseServiceImpl implements SeaTunnelReleaseService {
     private String getRootPath() {
         return "release/seatunnel";
     }
+
+    @Override
+    public void destroy() throws Exception {
+        fetchExecutor.shutdownNow();
+    }
+
+    private static ExecutorService newFetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("seatunnel-connector-fetch-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
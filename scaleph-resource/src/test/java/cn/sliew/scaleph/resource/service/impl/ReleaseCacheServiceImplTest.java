@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.resource.service.impl;
+
+import cn.sliew.scaleph.resource.service.FlinkReleaseService;
+import cn.sliew.scaleph.resource.service.dto.FlinkReleaseDTO;
+import cn.sliew.scaleph.storage.service.FileSystemService;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReleaseCacheServiceImplTest {
+
+    private static final String REMOTE_PATH = "release/flink/1.16.0/flink-1.16.0-bin-scala_2.12.tgz";
+
+    @TempDir
+    Path cacheDir;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final AtomicLong modificationTime = new AtomicLong(1L);
+    private FileSystemService fileSystemService;
+    private FlinkReleaseService flinkReleaseService;
+    private ReleaseCacheServiceImpl releaseCacheService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileSystemService = mock(FileSystemService.class);
+        when(fileSystemService.getFileSystem()).thenReturn(mock(FileSystem.class));
+        when(fileSystemService.getFileStatus(anyString())).thenAnswer(invocation ->
+                new FileStatus(100L, false, 1, 0L, modificationTime.get(), new org.apache.hadoop.fs.Path("s3a://scaleph/" + REMOTE_PATH)));
+
+        FlinkReleaseDTO release = new FlinkReleaseDTO();
+        release.setId(1L);
+        release.setPath(REMOTE_PATH);
+        release.setFileName("flink-1.16.0-bin-scala_2.12.tgz");
+        flinkReleaseService = mock(FlinkReleaseService.class);
+        when(flinkReleaseService.selectOne(1L)).thenReturn(release);
+        when(flinkReleaseService.download(eq(1L), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write(archive("flink-1.16.0", "modified at " + modificationTime.get()));
+            return release.getFileName();
+        });
+
+        releaseCacheService = new ReleaseCacheServiceImpl(clock::get);
+        ReflectionTestUtils.setField(releaseCacheService, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(releaseCacheService, "revalidateInterval", Duration.ofMinutes(1L));
+        ReflectionTestUtils.setField(releaseCacheService, "fileSystemService", fileSystemService);
+        ReflectionTestUtils.setField(releaseCacheService, "flinkReleaseService", flinkReleaseService);
+        releaseCacheService.afterPropertiesSet();
+    }
+
+    @Test
+    void hitDoesNotTouchStorage() throws Exception {
+        Path home = releaseCacheService.loadFlinkRelease(1L);
+        assertEquals("flink-1.16.0", home.getFileName().toString());
+        assertTrue(Files.exists(home.resolve("bin/flink")));
+
+        clock.addAndGet(Duration.ofSeconds(30L).toMillis());
+        assertEquals(home, releaseCacheService.loadFlinkRelease(1L));
+
+        verify(fileSystemService, times(1)).getFileStatus(REMOTE_PATH);
+        verify(flinkReleaseService, times(1)).download(eq(1L), any(OutputStream.class));
+    }
+
+    @Test
+    void staleEntryIsRevalidated() throws Exception {
+        Path home = releaseCacheService.loadFlinkRelease(1L);
+
+        clock.addAndGet(Duration.ofMinutes(2L).toMillis());
+        assertEquals(home, releaseCacheService.loadFlinkRelease(1L));
+        verify(fileSystemService, times(2)).getFileStatus(REMOTE_PATH);
+        verify(flinkReleaseService, times(1)).download(eq(1L), any(OutputStream.class));
+
+        // release re-uploaded to the same path
+        modificationTime.incrementAndGet();
+        clock.addAndGet(Duration.ofMinutes(2L).toMillis());
+        Path reloaded = releaseCacheService.loadFlinkRelease(1L);
+        assertNotEquals(home, reloaded);
+        assertEquals("modified at 2", Files.readString(reloaded.resolve("bin/flink"), StandardCharsets.UTF_8));
+        verify(flinkReleaseService, times(2)).download(eq(1L), any(OutputStream.class));
+    }
+
+    @Test
+    void concurrentMissDownloadsOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return releaseCacheService.loadFlinkRelease(1L);
+                }));
+            }
+            start.countDown();
+            Set<Path> homes = new HashSet<>();
+            for (Future<Path> future : futures) {
+                homes.add(future.get(30L, TimeUnit.SECONDS));
+            }
+            assertEquals(1, homes.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(flinkReleaseService, times(1)).download(eq(1L), any(OutputStream.class));
+    }
+
+    private byte[] archive(String home, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream to = new TarArchiveOutputStream(new GzipCompressorOutputStream(outputStream))) {
+            to.putArchiveEntry(new TarArchiveEntry(home + "/"));
+            to.closeArchiveEntry();
+            TarArchiveEntry entry = new TarArchiveEntry(home + "/bin/flink");
+            entry.setSize(bytes.length);
+            to.putArchiveEntry(entry);
+            to.write(bytes);
+            to.closeArchiveEntry();
+        }
+        return outputStream.toByteArray();
+    }
+}
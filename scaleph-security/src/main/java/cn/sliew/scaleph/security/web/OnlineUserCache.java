@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.security.web;
+
+import cn.sliew.scaleph.cache.util.RedisUtil;
+import cn.sliew.scaleph.security.vo.OnlineUserVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在线用户本地缓存
+ * <p>
+ * 缓存在线用户及预先构建好的权限信息，避免每次请求都访问redis。
+ * 用户登出、踢出或权限变更时通过redis pub/sub通知所有节点失效本地缓存。
+ */
+@Slf4j
+@Component
+public class OnlineUserCache implements MessageListener, InitializingBean {
+
+    public static final String INVALIDATE_CHANNEL = "online-user_invalidate";
+    private static final String INVALIDATE_ALL = "*";
+
+    @Autowired
+    private SecurityProperties properties;
+    @Autowired
+    private RedisUtil redisUtil;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private Cache<String, CachedOnlineUser> cache;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getNearCacheMaximumSize())
+                .expireAfterWrite(properties.getNearCacheExpire())
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public CachedOnlineUser get(String token) {
+        return cache.getIfPresent(token);
+    }
+
+    /**
+     * 缓存在线用户，调用前在线用户在redis中的过期时间刚刚被设置为ttl
+     *
+     * @param onlineUser     在线用户
+     * @param authentication 权限信息
+     * @param ttl            过期时间 秒
+     * @return 缓存的在线用户
+     */
+    public CachedOnlineUser put(OnlineUserVO onlineUser, Authentication authentication, long ttl) {
+        CachedOnlineUser cachedOnlineUser = new CachedOnlineUser(onlineUser, authentication, ttl);
+        cache.put(onlineUser.getToken(), cachedOnlineUser);
+        return cachedOnlineUser;
+    }
+
+    /**
+     * 判断是否需要刷新redis中的过期时间，剩余有效期低于阈值时只有一个请求会返回true
+     *
+     * @param cachedOnlineUser 缓存的在线用户
+     * @return true/false
+     */
+    public boolean tryRefresh(CachedOnlineUser cachedOnlineUser) {
+        long now = System.currentTimeMillis();
+        long expireAt = cachedOnlineUser.expireAt.get();
+        long threshold = (long) (cachedOnlineUser.ttl * 1000L * properties.getTokenRefreshRatio());
+        if (expireAt - now >= threshold) {
+            return false;
+        }
+        return cachedOnlineUser.expireAt.compareAndSet(expireAt, now + cachedOnlineUser.ttl * 1000L);
+    }
+
+    /**
+     * 失效所有节点中的在线用户缓存
+     *
+     * @param token 用户token
+     */
+    public void invalidate(String token) {
+        if (token == null) {
+            return;
+        }
+        cache.invalidate(token);
+        redisUtil.publish(INVALIDATE_CHANNEL, token);
+    }
+
+    /**
+     * 失效所有节点中的全部在线用户缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        redisUtil.publish(INVALIDATE_CHANNEL, INVALIDATE_ALL);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object token = redisUtil.deserialize(message.getBody());
+        if (INVALIDATE_ALL.equals(token)) {
+            cache.invalidateAll();
+        } else if (token instanceof String) {
+            cache.invalidate(token);
+        } else {
+            log.warn("unknown online user invalidation message: {}", token);
+        }
+    }
+
+    @Getter
+    public static class CachedOnlineUser {
+
+        private final OnlineUserVO onlineUser;
+        private final Authentication authentication;
+        private final long ttl;
+        private final AtomicLong expireAt;
+
+        private CachedOnlineUser(OnlineUserVO onlineUser, Authentication authentication, long ttl) {
+            this.onlineUser = onlineUser;
+            this.authentication = authentication;
+            this.ttl = ttl;
+            this.expireAt = new AtomicLong(System.currentTimeMillis() + ttl * 1000L);
+        }
+    }
+}
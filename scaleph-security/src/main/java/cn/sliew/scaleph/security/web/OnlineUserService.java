@@ -51,6 +51,8 @@ public class OnlineUserService {
     private SecUserService secUserService;
     @Autowired
     private SecRoleService secRoleService;
+    @Autowired
+    private OnlineUserCache onlineUserCache;
 
     /**
      * 存储登录用户信息到redis中
@@ -85,6 +87,7 @@ public class OnlineUserService {
         if (userToken != null) {
             redisUtil.delKeys(Constants.ONLINE_USER_KEY + onlineUser.getUserName());
             redisUtil.delKeys(Constants.ONLINE_TOKEN_KEY + userToken);
+            onlineUserCache.invalidate(userToken);
         }
         long time = onlineUser.getRemember() ? properties.getLongTokenValidityInSeconds() / 1000 :
             properties.getTokenValidityInSeconds() / 1000;
@@ -102,6 +105,7 @@ public class OnlineUserService {
         String userToken = (String) redisUtil.get(Constants.ONLINE_USER_KEY + userName);
         redisUtil.delKeys(Constants.ONLINE_TOKEN_KEY + userToken);
         redisUtil.delKeys(Constants.ONLINE_USER_KEY + userName);
+        onlineUserCache.invalidate(userToken);
     }
 
     /**
@@ -115,6 +119,7 @@ public class OnlineUserService {
             (OnlineUserVO) this.redisUtil.get(Constants.ONLINE_TOKEN_KEY + token);
         redisUtil.delKeys(Constants.ONLINE_TOKEN_KEY + token);
         redisUtil.delKeys(Constants.ONLINE_USER_KEY + onlineUser.getUserName());
+        onlineUserCache.invalidate(token);
     }
 
 
@@ -167,6 +172,7 @@ public class OnlineUserService {
                             onlineUser.setPrivileges(null);
                             onlineUser.setRoles(null);
                             redisUtil.set(key, onlineUser);
+                            onlineUserCache.invalidate(onlineUser.getToken());
                         }
                     }
                 }
@@ -185,6 +191,7 @@ public class OnlineUserService {
                 onlineUser.setPrivileges(null);
                 onlineUser.setRoles(null);
                 redisUtil.set(Constants.ONLINE_TOKEN_KEY + token, onlineUser);
+                onlineUserCache.invalidate(token);
             }
         }
     }
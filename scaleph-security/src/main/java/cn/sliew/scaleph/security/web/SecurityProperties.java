@@ -22,6 +22,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "token")
@@ -36,4 +38,19 @@ public class SecurityProperties {
      * 记住我功能
      */
     private Long longTokenValidityInSeconds;
+
+    /**
+     * 令牌剩余有效期低于该比例时才刷新redis中的过期时间
+     */
+    private Double tokenRefreshRatio = 0.9D;
+
+    /**
+     * 在线用户本地缓存最大数量
+     */
+    private Long nearCacheMaximumSize = 10000L;
+
+    /**
+     * 在线用户本地缓存过期时间，兜底未收到失效通知的情况
+     */
+    private Duration nearCacheExpire = Duration.ofSeconds(30L);
 }
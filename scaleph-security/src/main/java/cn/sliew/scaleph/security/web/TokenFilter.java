@@ -55,6 +55,8 @@ public class TokenFilter extends GenericFilterBean {
     private RedisUtil redisUtil;
     @Autowired
     private OnlineUserService onlineUserService;
+    @Autowired
+    private OnlineUserCache onlineUserCache;
 
     /**
      * 验证每个请求提交的token是否有效，并解析设置权限信息
@@ -70,19 +72,46 @@ public class TokenFilter extends GenericFilterBean {
             throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) request;
         String token = resolveToken(httpServletRequest);
+        Authentication authentication = getAuthentication(token);
+        if (authentication != null) {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * 优先从本地缓存获取在线用户权限信息，只在剩余有效期低于阈值时刷新redis过期时间
+     *
+     * @param token 用户token
+     * @return Authentication
+     */
+    private Authentication getAuthentication(String token) {
+        if (StrUtil.isEmpty(token)) {
+            return null;
+        }
+        OnlineUserCache.CachedOnlineUser cachedOnlineUser = onlineUserCache.get(token);
+        if (cachedOnlineUser != null) {
+            if (onlineUserCache.tryRefresh(cachedOnlineUser)) {
+                OnlineUserVO onlineUser = cachedOnlineUser.getOnlineUser();
+                redisUtil.expire(Constants.ONLINE_USER_KEY + onlineUser.getUserName(), cachedOnlineUser.getTtl());
+                redisUtil.expire(Constants.ONLINE_TOKEN_KEY + onlineUser.getToken(), cachedOnlineUser.getTtl());
+            }
+            return cachedOnlineUser.getAuthentication();
+        }
         //用户在线且有效，获取用户的权限信息 只要在redis中存在数据则认为是有效在线用户
         OnlineUserVO onlineUser =
                 (OnlineUserVO) redisUtil.get(Constants.ONLINE_TOKEN_KEY + token);
-        if (onlineUser != null) {
-            long time =
-                    onlineUser.getRemember() ? properties.getLongTokenValidityInSeconds() / 1000 :
-                            properties.getTokenValidityInSeconds() / 1000;
-            Authentication authentication = getAuthentication(onlineUser);
-            redisUtil.set(Constants.ONLINE_USER_KEY + onlineUser.getUserName(), onlineUser.getToken(), time);
-            redisUtil.set(Constants.ONLINE_TOKEN_KEY + onlineUser.getToken(), onlineUser, time);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (onlineUser == null) {
+            return null;
         }
-        chain.doFilter(request, response);
+        long time =
+                onlineUser.getRemember() ? properties.getLongTokenValidityInSeconds() / 1000 :
+                        properties.getTokenValidityInSeconds() / 1000;
+        Authentication authentication = getAuthentication(onlineUser);
+        redisUtil.set(Constants.ONLINE_USER_KEY + onlineUser.getUserName(), onlineUser.getToken(), time);
+        redisUtil.set(Constants.ONLINE_TOKEN_KEY + onlineUser.getToken(), onlineUser, time);
+        onlineUserCache.put(onlineUser, authentication, time);
+        return authentication;
     }
 
     /**
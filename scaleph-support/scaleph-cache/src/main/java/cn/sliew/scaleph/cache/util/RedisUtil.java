@@ -177,4 +177,31 @@ public class RedisUtil {
         }
         return result;
     }
+
+    /**
+     * 发布消息
+     *
+     * @param channel 频道
+     * @param message 消息
+     * @return true/false
+     */
+    public boolean publish(String channel, Object message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 反序列化消息
+     *
+     * @param bytes 消息内容
+     * @return 值
+     */
+    public Object deserialize(byte[] bytes) {
+        return redisTemplate.getValueSerializer().deserialize(bytes);
+    }
 }
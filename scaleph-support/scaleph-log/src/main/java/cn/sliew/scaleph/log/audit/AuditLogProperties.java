@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.log.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.audit-log")
+public class AuditLogProperties {
+
+    /**
+     * 内存队列容量
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单次批量写入的最大条数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 批次未满时的最长等待时间
+     */
+    private Duration flushInterval = Duration.ofSeconds(1L);
+
+    /**
+     * 队列满载时的处理策略
+     */
+    private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+
+    /**
+     * BLOCK策略下请求线程的最长等待时间
+     */
+    private Duration blockTimeout = Duration.ofMillis(50L);
+
+    /**
+     * SAMPLE策略下开始采样的队列使用率
+     */
+    private double sampleThreshold = 0.5D;
+
+    /**
+     * SAMPLE策略下每多少条日志保留一条
+     */
+    private int sampleRate = 10;
+
+    /**
+     * User-Agent解析结果缓存数量
+     */
+    private int userAgentCacheSize = 1024;
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.log.audit;
+
+import cn.sliew.scaleph.log.service.LogActionService;
+import cn.sliew.scaleph.log.service.dto.LogActionDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 操作日志异步写入
+ * <p>
+ * 请求线程只把日志放入有界队列，由后台线程攒批后批量写入日志库。
+ * 队列满载时按{@link OverloadPolicy}阻塞、丢弃或采样。
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private AuditLogProperties properties;
+    @Autowired
+    private LogActionService logActionService;
+
+    private BlockingQueue<Entry> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        running = true;
+        writer = new Thread(this::run, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 提交操作日志
+     *
+     * @param logAction  操作日志
+     * @param actionInfo 接口执行信息，在后台线程中生成
+     * @return 是否进入队列
+     */
+    public boolean submit(LogActionDTO logAction, Supplier<String> actionInfo) {
+        Entry entry = new Entry(logAction, actionInfo);
+        boolean accepted = running && offer(entry);
+        if (accepted == false) {
+            dropped.increment();
+        }
+        return accepted;
+    }
+
+    private boolean offer(Entry entry) {
+        switch (properties.getOverloadPolicy()) {
+            case BLOCK:
+                try {
+                    return queue.offer(entry, properties.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case SAMPLE:
+                if (queue.size() >= properties.getQueueCapacity() * properties.getSampleThreshold()
+                        && sampleCounter.getAndIncrement() % properties.getSampleRate() != 0) {
+                    return false;
+                }
+                return queue.offer(entry);
+            case DROP:
+            default:
+                return queue.offer(entry);
+        }
+    }
+
+    private void run() {
+        List<Entry> entries = new ArrayList<>(properties.getBatchSize());
+        while (running || queue.isEmpty() == false) {
+            try {
+                Entry first = queue.poll(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                entries.add(first);
+                fill(entries);
+                write(entries);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("操作日志批量写入失败！", e);
+            } finally {
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * 批次未满时在flushInterval内继续等待新日志
+     */
+    private void fill(List<Entry> entries) throws InterruptedException {
+        int batchSize = properties.getBatchSize();
+        long deadline = System.nanoTime() + properties.getFlushInterval().toNanos();
+        while (entries.size() < batchSize) {
+            queue.drainTo(entries, batchSize - entries.size());
+            long remaining = deadline - System.nanoTime();
+            if (entries.size() >= batchSize || remaining <= 0 || running == false) {
+                return;
+            }
+            Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            entries.add(next);
+        }
+    }
+
+    private void write(List<Entry> entries) {
+        List<LogActionDTO> logActions = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            LogActionDTO logAction = entry.logAction;
+            try {
+                logAction.setActionInfo(entry.actionInfo.get());
+            } catch (Exception e) {
+                log.error("操作日志接口执行信息生成失败！", e);
+            }
+            logActions.add(logAction);
+        }
+        try {
+            logActionService.insertBatch(logActions);
+            written.add(logActions.size());
+        } catch (Exception e) {
+            failed.add(logActions.size());
+            log.error("操作日志批量写入失败！", e);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        writer.join(properties.getFlushInterval().toMillis() + 10000L);
+    }
+
+    private static class Entry {
+
+        private final LogActionDTO logAction;
+        private final Supplier<String> actionInfo;
+
+        private Entry(LogActionDTO logAction, Supplier<String> actionInfo) {
+            this.logAction = logAction;
+            this.actionInfo = actionInfo;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.log.audit;
+
+/**
+ * 审计日志队列满载时的处理策略
+ */
+public enum OverloadPolicy {
+
+    /**
+     * 阻塞请求线程直到队列有空闲或超时，超时后丢弃
+     */
+    BLOCK,
+
+    /**
+     * 直接丢弃
+     */
+    DROP,
+
+    /**
+     * 队列使用率超过阈值后按比例采样，队列满时丢弃
+     */
+    SAMPLE
+}
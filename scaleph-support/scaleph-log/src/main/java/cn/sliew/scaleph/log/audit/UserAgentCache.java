@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.log.audit;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.useragent.UserAgent;
+import cn.hutool.http.useragent.UserAgentUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * User-Agent解析结果的LRU缓存，同一客户端的请求只解析一次
+ */
+@Component
+public class UserAgentCache implements InitializingBean {
+
+    @Autowired
+    private AuditLogProperties properties;
+
+    private Cache<String, UserAgent> cache;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        cache = Caffeine.newBuilder()
+                .maximumSize(properties.getUserAgentCacheSize())
+                .build();
+    }
+
+    /**
+     * 解析User-Agent
+     *
+     * @param agent User-Agent请求头
+     * @return UserAgent, 请求头为空时返回null
+     */
+    public UserAgent parse(String agent) {
+        if (StrUtil.isBlank(agent)) {
+            return null;
+        }
+        return cache.get(agent, UserAgentUtil::parse);
+    }
+}
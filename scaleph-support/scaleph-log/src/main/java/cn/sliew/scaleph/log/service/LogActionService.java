@@ -22,6 +22,8 @@ import cn.sliew.scaleph.log.service.dto.LogActionDTO;
 import cn.sliew.scaleph.log.service.param.LogActionParam;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
+import java.util.List;
+
 /**
  * <p>
  * 用户操作日志 服务类
@@ -39,6 +41,14 @@ public interface LogActionService {
      */
     int insert(LogActionDTO logActionDTO);
 
+    /**
+     * 批量新增日志
+     *
+     * @param logActionDTOs 操作日志
+     * @return int
+     */
+    int insertBatch(List<LogActionDTO> logActionDTOs);
+
     /**
      * 分页查询
      *
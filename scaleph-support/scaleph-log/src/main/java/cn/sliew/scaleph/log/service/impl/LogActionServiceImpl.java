@@ -18,6 +18,7 @@
 
 package cn.sliew.scaleph.log.service.impl;
 
+import java.util.Date;
 import java.util.List;
 
 import cn.sliew.scaleph.dao.entity.log.LogAction;
@@ -30,6 +31,8 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * <p>
@@ -51,6 +54,24 @@ public class LogActionServiceImpl implements LogActionService {
         return this.logActionMapper.insert(logAction);
     }
 
+    @Override
+    public int insertBatch(List<LogActionDTO> logActionDTOs) {
+        if (CollectionUtils.isEmpty(logActionDTOs)) {
+            return 0;
+        }
+        // batch insert bypasses the mybatis-plus meta handler and runs off the request thread
+        Date now = new Date();
+        List<LogAction> logActions = LogActionConvert.INSTANCE.toDo(logActionDTOs);
+        for (LogAction logAction : logActions) {
+            String userName = StringUtils.hasText(logAction.getUserName()) ? logAction.getUserName() : "sys";
+            logAction.setCreator(userName);
+            logAction.setCreateTime(now);
+            logAction.setEditor(userName);
+            logAction.setUpdateTime(now);
+        }
+        return this.logActionMapper.insertBatch(logActions);
+    }
+
     @Override
     public Page<LogActionDTO> listByPage(LogActionParam logActionParam) {
         Page<LogActionDTO> result = new Page<>();
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "file-system.cache")
+public class FileSystemCacheProperties {
+
+    /**
+     * local directory for cached remote files, each instance caches into its own sub directory
+     * and removes it on shutdown
+     */
+    private String directory = "/tmp/scaleph/file-system-cache";
+
+    /**
+     * total size of cached files, least recently used files are evicted beyond it.
+     * files larger than it are not cached
+     */
+    private DataSize maxSize = DataSize.ofGigabytes(10L);
+
+    /**
+     * cached files not accessed for the duration are evicted
+     */
+    private Duration expireAfterAccess = Duration.ofHours(1L);
+
+    /**
+     * cached files are checked against the length and modification time of the remote object once
+     * per interval on access, files overwritten by others are downloaded again
+     */
+    private Duration revalidateInterval = Duration.ofMinutes(1L);
+
+    /**
+     * verify length and etag of cached files against the remote object
+     */
+    private boolean verifyChecksum = true;
+
+    /**
+     * files or directories cached at startup, files in the directories are cached non-recursively
+     */
+    private List<String> warmUpPaths = new ArrayList<>();
+}
@@ -22,6 +22,7 @@ import cn.sliew.scaleph.storage.utils.HadoopUtil;
 import com.amazonaws.services.s3.internal.BucketNameUtils;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.aliyun.oss.AliyunOSSFileSystem;
+import org.apache.hadoop.fs.aliyun.oss.Constants;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -34,7 +35,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 
 @Configuration
-@EnableConfigurationProperties(LocalFileSystemProperties.class)
+@EnableConfigurationProperties({LocalFileSystemProperties.class, FileSystemUploadProperties.class, FileSystemCacheProperties.class, RemoteFetchProperties.class, StagingProperties.class})
 public class FileSystemConfiguration {
 
     @Bean
@@ -54,12 +55,18 @@ public class FileSystemConfiguration {
 
     @Bean
     @ConditionalOnProperty(value = "file-system.type", havingValue = "s3")
-    public FileSystem s3FileSystem(S3FileSystemProperties s3FileSystemProperties) throws URISyntaxException, IOException {
+    public FileSystem s3FileSystem(S3FileSystemProperties s3FileSystemProperties, FileSystemUploadProperties uploadProperties) throws URISyntaxException, IOException {
         org.apache.hadoop.conf.Configuration conf = HadoopUtil.getHadoopConfiguration(s3FileSystemProperties.getHadoopConfPath());
         conf.set("fs.s3a.endpoint", s3FileSystemProperties.getEndpoint());
         conf.set("fs.s3a.access.key", s3FileSystemProperties.getAccessKey());
         conf.set("fs.s3a.secret.key", s3FileSystemProperties.getSecretKey());
         conf.setBoolean("fs.s3a.path.style.access", true);
+        // parts are buffered on heap and uploaded in parallel, aws sdk verifies md5 of every part.
+        // off-heap bytebuffer blocks don't support the mark aws sdk takes before sending a part
+        conf.set("fs.s3a.fast.upload.buffer", "array");
+        conf.setLong("fs.s3a.multipart.size", uploadProperties.getPartSize().toBytes());
+        conf.setInt("fs.s3a.fast.upload.active.blocks", uploadProperties.getParallelism());
+        conf.setBoolean("fs.s3a.etag.checksum.enabled", uploadProperties.isVerifyChecksum());
         URI uri = new URI(FileSystemType.S3.getSchema() + s3FileSystemProperties.getBucket());
         return FileSystem.get(uri, conf);
     }
@@ -74,11 +81,15 @@ public class FileSystemConfiguration {
 
     @Bean
     @ConditionalOnProperty(value = "file-system.type", havingValue = "oss")
-    public FileSystem ossFileSystem(OSSFileSystemProperties ossFileSystemProperties) throws IOException, URISyntaxException {
+    public FileSystem ossFileSystem(OSSFileSystemProperties ossFileSystemProperties, FileSystemUploadProperties uploadProperties) throws IOException, URISyntaxException {
         org.apache.hadoop.conf.Configuration conf = HadoopUtil.getHadoopConfiguration(ossFileSystemProperties.getHadoopConfPath());
         conf.set("fs.oss.endpoint", ossFileSystemProperties.getEndpoint());
         conf.set("fs.oss.accessKeyId", ossFileSystemProperties.getAccessKey());
         conf.set("fs.oss.accessKeySecret", ossFileSystemProperties.getSecretKey());
+        // parts are uploaded in parallel, oss sdk verifies crc64 of every part
+        conf.setLong(Constants.MULTIPART_UPLOAD_PART_SIZE_KEY, uploadProperties.getPartSize().toBytes());
+        conf.setLong(Constants.MIN_MULTIPART_UPLOAD_THRESHOLD_KEY, uploadProperties.getPartSize().toBytes());
+        conf.setInt(Constants.UPLOAD_ACTIVE_BLOCKS_KEY, uploadProperties.getParallelism());
         URI uri = new URI(FileSystemType.OSS.getSchema() + ossFileSystemProperties.getBucket());
         final AliyunOSSFileSystem aliyunOSSFileSystem = new AliyunOSSFileSystem();
         aliyunOSSFileSystem.initialize(uri, conf);
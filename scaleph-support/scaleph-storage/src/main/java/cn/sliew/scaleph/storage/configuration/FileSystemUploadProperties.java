@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "file-system.upload")
+public class FileSystemUploadProperties {
+
+    /**
+     * buffer size for copying uploaded content into the file system
+     */
+    private DataSize bufferSize = DataSize.ofMegabytes(1L);
+
+    /**
+     * multipart upload part size for s3 and oss, parts are uploaded once they are full
+     */
+    private DataSize partSize = DataSize.ofMegabytes(32L);
+
+    /**
+     * max parts buffered and uploaded in parallel for s3 and oss
+     */
+    private int parallelism = 4;
+
+    /**
+     * verify the object etag against the md5 digest of the uploaded parts after upload finished
+     */
+    private boolean verifyChecksum = true;
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "file-system.remote")
+public class RemoteFetchProperties {
+
+    /**
+     * local directory for download tasks and partially downloaded files
+     */
+    private String directory = "/tmp/scaleph/remote-fetch";
+
+    /**
+     * max concurrent downloads from the same host
+     */
+    private int maxConcurrencyPerHost = 4;
+
+    /**
+     * max attempts of a download, partial content is resumed by http range requests between attempts
+     */
+    private int maxAttempts = 5;
+
+    private Duration initialBackoff = Duration.ofSeconds(1L);
+
+    private Duration maxBackoff = Duration.ofMinutes(1L);
+}
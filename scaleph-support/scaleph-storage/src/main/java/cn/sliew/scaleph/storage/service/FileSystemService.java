@@ -21,8 +21,10 @@ package cn.sliew.scaleph.storage.service;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 public interface FileSystemService {
@@ -43,5 +45,27 @@ public interface FileSystemService {
 
     Long getFileSize(String fileName) throws IOException;
 
+    FileStatus getFileStatus(String fileName) throws IOException;
+
     List<FileStatus> listStatus(String directory) throws IOException;
+
+    /**
+     * local file of the fileName, remote file will be cached locally if supported.
+     *
+     * @return null if the file can't be accessed locally
+     */
+    File getLocalFile(String fileName) throws IOException;
+
+    /**
+     * transfer {@code count} bytes of the file starting from {@code position}.
+     * local file is transferred by {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)}
+     *
+     * @return the number of bytes transferred
+     */
+    long transferTo(String fileName, long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * sha256 hex digest of the file content
+     */
+    String getContentHash(String fileName) throws IOException;
 }
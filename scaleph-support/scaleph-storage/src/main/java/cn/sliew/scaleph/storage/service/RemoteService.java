@@ -15,14 +15,39 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package cn.sliew.scaleph.storage.service;
 
+import cn.sliew.scaleph.storage.service.dto.DownloadTaskDTO;
+
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface RemoteService {
 
-    void fetch(String url, String fileName) throws IOException;
+    /**
+     * Downloads the url into fileName asynchronously.
+     * Fetching the same url and fileName while the task is running returns the running task.
+     */
+    DownloadTaskDTO fetch(String url, String fileName) throws IOException;
+
+    /**
+     * @param checksumUrl checksum file of the url, the algorithm is inferred from the extension:
+     *                    {@code .md5}, {@code .sha1}, {@code .sha256} or {@code .sha512}
+     */
+    DownloadTaskDTO fetch(String url, String fileName, String checksumUrl) throws IOException;
+
+    /**
+     * @return null if the task doesn't exist
+     */
+    DownloadTaskDTO getTask(String taskId) throws IOException;
+
+    /**
+     * Completes with the task when it succeeded or failed, or with a pending task when the download
+     * is interrupted by shutdown and will be resumed at next startup.
+     *
+     * @return null if the task doesn't exist
+     */
+    CompletableFuture<DownloadTaskDTO> getCompletion(String taskId) throws IOException;
 
     void generate(String fileName) throws IOException;
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.dto;
+
+import cn.sliew.scaleph.storage.service.enums.DownloadStatus;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Remote file download task, persisted on local disk with the partially downloaded content.
+ */
+@Data
+public class DownloadTaskDTO {
+
+    /**
+     * derived from url and fileName, fetching the same file again resumes the task
+     */
+    private String id;
+
+    private String url;
+
+    /**
+     * target file in {@link cn.sliew.scaleph.storage.service.FileSystemService}
+     */
+    private String fileName;
+
+    /**
+     * checksum file published alongside the url, such as {@code .sha1} in maven repositories
+     */
+    private String checksumUrl;
+
+    private DownloadStatus status;
+
+    private Long downloadedBytes;
+
+    /**
+     * -1 if unknown
+     */
+    private Long totalBytes;
+
+    /**
+     * ETag or Last-Modified of the remote file, partial content is resumed only if it is unchanged
+     */
+    private String validator;
+
+    private Integer attempts;
+
+    private String message;
+
+    private Date createTime;
+
+    private Date updateTime;
+}
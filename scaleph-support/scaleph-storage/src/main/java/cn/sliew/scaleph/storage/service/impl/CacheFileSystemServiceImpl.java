@@ -15,28 +15,143 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package cn.sliew.scaleph.storage.service.impl;
 
+import cn.sliew.scaleph.storage.configuration.FileSystemCacheProperties;
 import cn.sliew.scaleph.storage.service.FileSystemService;
+import cn.sliew.scaleph.storage.utils.FileTransferUtil;
+import cn.sliew.scaleph.storage.utils.MultipartEtag;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+/**
+ * Caches remote files on local disk in a size budget.
+ * Concurrent misses of the same file share one download, and downloaded files are verified
+ * against the length and etag of the remote object before they are served. Files larger than
+ * the budget are served by the remote file system directly.
+ * <p>
+ * Remote objects may be overwritten by other instances, a cached file is checked against the
+ * length and modification time of the remote object once per
+ * {@link FileSystemCacheProperties#getRevalidateInterval()} and downloaded again when changed.
+ * <p>
+ * Reads pin the local copy, an evicted copy is deleted once the last reader releases it.
+ */
+@Slf4j
 @Service
 @Primary
-public class CacheFileSystemServiceImpl implements FileSystemService {
+public class CacheFileSystemServiceImpl implements FileSystemService, InitializingBean, DisposableBean, ApplicationRunner, MeterBinder {
+
+    private static final String CACHE_NAME = "file-system";
 
     @Autowired
     private FileSystemServiceImpl fileSystemService;
     @Autowired
     private LocalFileSystemSerivceImpl localFileSystemSerivce;
+    @Autowired
+    private FileSystemCacheProperties cacheProperties;
+
+    /**
+     * each download goes into its own generation directory, so deleting an evicted file never
+     * races with a new download of the same file
+     */
+    private final AtomicLong generations = new AtomicLong();
+
+    private final LongSupplier clock;
+
+    /**
+     * the configured directory may be shared, each instance caches into its own sub directory
+     */
+    private String directory;
+
+    private AsyncCache<String, CachedFile> cache;
+
+    /**
+     * content hash of local files and of remote files larger than the cache, recomputed when
+     * file size or modification time changes
+     */
+    private final Cache<String, ContentHash> contentHashCache = Caffeine.newBuilder()
+            .maximumSize(1024L)
+            .build();
+
+    public CacheFileSystemServiceImpl() {
+        this(System::currentTimeMillis);
+    }
+
+    CacheFileSystemServiceImpl(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        directory = new Path(cacheProperties.getDirectory(), UUID.randomUUID().toString()).toString();
+        cache = Caffeine.newBuilder()
+                .maximumWeight(cacheProperties.getMaxSize().toBytes())
+                .weigher((String fileName, CachedFile cachedFile) -> (int) Math.min(cachedFile.length, Integer.MAX_VALUE))
+                .expireAfterAccess(cacheProperties.getExpireAfterAccess())
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        cache.synchronous().invalidateAll();
+        localFileSystemSerivce.delete(directory);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (fileSystemService.isDistributedFS() == false || cacheProperties.getWarmUpPaths().isEmpty()) {
+            return;
+        }
+        CompletableFuture.runAsync(this::warmUp);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        Gauge.builder("cache.size.bytes", cache, asyncCache -> asyncCache.synchronous().policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .tag("cache", CACHE_NAME)
+                .description("The total size of cached files")
+                .baseUnit("bytes")
+                .register(registry);
+    }
 
     @Override
     public FileSystem getFileSystem() {
@@ -53,7 +168,7 @@ public class CacheFileSystemServiceImpl implements FileSystemService {
         if (fileSystemService.isDistributedFS() == false) {
             return fileSystemService.exists(fileName);
         }
-        if (localFileSystemSerivce.exists(fileName)) {
+        if (getCachedIfPresent(fileName) != null) {
             return true;
         }
         return fileSystemService.exists(fileName);
@@ -69,21 +184,40 @@ public class CacheFileSystemServiceImpl implements FileSystemService {
         if (fileSystemService.isDistributedFS() == false) {
             return fileSystemService.get(fileName);
         }
-        if (localFileSystemSerivce.exists(fileName)) {
-            return localFileSystemSerivce.get(fileName);
+        CachedFile cachedFile = pin(fileName);
+        if (cachedFile == null) {
+            return fileSystemService.get(fileName);
         }
-        try (InputStream inputStream = fileSystemService.get(fileName)) {
-            localFileSystemSerivce.upload(inputStream, fileName);
+        try {
+            return new FilterInputStream(localFileSystemSerivce.get(cachedFile.localName)) {
+
+                private final AtomicBoolean closed = new AtomicBoolean();
+
+                @Override
+                public void close() throws IOException {
+                    if (closed.compareAndSet(false, true) == false) {
+                        return;
+                    }
+                    try {
+                        super.close();
+                    } finally {
+                        release(cachedFile);
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            release(cachedFile);
+            throw e;
         }
-        return localFileSystemSerivce.get(fileName);
     }
 
     @Override
     public void upload(InputStream inputStream, String fileName) throws IOException {
-        if (fileSystemService.exists(fileName)) {
-            fileSystemService.delete(fileName);
-        }
         fileSystemService.upload(inputStream, fileName);
+        // drop the stale local copy
+        if (fileSystemService.isDistributedFS()) {
+            cache.synchronous().invalidate(fileName);
+        }
     }
 
     @Override
@@ -91,10 +225,7 @@ public class CacheFileSystemServiceImpl implements FileSystemService {
         if (fileSystemService.isDistributedFS() == false) {
             return fileSystemService.delete(fileName);
         }
-
-        if (localFileSystemSerivce.exists(fileName)) {
-            localFileSystemSerivce.delete(fileName);
-        }
+        cache.synchronous().invalidate(fileName);
         return fileSystemService.delete(fileName);
     }
 
@@ -103,15 +234,326 @@ public class CacheFileSystemServiceImpl implements FileSystemService {
         if (fileSystemService.isDistributedFS() == false) {
             return fileSystemService.getFileSize(fileName);
         }
-
-        if (localFileSystemSerivce.exists(fileName)) {
-            return localFileSystemSerivce.getFileSize(fileName);
+        CachedFile cachedFile = getCachedIfPresent(fileName);
+        if (cachedFile != null) {
+            return cachedFile.length;
         }
         return fileSystemService.getFileSize(fileName);
     }
 
+    @Override
+    public FileStatus getFileStatus(String fileName) throws IOException {
+        return fileSystemService.getFileStatus(fileName);
+    }
+
     @Override
     public List<FileStatus> listStatus(String directory) throws IOException {
         return fileSystemService.listStatus(directory);
     }
+
+    /**
+     * The cached copy of a remote file is not pinned, it is deleted once evicted.
+     * Use {@link #get(String)} or {@link #transferTo(String, long, long, WritableByteChannel)} to read it.
+     */
+    @Override
+    public File getLocalFile(String fileName) throws IOException {
+        if (fileSystemService.isDistributedFS() == false) {
+            return fileSystemService.getLocalFile(fileName);
+        }
+        CachedFile cachedFile = pin(fileName);
+        if (cachedFile == null) {
+            return null;
+        }
+        try {
+            return getLocalFile(fileName, cachedFile);
+        } finally {
+            release(cachedFile);
+        }
+    }
+
+    @Override
+    public long transferTo(String fileName, long position, long count, WritableByteChannel target) throws IOException {
+        if (fileSystemService.isDistributedFS() == false) {
+            return fileSystemService.transferTo(fileName, position, count, target);
+        }
+        CachedFile cachedFile = pin(fileName);
+        if (cachedFile == null) {
+            return fileSystemService.transferTo(fileName, position, count, target);
+        }
+        try {
+            File file = getLocalFile(fileName, cachedFile);
+            if (file == null) {
+                return fileSystemService.transferTo(fileName, position, count, target);
+            }
+            return FileTransferUtil.transferTo(file, position, count, target);
+        } finally {
+            release(cachedFile);
+        }
+    }
+
+    @Override
+    public String getContentHash(String fileName) throws IOException {
+        if (fileSystemService.isDistributedFS() == false) {
+            File file = fileSystemService.getLocalFile(fileName);
+            return file != null ? getContentHash(fileName, file) : fileSystemService.getContentHash(fileName);
+        }
+        CachedFile cachedFile = pin(fileName);
+        if (cachedFile == null) {
+            return getRemoteContentHash(fileName);
+        }
+        try {
+            File file = getLocalFile(fileName, cachedFile);
+            return file != null ? getContentHash(fileName, file) : getRemoteContentHash(fileName);
+        } finally {
+            release(cachedFile);
+        }
+    }
+
+    private String getContentHash(String fileName, File file) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        ContentHash contentHash = contentHashCache.getIfPresent(fileName);
+        if (contentHash != null && contentHash.length == length && contentHash.lastModified == lastModified) {
+            return contentHash.hash;
+        }
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            contentHash = new ContentHash(length, lastModified, FileTransferUtil.sha256(inputStream));
+        }
+        contentHashCache.put(fileName, contentHash);
+        return contentHash.hash;
+    }
+
+    /**
+     * files larger than the cache are hashed by streaming them from the remote file system, only
+     * once per size and modification time
+     */
+    private String getRemoteContentHash(String fileName) throws IOException {
+        FileStatus fileStatus = fileSystemService.getFileStatus(fileName);
+        ContentHash contentHash = contentHashCache.getIfPresent(fileName);
+        if (contentHash != null && contentHash.length == fileStatus.getLen()
+                && contentHash.lastModified == fileStatus.getModificationTime()) {
+            return contentHash.hash;
+        }
+        contentHash = new ContentHash(fileStatus.getLen(), fileStatus.getModificationTime(), fileSystemService.getContentHash(fileName));
+        contentHashCache.put(fileName, contentHash);
+        return contentHash.hash;
+    }
+
+    /**
+     * Pins the local copy of the file, the caller must {@link #release(CachedFile)} it.
+     *
+     * @return null if the file is larger than the cache
+     */
+    private CachedFile pin(String fileName) throws IOException {
+        while (true) {
+            CachedFile cachedFile = cacheLocally(fileName);
+            if (cachedFile == null) {
+                return null;
+            }
+            if (revalidate(fileName, cachedFile) && cachedFile.retain()) {
+                return cachedFile;
+            }
+            // stale, or evicted and deleted in the meantime, the next round caches it again
+        }
+    }
+
+    private void release(CachedFile cachedFile) {
+        if (cachedFile.release() == false) {
+            return;
+        }
+        try {
+            localFileSystemSerivce.delete(cachedFile.generation);
+        } catch (IOException e) {
+            log.error("clear local file system cache error! localName: {}", cachedFile.localName, e);
+        }
+    }
+
+    /**
+     * @return null if the pinned copy has been removed from disk by others
+     */
+    private File getLocalFile(String fileName, CachedFile cachedFile) throws IOException {
+        File file = localFileSystemSerivce.getLocalFile(cachedFile.localName);
+        if (file == null) {
+            remove(fileName, cachedFile);
+        }
+        return file;
+    }
+
+    /**
+     * Checks the cached copy against the remote object once per revalidate interval, a copy
+     * overwritten or deleted by others is removed from the cache.
+     *
+     * @return false if the copy is stale
+     */
+    private boolean revalidate(String fileName, CachedFile cachedFile) throws IOException {
+        long now = clock.getAsLong();
+        if (now - cachedFile.validatedAt < cacheProperties.getRevalidateInterval().toMillis()) {
+            return true;
+        }
+        FileStatus status;
+        try {
+            status = fileSystemService.getFileStatus(fileName);
+        } catch (FileNotFoundException e) {
+            status = null;
+        }
+        if (status != null && status.getLen() == cachedFile.length && status.getModificationTime() == cachedFile.modificationTime) {
+            cachedFile.validatedAt = now;
+            return true;
+        }
+        log.debug("remote file changed, drop local file system cache. fileName: {}", fileName);
+        remove(fileName, cachedFile);
+        return false;
+    }
+
+    /**
+     * Removes the copy only if it is still the cached one, a newer download is kept.
+     */
+    private void remove(String fileName, CachedFile cachedFile) {
+        CompletableFuture<CachedFile> current = cache.asMap().get(fileName);
+        if (current != null && current.isDone() && current.isCompletedExceptionally() == false && current.join() == cachedFile) {
+            cache.asMap().remove(fileName, current);
+        }
+    }
+
+    /**
+     * The first miss downloads the file in the calling thread, concurrent misses wait for it.
+     * Failed downloads are removed from the cache, the next miss retries.
+     *
+     * @return null if the file is larger than the cache
+     */
+    private CachedFile cacheLocally(String fileName) throws IOException {
+        CompletableFuture<CachedFile> download = new CompletableFuture<>();
+        CompletableFuture<CachedFile> cached = cache.get(fileName, (key, executor) -> download);
+        if (cached == download) {
+            try {
+                download.complete(download(fileName));
+            } catch (IOException | RuntimeException e) {
+                download.completeExceptionally(e);
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CachedFile getCachedIfPresent(String fileName) throws IOException {
+        CompletableFuture<CachedFile> cached = cache.getIfPresent(fileName);
+        if (cached == null || cached.isDone() == false || cached.isCompletedExceptionally()) {
+            return null;
+        }
+        CachedFile cachedFile = cached.join();
+        return cachedFile != null && revalidate(fileName, cachedFile) ? cachedFile : null;
+    }
+
+    /**
+     * @return null if the file is larger than the cache, the cache doesn't keep null values
+     */
+    private CachedFile download(String fileName) throws IOException {
+        FileStatus status = fileSystemService.getFileStatus(fileName);
+        if (status.getLen() > cacheProperties.getMaxSize().toBytes()) {
+            return null;
+        }
+        Path generation = new Path(directory, String.valueOf(generations.incrementAndGet()));
+        String localName = new Path(generation, fileName).toString();
+        MultipartEtag etag = cacheProperties.isVerifyChecksum() ? fileSystemService.newEtag() : null;
+        try {
+            try (InputStream inputStream = fileSystemService.get(fileName)) {
+                localFileSystemSerivce.upload(etag != null ? etag.wrap(inputStream) : inputStream, localName);
+            }
+            long length = localFileSystemSerivce.getFileSize(localName);
+            if (length != status.getLen()) {
+                throw new IOException(String.format("cache %s failed, length mismatch. expected: %d, actual: %d", fileName, status.getLen(), length));
+            }
+            if (etag != null) {
+                String expected = fileSystemService.getEtag(fileName);
+                if (expected != null && etag.hasSamePartCount(expected) && expected.equals(etag.getEtag()) == false) {
+                    throw new IOException(String.format("cache %s failed, etag mismatch. expected: %s, actual: %s", fileName, expected, etag.getEtag()));
+                }
+            }
+            return new CachedFile(generation.toString(), localName, length, status.getModificationTime(), clock.getAsLong());
+        } catch (IOException | RuntimeException e) {
+            localFileSystemSerivce.delete(generation.toString());
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the reference of the cache, the copy is deleted now or when the last reader releases it.
+     */
+    private void onRemoval(String fileName, CachedFile cachedFile, RemovalCause cause) {
+        if (cachedFile == null) {
+            return;
+        }
+        log.debug("remove local file system cache. fileName: {}, cause: {}", fileName, cause);
+        release(cachedFile);
+    }
+
+    private void warmUp() {
+        for (String path : cacheProperties.getWarmUpPaths()) {
+            try {
+                FileStatus status = fileSystemService.getFileStatus(path);
+                if (status.isFile()) {
+                    cacheLocally(path);
+                    continue;
+                }
+                for (FileStatus child : fileSystemService.listStatus(path)) {
+                    if (child.isFile()) {
+                        cacheLocally(new Path(path, child.getPath().getName()).toString());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("warm up local file system cache error! path: {}", path, e);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class CachedFile {
+
+        private final String generation;
+        private final String localName;
+        private final long length;
+        private final long modificationTime;
+
+        /**
+         * last time the copy was checked against the remote object
+         */
+        private volatile long validatedAt;
+
+        /**
+         * references of the cache and of readers, the generation is deleted when it drops to 0
+         */
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (references.compareAndSet(count, count + 1) == false);
+            return true;
+        }
+
+        /**
+         * @return true if this was the last reference
+         */
+        private boolean release() {
+            return references.decrementAndGet() == 0;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ContentHash {
+
+        private final long length;
+        private final long lastModified;
+        private final String hash;
+    }
 }
@@ -19,17 +19,24 @@
 package cn.sliew.scaleph.storage.service.impl;
 
 import cn.sliew.scaleph.storage.configuration.FileSystemType;
+import cn.sliew.scaleph.storage.configuration.FileSystemUploadProperties;
 import cn.sliew.scaleph.storage.service.FileSystemService;
-import org.apache.hadoop.fs.FSDataOutputStream;
-import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.IOUtils;
+import cn.sliew.scaleph.storage.utils.FileTransferUtil;
+import cn.sliew.scaleph.storage.utils.MultipartEtag;
+import org.apache.hadoop.fs.*;
+import org.apache.hadoop.fs.s3a.Constants;
+import org.apache.hadoop.fs.s3a.S3AEncryptionMethods;
+import org.apache.hadoop.fs.s3a.S3AFileSystem;
+import org.apache.hadoop.fs.s3a.S3AUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -38,8 +45,12 @@ import java.util.stream.Collectors;
 @Service
 public class FileSystemServiceImpl implements FileSystemService {
 
+    private static final String ETAG_CHECKSUM = "etag";
+
     @Resource
     private FileSystem fs;
+    @Autowired
+    private FileSystemUploadProperties uploadProperties;
 
     @Override
     public FileSystem getFileSystem() {
@@ -48,7 +59,7 @@ public class FileSystemServiceImpl implements FileSystemService {
 
     @Override
     public boolean isDistributedFS() {
-        return fs.getScheme().equals(FileSystemType.LOCAL.getSchema()) == false;
+        return FileSystemType.LOCAL.getSchema().startsWith(fs.getScheme() + ":") == false;
     }
 
     @Override
@@ -75,15 +86,67 @@ public class FileSystemServiceImpl implements FileSystemService {
         return fs.open(path);
     }
 
+    /**
+     * Overwrites the existing file directly. Object stores publish the object on close,
+     * readers see either the old or the new content without a pre-delete.
+     */
     @Override
     public void upload(InputStream inputStream, String fileName) throws IOException {
         Path path = new Path(fs.getWorkingDirectory(), fileName);
-        if (fs.exists(path.getParent()) == false) {
-            fs.mkdirs(path.getParent());
+        int bufferSize = (int) uploadProperties.getBufferSize().toBytes();
+        MultipartEtag etag = uploadProperties.isVerifyChecksum() ? newEtag() : null;
+        try (final FSDataOutputStream outputStream = fs.create(path, true, bufferSize)) {
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (etag != null) {
+                    etag.update(buffer, 0, read);
+                }
+            }
+        }
+        if (etag == null) {
+            return;
+        }
+        String actual = getEtag(fileName);
+        // s3 compatible stores may compute etags in their own way, only md5 etags of the same part count are comparable
+        if (actual == null || MultipartEtag.isMd5Etag(actual) == false || etag.hasSamePartCount(actual) == false) {
+            return;
+        }
+        if (actual.equals(etag.getEtag()) == false) {
+            // the previous object has been replaced already, the object is kept and the caller decides what to do
+            throw new IOException(String.format("upload %s failed, etag mismatch. expected: %s, actual: %s", path, etag.getEtag(), actual));
+        }
+    }
+
+    /**
+     * Etag calculator for the object store, in the part size s3a uploads with.
+     *
+     * @return null if the object etag is not the md5 digest of the content, that is, the file system
+     * is not s3a or objects are encrypted by SSE-KMS, SSE-C or on the client side
+     */
+    public MultipartEtag newEtag() {
+        if ((fs instanceof S3AFileSystem) == false) {
+            return null;
+        }
+        S3AEncryptionMethods encryption = ((S3AFileSystem) fs).getS3EncryptionAlgorithm();
+        if (encryption != S3AEncryptionMethods.NONE && encryption != S3AEncryptionMethods.SSE_S3) {
+            return null;
         }
-        try (final FSDataOutputStream outputStream = fs.create(path, false)) {
-            IOUtils.copyBytes(inputStream, outputStream, 1024);
+        // s3a raises part size below the minimum s3 accepts to the minimum
+        return new MultipartEtag(S3AUtils.getMultipartSizeProperty(fs.getConf(), Constants.MULTIPART_SIZE, Constants.DEFAULT_MULTIPART_SIZE));
+    }
+
+    /**
+     * @return null if the file system doesn't expose etag as file checksum
+     */
+    public String getEtag(String fileName) throws IOException {
+        Path path = new Path(fs.getWorkingDirectory(), fileName);
+        FileChecksum checksum = fs.getFileChecksum(path);
+        if (checksum == null || ETAG_CHECKSUM.equals(checksum.getAlgorithmName()) == false) {
+            return null;
         }
+        return new String(checksum.getBytes(), StandardCharsets.UTF_8).replace("\"", "");
     }
 
     @Override
@@ -99,6 +162,12 @@ public class FileSystemServiceImpl implements FileSystemService {
         return fileStatus.getLen();
     }
 
+    @Override
+    public FileStatus getFileStatus(String fileName) throws IOException {
+        Path path = new Path(fs.getWorkingDirectory(), fileName);
+        return fs.getFileStatus(path);
+    }
+
     @Override
     public List<FileStatus> listStatus(String directory) throws IOException {
         Path path = new Path(fs.getWorkingDirectory(), directory);
@@ -107,4 +176,35 @@ public class FileSystemServiceImpl implements FileSystemService {
         }
         return Collections.emptyList();
     }
+
+    @Override
+    public File getLocalFile(String fileName) throws IOException {
+        if (isDistributedFS()) {
+            return null;
+        }
+        Path path = new Path(fs.getWorkingDirectory(), fileName);
+        if (fs.exists(path) == false) {
+            return null;
+        }
+        return new File(path.toUri().getPath());
+    }
+
+    @Override
+    public long transferTo(String fileName, long position, long count, WritableByteChannel target) throws IOException {
+        File file = getLocalFile(fileName);
+        if (file != null) {
+            return FileTransferUtil.transferTo(file, position, count, target);
+        }
+        Path path = new Path(fs.getWorkingDirectory(), fileName);
+        try (FSDataInputStream inputStream = fs.open(path, FileTransferUtil.BUFFER_SIZE)) {
+            return FileTransferUtil.transferTo(inputStream, position, count, target);
+        }
+    }
+
+    @Override
+    public String getContentHash(String fileName) throws IOException {
+        try (InputStream inputStream = get(fileName)) {
+            return FileTransferUtil.sha256(inputStream);
+        }
+    }
 }
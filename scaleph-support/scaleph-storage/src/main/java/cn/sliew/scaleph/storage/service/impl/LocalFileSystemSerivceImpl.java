@@ -18,13 +18,9 @@
 
 package cn.sliew.scaleph.storage.service.impl;
 
-import cn.sliew.milky.common.util.JacksonUtil;
 import cn.sliew.scaleph.storage.service.FileSystemService;
+import cn.sliew.scaleph.storage.utils.FileTransferUtil;
 import cn.sliew.scaleph.storage.utils.HadoopUtil;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalListener;
-import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.*;
 import org.apache.hadoop.io.IOUtils;
@@ -32,28 +28,17 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.Duration;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
-@Slf4j
 @Service
 public class LocalFileSystemSerivceImpl implements FileSystemService, InitializingBean, DisposableBean {
 
-    private Cache<String, Path> cache = Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofHours(1L))
-            .removalListener((RemovalListener<String, Path>) (cacheKey, path, removalCause) -> {
-                try {
-                    delete(cacheKey);
-                } catch (IOException e) {
-                    log.error("clear local file system cache error! cacheKey: {}, path: {}",
-                            JacksonUtil.toJsonString(cacheKey), path, e);
-                }
-            })
-            .build();
-
-    private FileSystem fs;
+    private LocalFileSystem fs;
 
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -96,19 +81,13 @@ public class LocalFileSystemSerivceImpl implements FileSystemService, Initializi
     @Override
     public void upload(InputStream inputStream, String fileName) throws IOException {
         Path path = new Path(fs.getWorkingDirectory(), fileName);
-        if (fs.exists(path.getParent()) == false) {
-            fs.mkdirs(path.getParent());
-        }
-        try (final FSDataOutputStream outputStream = fs.create(path, false)) {
-            IOUtils.copyBytes(inputStream, outputStream, 1024);
+        try (final FSDataOutputStream outputStream = fs.create(path, true, FileTransferUtil.BUFFER_SIZE)) {
+            IOUtils.copyBytes(inputStream, outputStream, FileTransferUtil.BUFFER_SIZE);
         }
-        // enable cache and will be evicted automatically in the later hour
-        cache.put(fileName, path);
     }
 
     @Override
     public boolean delete(String fileName) throws IOException {
-        cache.invalidate(fileName);
         Path path = new Path(fs.getWorkingDirectory(), fileName);
         return fs.delete(path, true);
     }
@@ -120,8 +99,39 @@ public class LocalFileSystemSerivceImpl implements FileSystemService, Initializi
         return fileStatus.getLen();
     }
 
+    @Override
+    public FileStatus getFileStatus(String fileName) throws IOException {
+        Path path = new Path(fs.getWorkingDirectory(), fileName);
+        return fs.getFileStatus(path);
+    }
+
     @Override
     public List<FileStatus> listStatus(String directory) throws IOException {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public File getLocalFile(String fileName) throws IOException {
+        Path path = new Path(fs.getWorkingDirectory(), fileName);
+        if (fs.exists(path) == false) {
+            return null;
+        }
+        return fs.pathToFile(path);
+    }
+
+    @Override
+    public long transferTo(String fileName, long position, long count, WritableByteChannel target) throws IOException {
+        File file = getLocalFile(fileName);
+        if (file == null) {
+            throw new FileNotFoundException(fileName);
+        }
+        return FileTransferUtil.transferTo(file, position, count, target);
+    }
+
+    @Override
+    public String getContentHash(String fileName) throws IOException {
+        try (InputStream inputStream = get(fileName)) {
+            return FileTransferUtil.sha256(inputStream);
+        }
+    }
 }
@@ -15,71 +15,473 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package cn.sliew.scaleph.storage.service.impl;
 
+import cn.sliew.milky.common.util.JacksonUtil;
+import cn.sliew.scaleph.storage.configuration.RemoteFetchProperties;
 import cn.sliew.scaleph.storage.service.FileSystemService;
 import cn.sliew.scaleph.storage.service.RemoteService;
+import cn.sliew.scaleph.storage.service.dto.DownloadTaskDTO;
+import cn.sliew.scaleph.storage.service.enums.DownloadStatus;
+import cn.sliew.scaleph.storage.utils.FileTransferUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import okhttp3.logging.HttpLoggingInterceptor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
 
+/**
+ * Downloads remote files into {@link FileSystemService}.
+ * Downloads from the same host share a bounded pool, failed attempts are retried with exponential backoff
+ * and resume the partially downloaded file by http range requests. Tasks are persisted as json next to the
+ * partial files, unfinished tasks, including those interrupted by shutdown, are resumed at startup.
+ * Task files of successful downloads are removed.
+ */
 @Slf4j
 @Service
-public class RemoteServiceImpl implements RemoteService, InitializingBean {
+public class RemoteServiceImpl implements RemoteService, InitializingBean, DisposableBean, ApplicationRunner {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String TASK_SUFFIX = ".json";
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000L;
 
     private OkHttpClient client;
 
     @Autowired
     private FileSystemService fileSystemService;
+    @Autowired
+    private RemoteFetchProperties properties;
+
+    private final ConcurrentMap<String, ExecutorService> hostExecutors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DownloadTaskDTO> runningTasks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<DownloadTaskDTO>> completions = new ConcurrentHashMap<>();
+
+    /**
+     * successful tasks are removed from disk, they are kept in memory for a while for {@link #getTask(String)}
+     */
+    private final Cache<String, DownloadTaskDTO> succeededTasks = Caffeine.newBuilder()
+            .maximumSize(1024L)
+            .expireAfterWrite(Duration.ofHours(1L))
+            .build();
+
+    private Path directory;
+    private volatile boolean stopping = false;
 
     @Override
     public void afterPropertiesSet() throws Exception {
         client = new OkHttpClient.Builder()
                 .connectTimeout(Duration.ofMinutes(1L))
                 .callTimeout(Duration.ofHours(3L))
-                .readTimeout(Duration.ofHours(3L))
-                .writeTimeout(Duration.ofHours(3L))
+                .readTimeout(Duration.ofMinutes(5L))
+                .writeTimeout(Duration.ofMinutes(5L))
                 .addInterceptor(new HttpLoggingInterceptor())
                 .build();
+        directory = Files.createDirectories(Paths.get(properties.getDirectory()));
     }
 
     @Override
-    public void fetch(String url, String fileName) throws IOException {
-        Request request = new Request.Builder()
-                .url(url)
-                .build();
+    public void destroy() throws Exception {
+        // interrupted tasks stay pending and are resumed at next startup
+        stopping = true;
+        hostExecutors.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    /**
+     * Resumes tasks interrupted by the last shutdown.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(TASK_SUFFIX)).forEach(file -> {
+                try {
+                    DownloadTaskDTO task = readTask(file);
+                    if (task.getStatus().isTerminated() == false) {
+                        fetch(task.getUrl(), task.getFileName(), task.getChecksumUrl());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.error("resume remote file download error! task: {}", file, e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public DownloadTaskDTO fetch(String url, String fileName) throws IOException {
+        return fetch(url, fileName, null);
+    }
+
+    @Override
+    public synchronized DownloadTaskDTO fetch(String url, String fileName, String checksumUrl) throws IOException {
+        HttpUrl httpUrl = HttpUrl.get(url);
+        String taskId = Hashing.sha256().hashString(url + "\n" + fileName, StandardCharsets.UTF_8).toString();
+        CompletableFuture<DownloadTaskDTO> completion = new CompletableFuture<>();
+        if (completions.putIfAbsent(taskId, completion) != null) {
+            return getTask(taskId);
+        }
+        DownloadTaskDTO task = Files.exists(taskFile(taskId)) ? readTask(taskFile(taskId)) : null;
+        if (task == null || checksumUrl != null && checksumUrl.equals(task.getChecksumUrl()) == false) {
+            task = new DownloadTaskDTO();
+            task.setId(taskId);
+            task.setUrl(url);
+            task.setFileName(fileName);
+            task.setChecksumUrl(checksumUrl);
+            task.setDownloadedBytes(0L);
+            task.setTotalBytes(-1L);
+            task.setCreateTime(new Date());
+            Files.deleteIfExists(partFile(taskId));
+        }
+        task.setStatus(DownloadStatus.PENDING);
+        task.setAttempts(0);
+        task.setMessage(null);
+        saveTask(task);
+        runningTasks.put(taskId, task);
+
+        DownloadTaskDTO runningTask = task;
+        try {
+            hostExecutors.computeIfAbsent(httpUrl.host(), this::newHostExecutor)
+                    .execute(() -> download(runningTask, completion));
+        } catch (RejectedExecutionException e) {
+            runningTasks.remove(taskId);
+            completions.remove(taskId);
+            throw new IOException("remote service is shutting down", e);
+        }
+        return snapshot(task);
+    }
 
-        Callback callback = new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                log.error("download remote file: {} from {} error!", fileName, url, e);
+    @Override
+    public DownloadTaskDTO getTask(String taskId) throws IOException {
+        DownloadTaskDTO task = runningTasks.get(taskId);
+        if (task != null) {
+            return snapshot(task);
+        }
+        DownloadTaskDTO succeeded = succeededTasks.getIfPresent(taskId);
+        if (succeeded != null) {
+            return succeeded;
+        }
+        Path taskFile = taskFile(taskId);
+        return Files.exists(taskFile) ? readTask(taskFile) : null;
+    }
+
+    @Override
+    public CompletableFuture<DownloadTaskDTO> getCompletion(String taskId) throws IOException {
+        CompletableFuture<DownloadTaskDTO> completion = completions.get(taskId);
+        if (completion != null) {
+            return completion;
+        }
+        DownloadTaskDTO task = getTask(taskId);
+        if (task == null) {
+            return null;
+        }
+        // completed between the two lookups
+        completion = completions.get(taskId);
+        return completion != null ? completion : CompletableFuture.completedFuture(task);
+    }
+
+    @Override
+    public void generate(String fileName) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    private ExecutorService newHostExecutor(String host) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.getMaxConcurrencyPerHost(), properties.getMaxConcurrencyPerHost(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("remote-fetch-" + host + "-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void download(DownloadTaskDTO task, CompletableFuture<DownloadTaskDTO> completion) {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    update(task, DownloadStatus.RUNNING, attempt, null);
+                    String checksum = StringUtils.hasText(task.getChecksumUrl()) ? fetchChecksum(task.getChecksumUrl()) : null;
+                    Path partFile = partFile(task.getId());
+                    downloadPart(task, partFile);
+                    verifyChecksum(task, partFile, checksum);
+                    try (InputStream inputStream = Files.newInputStream(partFile)) {
+                        fileSystemService.upload(inputStream, task.getFileName());
+                    }
+                    Files.deleteIfExists(partFile);
+                    update(task, DownloadStatus.SUCCESS, attempt, null);
+                    succeededTasks.put(task.getId(), snapshot(task));
+                    Files.deleteIfExists(taskFile(task.getId()));
+                    return;
+                } catch (IOException e) {
+                    if (stopping) {
+                        // blocking io is aborted by shutdown
+                        updateQuietly(task, DownloadStatus.PENDING, attempt, "interrupted by shutdown");
+                        return;
+                    }
+                    if (attempt >= properties.getMaxAttempts() || isRetryable(e) == false) {
+                        log.error("download remote file: {} from {} error!", task.getFileName(), task.getUrl(), e);
+                        updateQuietly(task, DownloadStatus.FAILED, attempt, e.getMessage());
+                        return;
+                    }
+                    long backoff = backoff(attempt);
+                    log.warn("download remote file: {} from {} error, retry in {}ms! attempt: {}",
+                            task.getFileName(), task.getUrl(), backoff, attempt, e);
+                    Thread.sleep(backoff);
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            updateQuietly(task, DownloadStatus.PENDING, task.getAttempts(), "interrupted by shutdown");
+        } catch (RuntimeException e) {
+            log.error("download remote file: {} from {} error!", task.getFileName(), task.getUrl(), e);
+            updateQuietly(task, DownloadStatus.FAILED, task.getAttempts(), e.getMessage());
+        } finally {
+            runningTasks.remove(task.getId());
+            completions.remove(task.getId());
+            completion.complete(snapshot(task));
+        }
+    }
 
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (response.isSuccessful() == false) {
-                    log.error("download remote file: {} from {} error! code: {}, message: {}",
-                            fileName, url, response.code(), response.message());
+    /**
+     * Resumes from the end of the partial file with {@code Range} and {@code If-Range}, the server
+     * sends the whole file again if it doesn't support range requests or the file has changed.
+     */
+    private void downloadPart(DownloadTaskDTO task, Path partFile) throws IOException {
+        long offset = Files.exists(partFile) ? Files.size(partFile) : 0L;
+        Request.Builder builder = new Request.Builder().url(task.getUrl());
+        if (offset > 0L) {
+            builder.header("Range", "bytes=" + offset + "-");
+            if (task.getValidator() != null) {
+                builder.header("If-Range", task.getValidator());
+            }
+        }
+        try (Response response = client.newCall(builder.build()).execute()) {
+            if (response.code() == 416 && offset > 0L) {
+                // partial file is complete or longer than the remote file
+                if (offset == contentRangeTotal(response)) {
                     return;
                 }
-                try (InputStream inputStream = response.body().byteStream()) {
-                    fileSystemService.upload(inputStream, fileName);
+                Files.deleteIfExists(partFile);
+                throw new HttpStatusException(response.code(), response.message());
+            }
+            if (response.isSuccessful() == false) {
+                throw new HttpStatusException(response.code(), response.message());
+            }
+            boolean append = response.code() == 206 && contentRangeStart(response) == offset;
+            if (append == false) {
+                offset = 0L;
+            }
+            ResponseBody body = response.body();
+            long totalBytes = body.contentLength() < 0L ? -1L : offset + body.contentLength();
+            synchronized (task) {
+                task.setDownloadedBytes(offset);
+                task.setTotalBytes(totalBytes);
+                task.setValidator(validator(response));
+            }
+            saveTask(task);
+
+            OpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (InputStream inputStream = body.byteStream();
+                 OutputStream outputStream = Files.newOutputStream(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                byte[] buffer = new byte[FileTransferUtil.BUFFER_SIZE];
+                long saveTime = System.currentTimeMillis();
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                    offset += read;
+                    synchronized (task) {
+                        task.setDownloadedBytes(offset);
+                    }
+                    if (System.currentTimeMillis() - saveTime >= PROGRESS_INTERVAL_MILLIS) {
+                        saveTask(task);
+                        saveTime = System.currentTimeMillis();
+                    }
                 }
+            } finally {
+                saveTask(task);
+            }
+            if (totalBytes >= 0L && offset != totalBytes) {
+                throw new IOException(String.format("unexpected end of stream, expected: %d, actual: %d", totalBytes, offset));
             }
-        };
-        client.newCall(request).enqueue(callback);
+        }
     }
 
-    @Override
-    public void generate(String fileName) throws IOException {
-        throw new UnsupportedOperationException();
+    private String fetchChecksum(String checksumUrl) throws IOException {
+        Request request = new Request.Builder().url(checksumUrl).build();
+        try (Response response = client.newCall(request).execute()) {
+            if (response.isSuccessful() == false) {
+                throw new HttpStatusException(response.code(), response.message());
+            }
+            // maven checksum files may be followed by the file name
+            String content = response.body().string().trim();
+            return content.split("\\s+")[0].toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private void verifyChecksum(DownloadTaskDTO task, Path partFile, String expected) throws IOException {
+        if (expected == null) {
+            return;
+        }
+        MessageDigest digest = newDigest(task.getChecksumUrl());
+        try (InputStream inputStream = new DigestInputStream(Files.newInputStream(partFile), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        String actual = HashCode.fromBytes(digest.digest()).toString();
+        if (actual.equals(expected) == false) {
+            Files.deleteIfExists(partFile);
+            throw new IOException(String.format("checksum mismatch, expected: %s, actual: %s", expected, actual));
+        }
+    }
+
+    private MessageDigest newDigest(String checksumUrl) throws IOException {
+        String extension = StringUtils.getFilenameExtension(HttpUrl.get(checksumUrl).encodedPath());
+        String algorithm;
+        switch (extension == null ? "" : extension.toLowerCase(Locale.ROOT)) {
+            case "md5":
+                algorithm = "MD5";
+                break;
+            case "sha1":
+                algorithm = "SHA-1";
+                break;
+            case "sha256":
+                algorithm = "SHA-256";
+                break;
+            case "sha512":
+                algorithm = "SHA-512";
+                break;
+            default:
+                throw new HttpStatusException(400, "unknown checksum file: " + checksumUrl);
+        }
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * client errors except timeout and throttling fail immediately
+     */
+    private boolean isRetryable(IOException e) {
+        if (e instanceof HttpStatusException) {
+            int code = ((HttpStatusException) e).code;
+            return code >= 500 || code == 408 || code == 416 || code == 429;
+        }
+        return true;
+    }
+
+    private long backoff(int attempt) {
+        long backoff = properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20);
+        backoff = Math.min(backoff, properties.getMaxBackoff().toMillis());
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * weak etags can't be used in If-Range
+     */
+    private String validator(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && etag.startsWith("W/") == false) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    private long contentRangeStart(Response response) {
+        // bytes 100-199/200
+        String contentRange = response.header("Content-Range");
+        if (contentRange == null || contentRange.startsWith("bytes ") == false || contentRange.indexOf('-') < 0) {
+            return -1L;
+        }
+        return Long.parseLong(contentRange.substring("bytes ".length(), contentRange.indexOf('-')).trim());
+    }
+
+    private long contentRangeTotal(Response response) {
+        // bytes */200
+        String contentRange = response.header("Content-Range");
+        if (contentRange == null || contentRange.indexOf('/') < 0 || contentRange.endsWith("*")) {
+            return -1L;
+        }
+        return Long.parseLong(contentRange.substring(contentRange.indexOf('/') + 1).trim());
+    }
+
+    private void update(DownloadTaskDTO task, DownloadStatus status, int attempts, String message) throws IOException {
+        synchronized (task) {
+            task.setStatus(status);
+            task.setAttempts(attempts);
+            task.setMessage(message);
+        }
+        saveTask(task);
+    }
+
+    private void updateQuietly(DownloadTaskDTO task, DownloadStatus status, int attempts, String message) {
+        try {
+            update(task, status, attempts, message);
+        } catch (IOException e) {
+            log.error("save remote file download task error! task: {}", task.getId(), e);
+        }
+    }
+
+    private DownloadTaskDTO snapshot(DownloadTaskDTO task) {
+        DownloadTaskDTO snapshot = new DownloadTaskDTO();
+        synchronized (task) {
+            BeanUtils.copyProperties(task, snapshot);
+        }
+        return snapshot;
+    }
+
+    private void saveTask(DownloadTaskDTO task) throws IOException {
+        DownloadTaskDTO snapshot = snapshot(task);
+        snapshot.setUpdateTime(new Date());
+        synchronized (task) {
+            task.setUpdateTime(snapshot.getUpdateTime());
+        }
+        Path taskFile = taskFile(task.getId());
+        Path tmpFile = directory.resolve(task.getId() + TASK_SUFFIX + ".tmp");
+        Files.writeString(tmpFile, JacksonUtil.toJsonString(snapshot), StandardCharsets.UTF_8);
+        Files.move(tmpFile, taskFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private DownloadTaskDTO readTask(Path taskFile) throws IOException {
+        return JacksonUtil.parseJsonString(Files.readString(taskFile, StandardCharsets.UTF_8), DownloadTaskDTO.class);
+    }
+
+    private Path taskFile(String taskId) {
+        return directory.resolve(taskId + TASK_SUFFIX);
+    }
+
+    private Path partFile(String taskId) {
+        return directory.resolve(taskId + PART_SUFFIX);
+    }
+
+    private static class HttpStatusException extends IOException {
+
+        private final int code;
+
+        private HttpStatusException(int code, String message) {
+            super("http status: " + code + ", message: " + message);
+            this.code = code;
+        }
     }
 }
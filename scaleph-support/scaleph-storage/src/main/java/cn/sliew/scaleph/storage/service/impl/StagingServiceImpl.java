@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.StagingProperties;
+import cn.sliew.scaleph.storage.service.StagingService;
+import cn.sliew.scaleph.storage.service.staging.StagingPlan;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class StagingServiceImpl implements StagingService, InitializingBean, DisposableBean {
+
+    @Autowired
+    private StagingProperties properties;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        executor = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("staging-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void stage(StagingPlan plan) throws IOException {
+        long start = System.nanoTime();
+        List<StagingPlan.Stage<?>> stages = plan.getStages();
+        Map<StagingPlan.Stage<?>, CompletableFuture<Void>> futures = new HashMap<>();
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        for (StagingPlan.Stage<?> stage : stages) {
+            CompletableFuture<?>[] dependencies = stage.getDependencies().stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+                    .thenRunAsync(() -> run(stage), executor);
+            future.whenComplete((unused, throwable) -> {
+                if (throwable != null) {
+                    failure.completeExceptionally(throwable);
+                }
+            });
+            futures.put(stage, future);
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+        try {
+            CompletableFuture.anyOf(all, failure).get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("staging interrupted");
+        } catch (TimeoutException e) {
+            throw new IOException("staging timeout after " + properties.getTimeout() + ", unfinished stages: " + unfinished(stages));
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } finally {
+            futures.values().forEach(future -> future.cancel(false));
+            log.info("staging finished in {} ms, stages: {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), durations(plan));
+        }
+    }
+
+    private void run(StagingPlan.Stage<?> stage) {
+        try {
+            stage.run();
+        } catch (Exception e) {
+            throw new CompletionException(new IOException("stage " + stage.getName() + " failed", e));
+        }
+    }
+
+    private IOException unwrap(Throwable throwable) {
+        while (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof IOException) {
+            return (IOException) throwable;
+        }
+        return new IOException(throwable);
+    }
+
+    private String durations(StagingPlan plan) {
+        return plan.getDurations().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue().toMillis() + "ms")
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private String unfinished(List<StagingPlan.Stage<?>> stages) {
+        return stages.stream()
+                .filter(stage -> stage.isDone() == false)
+                .map(StagingPlan.Stage::getName)
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.storage.service.staging;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static cn.sliew.milky.common.check.Ensures.checkState;
+
+/**
+ * Files a task needs before it can run, as a graph of stages.
+ * <p>
+ * A stage runs once all of its dependencies are done, stages without a path between them run concurrently.
+ * Dependencies must be added to the plan before the stages depending on them, so the plan is acyclic
+ * by construction. Loaders can read values of their dependencies by {@link Stage#get()}.
+ */
+public class StagingPlan {
+
+    private final List<Stage<?>> stages = new ArrayList<>();
+
+    public <T> Stage<T> add(String name, Callable<T> loader, Stage<?>... dependencies) {
+        return add(name, loader, Arrays.asList(dependencies));
+    }
+
+    public synchronized <T> Stage<T> add(String name, Callable<T> loader, List<? extends Stage<?>> dependencies) {
+        for (Stage<?> dependency : dependencies) {
+            checkState(dependency.plan == this, () -> "stage " + dependency.getName() + " not belongs to the plan");
+        }
+        Stage<T> stage = new Stage<>(this, name, loader, new ArrayList<>(dependencies));
+        stages.add(stage);
+        return stage;
+    }
+
+    public synchronized List<Stage<?>> getStages() {
+        return Collections.unmodifiableList(new ArrayList<>(stages));
+    }
+
+    /**
+     * elapsed time of every finished stage, in the order they are added
+     */
+    public Map<String, Duration> getDurations() {
+        Map<String, Duration> durations = new LinkedHashMap<>();
+        for (Stage<?> stage : getStages()) {
+            if (stage.isDone()) {
+                durations.put(stage.getName(), stage.getDuration());
+            }
+        }
+        return durations;
+    }
+
+    @Getter
+    public static class Stage<T> {
+
+        private final StagingPlan plan;
+        private final String name;
+        private final Callable<T> loader;
+        private final List<Stage<?>> dependencies;
+
+        private volatile boolean done;
+        private volatile T value;
+        private volatile Duration duration;
+
+        private Stage(StagingPlan plan, String name, Callable<T> loader, List<Stage<?>> dependencies) {
+            this.plan = plan;
+            this.name = name;
+            this.loader = loader;
+            this.dependencies = dependencies;
+        }
+
+        public T get() {
+            checkState(done, () -> "stage " + name + " not finished");
+            return value;
+        }
+
+        public void run() throws Exception {
+            long start = System.nanoTime();
+            value = loader.call();
+            duration = Duration.ofNanos(System.nanoTime() - start);
+            done = true;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.utils;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.fs.FSDataInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+public enum FileTransferUtil {
+    ;
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Transfer {@code count} bytes of local file starting from {@code position} by
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which is zero-copy if the
+     * target channel is a socket or file channel.
+     *
+     * @return the number of bytes transferred
+     */
+    public static long transferTo(File file, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = Math.min(position + count, channel.size());
+            long current = position;
+            while (current < end) {
+                long transferred = channel.transferTo(current, end - current, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                current += transferred;
+            }
+            return current - position;
+        }
+    }
+
+    /**
+     * Transfer {@code count} bytes of remote file starting from {@code position}.
+     *
+     * @return the number of bytes transferred
+     */
+    public static long transferTo(FSDataInputStream inputStream, long position, long count, WritableByteChannel target) throws IOException {
+        inputStream.seek(position);
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(count, 1L))];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+            while (byteBuffer.hasRemaining()) {
+                target.write(byteBuffer);
+            }
+            remaining -= read;
+        }
+        return count - remaining;
+    }
+
+    /**
+     * sha256 hex digest of the stream content, the stream is not closed.
+     */
+    public static String sha256(InputStream inputStream) throws IOException {
+        HashingInputStream hashingInputStream = new HashingInputStream(Hashing.sha256(), inputStream);
+        ByteStreams.exhaust(hashingInputStream);
+        return hashingInputStream.hash().toString();
+    }
+}
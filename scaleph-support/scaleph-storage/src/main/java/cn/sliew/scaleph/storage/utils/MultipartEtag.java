@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.utils;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Pattern;
+
+/**
+ * Computes the etag s3 assigns to an object uploaded in parts of {@code partSize}:
+ * md5 of the content for single part uploads, otherwise md5 of the concatenated part md5s
+ * followed by {@code -<part count>}.
+ */
+public class MultipartEtag {
+
+    private static final Pattern MD5_ETAG = Pattern.compile("[0-9a-f]{32}(-[0-9]+)?");
+
+    private final long partSize;
+    private final ByteArrayOutputStream partDigests = new ByteArrayOutputStream();
+
+    private Hasher part = newHasher();
+    private long partLength;
+    private int partCount;
+    private String etag;
+
+    public MultipartEtag(long partSize) {
+        this.partSize = partSize;
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            int size = (int) Math.min(length, partSize - partLength);
+            part.putBytes(bytes, offset, size);
+            partLength += size;
+            offset += size;
+            length -= size;
+            if (partLength == partSize) {
+                finishPart();
+            }
+        }
+    }
+
+    /**
+     * Updates the etag with the content read from the returned stream.
+     */
+    public InputStream wrap(InputStream inputStream) {
+        return new FilterInputStream(inputStream) {
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    update(new byte[]{(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                int read = super.read(bytes, offset, length);
+                if (read > 0) {
+                    update(bytes, offset, read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    public String getEtag() {
+        if (etag != null) {
+            return etag;
+        }
+        if (partCount == 0) {
+            etag = part.hash().toString();
+            return etag;
+        }
+        if (partLength > 0) {
+            finishPart();
+        }
+        String digest = newHasher().putBytes(partDigests.toByteArray()).hash().toString();
+        etag = digest + "-" + partCount;
+        return etag;
+    }
+
+    /**
+     * Objects uploaded in another part size usually have another part count, their etags are not
+     * comparable with {@link #getEtag()}.
+     */
+    public boolean hasSamePartCount(String etag) {
+        return partCount(getEtag()) == partCount(etag);
+    }
+
+    /**
+     * Whether the etag has the format of {@link #getEtag()}, stores which don't derive etags from md5
+     * usually don't have it.
+     */
+    public static boolean isMd5Etag(String etag) {
+        return MD5_ETAG.matcher(etag).matches();
+    }
+
+    private static int partCount(String etag) {
+        int index = etag.lastIndexOf('-');
+        return index < 0 ? 0 : Integer.parseInt(etag.substring(index + 1));
+    }
+
+    private void finishPart() {
+        partDigests.writeBytes(part.hash().asBytes());
+        partCount++;
+        part = newHasher();
+        partLength = 0;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Hasher newHasher() {
+        return Hashing.md5().newHasher();
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.FileSystemCacheProperties;
+import cn.sliew.scaleph.storage.configuration.FileSystemUploadProperties;
+import cn.sliew.scaleph.storage.utils.FileTransferUtil;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheFileSystemServiceImplTest {
+
+    private static final int THREADS = 8;
+
+    private LocalS3Server server;
+    private FileSystem fs;
+    private FileSystemServiceImpl fileSystemService;
+    private final AtomicLong clock = new AtomicLong();
+    private LocalFileSystemSerivceImpl localFileSystemSerivce;
+    private FileSystemCacheProperties cacheProperties;
+    private CacheFileSystemServiceImpl cacheFileSystemService;
+    private SimpleMeterRegistry registry;
+    private Path directory;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = new LocalS3Server("scaleph");
+        FileSystemUploadProperties uploadProperties = new FileSystemUploadProperties();
+        uploadProperties.setPartSize(DataSize.ofMegabytes(5L));
+        fs = server.newFileSystem(uploadProperties);
+        fileSystemService = new FileSystemServiceImpl();
+        ReflectionTestUtils.setField(fileSystemService, "fs", fs);
+        ReflectionTestUtils.setField(fileSystemService, "uploadProperties", uploadProperties);
+
+        localFileSystemSerivce = new LocalFileSystemSerivceImpl();
+        localFileSystemSerivce.afterPropertiesSet();
+
+        directory = Files.createTempDirectory("scaleph-cache");
+        cacheProperties = new FileSystemCacheProperties();
+        cacheProperties.setDirectory(directory.toString());
+        cacheProperties.setMaxSize(DataSize.ofMegabytes(3L));
+        cacheFileSystemService = new CacheFileSystemServiceImpl(clock::get);
+        ReflectionTestUtils.setField(cacheFileSystemService, "fileSystemService", fileSystemService);
+        ReflectionTestUtils.setField(cacheFileSystemService, "localFileSystemSerivce", localFileSystemSerivce);
+        ReflectionTestUtils.setField(cacheFileSystemService, "cacheProperties", cacheProperties);
+        cacheFileSystemService.afterPropertiesSet();
+        registry = new SimpleMeterRegistry();
+        cacheFileSystemService.bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cacheFileSystemService.destroy();
+        localFileSystemSerivce.delete(directory.toString());
+        localFileSystemSerivce.destroy();
+        fs.close();
+        server.close();
+    }
+
+    @Test
+    void concurrentMissesDownloadOnce() throws Exception {
+        byte[] content = randomBytes(1024 * 1024);
+        cacheFileSystemService.upload(new ByteArrayInputStream(content), "jar/single-flight.jar");
+        int gets = server.getObjectGetCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try (InputStream inputStream = cacheFileSystemService.get("jar/single-flight.jar")) {
+                        return StreamUtils.copyToByteArray(inputStream);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<byte[]> future : futures) {
+                assertArrayEquals(content, future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(gets + 1, server.getObjectGetCount());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(THREADS - 1, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void evictBeyondMaxSize() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            cacheFileSystemService.upload(new ByteArrayInputStream(randomBytes(1024 * 1024)), "jar/evict-" + i + ".jar");
+            assertNotNull(cacheFileSystemService.getLocalFile("jar/evict-" + i + ".jar"));
+        }
+        ((AsyncCache<?, ?>) ReflectionTestUtils.getField(cacheFileSystemService, "cache")).synchronous().cleanUp();
+
+        double size = registry.get("cache.size.bytes").gauge().value();
+        assertTrue(size <= cacheProperties.getMaxSize().toBytes());
+        assertTrue(registry.get("cache.evictions").functionCounter().count() >= 1.0);
+        for (int i = 0; i < 50 && countFiles() > 3; i++) {
+            Thread.sleep(100L);
+        }
+        assertEquals(3, countFiles());
+    }
+
+    @Test
+    void pinnedCopySurvivesInvalidation() throws Exception {
+        byte[] content = randomBytes(1024 * 1024);
+        cacheFileSystemService.upload(new ByteArrayInputStream(content), "jar/pinned.jar");
+        try (InputStream inputStream = cacheFileSystemService.get("jar/pinned.jar")) {
+            // invalidates the local copy which is still read
+            cacheFileSystemService.upload(new ByteArrayInputStream(randomBytes(2048)), "jar/pinned.jar");
+            Thread.sleep(200L);
+
+            assertEquals(1, countFiles());
+            assertArrayEquals(content, StreamUtils.copyToByteArray(inputStream));
+        }
+        for (int i = 0; i < 50 && countFiles() > 0; i++) {
+            Thread.sleep(100L);
+        }
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void largeFileBypassesCache() throws Exception {
+        byte[] content = randomBytes(4 * 1024 * 1024);
+        cacheFileSystemService.upload(new ByteArrayInputStream(content), "jar/large.jar");
+
+        try (InputStream inputStream = cacheFileSystemService.get("jar/large.jar")) {
+            assertArrayEquals(content, StreamUtils.copyToByteArray(inputStream));
+        }
+        assertNull(cacheFileSystemService.getLocalFile("jar/large.jar"));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void largeFileHashedOncePerVersion() throws Exception {
+        byte[] content = randomBytes(4 * 1024 * 1024);
+        cacheFileSystemService.upload(new ByteArrayInputStream(content), "jar/large-hash.jar");
+        int gets = server.getObjectGetCount();
+
+        String hash = cacheFileSystemService.getContentHash("jar/large-hash.jar");
+        assertEquals(FileTransferUtil.sha256(new ByteArrayInputStream(content)), hash);
+        assertEquals(hash, cacheFileSystemService.getContentHash("jar/large-hash.jar"));
+        assertEquals(gets + 1, server.getObjectGetCount());
+
+        byte[] changed = randomBytes(4 * 1024 * 1024 + 1);
+        cacheFileSystemService.upload(new ByteArrayInputStream(changed), "jar/large-hash.jar");
+        assertEquals(FileTransferUtil.sha256(new ByteArrayInputStream(changed)), cacheFileSystemService.getContentHash("jar/large-hash.jar"));
+    }
+
+    @Test
+    void revalidateAfterInterval() throws Exception {
+        byte[] content = randomBytes(1024);
+        cacheFileSystemService.upload(new ByteArrayInputStream(content), "jar/overwritten.jar");
+        assertArrayEquals(content, read("jar/overwritten.jar"));
+
+        // overwritten by another instance, which doesn't invalidate the local copy
+        byte[] changed = randomBytes(2048);
+        fileSystemService.upload(new ByteArrayInputStream(changed), "jar/overwritten.jar");
+        int gets = server.getObjectGetCount();
+        assertArrayEquals(content, read("jar/overwritten.jar"));
+        assertEquals(1024L, cacheFileSystemService.getFileSize("jar/overwritten.jar"));
+        assertEquals(gets, server.getObjectGetCount());
+
+        clock.addAndGet(cacheProperties.getRevalidateInterval().toMillis());
+        assertArrayEquals(changed, read("jar/overwritten.jar"));
+        assertEquals(2048L, cacheFileSystemService.getFileSize("jar/overwritten.jar"));
+        assertEquals(gets + 1, server.getObjectGetCount());
+
+        clock.addAndGet(cacheProperties.getRevalidateInterval().toMillis());
+        fileSystemService.delete("jar/overwritten.jar");
+        assertFalse(cacheFileSystemService.exists("jar/overwritten.jar"));
+    }
+
+    @Test
+    void sharedDirectoryKeptAtStartup() throws Exception {
+        Path other = Files.createDirectories(directory.resolve("other-instance"));
+        Files.write(other.resolve("cached.jar"), randomBytes(16));
+
+        CacheFileSystemServiceImpl another = new CacheFileSystemServiceImpl();
+        ReflectionTestUtils.setField(another, "fileSystemService", ReflectionTestUtils.getField(cacheFileSystemService, "fileSystemService"));
+        ReflectionTestUtils.setField(another, "localFileSystemSerivce", localFileSystemSerivce);
+        ReflectionTestUtils.setField(another, "cacheProperties", cacheProperties);
+        another.afterPropertiesSet();
+        another.destroy();
+
+        assertTrue(Files.exists(other.resolve("cached.jar")));
+    }
+
+    @Test
+    void rejectCorruptedContent() throws Exception {
+        cacheFileSystemService.upload(new ByteArrayInputStream(randomBytes(1024)), "jar/corrupt.jar");
+        server.corruptObject(fs.getWorkingDirectory().toUri().getPath().substring(1) + "/jar/corrupt.jar");
+
+        IOException exception = assertThrows(IOException.class, () -> cacheFileSystemService.get("jar/corrupt.jar"));
+        assertTrue(exception.getMessage().contains("etag mismatch"));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void uploadInvalidatesLocalCopy() throws Exception {
+        cacheFileSystemService.upload(new ByteArrayInputStream(randomBytes(1024)), "jar/overwrite.jar");
+        File stale = cacheFileSystemService.getLocalFile("jar/overwrite.jar");
+        byte[] content = randomBytes(2048);
+        cacheFileSystemService.upload(new ByteArrayInputStream(content), "jar/overwrite.jar");
+
+        try (InputStream inputStream = cacheFileSystemService.get("jar/overwrite.jar")) {
+            assertArrayEquals(content, StreamUtils.copyToByteArray(inputStream));
+        }
+        assertNotEquals(stale, cacheFileSystemService.getLocalFile("jar/overwrite.jar"));
+    }
+
+    private byte[] read(String fileName) throws IOException {
+        try (InputStream inputStream = cacheFileSystemService.get(fileName)) {
+            return StreamUtils.copyToByteArray(inputStream);
+        }
+    }
+
+    private long countFiles() throws IOException {
+        while (true) {
+            try (var files = Files.walk(directory)) {
+                return files.filter(Files::isRegularFile)
+                        .filter(file -> file.getFileName().toString().endsWith(".jar"))
+                        .count();
+            } catch (UncheckedIOException e) {
+                // evicted copies are deleted asynchronously, walk again
+                if (e.getCause() instanceof NoSuchFileException == false) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.FileSystemUploadProperties;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemServiceImplTest {
+
+    private LocalS3Server server;
+    private FileSystem fs;
+    private FileSystemServiceImpl fileSystemService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = new LocalS3Server("scaleph");
+        // s3a min part size
+        FileSystemUploadProperties uploadProperties = uploadProperties(DataSize.ofMegabytes(5L));
+        fs = server.newFileSystem(uploadProperties);
+        fileSystemService = new FileSystemServiceImpl();
+        ReflectionTestUtils.setField(fileSystemService, "fs", fs);
+        ReflectionTestUtils.setField(fileSystemService, "uploadProperties", uploadProperties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        fs.close();
+        server.close();
+    }
+
+    @Test
+    void uploadMultipart() throws Exception {
+        byte[] content = randomBytes(12 * 1024 * 1024 + 17);
+        fileSystemService.upload(new ByteArrayInputStream(content), "jar/multipart.jar");
+
+        assertTrue(fileSystemService.isDistributedFS());
+        assertArrayEquals(content, server.getObject(key("jar/multipart.jar")));
+        assertTrue(server.getEtag(key("jar/multipart.jar")).endsWith("-3"));
+        assertEquals(content.length, fileSystemService.getFileSize("jar/multipart.jar"));
+    }
+
+    @Test
+    void uploadOverwrite() throws Exception {
+        fileSystemService.upload(new ByteArrayInputStream(randomBytes(6 * 1024 * 1024)), "jar/overwrite.jar");
+        byte[] content = randomBytes(1024);
+        fileSystemService.upload(new ByteArrayInputStream(content), "jar/overwrite.jar");
+
+        assertArrayEquals(content, server.getObject(key("jar/overwrite.jar")));
+    }
+
+    @Test
+    void uploadEtagMismatch() throws Exception {
+        server.setCorruptEtag(true);
+        byte[] content = randomBytes(6 * 1024 * 1024);
+        IOException exception = assertThrows(IOException.class, () -> fileSystemService.upload(new ByteArrayInputStream(content), "jar/corrupt.jar"));
+
+        assertTrue(exception.getMessage().contains("etag mismatch"));
+        assertArrayEquals(content, server.getObject(key("jar/corrupt.jar")));
+    }
+
+    @Test
+    void uploadSkipsNonMd5Etag() throws Exception {
+        server.setOpaqueEtag(true);
+        byte[] content = randomBytes(6 * 1024 * 1024);
+        fileSystemService.upload(new ByteArrayInputStream(content), "jar/opaque.jar");
+
+        assertArrayEquals(content, server.getObject(key("jar/opaque.jar")));
+    }
+
+    /**
+     * etags of SSE-KMS objects are not md5 digests, aws sdk refuses to upload them over http
+     * so only the etag calculator is checked
+     */
+    @Test
+    void noEtagForKmsEncryptedObjects() throws Exception {
+        FileSystem kmsFs = server.newFileSystem(uploadProperties(DataSize.ofMegabytes(5L)),
+                Collections.singletonMap("fs.s3a.encryption.algorithm", "SSE-KMS"));
+        try {
+            ReflectionTestUtils.setField(fileSystemService, "fs", kmsFs);
+            assertNull(fileSystemService.newEtag());
+        } finally {
+            kmsFs.close();
+        }
+    }
+
+    @Test
+    void uploadPartSizeBelowS3aMinimum() throws Exception {
+        FileSystemUploadProperties uploadProperties = uploadProperties(DataSize.ofMegabytes(1L));
+        FileSystem smallPartFs = server.newFileSystem(uploadProperties);
+        try {
+            ReflectionTestUtils.setField(fileSystemService, "fs", smallPartFs);
+            ReflectionTestUtils.setField(fileSystemService, "uploadProperties", uploadProperties);
+            byte[] content = randomBytes(6 * 1024 * 1024);
+            fileSystemService.upload(new ByteArrayInputStream(content), "jar/small-part.jar");
+
+            // s3a uploads in parts of 5MB at least
+            assertTrue(server.getEtag(key("jar/small-part.jar")).endsWith("-2"));
+        } finally {
+            smallPartFs.close();
+        }
+    }
+
+    /**
+     * relative file names are resolved against s3a working directory
+     */
+    private String key(String fileName) {
+        return fs.getWorkingDirectory().toUri().getPath().substring(1) + "/" + fileName;
+    }
+
+    private FileSystemUploadProperties uploadProperties(DataSize partSize) {
+        FileSystemUploadProperties uploadProperties = new FileSystemUploadProperties();
+        uploadProperties.setPartSize(partSize);
+        uploadProperties.setParallelism(2);
+        return uploadProperties;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares streaming a file through a heap buffer, which is what the download endpoints did before,
+ * with {@link LocalFileSystemSerivceImpl#transferTo} into a loopback socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FileTransferBenchmark {
+
+    @Param({"67108864"})
+    private long fileSize;
+
+    private LocalFileSystemSerivceImpl fileSystemService;
+    private Path file;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private Thread drainer;
+
+    @Setup
+    public void setup() throws Exception {
+        fileSystemService = new LocalFileSystemSerivceImpl();
+        fileSystemService.afterPropertiesSet();
+
+        file = Files.createTempFile("scaleph-transfer", ".jar");
+        byte[] block = new byte[1024 * 1024];
+        new Random(0).nextBytes(block);
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            for (long written = 0; written < fileSize; written += block.length) {
+                outputStream.write(block);
+            }
+        }
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel accepted = server.accept();
+        drainer = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+            try {
+                while (accepted.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException ignored) {
+                // closed by tear down
+            }
+        }, "socket-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+        fileSystemService.destroy();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long streamCopy() throws IOException {
+        try (InputStream inputStream = fileSystemService.get(file.toString())) {
+            return StreamUtils.copy(inputStream, Channels.newOutputStream(client));
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        return fileSystemService.transferTo(file.toString(), 0L, fileSize, client);
+    }
+
+    @Benchmark
+    public long transferToRange() throws IOException {
+        return fileSystemService.transferTo(file.toString(), fileSize / 2, fileSize / 4, client);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FileTransferBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
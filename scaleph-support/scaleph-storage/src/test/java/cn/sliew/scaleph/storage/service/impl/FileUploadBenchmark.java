@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.FileSystemUploadProperties;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous upload, which checked and deleted the existing file before copying
+ * through a 1 KB buffer, with {@link FileSystemServiceImpl#upload} on the local file system
+ * and an in-process s3 stand-in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileUploadBenchmark {
+
+    private static final String FILE_NAME = "jar/benchmark.jar";
+
+    @Param({"local", "s3"})
+    private String backend;
+
+    @Param({"33554432"})
+    private int fileSize;
+
+    private LocalS3Server server;
+    private FileSystem fs;
+    private FileSystemServiceImpl fileSystemService;
+    private byte[] content;
+
+    @Setup
+    public void setup() throws Exception {
+        FileSystemUploadProperties uploadProperties = new FileSystemUploadProperties();
+        uploadProperties.setPartSize(DataSize.ofMegabytes(8L));
+        if ("s3".equals(backend)) {
+            server = new LocalS3Server("scaleph");
+            fs = server.newFileSystem(uploadProperties);
+        } else {
+            fs = FileSystem.newInstanceLocal(new org.apache.hadoop.conf.Configuration());
+            fs.setWorkingDirectory(new Path(Files.createTempDirectory("scaleph-upload").toUri()));
+        }
+        fileSystemService = new FileSystemServiceImpl();
+        ReflectionTestUtils.setField(fileSystemService, "fs", fs);
+        ReflectionTestUtils.setField(fileSystemService, "uploadProperties", uploadProperties);
+
+        content = new byte[fileSize];
+        new Random(0).nextBytes(content);
+        fileSystemService.upload(new ByteArrayInputStream(content), FILE_NAME);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fileSystemService.delete(FILE_NAME);
+        fs.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public void legacyUpload() throws IOException {
+        if (fileSystemService.exists(FILE_NAME)) {
+            fileSystemService.delete(FILE_NAME);
+        }
+        Path path = new Path(fs.getWorkingDirectory(), FILE_NAME);
+        if (fs.exists(path.getParent()) == false) {
+            fs.mkdirs(path.getParent());
+        }
+        try (FSDataOutputStream outputStream = fs.create(path, false)) {
+            IOUtils.copyBytes(new ByteArrayInputStream(content), outputStream, 1024);
+        }
+    }
+
+    @Benchmark
+    public void upload() throws IOException {
+        fileSystemService.upload(new ByteArrayInputStream(content), FILE_NAME);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FileUploadBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
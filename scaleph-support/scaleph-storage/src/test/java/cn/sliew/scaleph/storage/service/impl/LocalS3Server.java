@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.FileSystemConfiguration;
+import cn.sliew.scaleph.storage.configuration.FileSystemUploadProperties;
+import cn.sliew.scaleph.storage.configuration.S3FileSystemProperties;
+import cn.sliew.scaleph.storage.utils.MultipartEtag;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hadoop.fs.FileSystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory s3 compatible stand-in, only implements the requests issued by s3a for
+ * create, read, list and delete in path style. Signatures are not verified.
+ */
+class LocalS3Server implements AutoCloseable {
+
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private final HttpServer server;
+    private final String bucket;
+    private final NavigableMap<String, S3Object> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    private final AtomicInteger objectGets = new AtomicInteger();
+    private volatile boolean corruptEtag = false;
+    private volatile boolean opaqueEtag = false;
+
+    LocalS3Server(String bucket) throws IOException {
+        this.bucket = bucket;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(8));
+        this.server.start();
+    }
+
+    String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Creates s3a file system against this server through {@link FileSystemConfiguration#s3FileSystem}.
+     */
+    FileSystem newFileSystem(FileSystemUploadProperties uploadProperties) throws Exception {
+        return newFileSystem(uploadProperties, Collections.emptyMap());
+    }
+
+    FileSystem newFileSystem(FileSystemUploadProperties uploadProperties, Map<String, String> hadoopProperties) throws Exception {
+        java.nio.file.Path confDir = Files.createTempDirectory("scaleph-s3");
+        StringBuilder extra = new StringBuilder();
+        hadoopProperties.forEach((name, value) -> extra.append(property(name, value)));
+        Files.writeString(confDir.resolve("core-site.xml"), "<configuration>"
+                + property("fs.s3a.endpoint.region", "us-east-1")
+                + property("fs.s3a.connection.ssl.enabled", "false")
+                + property("fs.s3a.impl.disable.cache", "true")
+                + property("fs.s3a.change.detection.mode", "none")
+                + extra
+                + "</configuration>");
+        S3FileSystemProperties properties = new S3FileSystemProperties();
+        properties.setHadoopConfPath(confDir.toString());
+        properties.setBucket(bucket);
+        properties.setEndpoint(getEndpoint());
+        properties.setAccessKey("scaleph");
+        properties.setSecretKey("scaleph");
+        return new FileSystemConfiguration().s3FileSystem(properties, uploadProperties);
+    }
+
+    private static String property(String name, String value) {
+        return "<property><name>" + name + "</name><value>" + value + "</value></property>";
+    }
+
+    byte[] getObject(String key) {
+        S3Object object = objects.get(key);
+        return object != null ? object.content : null;
+    }
+
+    String getEtag(String key) {
+        S3Object object = objects.get(key);
+        return object != null ? object.etag : null;
+    }
+
+    int getObjectGetCount() {
+        return objectGets.get();
+    }
+
+    /**
+     * Flips the first byte of the object and keeps the etag, as if content was corrupted at rest.
+     */
+    void corruptObject(String key) {
+        objects.get(key).content[0] ^= 1;
+    }
+
+    /**
+     * Completes multipart uploads with a wrong etag, as if parts were mixed up by the server.
+     * Single part uploads are verified by aws sdk already.
+     */
+    void setCorruptEtag(boolean corruptEtag) {
+        this.corruptEtag = corruptEtag;
+    }
+
+    /**
+     * Completes multipart uploads with an etag which is not derived from md5, like some s3 compatible stores.
+     */
+    void setOpaqueEtag(boolean opaqueEtag) {
+        this.opaqueEtag = opaqueEtag;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            String key = URLDecoder.decode(path.substring(Math.min(path.length(), bucket.length() + 2)), StandardCharsets.UTF_8);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            if (key.isEmpty()) {
+                if ("GET".equals(method) && query.containsKey("list-type")) {
+                    list(exchange, query);
+                } else if ("POST".equals(method) && query.containsKey("delete")) {
+                    deleteObjects(exchange);
+                } else if ("HEAD".equals(method)) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(501, -1);
+                }
+                return;
+            }
+            switch (method) {
+                case "HEAD":
+                    head(exchange, key);
+                    break;
+                case "GET":
+                    get(exchange, key);
+                    break;
+                case "PUT":
+                    if (query.containsKey("uploadId")) {
+                        uploadPart(exchange, query);
+                    } else {
+                        put(exchange, key);
+                    }
+                    break;
+                case "POST":
+                    if (query.containsKey("uploads")) {
+                        initiateUpload(exchange, key);
+                    } else {
+                        completeUpload(exchange, key, query.get("uploadId"));
+                    }
+                    break;
+                case "DELETE":
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                    } else {
+                        objects.remove(key);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                default:
+                    exchange.sendResponseHeaders(501, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void head(HttpExchange exchange, String key) throws IOException {
+        S3Object object = objects.get(key);
+        if (object == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        setObjectHeaders(exchange, object);
+        exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content.length));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(HttpExchange exchange, String key) throws IOException {
+        objectGets.incrementAndGet();
+        S3Object object = objects.get(key);
+        if (object == null) {
+            sendXml(exchange, 404, "<Error><Code>NoSuchKey</Code><Key>" + key + "</Key></Error>");
+            return;
+        }
+        setObjectHeaders(exchange, object);
+        int start = 0;
+        int end = object.content.length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int status = 200;
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            start = Integer.parseInt(bounds[0]);
+            if (bounds.length > 1 && bounds[1].isEmpty() == false) {
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+            }
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.content.length);
+        }
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(object.content, start, length);
+        }
+    }
+
+    private void put(HttpExchange exchange, String key) throws IOException {
+        byte[] content = readBody(exchange);
+        S3Object object = new S3Object(content, md5(content));
+        objects.put(key, object);
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag + "\"");
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void initiateUpload(HttpExchange exchange, String key) throws IOException {
+        String uploadId = "upload-" + uploadIds.incrementAndGet();
+        uploads.put(uploadId, new ConcurrentSkipListMap<>());
+        sendXml(exchange, 200, "<InitiateMultipartUploadResult>"
+                + "<Bucket>" + bucket + "</Bucket><Key>" + key + "</Key><UploadId>" + uploadId + "</UploadId>"
+                + "</InitiateMultipartUploadResult>");
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query) throws IOException {
+        byte[] content = readBody(exchange);
+        uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), content);
+        exchange.getResponseHeaders().set("ETag", "\"" + md5(content) + "\"");
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void completeUpload(HttpExchange exchange, String key, String uploadId) throws IOException {
+        readBody(exchange);
+        Map<Integer, byte[]> parts = uploads.remove(uploadId);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        MultipartEtag etag = new MultipartEtag(parts.values().iterator().next().length);
+        for (byte[] part : parts.values()) {
+            content.write(part);
+        }
+        byte[] bytes = content.toByteArray();
+        etag.update(bytes, 0, bytes.length);
+        String multipartEtag = etag.getEtag();
+        if (corruptEtag) {
+            multipartEtag = (multipartEtag.charAt(0) == '0' ? "1" : "0") + multipartEtag.substring(1);
+        } else if (opaqueEtag) {
+            multipartEtag = "opaque-" + uploadId;
+        }
+        S3Object object = new S3Object(bytes, multipartEtag);
+        objects.put(key, object);
+        sendXml(exchange, 200, "<CompleteMultipartUploadResult>"
+                + "<Bucket>" + bucket + "</Bucket><Key>" + key + "</Key><ETag>\"" + object.etag + "\"</ETag>"
+                + "</CompleteMultipartUploadResult>");
+    }
+
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.get("delimiter");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        StringBuilder contents = new StringBuilder();
+        Set<String> commonPrefixes = new TreeSet<>();
+        int count = 0;
+        for (Map.Entry<String, S3Object> entry : objects.tailMap(prefix, true).entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(prefix) == false || count >= maxKeys) {
+                break;
+            }
+            int index = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (index >= 0) {
+                if (commonPrefixes.add(key.substring(0, index + 1))) {
+                    count++;
+                }
+                continue;
+            }
+            S3Object object = entry.getValue();
+            contents.append("<Contents><Key>").append(key).append("</Key>")
+                    .append("<LastModified>").append(DateTimeFormatter.ISO_INSTANT.format(object.lastModified)).append("</LastModified>")
+                    .append("<ETag>\"").append(object.etag).append("\"</ETag>")
+                    .append("<Size>").append(object.content.length).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+            count++;
+        }
+        StringBuilder xml = new StringBuilder("<ListBucketResult>")
+                .append("<Name>").append(bucket).append("</Name>")
+                .append("<Prefix>").append(prefix).append("</Prefix>")
+                .append("<KeyCount>").append(count).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>false</IsTruncated>")
+                .append(contents);
+        commonPrefixes.forEach(commonPrefix -> xml.append("<CommonPrefixes><Prefix>").append(commonPrefix).append("</Prefix></CommonPrefixes>"));
+        xml.append("</ListBucketResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void deleteObjects(HttpExchange exchange) throws IOException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+        StringBuilder xml = new StringBuilder("<DeleteResult>");
+        Matcher matcher = DELETE_KEY.matcher(body);
+        while (matcher.find()) {
+            objects.remove(matcher.group(1));
+            xml.append("<Deleted><Key>").append(matcher.group(1)).append("</Key></Deleted>");
+        }
+        xml.append("</DeleteResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void setObjectHeaders(HttpExchange exchange, S3Object object) {
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag + "\"");
+        exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified.atOffset(ZoneOffset.UTC)));
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+    }
+
+    private void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * aws sdk signs payload in chunks over http, which is framed as
+     * {@code <hex size>;chunk-signature=<signature>\r\n<data>\r\n}
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream inputStream = exchange.getRequestBody();
+        String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (contentSha256 == null || contentSha256.startsWith("STREAMING-") == false) {
+            return inputStream.readAllBytes();
+        }
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        while (true) {
+            String header = readLine(dataInputStream);
+            int size = Integer.parseInt(header.substring(0, header.indexOf(';')), 16);
+            if (size == 0) {
+                return content.toByteArray();
+            }
+            byte[] chunk = new byte[size];
+            dataInputStream.readFully(chunk);
+            content.write(chunk);
+            readLine(dataInputStream);
+        }
+    }
+
+    private String readLine(InputStream inputStream) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = inputStream.read()) != -1 && c != '\n') {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int index = pair.indexOf('=');
+            String name = index < 0 ? pair : pair.substring(0, index);
+            String value = index < 0 ? "" : URLDecoder.decode(pair.substring(index + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String md5(byte[] content) {
+        return Hashing.md5().hashBytes(content).toString();
+    }
+
+    private static class S3Object {
+
+        private final byte[] content;
+        private final String etag;
+        private final Instant lastModified = Instant.now();
+
+        private S3Object(byte[] content, String etag) {
+            this.content = content;
+            this.etag = etag;
+        }
+    }
+}
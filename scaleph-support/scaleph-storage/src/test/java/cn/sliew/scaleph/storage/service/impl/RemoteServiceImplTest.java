@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.RemoteFetchProperties;
+import cn.sliew.scaleph.storage.service.dto.DownloadTaskDTO;
+import cn.sliew.scaleph.storage.service.enums.DownloadStatus;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteServiceImplTest {
+
+    private static final byte[] CONTENT = new byte[1024 * 1024];
+
+    static {
+        new Random(0).nextBytes(CONTENT);
+    }
+
+    private HttpServer server;
+    private Path directory;
+    private LocalFileSystemSerivceImpl fileSystemService;
+    private RemoteFetchProperties properties;
+    private RemoteServiceImpl remoteService;
+
+    private final Queue<String> ranges = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+
+        directory = Files.createTempDirectory("scaleph-remote");
+        fileSystemService = new LocalFileSystemSerivceImpl();
+        fileSystemService.afterPropertiesSet();
+        properties = new RemoteFetchProperties();
+        properties.setDirectory(directory.resolve("tasks").toString());
+        properties.setMaxConcurrencyPerHost(2);
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofMillis(10L));
+        remoteService = newRemoteService();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        remoteService.destroy();
+        server.stop(0);
+        fileSystemService.delete(directory.toString());
+        fileSystemService.destroy();
+    }
+
+    @Test
+    void fetchWithChecksum() throws Exception {
+        DownloadTaskDTO task = fetchAndWait("/connector.jar", "/connector.jar.sha1");
+
+        assertEquals(DownloadStatus.SUCCESS, task.getStatus());
+        assertEquals(1, task.getAttempts());
+        assertEquals(CONTENT.length, task.getTotalBytes());
+        assertArrayEquals(CONTENT, Files.readAllBytes(target("/connector.jar")));
+        // task file is removed, the task is kept in memory
+        assertEquals(DownloadStatus.SUCCESS, remoteService.getTask(task.getId()).getStatus());
+        assertNull(newRemoteService().getTask(task.getId()));
+    }
+
+    @Test
+    void resumeTaskInterruptedByShutdown() throws Exception {
+        // the first attempt fails and the task waits for the retry when shutting down
+        properties.setInitialBackoff(Duration.ofMinutes(1L));
+        DownloadTaskDTO task = remoteService.fetch(url("/unavailable/connector.jar"), target("/unavailable/connector.jar").toString());
+        for (int i = 0; i < 100 && failures.get() == 0; i++) {
+            Thread.sleep(50L);
+        }
+        remoteService.destroy();
+        assertEquals(DownloadStatus.PENDING, remoteService.getCompletion(task.getId()).get(30, TimeUnit.SECONDS).getStatus());
+
+        properties.setInitialBackoff(Duration.ofMillis(10L));
+        remoteService = newRemoteService();
+        assertEquals(DownloadStatus.PENDING, remoteService.getTask(task.getId()).getStatus());
+        remoteService.run(null);
+        assertEquals(DownloadStatus.SUCCESS, remoteService.getCompletion(task.getId()).get(30, TimeUnit.SECONDS).getStatus());
+        assertArrayEquals(CONTENT, Files.readAllBytes(target("/unavailable/connector.jar")));
+    }
+
+    @Test
+    void resumeAfterDisconnect() throws Exception {
+        DownloadTaskDTO task = fetchAndWait("/disconnect/connector.jar", "/connector.jar.sha1");
+
+        assertEquals(DownloadStatus.SUCCESS, task.getStatus());
+        assertEquals(2, task.getAttempts());
+        assertArrayEquals(CONTENT, Files.readAllBytes(target("/disconnect/connector.jar")));
+        assertEquals(List.of("bytes=" + CONTENT.length / 2 + "-"), new ArrayList<>(ranges));
+    }
+
+    @Test
+    void retryServerError() throws Exception {
+        DownloadTaskDTO task = fetchAndWait("/unavailable/connector.jar", null);
+
+        assertEquals(DownloadStatus.SUCCESS, task.getStatus());
+        assertEquals(2, task.getAttempts());
+        assertArrayEquals(CONTENT, Files.readAllBytes(target("/unavailable/connector.jar")));
+    }
+
+    @Test
+    void failChecksumMismatch() throws Exception {
+        DownloadTaskDTO task = fetchAndWait("/connector.jar", "/corrupt.jar.sha1");
+
+        assertEquals(DownloadStatus.FAILED, task.getStatus());
+        assertEquals(properties.getMaxAttempts(), task.getAttempts());
+        assertTrue(task.getMessage().contains("checksum mismatch"));
+        assertFalse(Files.exists(target("/connector.jar")));
+    }
+
+    @Test
+    void failNotFoundWithoutRetry() throws Exception {
+        DownloadTaskDTO task = fetchAndWait("/missing.jar", null);
+
+        assertEquals(DownloadStatus.FAILED, task.getStatus());
+        assertEquals(1, task.getAttempts());
+    }
+
+    @Test
+    void boundConcurrencyPerHost() throws Exception {
+        List<String> taskIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            taskIds.add(remoteService.fetch(url("/slow/connector-" + i + ".jar"), target("/slow/connector-" + i + ".jar").toString()).getId());
+        }
+        for (String taskId : taskIds) {
+            assertEquals(DownloadStatus.SUCCESS, remoteService.getCompletion(taskId).get(30, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(properties.getMaxConcurrencyPerHost(), maxConcurrency.get());
+    }
+
+    private DownloadTaskDTO fetchAndWait(String path, String checksumPath) throws Exception {
+        String checksumUrl = checksumPath != null ? url(checksumPath) : null;
+        DownloadTaskDTO task = remoteService.fetch(url(path), target(path).toString(), checksumUrl);
+        return remoteService.getCompletion(task.getId()).get(30, TimeUnit.SECONDS);
+    }
+
+    private RemoteServiceImpl newRemoteService() throws Exception {
+        RemoteServiceImpl remoteService = new RemoteServiceImpl();
+        ReflectionTestUtils.setField(remoteService, "fileSystemService", fileSystemService);
+        ReflectionTestUtils.setField(remoteService, "properties", properties);
+        remoteService.afterPropertiesSet();
+        return remoteService;
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private Path target(String path) {
+        return directory.resolve("files" + path);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if (path.endsWith(".sha1")) {
+                byte[] content = path.startsWith("/corrupt") ? new byte[0] : CONTENT;
+                send(exchange, 200, (Hashing.sha1().hashBytes(content) + "  connector.jar").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (path.startsWith("/missing")) {
+                send(exchange, 404, new byte[0]);
+                return;
+            }
+            if (path.startsWith("/unavailable") && failures.getAndIncrement() == 0) {
+                send(exchange, 503, new byte[0]);
+                return;
+            }
+            if (path.startsWith("/slow")) {
+                maxConcurrency.accumulateAndGet(concurrency.incrementAndGet(), Math::max);
+                Thread.sleep(100L);
+                concurrency.decrementAndGet();
+            }
+            exchange.getResponseHeaders().set("ETag", "\"connector\"");
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                ranges.add(range);
+                assertEquals("\"connector\"", exchange.getRequestHeaders().getFirst("If-Range"));
+                int start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+                exchange.sendResponseHeaders(206, CONTENT.length - start);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(CONTENT, start, CONTENT.length - start);
+                }
+                return;
+            }
+            if (path.startsWith("/disconnect")) {
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(CONTENT, 0, CONTENT.length / 2);
+                outputStream.flush();
+                // closing the exchange before the whole body is written drops the connection
+                return;
+            }
+            send(exchange, 200, CONTENT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, int code, byte[] content) throws IOException {
+        exchange.sendResponseHeaders(code, content.length == 0 ? -1 : content.length);
+        if (content.length > 0) {
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(content);
+            }
+        }
+    }
+}
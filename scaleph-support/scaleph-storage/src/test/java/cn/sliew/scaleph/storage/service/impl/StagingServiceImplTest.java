@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package cn.sliew.scaleph.storage.service.impl;
+
+import cn.sliew.scaleph.storage.configuration.StagingProperties;
+import cn.sliew.scaleph.storage.service.staging.StagingPlan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagingServiceImplTest {
+
+    private static final long DELAY_MILLIS = 300L;
+
+    private LocalFileSystemSerivceImpl fileSystemService;
+    private StagingProperties properties;
+    private StagingServiceImpl stagingService;
+    private Path storage;
+    private Path workspace;
+
+    @BeforeEach
+    void setup() throws Exception {
+        fileSystemService = new LocalFileSystemSerivceImpl();
+        fileSystemService.afterPropertiesSet();
+        storage = Files.createTempDirectory("scaleph-storage");
+        workspace = Files.createTempDirectory("scaleph-workspace");
+
+        properties = new StagingProperties();
+        properties.setParallelism(4);
+        stagingService = new StagingServiceImpl();
+        ReflectionTestUtils.setField(stagingService, "properties", properties);
+        stagingService.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        stagingService.destroy();
+        fileSystemService.destroy();
+        FileSystemUtils.deleteRecursively(storage);
+        FileSystemUtils.deleteRecursively(workspace);
+    }
+
+    @Test
+    void independentStagesRunConcurrently() throws Exception {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            files.add(store("jar-" + i + ".jar", 64 * 1024));
+        }
+        StagingPlan plan = new StagingPlan();
+        List<StagingPlan.Stage<Path>> stages = new ArrayList<>();
+        for (String file : files) {
+            stages.add(plan.add(file, () -> slowDownload(file)));
+        }
+        StagingPlan.Stage<Integer> joined = plan.add("jars", () -> stages.size(), stages);
+
+        long start = System.nanoTime();
+        stagingService.stage(plan);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(4, joined.get());
+        for (int i = 0; i < files.size(); i++) {
+            assertArrayEquals(Files.readAllBytes(storage.resolve(files.get(i))), Files.readAllBytes(stages.get(i).get()));
+        }
+        assertTrue(elapsed < DELAY_MILLIS * files.size(), "staging took " + elapsed + " ms");
+        assertEquals(5, plan.getDurations().size());
+        assertTrue(plan.getDurations().get(files.get(0)).compareTo(Duration.ofMillis(DELAY_MILLIS)) >= 0);
+    }
+
+    @Test
+    void dependentStagesWaitForDependencies() throws Exception {
+        String release = store("flink-release.tgz", 1024);
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> releaseStage = plan.add("release", () -> slowDownload(release));
+        StagingPlan.Stage<Long> sizeStage = plan.add("release-size", () -> Files.size(releaseStage.get()), releaseStage);
+
+        stagingService.stage(plan);
+
+        assertEquals(1024L, sizeStage.get());
+    }
+
+    @Test
+    void failureCancelsPendingStages() throws Exception {
+        properties.setParallelism(1);
+        stagingService.destroy();
+        stagingService.afterPropertiesSet();
+
+        AtomicInteger started = new AtomicInteger();
+        StagingPlan plan = new StagingPlan();
+        StagingPlan.Stage<Path> missing = plan.add("missing", () -> {
+            started.incrementAndGet();
+            return slowDownload("missing.jar");
+        });
+        StagingPlan.Stage<Path> dependent = plan.add("dependent", () -> {
+            started.incrementAndGet();
+            return missing.get();
+        }, missing);
+        for (int i = 0; i < 4; i++) {
+            String file = store("jar-" + i + ".jar", 1024);
+            plan.add(file, () -> {
+                started.incrementAndGet();
+                return slowDownload(file);
+            });
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> stagingService.stage(plan));
+        assertTrue(exception.getMessage().contains("missing"), exception.getMessage());
+        assertFalse(dependent.isDone());
+        // the stage queued behind the failed one may already be running, the rest are cancelled
+        Thread.sleep(DELAY_MILLIS * 3);
+        assertTrue(started.get() <= 2, "started stages: " + started.get());
+    }
+
+    private String store(String fileName, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            fileSystemService.upload(inputStream, storage.resolve(fileName).toString());
+        }
+        return fileName;
+    }
+
+    private Path slowDownload(String fileName) throws Exception {
+        Thread.sleep(DELAY_MILLIS);
+        Path target = workspace.resolve(fileName);
+        try (InputStream inputStream = fileSystemService.get(storage.resolve(fileName).toString());
+             OutputStream outputStream = Files.newOutputStream(target)) {
+            inputStream.transferTo(outputStream);
+        }
+        return target;
+    }
+}
@@ -33,6 +33,15 @@ public interface UidGenerator {
      */
     long getUID() throws UidGenerateException;
 
+    /**
+     * Get unique IDs in bulk
+     *
+     * @param n count of UIDs
+     * @return UIDs
+     * @throws UidGenerateException
+     */
+    long[] getUIDs(int n) throws UidGenerateException;
+
     /**
      * Parse the UID into elements which are used to generate the UID. <br>
      * Such as timestamp & workerId & sequence...
@@ -22,6 +22,7 @@ import cn.sliew.scaleph.system.snowflake.utils.PaddedAtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -34,6 +35,9 @@ import java.util.concurrent.atomic.AtomicLong;
  * <li><b>flags:</b> flag array corresponding the same index with the slots, indicates whether can take or put slot
  * <li><b>tail:</b> a sequence of the max slot position to produce
  * <li><b>cursor:</b> a sequence of the min slot position to consume
+ * <p>
+ * Both put and take are lock free, producers claim slots by CAS on 'tail' and consumers claim slots by CAS on
+ * 'cursor', the slot is handed over between them through its flag
  */
 @Slf4j
 public class RingBuffer {
@@ -44,6 +48,7 @@ public class RingBuffer {
     private static final int START_POINT = -1;
     private static final long CAN_PUT_FLAG = 0L;
     private static final long CAN_TAKE_FLAG = 1L;
+    private static final int MAX_SPINS = 64;
     public static final int DEFAULT_PADDING_PERCENT = 50;
 
     /**
@@ -112,43 +117,43 @@ public class RingBuffer {
     }
 
     /**
-     * Put an UID in the ring & tail moved<br>
-     * We use 'synchronized' to guarantee the UID fill in slot & publish new tail sequence as atomic operations<br>
-     *
-     * <b>Note that: </b> It is recommended to put UID in a serialize way, cause we once batch generate a series UIDs and put
-     * the one by one into the buffer, so it is unnecessary put in multi-threads
+     * Put an UID in the ring & tail moved, this is a lock free operation which can be called by multi producers<br>
+     * The producer claims the next sequence by CAS on the tail, then fills the slot and publishes it by setting the
+     * slot flag to CAN_TAKE_FLAG. Consumers which claimed a published tail wait for the flag before reading the slot.
      *
      * @param uid
      * @return false means that the buffer is full, apply {@link RejectedPutBufferHandler}
      */
-    public synchronized boolean put(long uid) {
-        long currentTail = tail.get();
-        long currentCursor = cursor.get();
-
-        // tail catches the cursor, means that you can't put any cause of RingBuffer is full
-        long distance = currentTail - (currentCursor == START_POINT ? 0 : currentCursor);
-        if (distance == bufferSize - 1) {
-            rejectedPutHandler.rejectPutBuffer(this, uid);
-            return false;
+    public boolean put(long uid) {
+        while (true) {
+            long currentTail = tail.get();
+            long currentCursor = cursor.get();
+
+            // tail catches the cursor, means that you can't put any cause of RingBuffer is full
+            long distance = currentTail - (currentCursor == START_POINT ? 0 : currentCursor);
+            if (distance >= bufferSize - 1) {
+                rejectedPutHandler.rejectPutBuffer(this, uid);
+                return false;
+            }
+
+            // 1. pre-check whether the flag is CAN_PUT_FLAG, the consumer of the last round may not release it yet
+            int nextTailIndex = calSlotIndex(currentTail + 1);
+            if (flags[nextTailIndex].get() != CAN_PUT_FLAG) {
+                rejectedPutHandler.rejectPutBuffer(this, uid);
+                return false;
+            }
+
+            // 2. claim the next sequence, retry if another producer has claimed it
+            if (tail.compareAndSet(currentTail, currentTail + 1) == false) {
+                continue;
+            }
+
+            // 3. put UID in the claimed slot
+            // 4. update slot flag to CAN_TAKE_FLAG, the volatile write publishes the slot to consumers
+            slots[nextTailIndex] = uid;
+            flags[nextTailIndex].set(CAN_TAKE_FLAG);
+            return true;
         }
-
-        // 1. pre-check whether the flag is CAN_PUT_FLAG
-        int nextTailIndex = calSlotIndex(currentTail + 1);
-        if (flags[nextTailIndex].get() != CAN_PUT_FLAG) {
-            rejectedPutHandler.rejectPutBuffer(this, uid);
-            return false;
-        }
-
-        // 2. put UID in the next slot
-        // 3. update next slot' flag to CAN_TAKE_FLAG
-        // 4. publish tail with sequence increase by one
-        slots[nextTailIndex] = uid;
-        flags[nextTailIndex].set(CAN_TAKE_FLAG);
-        tail.incrementAndGet();
-
-        // The atomicity of operations above, guarantees by 'synchronized'. In another word,
-        // the take operation can't consume the UID we just put, until the tail is published(tail.incrementAndGet())
-        return true;
     }
 
     /**
@@ -159,37 +164,104 @@ public class RingBuffer {
      * If there is no more available UID to be taken, the specified {@link RejectedTakeBufferHandler} will be applied<br>
      *
      * @return UID
-     * @throws IllegalStateException if the cursor moved back
+     * @throws IllegalStateException if there is no available UID and the rejected handler doesn't throw
      */
     public long take() {
-        // spin get next available cursor
-        long currentCursor = cursor.get();
-        long nextCursor = cursor.updateAndGet(old -> old == tail.get() ? old : old + 1);
-
-        // check for safety consideration, it never occurs
-        Assert.isTrue(nextCursor >= currentCursor, "Curosr can't move back");
+        // spin claim the next available cursor, the claim is computed from the cursor actually swapped
+        long currentCursor;
+        long nextCursor;
+        do {
+            currentCursor = cursor.get();
+            nextCursor = Math.min(currentCursor + 1, tail.get());
+        } while (nextCursor > currentCursor && cursor.compareAndSet(currentCursor, nextCursor) == false);
 
         // trigger padding in an async-mode if reach the threshold
-        long currentTail = tail.get();
-        if (currentTail - nextCursor < paddingThreshold) {
-            log.info("Reach the padding threshold:{}. tail:{}, cursor:{}, rest:{}", paddingThreshold, currentTail,
-                    nextCursor, currentTail - nextCursor);
-            bufferPaddingExecutor.asyncPadding();
-        }
+        checkPadding(nextCursor);
 
         // cursor catch the tail, means that there is no more available UID to take
         if (nextCursor == currentCursor) {
             rejectedTakeHandler.rejectTakeBuffer(this);
+            throw new IllegalStateException("Curosr not in can take status");
         }
 
-        // 1. check next slot flag is CAN_TAKE_FLAG
-        int nextCursorIndex = calSlotIndex(nextCursor);
-        Assert.isTrue(flags[nextCursorIndex].get() == CAN_TAKE_FLAG, "Curosr not in can take status");
+        return takeSlot(nextCursor);
+    }
+
+    /**
+     * Take at most <code>n</code> UIDs of the ring in one cursor movement, UIDs are copied into a primitive array
+     * to avoid boxing every UID<p>
+     * <p>
+     * The cursor is advanced by the available count between cursor and tail, if the ring can't provide
+     * <code>n</code> UIDs at once, the rest are taken in the next rounds after padding.
+     * If there is no more available UID to be taken, the specified {@link RejectedTakeBufferHandler} will be applied,
+     * the UIDs taken before are returned if the handler doesn't throw an exception
+     *
+     * @param n count of UIDs, must be positive
+     * @return UIDs in the order of the ring
+     */
+    public long[] take(int n) {
+        Assert.isTrue(n > 0, "Take count must be positive");
+
+        long[] uids = new long[n];
+        int taken = 0;
+        while (taken < n) {
+            // claim a range of (currentCursor, nextCursor], computed from the cursor actually swapped so that
+            // concurrent consumers never claim overlapping ranges
+            long currentCursor;
+            long nextCursor;
+            do {
+                currentCursor = cursor.get();
+                nextCursor = Math.min(currentCursor + (n - taken), tail.get());
+            } while (nextCursor > currentCursor && cursor.compareAndSet(currentCursor, nextCursor) == false);
+
+            checkPadding(nextCursor);
+
+            if (nextCursor == currentCursor) {
+                rejectedTakeHandler.rejectTakeBuffer(this);
+                return Arrays.copyOf(uids, taken);
+            }
+            for (long sequence = currentCursor + 1; sequence <= nextCursor; sequence++) {
+                uids[taken++] = takeSlot(sequence);
+            }
+        }
+        return uids;
+    }
+
+    /**
+     * Trigger padding in an async-mode if reach the threshold
+     */
+    private void checkPadding(long nextCursor) {
+        long currentTail = tail.get();
+        if (currentTail - nextCursor < paddingThreshold) {
+            // take is on the hot path, don't flood the log while the ring is under the threshold
+            if (log.isDebugEnabled()) {
+                log.debug("Reach the padding threshold:{}. tail:{}, cursor:{}, rest:{}", paddingThreshold, currentTail,
+                        nextCursor, currentTail - nextCursor);
+            }
+            bufferPaddingExecutor.asyncPadding();
+        }
+    }
+
+    /**
+     * Take the UID of a claimed sequence, wait for the producer publishing the slot if it claimed the tail
+     * but hasn't filled the slot yet
+     */
+    private long takeSlot(long sequence) {
+        // 1. wait next slot flag is CAN_TAKE_FLAG
+        int index = calSlotIndex(sequence);
+        for (int spins = 0; flags[index].get() != CAN_TAKE_FLAG; spins++) {
+            // the producer may be descheduled between claiming and publishing, give up the cpu after a while
+            if (spins < MAX_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
 
         // 2. get UID from next slot
         // 3. set next slot flag as CAN_PUT_FLAG.
-        long uid = slots[nextCursorIndex];
-        flags[nextCursorIndex].set(CAN_PUT_FLAG);
+        long uid = slots[index];
+        flags[index].set(CAN_PUT_FLAG);
 
         // Note that: Step 2,3 can not swap. If we set flag before get value of slot, the producer may overwrite the
         // slot with a new UID, and this may cause the consumer take the UID twice after walk a round the ring
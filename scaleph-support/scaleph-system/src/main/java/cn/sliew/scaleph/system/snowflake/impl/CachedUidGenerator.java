@@ -116,6 +116,16 @@ public class CachedUidGenerator extends DefaultUidGenerator implements Disposabl
         }
     }
 
+    @Override
+    public long[] getUIDs(int n) throws UidGenerateException {
+        try {
+            return ringBuffer.take(n);
+        } catch (Exception e) {
+            log.error("Generate unique ids exception. ", e);
+            throw new UidGenerateException(e);
+        }
+    }
+
     @Override
     public String parseUID(long uid) {
         return super.parseUID(uid);
@@ -22,13 +22,17 @@ import cn.sliew.scaleph.system.snowflake.BitsAllocator;
 import cn.sliew.scaleph.system.snowflake.UidGenerator;
 import cn.sliew.scaleph.system.snowflake.exception.UidGenerateException;
 import cn.sliew.scaleph.system.snowflake.utils.DateUtils;
+import cn.sliew.scaleph.system.snowflake.utils.PaddedAtomicLong;
 import cn.sliew.scaleph.system.snowflake.worker.WorkerIdAssigner;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
 
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Represents an implementation of {@link UidGenerator}
@@ -66,13 +70,12 @@ public class DefaultUidGenerator implements UidGenerator, InitializingBean {
      * Bit分配器,Stable fields after spring bean initializing
      */
     protected BitsAllocator bitsAllocator;
-    protected long workerId;
+    protected volatile long workerId;
 
     /**
-     * Volatile fields caused by nextId()
+     * Sequence state caused by nextId(), replaced as a whole when a fake worker id is assigned
      */
-    protected long sequence = 0L;
-    protected long lastSecond = -1L;
+    private volatile WorkerSequence workerSequence;
 
     /**
      * Spring property
@@ -97,6 +100,8 @@ public class DefaultUidGenerator implements UidGenerator, InitializingBean {
             log.info("new snowflake Worker id = " + workerId);
         }
 
+        workerSequence = new WorkerSequence(workerId);
+
         log.info("Initialized snowflake bits(1, {}, {}, {}) for workerID:{}", uidProperties.getTimeBits(), uidProperties.getWorkerBits(), uidProperties.getSeqBits(), workerId);
     }
 
@@ -110,6 +115,16 @@ public class DefaultUidGenerator implements UidGenerator, InitializingBean {
         }
     }
 
+    @Override
+    public long[] getUIDs(int n) throws UidGenerateException {
+        try {
+            return nextIds(n);
+        } catch (Exception e) {
+            log.error("Generate unique ids exception. ", e);
+            throw new UidGenerateException(e);
+        }
+    }
+
     @Override
     public String parseUID(long uid) {
         long totalBits = BitsAllocator.TOTAL_BITS;
@@ -135,61 +150,130 @@ public class DefaultUidGenerator implements UidGenerator, InitializingBean {
      * @return UID
      * @throws UidGenerateException in the case: Clock moved backwards; Exceeds the max timestamp
      */
-    protected synchronized long nextId() throws UidGenerateException {
-        long currentSecond = getCurrentSecond();
+    protected long nextId() throws UidGenerateException {
+        WorkerSequence current;
+        long state;
+        do {
+            current = workerSequence;
+            state = reserve(current, 1);
+        } while (state < 0);
+        return bitsAllocator.allocate(state >>> bitsAllocator.getSequenceBits(), current.workerId, state & bitsAllocator.getMaxSequence());
+    }
+
+    /**
+     * Get UIDs, UIDs in the same second are reserved as a contiguous sequence range by one CAS
+     *
+     * @param n count of UIDs
+     * @return UIDs
+     * @throws UidGenerateException in the case: Clock moved backwards; Exceeds the max timestamp
+     */
+    protected long[] nextIds(int n) throws UidGenerateException {
+        Assert.isTrue(n > 0, "UID count must be positive");
+
+        long[] uids = new long[n];
+        int maxRange = (int) bitsAllocator.getMaxSequence() + 1;
+        int index = 0;
+        while (index < n) {
+            int count = Math.min(n - index, maxRange);
+            WorkerSequence current = workerSequence;
+            long state = reserve(current, count);
+            if (state < 0) {
+                continue;
+            }
+
+            long firstUid = bitsAllocator.allocate(state >>> bitsAllocator.getSequenceBits(), current.workerId, state & bitsAllocator.getMaxSequence());
+            for (int offset = 0; offset < count; offset++) {
+                uids[index++] = firstUid + offset;
+            }
+        }
+        return uids;
+    }
+
+    /**
+     * Reserve <code>count</code> sequences in the same second
+     *
+     * @return the state of the first reserved sequence, delta seconds in the high bits and sequence in the low bits.
+     * -1 if a fake worker id has been assigned, callers should retry with the new {@link WorkerSequence}
+     */
+    private long reserve(WorkerSequence current, int count) throws UidGenerateException {
+        int sequenceBits = bitsAllocator.getSequenceBits();
+        long maxSequence = bitsAllocator.getMaxSequence();
+        while (true) {
+            long state = current.state.get();
+            long lastSecond = state < 0 ? -1L : state >>> sequenceBits;
+            long lastSequence = state & maxSequence;
+            long currentSecond = getCurrentSecond() - uidProperties.getEpochSeconds();
 
-        // Clock moved backwards, refuse to generate uid
-        if (currentSecond < lastSecond) {
-            long refusedSeconds = lastSecond - currentSecond;
-            if (uidProperties.isEnableBackward()) {
+            // Clock moved backwards, refuse to generate uid
+            if (currentSecond < lastSecond) {
+                long refusedSeconds = lastSecond - currentSecond;
+                if (uidProperties.isEnableBackward() == false) {
+                    throw new UidGenerateException("Clock moved backwards. Refusing for %d seconds", refusedSeconds);
+                }
                 if (refusedSeconds <= uidProperties.getMaxBackwardSeconds()) {
-                    log.error("Snowflake detected clock moved backwards. wait for %d seconds", refusedSeconds);
-                    while (currentSecond < lastSecond) {
-                        currentSecond = getCurrentSecond();
-                    }
-                } else {
-                    workerId = workerIdAssigner.assignFakeWorkerId();
-                    log.error("Snowflake detected clock moved backwards. Assigned New WorkerId %d", workerId);
-                    if (workerId > bitsAllocator.getMaxWorkerId()) {
-                        log.error("Snowflake worker id: {} exceeds the max: {}", workerId, bitsAllocator.getMaxWorkerId());
-                        workerId = workerId % bitsAllocator.getMaxWorkerId();
-                        log.info("Snowflake new worker id: {}", workerId);
-                    }
+                    log.error("Snowflake detected clock moved backwards. wait for {} seconds", refusedSeconds);
+                    waitUntilNextSecond(lastSecond - 1);
+                    continue;
                 }
+                switchFakeWorker(current);
+                return -1L;
+            }
+
+            long first;
+            long next;
+            if (currentSecond == lastSecond) {
+                // Exceed the max sequence, we wait the next second to generate uid
+                if (lastSequence + count > maxSequence) {
+                    waitUntilNextSecond(lastSecond);
+                    continue;
+                }
+                // At the same second, increase sequence
+                first = state + 1;
+                next = state + count;
             } else {
-                throw new UidGenerateException("Clock moved backwards. Refusing for %d seconds", refusedSeconds);
+                // At the different second, sequence restart from zero
+                first = currentSecond << sequenceBits;
+                next = first + count - 1;
             }
-        }
 
-        // At the same second, increase sequence
-        if (currentSecond == lastSecond) {
-            sequence = (sequence + 1) & bitsAllocator.getMaxSequence();
-            // Exceed the max sequence, we wait the next second to generate uid
-            if (sequence == 0) {
-                currentSecond = getNextSecond(lastSecond);
+            if (current.state.compareAndSet(state, next)) {
+                return first;
             }
+        }
+    }
 
-            // At the different second, sequence restart from zero
-        } else {
-            sequence = 0L;
+    /**
+     * Assign a fake worker id with a fresh sequence state after the clock moved backwards too far.
+     * Threads still holding the former state keep allocating by the former worker id, so they never
+     * collide with the new one
+     */
+    private synchronized void switchFakeWorker(WorkerSequence current) {
+        if (workerSequence != current) {
+            return;
         }
 
-        lastSecond = currentSecond;
+        long fakeWorkerId = workerIdAssigner.assignFakeWorkerId();
+        log.error("Snowflake detected clock moved backwards. Assigned New WorkerId {}", fakeWorkerId);
+        if (fakeWorkerId > bitsAllocator.getMaxWorkerId()) {
+            log.error("Snowflake worker id: {} exceeds the max: {}", fakeWorkerId, bitsAllocator.getMaxWorkerId());
+            fakeWorkerId = fakeWorkerId % bitsAllocator.getMaxWorkerId();
+            log.info("Snowflake new worker id: {}", fakeWorkerId);
+        }
 
-        // Allocate bits for UID
-        return bitsAllocator.allocate(currentSecond - uidProperties.getEpochSeconds(), workerId, sequence);
+        workerId = fakeWorkerId;
+        workerSequence = new WorkerSequence(fakeWorkerId);
     }
 
     /**
-     * Get next second
+     * Park until the second after <code>lastSecond</code>(delta seconds) instead of busy spinning
      */
-    private long getNextSecond(long lastTimestamp) throws UidGenerateException {
-        long timestamp = getCurrentSecond();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getCurrentSecond();
+    private void waitUntilNextSecond(long lastSecond) throws UidGenerateException {
+        long nextSecondMillis = TimeUnit.SECONDS.toMillis(uidProperties.getEpochSeconds() + lastSecond + 1);
+        long waitMillis = nextSecondMillis - System.currentTimeMillis();
+        while (waitMillis > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+            waitMillis = nextSecondMillis - System.currentTimeMillis();
         }
-
-        return timestamp;
     }
 
     /**
@@ -210,4 +294,18 @@ public class DefaultUidGenerator implements UidGenerator, InitializingBean {
     public void setWorkerIdAssigner(WorkerIdAssigner workerIdAssigner) {
         this.workerIdAssigner = workerIdAssigner;
     }
+
+    /**
+     * Worker id and its sequence state. The state packs the delta seconds and the last allocated sequence
+     * into one word, so the second and the sequence are moved by one CAS
+     */
+    private static final class WorkerSequence {
+
+        private final long workerId;
+        private final AtomicLong state = new PaddedAtomicLong(-1L);
+
+        private WorkerSequence(long workerId) {
+            this.workerId = workerId;
+        }
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.system.snowflake.buffer;
+
+import cn.sliew.scaleph.system.snowflake.utils.PaddedAtomicLong;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the lock free {@link RingBuffer} with the former implementation whose put is guarded by
+ * 'synchronized'. Each group runs 3 producers padding the ring while 1 consumer drains it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferBenchmark {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int BATCH_SIZE = 64;
+
+    @State(Scope.Group)
+    public static class LockFreeState {
+
+        private final AtomicLong uid = new AtomicLong();
+        private RingBuffer ringBuffer;
+        private BufferPaddingExecutor paddingExecutor;
+
+        @Setup
+        public void setup() {
+            ringBuffer = new RingBuffer(BUFFER_SIZE);
+            ringBuffer.setRejectedPutHandler((buffer, uid) -> {
+            });
+            // padding is driven by the producer threads of the benchmark
+            paddingExecutor = new BufferPaddingExecutor(ringBuffer, second -> Collections.emptyList(), false) {
+                @Override
+                public void asyncPadding() {
+                }
+            };
+            ringBuffer.setBufferPaddingExecutor(paddingExecutor);
+        }
+
+        @TearDown
+        public void tearDown() {
+            paddingExecutor.shutdown();
+        }
+    }
+
+    @State(Scope.Group)
+    public static class SynchronizedState {
+
+        private final AtomicLong uid = new AtomicLong();
+        private SynchronizedRingBuffer ringBuffer;
+
+        @Setup
+        public void setup() {
+            ringBuffer = new SynchronizedRingBuffer(BUFFER_SIZE);
+        }
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(3)
+    public boolean lockFreePut(LockFreeState state) {
+        return state.ringBuffer.put(state.uid.incrementAndGet());
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(1)
+    public long lockFreeTake(LockFreeState state) {
+        RingBuffer ringBuffer = state.ringBuffer;
+        if (ringBuffer.getTail() > ringBuffer.getCursor()) {
+            return ringBuffer.take();
+        }
+        return -1L;
+    }
+
+    @Benchmark
+    @Group("lockFreeBatch")
+    @GroupThreads(3)
+    public boolean lockFreeBatchPut(LockFreeState state) {
+        return state.ringBuffer.put(state.uid.incrementAndGet());
+    }
+
+    @Benchmark
+    @Group("lockFreeBatch")
+    @GroupThreads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long[] lockFreeBatchTake(LockFreeState state) {
+        RingBuffer ringBuffer = state.ringBuffer;
+        if (ringBuffer.getTail() - ringBuffer.getCursor() >= BATCH_SIZE) {
+            return ringBuffer.take(BATCH_SIZE);
+        }
+        return null;
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public boolean synchronizedPut(SynchronizedState state) {
+        return state.ringBuffer.put(state.uid.incrementAndGet());
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public long synchronizedTake(SynchronizedState state) {
+        SynchronizedRingBuffer ringBuffer = state.ringBuffer;
+        if (ringBuffer.tail.get() > ringBuffer.cursor.get()) {
+            return ringBuffer.take();
+        }
+        return -1L;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RingBufferBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Former {@link RingBuffer}, producers serialize on the monitor. Padding and reject handlers are left out.
+     */
+    static class SynchronizedRingBuffer {
+
+        private static final int START_POINT = -1;
+        private static final long CAN_PUT_FLAG = 0L;
+        private static final long CAN_TAKE_FLAG = 1L;
+
+        private final int bufferSize;
+        private final long indexMask;
+        private final long[] slots;
+        private final PaddedAtomicLong[] flags;
+
+        private final AtomicLong tail = new PaddedAtomicLong(START_POINT);
+        private final AtomicLong cursor = new PaddedAtomicLong(START_POINT);
+
+        SynchronizedRingBuffer(int bufferSize) {
+            this.bufferSize = bufferSize;
+            this.indexMask = bufferSize - 1;
+            this.slots = new long[bufferSize];
+            this.flags = new PaddedAtomicLong[bufferSize];
+            for (int i = 0; i < bufferSize; i++) {
+                flags[i] = new PaddedAtomicLong(CAN_PUT_FLAG);
+            }
+        }
+
+        synchronized boolean put(long uid) {
+            long currentTail = tail.get();
+            long currentCursor = cursor.get();
+
+            long distance = currentTail - (currentCursor == START_POINT ? 0 : currentCursor);
+            if (distance == bufferSize - 1) {
+                return false;
+            }
+
+            int nextTailIndex = (int) ((currentTail + 1) & indexMask);
+            if (flags[nextTailIndex].get() != CAN_PUT_FLAG) {
+                return false;
+            }
+
+            slots[nextTailIndex] = uid;
+            flags[nextTailIndex].set(CAN_TAKE_FLAG);
+            tail.incrementAndGet();
+            return true;
+        }
+
+        long take() {
+            long currentCursor = cursor.get();
+            long nextCursor = cursor.updateAndGet(old -> old == tail.get() ? old : old + 1);
+            if (nextCursor == currentCursor) {
+                throw new IllegalStateException("Rejected take buffer");
+            }
+
+            int nextCursorIndex = (int) (nextCursor & indexMask);
+            if (flags[nextCursorIndex].get() != CAN_TAKE_FLAG) {
+                throw new IllegalStateException("Curosr not in can take status");
+            }
+
+            long uid = slots[nextCursorIndex];
+            flags[nextCursorIndex].set(CAN_PUT_FLAG);
+            return uid;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.system.snowflake.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    private static final int PRODUCERS = 2;
+    private static final int CONSUMERS = 6;
+    private static final long TOTAL = 200000L;
+
+    @Test
+    void concurrentTakeBatchNeverDuplicates() throws Exception {
+        RingBuffer ringBuffer = newRingBuffer();
+        Set<Long> uids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(ringBuffer, () -> {
+            while (uids.size() < TOTAL) {
+                for (long uid : ringBuffer.take(7)) {
+                    assertTrue(uids.add(uid), "uid taken twice: " + uid);
+                }
+            }
+            return null;
+        });
+
+        assertEquals(TOTAL, uids.size());
+    }
+
+    @Test
+    void concurrentTakeNeverDuplicates() throws Exception {
+        RingBuffer ringBuffer = newRingBuffer();
+        Set<Long> uids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(ringBuffer, () -> {
+            while (uids.size() < TOTAL) {
+                try {
+                    long uid = ringBuffer.take();
+                    assertTrue(uids.add(uid), "uid taken twice: " + uid);
+                } catch (IllegalStateException e) {
+                    // empty, wait for producers
+                }
+            }
+            return null;
+        });
+
+        assertEquals(TOTAL, uids.size());
+    }
+
+    private RingBuffer newRingBuffer() {
+        RingBuffer ringBuffer = new RingBuffer(1 << 10);
+        ringBuffer.setRejectedPutHandler((buffer, uid) -> {
+        });
+        ringBuffer.setRejectedTakeHandler(buffer -> {
+        });
+        // padding is driven by the producer threads of the test
+        ringBuffer.setBufferPaddingExecutor(new BufferPaddingExecutor(ringBuffer, second -> Collections.emptyList(), false) {
+            @Override
+            public void asyncPadding() {
+            }
+        });
+        return ringBuffer;
+    }
+
+    private void runConcurrently(RingBuffer ringBuffer, Callable<?> consumer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + CONSUMERS);
+        try {
+            AtomicLong next = new AtomicLong();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < PRODUCERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long uid;
+                    while ((uid = next.getAndIncrement()) < TOTAL) {
+                        while (ringBuffer.put(uid) == false) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < CONSUMERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return consumer.call();
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
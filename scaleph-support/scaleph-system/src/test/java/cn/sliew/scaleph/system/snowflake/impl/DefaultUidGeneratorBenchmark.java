@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.system.snowflake.impl;
+
+import cn.sliew.scaleph.system.snowflake.BitsAllocator;
+import cn.sliew.scaleph.system.snowflake.worker.WorkerIdAssigner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the CAS based {@link DefaultUidGenerator} with the former synchronized nextId.
+ * Sequence bits are widened to 30 so the benchmark measures contention instead of waiting for the next second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class DefaultUidGeneratorBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+
+    private DefaultUidGenerator generator;
+    private SynchronizedUidGenerator synchronizedGenerator;
+
+    @Setup
+    public void setup() throws Exception {
+        UidProperties properties = new UidProperties();
+        properties.setTimeBits(28);
+        properties.setWorkerBits(5);
+        properties.setSeqBits(30);
+
+        generator = new DefaultUidGenerator(properties);
+        generator.setWorkerIdAssigner(new WorkerIdAssigner() {
+            @Override
+            public long assignWorkerId() {
+                return 1L;
+            }
+
+            @Override
+            public long assignFakeWorkerId() {
+                return 2L;
+            }
+        });
+        generator.afterPropertiesSet();
+
+        synchronizedGenerator = new SynchronizedUidGenerator(properties, 1L);
+    }
+
+    @Benchmark
+    public long cas() throws Exception {
+        return generator.getUID();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long[] casBulk() throws Exception {
+        return generator.getUIDs(BATCH_SIZE);
+    }
+
+    @Benchmark
+    public long synchronizedNextId() {
+        return synchronizedGenerator.nextId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DefaultUidGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Former nextId of {@link DefaultUidGenerator}, clock backwards handling is left out.
+     */
+    static class SynchronizedUidGenerator {
+
+        private final UidProperties uidProperties;
+        private final BitsAllocator bitsAllocator;
+        private final long workerId;
+
+        private long sequence = 0L;
+        private long lastSecond = -1L;
+
+        SynchronizedUidGenerator(UidProperties uidProperties, long workerId) {
+            this.uidProperties = uidProperties;
+            this.bitsAllocator = new BitsAllocator(uidProperties.getTimeBits(), uidProperties.getWorkerBits(), uidProperties.getSeqBits());
+            this.workerId = workerId;
+        }
+
+        synchronized long nextId() {
+            long currentSecond = getCurrentSecond();
+            if (currentSecond == lastSecond) {
+                sequence = (sequence + 1) & bitsAllocator.getMaxSequence();
+                if (sequence == 0) {
+                    while (currentSecond <= lastSecond) {
+                        currentSecond = getCurrentSecond();
+                    }
+                }
+            } else {
+                sequence = 0L;
+            }
+
+            lastSecond = currentSecond;
+            return bitsAllocator.allocate(currentSecond - uidProperties.getEpochSeconds(), workerId, sequence);
+        }
+
+        private long getCurrentSecond() {
+            return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        }
+    }
+}
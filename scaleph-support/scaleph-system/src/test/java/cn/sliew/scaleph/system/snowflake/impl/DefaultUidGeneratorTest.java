@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.system.snowflake.impl;
+
+import cn.sliew.scaleph.system.snowflake.worker.WorkerIdAssigner;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultUidGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void uniqueUnderContention() throws Exception {
+        DefaultUidGenerator generator = newGenerator(17);
+        Set<Long> uids = ConcurrentHashMap.newKeySet();
+        int perThread = 20000;
+
+        runConcurrently(() -> {
+            for (int i = 0; i < perThread; i++) {
+                assertTrue(uids.add(generator.getUID()));
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * perThread, uids.size());
+    }
+
+    @Test
+    void bulkReservesContiguousRange() throws Exception {
+        DefaultUidGenerator generator = newGenerator(17);
+        Set<Long> uids = ConcurrentHashMap.newKeySet();
+        int rounds = 200;
+        int batch = 100;
+
+        runConcurrently(() -> {
+            for (int i = 0; i < rounds; i++) {
+                long[] range = generator.getUIDs(batch);
+                assertEquals(batch, range.length);
+                for (int j = 0; j < range.length; j++) {
+                    assertEquals(range[0] + j, range[j]);
+                    assertTrue(uids.add(range[j]));
+                }
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * rounds * batch, uids.size());
+    }
+
+    @Test
+    void cachedBulkUniqueUnderContention() throws Exception {
+        UidProperties properties = new UidProperties();
+        // 8192 sequences per second boosted to a ring of 65536, all UIDs of the test are padded up front
+        properties.setSeqBits(13);
+        CachedUidGenerator generator = new CachedUidGenerator(properties);
+        generator.setWorkerIdAssigner(new FixedWorkerIdAssigner());
+        generator.afterPropertiesSet();
+        try {
+            Set<Long> uids = ConcurrentHashMap.newKeySet();
+            int rounds = 200;
+            int batch = 37;
+
+            runConcurrently(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    long[] taken = generator.getUIDs(batch);
+                    assertEquals(batch, taken.length);
+                    for (long uid : taken) {
+                        assertTrue(uids.add(uid), "uid generated twice: " + uid);
+                    }
+                }
+                return null;
+            });
+
+            assertEquals(THREADS * rounds * batch, uids.size());
+        } finally {
+            generator.destroy();
+        }
+    }
+
+    @Test
+    void sequenceExhaustedMovesToNextSecond() throws Exception {
+        // 16 sequences per second
+        DefaultUidGenerator generator = newGenerator(4);
+        long[] uids = generator.getUIDs(20);
+
+        assertEquals(20, uids.length);
+        for (int i = 1; i < uids.length; i++) {
+            assertTrue(uids[i] > uids[i - 1]);
+        }
+        long firstSecond = uids[0] >>> (generator.bitsAllocator.getTimestampShift());
+        long lastSecond = uids[19] >>> (generator.bitsAllocator.getTimestampShift());
+        assertTrue(lastSecond > firstSecond);
+    }
+
+    @Test
+    void clockBackwardsSwitchFakeWorker() throws Exception {
+        UidProperties properties = new UidProperties();
+        properties.setSeqBits(17);
+        properties.setMaxBackwardSeconds(0L);
+        DefaultUidGenerator generator = new DefaultUidGenerator(properties);
+        generator.setWorkerIdAssigner(new FixedWorkerIdAssigner());
+        generator.afterPropertiesSet();
+
+        long uid = generator.getUID();
+        assertTrue(generator.parseUID(uid).contains("\"workerId\":\"1\""));
+
+        // move the epoch forward, so the clock looks like moving backwards
+        properties.setEpochSeconds(properties.getEpochSeconds() + 10);
+        uid = generator.getUID();
+        assertTrue(generator.parseUID(uid).contains("\"workerId\":\"2\""));
+    }
+
+    private DefaultUidGenerator newGenerator(int seqBits) {
+        UidProperties properties = new UidProperties();
+        properties.setSeqBits(seqBits);
+        DefaultUidGenerator generator = new DefaultUidGenerator(properties);
+        generator.setWorkerIdAssigner(new FixedWorkerIdAssigner());
+        try {
+            generator.afterPropertiesSet();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return generator;
+    }
+
+    private void runConcurrently(Callable<?> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class FixedWorkerIdAssigner implements WorkerIdAssigner {
+
+        @Override
+        public long assignWorkerId() {
+            return 1L;
+        }
+
+        @Override
+        public long assignFakeWorkerId() {
+            return 2L;
+        }
+    }
+}
@@ -57,7 +57,7 @@ public class ActionContext implements AttributeMap {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     private Date fireTime;
 
-    private ContainerPool containerPool = new ThreadContainerPool();
+    private ContainerPool containerPool = ThreadContainerPool.getDefault();
 
     @Getter(AccessLevel.NONE)
     @Setter(AccessLevel.NONE)
@@ -20,7 +20,6 @@ package cn.sliew.scaleph.workflow.engine.workflow;
 
 import cn.sliew.milky.common.constant.AttributeKey;
 import cn.sliew.milky.common.filter.ActionListener;
-import cn.sliew.scaleph.common.container.Container;
 import cn.sliew.scaleph.common.container.pool.ContainerPool;
 import cn.sliew.scaleph.common.container.pool.ContainerValue;
 import cn.sliew.scaleph.workflow.engine.action.ActionContext;
@@ -29,6 +28,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 public abstract class AbstractWorkFlow implements WorkFlow {
@@ -63,22 +63,50 @@ public abstract class AbstractWorkFlow implements WorkFlow {
             }
         }
 
-        final ContainerValue containerValue = getContainer(context);
+        runInContainer(getContainer(context), doExecute(context, listener), new ActionListener<Void>() {
+            @Override
+            public void onResponse(Void unused) {
+
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Container goes back to the pool once the task finished, or right away if the container throws
+     * before accepting the task.
+     */
+    protected void runInContainer(ContainerValue containerValue, Runnable task, ActionListener<Void> listener) {
+        final AtomicBoolean released = new AtomicBoolean(false);
+        final Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                containerValue.close();
+            }
+        };
+        boolean submitted = false;
         try {
-            Container container = containerValue.value();
-            container.execute(doExecute(context, listener), new ActionListener<Void>() {
+            containerValue.value().execute(task, new ActionListener<Void>() {
                 @Override
                 public void onResponse(Void unused) {
-
+                    release.run();
+                    listener.onResponse(unused);
                 }
 
                 @Override
                 public void onFailure(Exception e) {
+                    release.run();
                     listener.onFailure(e);
                 }
             });
+            submitted = true;
         } finally {
-            containerValue.close();
+            if (submitted == false) {
+                release.run();
+            }
         }
     }
 
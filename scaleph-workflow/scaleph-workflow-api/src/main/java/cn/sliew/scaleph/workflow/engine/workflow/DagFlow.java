@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.workflow.engine.workflow;
+
+import cn.sliew.milky.common.filter.ActionListener;
+import cn.sliew.scaleph.workflow.engine.action.*;
+import org.apache.commons.lang3.RandomStringUtils;
+
+import java.util.*;
+
+import static cn.sliew.milky.common.check.Ensures.checkArgument;
+
+/**
+ * Executes actions as a directed acyclic graph.
+ * An action is released to the {@link cn.sliew.scaleph.common.container.pool.ContainerPool} of
+ * {@link ActionContext} as soon as all of its upstream actions succeeded, at most {@code parallelism}
+ * actions in flight. Ready actions are ordered by their critical path, the largest sum of weights from
+ * the action to any sink, so long chains are started first and short branches fill the remaining slots.
+ * Downstream actions of a failed action are skipped and reported as failures.
+ */
+public class DagFlow extends AbstractWorkFlow {
+
+    private static final Comparator<Node> CRITICAL_PATH_FIRST =
+            Comparator.comparingLong((Node node) -> node.rank).reversed().thenComparingInt(node -> node.index);
+
+    private final List<Node> nodes;
+    private final int parallelism;
+
+    private DagFlow(String name, List<Node> nodes, int parallelism) {
+        super(name);
+        checkArgument(parallelism > 0, () -> "parallelism must be positive");
+        this.nodes = nodes;
+        this.parallelism = parallelism;
+        rank(sort(nodes));
+    }
+
+    /**
+     * Kahn's algorithm, fails on cycles.
+     */
+    private static List<Node> sort(List<Node> nodes) {
+        int[] inDegrees = new int[nodes.size()];
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node node : nodes) {
+            inDegrees[node.index] = node.upstreams.size();
+            if (inDegrees[node.index] == 0) {
+                queue.add(node);
+            }
+        }
+        List<Node> sorted = new ArrayList<>(nodes.size());
+        while (queue.isEmpty() == false) {
+            Node node = queue.poll();
+            sorted.add(node);
+            for (Node downstream : node.downstreams) {
+                if (--inDegrees[downstream.index] == 0) {
+                    queue.add(downstream);
+                }
+            }
+        }
+        checkArgument(sorted.size() == nodes.size(), () -> "workflow contains cycle");
+        return sorted;
+    }
+
+    private static void rank(List<Node> sorted) {
+        for (int i = sorted.size() - 1; i >= 0; i--) {
+            Node node = sorted.get(i);
+            long downstreamRank = 0L;
+            for (Node downstream : node.downstreams) {
+                downstreamRank = Math.max(downstreamRank, downstream.rank);
+            }
+            node.rank = node.weight + downstreamRank;
+        }
+    }
+
+    @Override
+    protected Runnable doExecute(ActionContext context, ActionListener<ActionResult> listener) {
+        return () -> {
+            try {
+                if (nodes.isEmpty()) {
+                    listener.onResponse(new ParallelActionResult(context, new ArrayList<>()));
+                    return;
+                }
+                new Execution(context, listener).start();
+            } catch (Exception e) {
+                listener.onFailure(e);
+            }
+        };
+    }
+
+    private class Execution {
+
+        private final ActionContext context;
+        private final ActionListener<ActionResult> listener;
+        private final ActionResult[] results = new ActionResult[nodes.size()];
+        private final int[] pendingUpstreams = new int[nodes.size()];
+        private final PriorityQueue<Node> ready = new PriorityQueue<>(CRITICAL_PATH_FIRST);
+        private int running;
+        private int finished;
+
+        private Execution(ActionContext context, ActionListener<ActionResult> listener) {
+            this.context = context;
+            this.listener = listener;
+            for (Node node : nodes) {
+                pendingUpstreams[node.index] = node.upstreams.size();
+                if (node.upstreams.isEmpty()) {
+                    ready.add(node);
+                }
+            }
+        }
+
+        private void start() {
+            schedule();
+        }
+
+        private void schedule() {
+            List<Node> launches = new ArrayList<>();
+            synchronized (this) {
+                while (running < parallelism && ready.isEmpty() == false) {
+                    launches.add(ready.poll());
+                    running++;
+                }
+            }
+            for (Node node : launches) {
+                dispatch(node);
+            }
+        }
+
+        private void dispatch(Node node) {
+            try {
+                runInContainer(context.getContainerPool().obtain(), () -> node.action.execute(context, new ActionListener<ActionResult>() {
+                    @Override
+                    public void onResponse(ActionResult result) {
+                        onComplete(node, result);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onComplete(node, new DefaultActionResult(ActionStatus.FAILURE, context, e));
+                    }
+                }), new ActionListener<Void>() {
+                    @Override
+                    public void onResponse(Void unused) {
+
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onComplete(node, new DefaultActionResult(ActionStatus.FAILURE, context, e));
+                    }
+                });
+            } catch (Exception e) {
+                // no container or rejected by it, the node never runs
+                onComplete(node, new DefaultActionResult(ActionStatus.FAILURE, context, e));
+            }
+        }
+
+        private void onComplete(Node node, ActionResult result) {
+            boolean done;
+            synchronized (this) {
+                if (results[node.index] != null) {
+                    return;
+                }
+                results[node.index] = result;
+                running--;
+                finished++;
+                if (result.getStatus() == ActionStatus.SUCCESS) {
+                    for (Node downstream : node.downstreams) {
+                        if (--pendingUpstreams[downstream.index] == 0) {
+                            ready.add(downstream);
+                        }
+                    }
+                } else {
+                    skipDownstreams(node);
+                }
+                done = finished == nodes.size();
+            }
+            if (done) {
+                List<ActionResult> collected = new ArrayList<>(Arrays.asList(results));
+                listener.onResponse(new ParallelActionResult(context, collected));
+            } else {
+                schedule();
+            }
+        }
+
+        private void skipDownstreams(Node failed) {
+            Deque<Node> queue = new ArrayDeque<>(failed.downstreams);
+            while (queue.isEmpty() == false) {
+                Node node = queue.poll();
+                if (results[node.index] != null) {
+                    continue;
+                }
+                results[node.index] = new DefaultActionResult(ActionStatus.FAILURE, context,
+                        new IllegalStateException(node.action.getName() + " skipped as upstream " + failed.action.getName() + " failed"));
+                finished++;
+                queue.addAll(node.downstreams);
+            }
+        }
+    }
+
+    private static class Node {
+
+        private final int index;
+        private final Action action;
+        private final long weight;
+        private final List<Node> upstreams = new ArrayList<>();
+        private final List<Node> downstreams = new ArrayList<>();
+        private long rank;
+
+        private Node(int index, Action action, long weight) {
+            this.index = index;
+            this.action = action;
+            this.weight = weight;
+        }
+    }
+
+    public static Builder newDagFlow() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private String name;
+        private int parallelism;
+        private final Map<String, Node> nodes;
+        private final List<String[]> edges;
+
+        private Builder() {
+            this.name = RandomStringUtils.randomAlphabetic(5);
+            this.parallelism = Integer.MAX_VALUE;
+            this.nodes = new LinkedHashMap<>();
+            this.edges = new ArrayList<>();
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder node(String key, Action action) {
+            return node(key, action, 1L);
+        }
+
+        /**
+         * @param weight estimated cost of the action, used for critical path priority
+         */
+        public Builder node(String key, Action action, long weight) {
+            checkArgument(nodes.containsKey(key) == false, () -> "duplicate node: " + key);
+            checkArgument(weight >= 0L, () -> "weight must not be negative");
+            nodes.put(key, new Node(nodes.size(), action, weight));
+            return this;
+        }
+
+        public Builder edge(String upstream, String downstream) {
+            edges.add(new String[]{upstream, downstream});
+            return this;
+        }
+
+        public WorkFlow build() {
+            for (String[] edge : edges) {
+                Node upstream = nodes.get(edge[0]);
+                Node downstream = nodes.get(edge[1]);
+                checkArgument(upstream != null, () -> "unknown upstream node: " + edge[0]);
+                checkArgument(downstream != null, () -> "unknown downstream node: " + edge[1]);
+                if (upstream.downstreams.contains(downstream) == false) {
+                    upstream.downstreams.add(downstream);
+                    downstream.upstreams.add(upstream);
+                }
+            }
+            return new DagFlow(name, new ArrayList<>(nodes.values()), parallelism);
+        }
+    }
+}
@@ -25,42 +25,139 @@ import org.apache.commons.lang3.RandomStringUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import static cn.sliew.milky.common.check.Ensures.checkArgument;
+
+/**
+ * Dispatches actions concurrently on the {@link cn.sliew.scaleph.common.container.pool.ContainerPool}
+ * of {@link ActionContext}, at most {@code parallelism} actions in flight.
+ * When {@code failFast} is enabled, the first failure completes the flow and pending actions
+ * are never dispatched, otherwise results of all actions are collected in declaration order.
+ */
 public class ParallelFlow extends AbstractWorkFlow {
 
     private final List<Action> actions = new ArrayList<>();
+    private final int parallelism;
+    private final boolean failFast;
 
     public ParallelFlow(String name, List<Action> actions) {
+        this(name, actions, Integer.MAX_VALUE, false);
+    }
+
+    public ParallelFlow(String name, List<Action> actions, int parallelism, boolean failFast) {
         super(name);
+        checkArgument(parallelism > 0, () -> "parallelism must be positive");
         this.actions.addAll(actions);
+        this.parallelism = parallelism;
+        this.failFast = failFast;
     }
 
     @Override
     protected Runnable doExecute(ActionContext context, ActionListener<ActionResult> listener) {
         return () -> {
             try {
-                List<ActionResult> results = new ArrayList<>(actions.size());
-                for (Action action : actions) {
-                    action.execute(context, new ActionListener<ActionResult>() {
-                        @Override
-                        public void onResponse(ActionResult result) {
-                            results.add(result);
-                        }
-
-                        @Override
-                        public void onFailure(Exception e) {
-                            results.add(new DefaultActionResult(ActionStatus.FAILURE, context, e));
-                        }
-                    });
+                if (actions.isEmpty()) {
+                    listener.onResponse(new ParallelActionResult(context, new ArrayList<>()));
+                    return;
                 }
-                listener.onResponse(new ParallelActionResult(context, results));
+                new Execution(context, listener).start();
             } catch (Exception e) {
                 listener.onFailure(e);
             }
         };
     }
 
+    private class Execution {
+
+        private final ActionContext context;
+        private final ActionListener<ActionResult> listener;
+        private final AtomicReferenceArray<ActionResult> results = new AtomicReferenceArray<>(actions.size());
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining = new AtomicInteger(actions.size());
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        private Execution(ActionContext context, ActionListener<ActionResult> listener) {
+            this.context = context;
+            this.listener = listener;
+        }
+
+        private void start() {
+            int lanes = Math.min(parallelism, actions.size());
+            for (int i = 0; i < lanes; i++) {
+                dispatchNext();
+            }
+        }
+
+        private void dispatchNext() {
+            if (completed.get()) {
+                return;
+            }
+            int index = next.getAndIncrement();
+            if (index >= actions.size()) {
+                return;
+            }
+            Action action = actions.get(index);
+            try {
+                runInContainer(context.getContainerPool().obtain(), () -> action.execute(context, new ActionListener<ActionResult>() {
+                    @Override
+                    public void onResponse(ActionResult result) {
+                        onComplete(index, result);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onComplete(index, new DefaultActionResult(ActionStatus.FAILURE, context, e));
+                    }
+                }), new ActionListener<Void>() {
+                    @Override
+                    public void onResponse(Void unused) {
+
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onComplete(index, new DefaultActionResult(ActionStatus.FAILURE, context, e));
+                    }
+                });
+            } catch (Exception e) {
+                // no container or rejected by it, the action never runs
+                onComplete(index, new DefaultActionResult(ActionStatus.FAILURE, context, e));
+            }
+        }
+
+        private void onComplete(int index, ActionResult result) {
+            if (results.compareAndSet(index, null, result) == false) {
+                return;
+            }
+            if (failFast && result.getStatus() == ActionStatus.FAILURE) {
+                finish();
+                return;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            } else {
+                dispatchNext();
+            }
+        }
+
+        private void finish() {
+            if (completed.compareAndSet(false, true) == false) {
+                return;
+            }
+            List<ActionResult> collected = new ArrayList<>(actions.size());
+            for (int i = 0; i < results.length(); i++) {
+                ActionResult result = results.get(i);
+                if (result != null) {
+                    collected.add(result);
+                }
+            }
+            listener.onResponse(new ParallelActionResult(context, collected));
+        }
+    }
+
     public static Builder newParallelFlow() {
         return new Builder();
     }
@@ -69,10 +166,14 @@ public class ParallelFlow extends AbstractWorkFlow {
 
         private String name;
         private final List<Action> actions;
+        private int parallelism;
+        private boolean failFast;
 
         private Builder() {
             this.name = RandomStringUtils.randomAlphabetic(5);
             this.actions = new ArrayList<>();
+            this.parallelism = Integer.MAX_VALUE;
+            this.failFast = false;
         }
 
         public Builder name(String name) {
@@ -85,8 +186,18 @@ public class ParallelFlow extends AbstractWorkFlow {
             return this;
         }
 
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder failFast(boolean failFast) {
+            this.failFast = failFast;
+            return this;
+        }
+
         public WorkFlow build() {
-            return new ParallelFlow(name, actions);
+            return new ParallelFlow(name, actions, parallelism, failFast);
         }
     }
 
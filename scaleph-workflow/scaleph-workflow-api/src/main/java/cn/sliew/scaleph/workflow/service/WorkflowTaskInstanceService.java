@@ -27,4 +27,9 @@ public interface WorkflowTaskInstanceService {
     Page<WorkflowTaskInstanceDTO> list(WorkflowTaskInstanceListParam param);
 
     WorkflowTaskInstanceDTO get(Long id);
+
+    /**
+     * 最近几次成功执行的平均耗时，单位秒，没有成功执行记录时返回 null
+     */
+    Long averageDuration(Long workflowTaskDefinitionId);
 }
@@ -24,6 +24,7 @@ import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -45,6 +46,9 @@ public class WorkflowTaskDefinitionDTO extends BaseDTO {
     @ApiModelProperty("workflow task param")
     private Map<String, Object> param;
 
+    @ApiModelProperty("upstream workflow task definition ids")
+    private List<Long> upstreams;
+
     @ApiModelProperty("备注")
     private String remark;
 
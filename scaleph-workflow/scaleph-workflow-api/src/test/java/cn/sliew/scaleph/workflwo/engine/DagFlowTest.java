@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.workflwo.engine;
+
+import cn.sliew.milky.common.constant.AttributeKey;
+import cn.sliew.milky.common.filter.ActionListener;
+import cn.sliew.scaleph.workflow.engine.action.*;
+import cn.sliew.scaleph.workflow.engine.workflow.DagFlow;
+import cn.sliew.scaleph.workflow.engine.workflow.WorkFlow;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DagFlowTest {
+
+    @Test
+    void respectDependencies() throws Exception {
+        Queue<String> trace = new ConcurrentLinkedQueue<>();
+        WorkFlow workFlow = DagFlow.newDagFlow()
+                .node("a", new FakeAction("a", 50L, false, trace))
+                .node("b", new FakeAction("b", 50L, false, trace))
+                .node("c", new FakeAction("c", 50L, false, trace))
+                .node("d", new FakeAction("d", 50L, false, trace))
+                .edge("a", "b")
+                .edge("a", "c")
+                .edge("b", "d")
+                .edge("c", "d")
+                .build();
+
+        ActionResult result = run(workFlow);
+
+        assertEquals(ActionStatus.SUCCESS, result.getStatus());
+        List<String> order = List.copyOf(trace);
+        assertEquals("a", order.get(0));
+        assertEquals("d", order.get(3));
+    }
+
+    @Test
+    void wideGraphRunsConcurrently() throws Exception {
+        DagFlow.Builder builder = DagFlow.newDagFlow().parallelism(4);
+        for (int i = 0; i < 4; i++) {
+            builder.node("task-" + i, new FakeAction("task-" + i, 300L, false, new ConcurrentLinkedQueue<>()));
+        }
+
+        long start = System.nanoTime();
+        ActionResult result = run(builder.build());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ActionStatus.SUCCESS, result.getStatus());
+        assertTrue(elapsed < 900L, "independent tasks should overlap, elapsed: " + elapsed);
+    }
+
+    @Test
+    void criticalPathFirst() throws Exception {
+        Queue<String> trace = new ConcurrentLinkedQueue<>();
+        WorkFlow workFlow = DagFlow.newDagFlow()
+                .parallelism(1)
+                .node("short", new FakeAction("short", 10L, false, trace), 1L)
+                .node("long-1", new FakeAction("long-1", 10L, false, trace), 5L)
+                .node("long-2", new FakeAction("long-2", 10L, false, trace), 5L)
+                .edge("long-1", "long-2")
+                .build();
+
+        run(workFlow);
+
+        assertEquals(List.of("long-1", "long-2", "short"), List.copyOf(trace));
+    }
+
+    @Test
+    void skipDownstreamsOfFailure() throws Exception {
+        Queue<String> trace = new ConcurrentLinkedQueue<>();
+        WorkFlow workFlow = DagFlow.newDagFlow()
+                .node("a", new FakeAction("a", 10L, true, trace))
+                .node("b", new FakeAction("b", 10L, false, trace))
+                .node("c", new FakeAction("c", 10L, false, trace))
+                .edge("a", "b")
+                .build();
+
+        ActionResult result = run(workFlow);
+
+        assertEquals(ActionStatus.FAILURE, result.getStatus());
+        assertFalse(trace.contains("b"));
+        assertTrue(trace.contains("c"));
+    }
+
+    @Test
+    void rejectCycle() {
+        assertThrows(IllegalArgumentException.class, () -> DagFlow.newDagFlow()
+                .node("a", new FakeAction("a", 0L, false, new ConcurrentLinkedQueue<>()))
+                .node("b", new FakeAction("b", 0L, false, new ConcurrentLinkedQueue<>()))
+                .edge("a", "b")
+                .edge("b", "a")
+                .build());
+    }
+
+    @Test
+    void releaseContainerWhenExecuteThrows() {
+        RejectingContainerPool pool = new RejectingContainerPool(0);
+        ActionContext context = new ActionContext();
+        context.setContainerPool(pool);
+        WorkFlow workFlow = DagFlow.newDagFlow()
+                .node("a", new FakeAction("a", 0L, false, new ConcurrentLinkedQueue<>()))
+                .build();
+
+        assertThrows(RejectedExecutionException.class, () -> workFlow.execute(context, new ActionListener<ActionResult>() {
+            @Override
+            public void onResponse(ActionResult result) {
+
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+
+            }
+        }));
+        assertEquals(1, pool.obtained.get());
+        assertEquals(1, pool.released.get());
+    }
+
+    @Test
+    void failNodesRejectedByContainer() throws Exception {
+        // the flow and node a get a container, c is rejected at start and b from the callback of a
+        RejectingContainerPool pool = new RejectingContainerPool(2);
+        ActionContext context = new ActionContext();
+        context.setContainerPool(pool);
+        Queue<String> trace = new ConcurrentLinkedQueue<>();
+        WorkFlow workFlow = DagFlow.newDagFlow()
+                .node("a", new FakeAction("a", 10L, false, trace), 5L)
+                .node("b", new FakeAction("b", 10L, false, trace), 5L)
+                .node("c", new FakeAction("c", 10L, false, trace), 1L)
+                .edge("a", "b")
+                .build();
+
+        ActionResult result = run(workFlow, context);
+
+        assertEquals(ActionStatus.FAILURE, result.getStatus());
+        assertEquals(List.of("a"), List.copyOf(trace));
+        assertTrue(result.getCause() instanceof RejectedExecutionException);
+        assertEquals(4, pool.obtained.get());
+        assertTrue(pool.awaitReleased(4));
+    }
+
+    private ActionResult run(WorkFlow workFlow) throws Exception {
+        return run(workFlow, new ActionContext());
+    }
+
+    private ActionResult run(WorkFlow workFlow, ActionContext context) throws Exception {
+        CompletableFuture<ActionResult> future = new CompletableFuture<>();
+        workFlow.execute(context, new ActionListener<ActionResult>() {
+            @Override
+            public void onResponse(ActionResult result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future.get(10L, TimeUnit.SECONDS);
+    }
+
+    private static class FakeAction implements Action {
+
+        private final String name;
+        private final long duration;
+        private final boolean failure;
+        private final Queue<String> trace;
+
+        FakeAction(String name, long duration, boolean failure, Queue<String> trace) {
+            this.name = name;
+            this.duration = duration;
+            this.failure = failure;
+            this.trace = trace;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public List<AttributeKey> getInputs() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<AttributeKey> getOutputs() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void execute(ActionContext context, ActionListener<ActionResult> listener) {
+            trace.add(name);
+            try {
+                Thread.sleep(duration);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure) {
+                listener.onFailure(new IllegalStateException(name + " failure"));
+            } else {
+                listener.onResponse(new DefaultActionResult(ActionStatus.SUCCESS, context));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.workflwo.engine;
+
+import cn.sliew.milky.common.constant.AttributeKey;
+import cn.sliew.milky.common.filter.ActionListener;
+import cn.sliew.scaleph.workflow.engine.action.*;
+import cn.sliew.scaleph.workflow.engine.workflow.ParallelFlow;
+import cn.sliew.scaleph.workflow.engine.workflow.WorkFlow;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelFlowTest {
+
+    @Test
+    void executeConcurrently() throws Exception {
+        WorkFlow workFlow = ParallelFlow.newParallelFlow()
+                .name("parallel")
+                .execute(new SleepAction("a", 300L, false), new SleepAction("b", 300L, false), new SleepAction("c", 300L, false))
+                .build();
+
+        long start = System.nanoTime();
+        ActionResult result = run(workFlow);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ActionStatus.SUCCESS, result.getStatus());
+        assertTrue(elapsed < 800L, "actions should overlap, elapsed: " + elapsed);
+    }
+
+    @Test
+    void boundedParallelism() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Action[] actions = new Action[6];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = new SleepAction("action-" + i, 100L, false) {
+                @Override
+                public void execute(ActionContext context, ActionListener<ActionResult> listener) {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    super.execute(context, new ActionListener<ActionResult>() {
+                        @Override
+                        public void onResponse(ActionResult result) {
+                            running.decrementAndGet();
+                            listener.onResponse(result);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            running.decrementAndGet();
+                            listener.onFailure(e);
+                        }
+                    });
+                }
+            };
+        }
+        WorkFlow workFlow = ParallelFlow.newParallelFlow().execute(actions).parallelism(2).build();
+
+        ActionResult result = run(workFlow);
+
+        assertEquals(ActionStatus.SUCCESS, result.getStatus());
+        assertTrue(peak.get() <= 2, "peak parallelism: " + peak.get());
+    }
+
+    @Test
+    void failFast() throws Exception {
+        SleepAction slow = new SleepAction("slow", 2000L, false);
+        WorkFlow workFlow = ParallelFlow.newParallelFlow()
+                .execute(new SleepAction("failure", 50L, true), slow)
+                .failFast(true)
+                .build();
+
+        long start = System.nanoTime();
+        ActionResult result = run(workFlow);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ActionStatus.FAILURE, result.getStatus());
+        assertNotNull(result.getCause());
+        assertTrue(elapsed < 1500L, "first failure should short-circuit, elapsed: " + elapsed);
+    }
+
+    @Test
+    void collectAll() throws Exception {
+        WorkFlow workFlow = ParallelFlow.newParallelFlow()
+                .execute(new SleepAction("failure", 50L, true), new SleepAction("success", 200L, false))
+                .build();
+
+        ActionResult result = run(workFlow);
+
+        assertEquals(ActionStatus.FAILURE, result.getStatus());
+    }
+
+    @Test
+    void failActionsRejectedByContainer() throws Exception {
+        // the flow and the first action get a container, the others are rejected
+        RejectingContainerPool pool = new RejectingContainerPool(2);
+        ActionContext context = new ActionContext();
+        context.setContainerPool(pool);
+        WorkFlow workFlow = ParallelFlow.newParallelFlow()
+                .execute(new SleepAction("a", 50L, false), new SleepAction("b", 0L, false), new SleepAction("c", 0L, false))
+                .parallelism(1)
+                .build();
+
+        ActionResult result = run(workFlow, context);
+
+        assertEquals(ActionStatus.FAILURE, result.getStatus());
+        assertTrue(result.getCause() instanceof RejectedExecutionException);
+        assertEquals(4, pool.obtained.get());
+        assertTrue(pool.awaitReleased(4));
+    }
+
+    private ActionResult run(WorkFlow workFlow) throws Exception {
+        return run(workFlow, new ActionContext());
+    }
+
+    private ActionResult run(WorkFlow workFlow, ActionContext context) throws Exception {
+        CompletableFuture<ActionResult> future = new CompletableFuture<>();
+        workFlow.execute(context, new ActionListener<ActionResult>() {
+            @Override
+            public void onResponse(ActionResult result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future.get(10L, TimeUnit.SECONDS);
+    }
+
+    private static class SleepAction implements Action {
+
+        private final String name;
+        private final long millis;
+        private final boolean failure;
+
+        SleepAction(String name, long millis, boolean failure) {
+            this.name = name;
+            this.millis = millis;
+            this.failure = failure;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public List<AttributeKey> getInputs() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<AttributeKey> getOutputs() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void execute(ActionContext context, ActionListener<ActionResult> listener) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure) {
+                listener.onFailure(new IllegalStateException(name + " failure"));
+            } else {
+                listener.onResponse(new DefaultActionResult(ActionStatus.SUCCESS, context));
+            }
+        }
+    }
+}
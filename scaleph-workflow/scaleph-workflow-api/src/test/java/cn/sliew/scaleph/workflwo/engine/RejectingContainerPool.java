@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.sliew.scaleph.workflwo.engine;
+
+import cn.sliew.scaleph.common.container.Container;
+import cn.sliew.scaleph.common.container.ThreadContainer;
+import cn.sliew.scaleph.common.container.pool.ContainerPool;
+import cn.sliew.scaleph.common.container.pool.ContainerPoolStats;
+import cn.sliew.scaleph.common.container.pool.ContainerValue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out {@code accepted} working containers, every later container rejects its task.
+ */
+class RejectingContainerPool implements ContainerPool {
+
+    private final int accepted;
+    final AtomicInteger obtained = new AtomicInteger();
+    final AtomicInteger released = new AtomicInteger();
+
+    RejectingContainerPool(int accepted) {
+        this.accepted = accepted;
+    }
+
+    @Override
+    public ContainerValue obtain() {
+        Container container;
+        if (obtained.incrementAndGet() <= accepted) {
+            container = new ThreadContainer(ForkJoinPool.commonPool());
+        } else {
+            container = new ThreadContainer(command -> {
+                throw new RejectedExecutionException("rejected");
+            });
+        }
+        return new ContainerValue() {
+            @Override
+            public Container value() {
+                return container;
+            }
+
+            @Override
+            public boolean isRecycled() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+                released.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Containers of finished tasks are released after the flow listener is called.
+     */
+    boolean awaitReleased(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (released.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        return released.get() == count;
+    }
+
+    @Override
+    public ContainerPoolStats getStats() {
+        return new ContainerPoolStats();
+    }
+}
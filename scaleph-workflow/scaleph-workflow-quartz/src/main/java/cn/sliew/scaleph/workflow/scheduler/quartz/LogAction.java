@@ -21,6 +21,8 @@ package cn.sliew.scaleph.workflow.scheduler.quartz;
 import cn.sliew.milky.common.filter.ActionListener;
 import cn.sliew.scaleph.workflow.engine.action.ActionContext;
 import cn.sliew.scaleph.workflow.engine.action.ActionResult;
+import cn.sliew.scaleph.workflow.engine.action.ActionStatus;
+import cn.sliew.scaleph.workflow.engine.action.DefaultActionResult;
 import cn.sliew.scaleph.workflow.engine.workflow.AbstractWorkFlow;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -35,6 +37,9 @@ public class LogAction extends AbstractWorkFlow {
 
     @Override
     protected Runnable doExecute(ActionContext context, ActionListener<ActionResult> listener) {
-        return () -> log.info("Log Action execute!");
+        return () -> {
+            log.info("Log Action execute!");
+            listener.onResponse(new DefaultActionResult(ActionStatus.SUCCESS, context));
+        };
     }
 }
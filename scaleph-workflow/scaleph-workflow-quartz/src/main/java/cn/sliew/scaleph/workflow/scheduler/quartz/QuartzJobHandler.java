@@ -28,11 +28,12 @@ import cn.sliew.scaleph.workflow.engine.EngineBuilder;
 import cn.sliew.scaleph.workflow.engine.action.Action;
 import cn.sliew.scaleph.workflow.engine.action.ActionContext;
 import cn.sliew.scaleph.workflow.engine.action.ActionResult;
-import cn.sliew.scaleph.workflow.engine.workflow.ParallelFlow;
+import cn.sliew.scaleph.workflow.engine.workflow.DagFlow;
 import cn.sliew.scaleph.workflow.engine.workflow.WorkFlow;
 import cn.sliew.scaleph.workflow.service.WorkflowDefinitionService;
 import cn.sliew.scaleph.workflow.service.WorkflowInstanceService;
 import cn.sliew.scaleph.workflow.service.WorkflowTaskDefinitionService;
+import cn.sliew.scaleph.workflow.service.WorkflowTaskInstanceService;
 import cn.sliew.scaleph.workflow.service.dto.WorkflowDefinitionDTO;
 import cn.sliew.scaleph.workflow.service.dto.WorkflowInstanceDTO;
 import cn.sliew.scaleph.workflow.service.dto.WorkflowTaskDefinitionDTO;
@@ -41,14 +42,20 @@ import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 public class QuartzJobHandler extends QuartzJobBean {
 
+    private static final String PARALLELISM = "parallelism";
+    private static final String WEIGHT = "weight";
+
     private Engine engine = EngineBuilder.newInstance().build();
 
     @Autowired
@@ -57,6 +64,11 @@ public class QuartzJobHandler extends QuartzJobBean {
     private WorkflowInstanceService workflowInstanceService;
     @Autowired
     private WorkflowTaskDefinitionService workflowTaskDefinitionService;
+    @Autowired
+    private WorkflowTaskInstanceService workflowTaskInstanceService;
+
+    @Value("${app.workflow.parallelism:8}")
+    private int parallelism;
 
     /**
      * 路由分发任务
@@ -73,20 +85,7 @@ public class QuartzJobHandler extends QuartzJobBean {
         WorkflowInstanceDTO workflowInstanceDTO = workflowInstanceService.start(workflowDefinitionDTO.getId());
         ActionContext actionContext = buildActionContext(context, workflowDefinitionDTO, workflowInstanceDTO);
         List<WorkflowTaskDefinitionDTO> workflowTaskDefinitionDTOS = workflowTaskDefinitionService.list(workflowDefinitionDTO.getId());
-        // 应该是对 task 的上下游关系进行梳理后，进而执行
-        Action[] actions = workflowTaskDefinitionDTOS.stream().map(workflowTaskDefinition -> {
-            try {
-                Class<?> clazz = ClassUtils.forName(workflowTaskDefinition.getHandler(), ClassUtils.getDefaultClassLoader());
-                return (Action) SpringApplicationContextUtil.getBean(clazz);
-            } catch (ClassNotFoundException e) {
-                Rethrower.throwAs(e);
-                return null;
-            }
-        }).toArray(length -> new Action[length]);
-        WorkFlow workFlow = ParallelFlow.newParallelFlow()
-                .name(workflowDefinitionDTO.getName())
-                .execute(actions)
-                .build();
+        WorkFlow workFlow = buildWorkFlow(workflowDefinitionDTO, workflowTaskDefinitionDTOS);
         engine.run(workFlow, actionContext, new ActionListener<ActionResult>() {
             @Override
             public void onResponse(ActionResult result) {
@@ -100,6 +99,61 @@ public class QuartzJobHandler extends QuartzJobBean {
         });
     }
 
+    /**
+     * tasks without upstreams start immediately, others wait for all of their upstreams.
+     * at most {@code parallelism} tasks run at the same time, workflow param overrides the configured value
+     */
+    private WorkFlow buildWorkFlow(WorkflowDefinitionDTO workflowDefinitionDTO, List<WorkflowTaskDefinitionDTO> workflowTaskDefinitionDTOS) {
+        Long workflowParallelism = getLong(workflowDefinitionDTO.getParam(), PARALLELISM);
+        DagFlow.Builder builder = DagFlow.newDagFlow()
+                .name(workflowDefinitionDTO.getName())
+                .parallelism(workflowParallelism != null ? workflowParallelism.intValue() : parallelism);
+        for (WorkflowTaskDefinitionDTO workflowTaskDefinition : workflowTaskDefinitionDTOS) {
+            builder.node(String.valueOf(workflowTaskDefinition.getId()), getAction(workflowTaskDefinition), getWeight(workflowTaskDefinition));
+        }
+        for (WorkflowTaskDefinitionDTO workflowTaskDefinition : workflowTaskDefinitionDTOS) {
+            if (CollectionUtils.isEmpty(workflowTaskDefinition.getUpstreams())) {
+                continue;
+            }
+            for (Long upstream : workflowTaskDefinition.getUpstreams()) {
+                builder.edge(String.valueOf(upstream), String.valueOf(workflowTaskDefinition.getId()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * task param weight, otherwise average seconds of recent successful runs
+     */
+    private long getWeight(WorkflowTaskDefinitionDTO workflowTaskDefinition) {
+        Long weight = getLong(workflowTaskDefinition.getParam(), WEIGHT);
+        if (weight == null) {
+            weight = workflowTaskInstanceService.averageDuration(workflowTaskDefinition.getId());
+        }
+        return weight != null ? Math.max(weight, 1L) : 1L;
+    }
+
+    private Long getLong(Map<String, Object> param, String key) {
+        if (CollectionUtils.isEmpty(param) || param.get(key) == null) {
+            return null;
+        }
+        Object value = param.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.valueOf(value.toString());
+    }
+
+    private Action getAction(WorkflowTaskDefinitionDTO workflowTaskDefinition) {
+        try {
+            Class<?> clazz = ClassUtils.forName(workflowTaskDefinition.getHandler(), ClassUtils.getDefaultClassLoader());
+            return (Action) SpringApplicationContextUtil.getBean(clazz);
+        } catch (ClassNotFoundException e) {
+            Rethrower.throwAs(e);
+            return null;
+        }
+    }
+
     private ActionContext buildActionContext(JobExecutionContext context, WorkflowDefinitionDTO definitionDTO, WorkflowInstanceDTO instanceDTO) {
         return ActionContextBuilder.newBuilder()
                 .withWorkflowDefinitionId(definitionDTO.getId())
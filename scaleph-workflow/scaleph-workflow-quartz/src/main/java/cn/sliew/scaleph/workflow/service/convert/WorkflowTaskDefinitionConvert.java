@@ -30,6 +30,7 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
 import java.util.Map;
 
 @Mapper(uses = {}, unmappedTargetPolicy = ReportingPolicy.IGNORE)
@@ -43,6 +44,9 @@ public interface WorkflowTaskDefinitionConvert extends BaseConvert<WorkflowTaskD
         if (CollectionUtils.isEmpty(dto.getParam()) == false) {
             entity.setParam(JacksonUtil.toJsonString(dto.getParam()));
         }
+        if (CollectionUtils.isEmpty(dto.getUpstreams()) == false) {
+            entity.setUpstreams(JacksonUtil.toJsonString(dto.getUpstreams()));
+        }
         return entity;
     }
 
@@ -53,6 +57,9 @@ public interface WorkflowTaskDefinitionConvert extends BaseConvert<WorkflowTaskD
         if (StringUtils.hasText(entity.getParam())) {
             dto.setParam(JacksonUtil.parseJsonString(entity.getParam(), new TypeReference<Map<String, Object>>() {}));
         }
+        if (StringUtils.hasText(entity.getUpstreams())) {
+            dto.setUpstreams(JacksonUtil.parseJsonString(entity.getUpstreams(), new TypeReference<List<Long>>() {}));
+        }
         return dto;
     }
 }
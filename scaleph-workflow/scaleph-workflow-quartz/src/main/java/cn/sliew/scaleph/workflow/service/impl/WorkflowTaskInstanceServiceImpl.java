@@ -18,6 +18,7 @@
 
 package cn.sliew.scaleph.workflow.service.impl;
 
+import cn.sliew.scaleph.common.dict.workflow.WorkflowInstanceState;
 import cn.sliew.scaleph.dao.entity.master.workflow.WorkflowTaskInstance;
 import cn.sliew.scaleph.dao.entity.master.workflow.WorkflowTaskInstanceVO;
 import cn.sliew.scaleph.dao.mapper.master.workflow.WorkflowTaskInstanceMapper;
@@ -36,6 +37,8 @@ import static cn.sliew.milky.common.check.Ensures.checkState;
 @Service
 public class WorkflowTaskInstanceServiceImpl implements WorkflowTaskInstanceService {
 
+    private static final int DURATION_SAMPLES = 10;
+
     @Autowired
     private WorkflowTaskInstanceMapper workflowTaskInstanceMapper;
 
@@ -55,4 +58,10 @@ public class WorkflowTaskInstanceServiceImpl implements WorkflowTaskInstanceServ
         checkState(vo != null, () -> "workflow task instance not exists for id: " + id);
         return WorkflowTaskInstanceVOConvert.INSTANCE.toDto(vo);
     }
+
+    @Override
+    public Long averageDuration(Long workflowTaskDefinitionId) {
+        Double duration = workflowTaskInstanceMapper.averageDuration(workflowTaskDefinitionId, WorkflowInstanceState.SUCCESS.getValue(), DURATION_SAMPLES);
+        return duration == null ? null : Math.round(duration);
+    }
 }
@@ -78,6 +78,7 @@ CREATE TABLE `workflow_task_definition`
     `name`                   VARCHAR(255) NOT NULL,
     `handler`                VARCHAR(255) NOT NULL,
     `param`                  TEXT,
+    `upstreams`              VARCHAR(255) COMMENT 'json array of upstream workflow task definition ids',
     `remark`                 VARCHAR(255),
     `creator`                VARCHAR(32),
     `create_time`            DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -140,6 +140,7 @@ CREATE TABLE ws_flink_cluster_config
     cluster_credential_id bigint       not null comment '集群凭证id',
     kubernetes_options    text comment 'k8s 配置',
     config_options        text comment 'flink集群配置',
+    warm_pool_size        int          not null default 0 comment '预热的空闲 session 集群数量',
     remark                varchar(255) comment '备注',
     creator               varchar(32) comment '创建人',
     create_time           timestamp default current_timestamp comment '创建时间',
@@ -159,6 +160,9 @@ CREATE TABLE ws_flink_cluster_instance
     cluster_id              varchar(64) comment 'flink集群内部id',
     web_interface_url       varchar(255) comment 'WEB UI',
     status                  varchar(4) comment '集群状态',
+    pooled                  varchar(4)   not null default '0' comment '是否由预热池创建',
+    lease_time              datetime comment '预热池分配集群的时间',
+    idle_time               datetime comment '预热池集群开始空闲的时间',
     creator                 varchar(32) comment '创建人',
     create_time             timestamp default current_timestamp comment '创建时间',
     editor                  varchar(32) comment '修改人',
@@ -168,6 +172,21 @@ CREATE TABLE ws_flink_cluster_instance
     KEY idx_name (name)
 ) ENGINE = INNODB COMMENT = 'flink cluster instance';
 
+DROP TABLE IF EXISTS ws_flink_session_pool;
+CREATE TABLE ws_flink_session_pool
+(
+    id                      bigint not null auto_increment comment '自增主键',
+    flink_cluster_config_id bigint not null comment 'flink集群配置id',
+    owner                   varchar(64) comment '维护预热池的节点',
+    heartbeat_time          datetime comment '节点心跳时间',
+    creator                 varchar(32) comment '创建人',
+    create_time             timestamp default current_timestamp comment '创建时间',
+    editor                  varchar(32) comment '修改人',
+    update_time             timestamp default current_timestamp on update current_timestamp comment '修改时间',
+    PRIMARY KEY (id),
+    UNIQUE KEY uniq_flink_cluster_config (flink_cluster_config_id)
+) ENGINE = INNODB COMMENT = 'flink session 集群预热池';
+
 drop table if exists ws_flink_artifact;
 create table ws_flink_artifact
 (
@@ -274,6 +293,29 @@ CREATE TABLE ws_flink_job_log
     UNIQUE KEY uniq_job (flink_job_code, job_id)
 ) ENGINE = INNODB COMMENT = 'flink作业日志';
 
+DROP TABLE IF EXISTS ws_flink_job_submission;
+CREATE TABLE ws_flink_job_submission
+(
+    id             bigint      not null auto_increment comment '自增主键',
+    flink_job_id   bigint      not null comment 'flink作业id',
+    flink_job_code bigint      not null comment 'flink作业编码',
+    job_name       varchar(64) not null comment '作业名称',
+    stage          varchar(16) not null comment '提交阶段',
+    stages         text comment '阶段变更记录',
+    message        text comment '失败信息',
+    start_time     datetime comment '开始时间',
+    end_time       datetime comment '结束时间',
+    owner          varchar(64) comment '执行提交的节点',
+    heartbeat_time datetime comment '节点心跳时间',
+    creator        varchar(32) comment '创建人',
+    create_time    timestamp default current_timestamp comment '创建时间',
+    editor         varchar(32) comment '修改人',
+    update_time    timestamp default current_timestamp on update current_timestamp comment '修改时间',
+    PRIMARY KEY (id),
+    KEY idx_flink_job (flink_job_code),
+    KEY idx_stage (stage, owner)
+) ENGINE = INNODB COMMENT = 'flink作业提交记录';
+
 DROP TABLE IF EXISTS ws_flink_checkpoint;
 CREATE TABLE ws_flink_checkpoint
 (